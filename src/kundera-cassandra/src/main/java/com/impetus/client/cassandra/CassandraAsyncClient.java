@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.cassandra;
+
+import java.util.List;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * Non blocking variant of client operations, obtained through
+ * <code>entityManager.unwrap(CassandraAsyncClient.class)</code>. Operations
+ * run on a bounded executor shared by the persistence unit, each worker
+ * thread using its own client over the shared connection pools. Returned
+ * entities are detached.
+ */
+public interface CassandraAsyncClient
+{
+    /**
+     * Finds entity by row key.
+     * 
+     * @param entityClass
+     * @param key
+     * @return future of the entity, holding null if not found.
+     */
+    <E> ListenableFuture<E> findAsync(Class<E> entityClass, Object key);
+
+    /**
+     * Finds entities by row keys.
+     * 
+     * @param entityClass
+     * @param keys
+     * @return future of found entities.
+     */
+    <E> ListenableFuture<List<E>> findAllAsync(Class<E> entityClass, Object... keys);
+
+    /**
+     * Writes entity and its index, relations and entity listeners are not
+     * processed.
+     * 
+     * @param entity
+     * @return future of the written entity.
+     */
+    <E> ListenableFuture<E> persistAsync(E entity);
+
+    /**
+     * Executes native CQL query.
+     * 
+     * @param entityClass
+     *            class of the entities returned.
+     * @param cqlQuery
+     * @return future of found entities.
+     */
+    <E> ListenableFuture<List<E>> executeQueryAsync(Class<E> entityClass, String cqlQuery);
+}
@@ -19,11 +19,13 @@ import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Field;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 
 import javassist.Modifier;
 
@@ -51,10 +53,11 @@ import org.apache.cassandra.thrift.IndexExpression;
 import org.apache.cassandra.thrift.IndexType;
 import org.apache.cassandra.thrift.InvalidRequestException;
 import org.apache.cassandra.thrift.KeySlice;
-import org.apache.cassandra.thrift.KsDef;
 import org.apache.cassandra.thrift.Mutation;
 import org.apache.cassandra.thrift.NotFoundException;
 import org.apache.cassandra.thrift.SchemaDisagreementException;
+import org.apache.cassandra.thrift.SlicePredicate;
+import org.apache.cassandra.thrift.SliceRange;
 import org.apache.cassandra.thrift.SuperColumn;
 import org.apache.cassandra.thrift.TimedOutException;
 import org.apache.cassandra.thrift.UnavailableException;
@@ -67,15 +70,24 @@ import org.scale7.cassandra.pelops.pool.IThriftPool.IPooledConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.impetus.client.cassandra.common.BatchMutationException;
+import com.impetus.client.cassandra.common.BatchMutationExecutor;
+import com.impetus.client.cassandra.common.CassandraAsyncExecutor;
 import com.impetus.client.cassandra.common.CassandraConstants;
 import com.impetus.client.cassandra.common.CassandraUtilities;
+import com.impetus.client.cassandra.common.CounterAggregator;
+import com.impetus.client.cassandra.common.TokenRangeScanner;
 import com.impetus.client.cassandra.config.CassandraPropertyReader;
 import com.impetus.client.cassandra.datahandler.CassandraDataHandler;
 import com.impetus.client.cassandra.schemamanager.CassandraValidationClassMapper;
+import com.impetus.client.cassandra.schemamanager.KeyspaceSnapshot;
+import com.impetus.client.cassandra.thrift.CQLStatementCache;
 import com.impetus.client.cassandra.thrift.CQLTranslator;
 import com.impetus.client.cassandra.thrift.CQLTranslator.TranslationType;
 import com.impetus.client.cassandra.thrift.ThriftClientFactory.Connection;
 import com.impetus.client.cassandra.thrift.ThriftDataResultHelper;
+import com.impetus.client.cassandra.thrift.ThriftDataResultHelper.ColumnFamilyType;
 import com.impetus.client.cassandra.thrift.ThriftRow;
 import com.impetus.kundera.Constants;
 import com.impetus.kundera.KunderaException;
@@ -88,6 +100,7 @@ import com.impetus.kundera.db.DataRow;
 import com.impetus.kundera.db.RelationHolder;
 import com.impetus.kundera.db.SearchResult;
 import com.impetus.kundera.graph.Node;
+import com.impetus.kundera.graph.ObjectGraphUtils;
 import com.impetus.kundera.lifecycle.states.RemovedState;
 import com.impetus.kundera.metadata.KunderaMetadataManager;
 import com.impetus.kundera.metadata.model.EntityMetadata;
@@ -107,7 +120,7 @@ import com.impetus.kundera.property.PropertyAccessorHelper;
  * 
  * @author amresh.singh
  */
-public abstract class CassandraClientBase extends ClientBase implements ClientPropertiesSetter
+public abstract class CassandraClientBase extends ClientBase implements ClientPropertiesSetter, CassandraAsyncClient
 {
 
     /** log for this class. */
@@ -138,6 +151,17 @@ public abstract class CassandraClientBase extends ClientBase implements ClientPr
 
     protected CQLClient cqlClient;
 
+    /** prepared statements of this persistence unit, null if disabled. */
+    private CQLStatementCache statementCache;
+
+    /** splits and sends batch mutations, null to send them as is. */
+    private BatchMutationExecutor batchMutationExecutor;
+
+    /** runs asynchronous operations of this client. */
+    private CassandraAsyncExecutor asyncExecutor;
+
+    private CounterAggregator counterAggregator;
+
     /**
      * constructor using fields.
      * 
@@ -457,46 +481,22 @@ public abstract class CassandraClientBase extends ClientBase implements ClientPr
             Cassandra.Client api = null;
             pooledConnection = getConection();
             api = getConnection(pooledConnection);
-            KsDef ksDef = api.describe_keyspace(m.getSchema());
-            List<CfDef> cfDefs = ksDef.getCf_defs();
-
             // Column family definition on which secondary index creation is
-            // required
-            CfDef columnFamilyDefToUpdate = null;
-            boolean isUpdatable = false;
-            // boolean isNew=false;
-
-            for (CfDef cfDef : cfDefs)
+            // required, described again only if not known yet.
+            KeyspaceSnapshot snapshot = KeyspaceSnapshot.get(m.getSchema());
+            if (snapshot == null || !snapshot.hasColumnFamily(tableName))
             {
-                if (cfDef.getName().equals(tableName))
-                {
-                    columnFamilyDefToUpdate = cfDef;
-                    // isNew=false;
-                    break;
-                }
+                snapshot = KeyspaceSnapshot.describe(api, m.getSchema());
             }
+            CfDef columnFamilyDefToUpdate = snapshot.getColumnFamily(tableName);
+            boolean isUpdatable = false;
 
             if (columnFamilyDefToUpdate == null)
             {
                 log.error("Join table {} not available.", tableName);
                 throw new PersistenceException("table" + tableName + " not found!");
             }
-            // create a column family, in case it is not already available.
-
-            // Get list of indexes already created
-            List<ColumnDef> columnMetadataList = columnFamilyDefToUpdate.getColumn_metadata();
-            List<String> indexList = new ArrayList<String>();
-
-            if (columnMetadataList != null)
-            {
-                for (ColumnDef columnDef : columnMetadataList)
-                {
-                    indexList.add(Bytes.toUTF8(columnDef.getName()));
-                }
-                // need to set them to null else it is giving problem on update
-                // column family and trying to add again existing indexes.
-                // columnFamilyDefToUpdate.column_metadata = null;
-            }
+            columnFamilyDefToUpdate = new CfDef(columnFamilyDefToUpdate);
 
             // Iterate over all columns for creating secondary index on them
             for (Column column : columns)
@@ -511,7 +511,7 @@ public abstract class CassandraClientBase extends ClientBase implements ClientPr
                 // Add secondary index only if it's not already created
                 // (if already created, it would be there in column family
                 // definition)
-                if (!indexList.contains(Bytes.toUTF8(column.getName())))
+                if (snapshot.getColumn(tableName, Bytes.toUTF8(column.getName())) == null)
                 {
                     isUpdatable = true;
                     columnFamilyDefToUpdate.addToColumn_metadata(columnDef);
@@ -525,6 +525,7 @@ public abstract class CassandraClientBase extends ClientBase implements ClientPr
                 columnFamilyDefToUpdate.setKey_validation_class(CassandraValidationClassMapper.getValidationClass(m
                         .getIdAttribute().getJavaType(), isCql3Enabled(m)));
                 api.system_update_column_family(columnFamilyDefToUpdate);
+                snapshot.put(columnFamilyDefToUpdate);
             }
 
         }
@@ -568,15 +569,99 @@ public abstract class CassandraClientBase extends ClientBase implements ClientPr
      *            the row ids
      * @return the list
      */
-    public <E> List<E> findAll(Class<E> entityClass, String[] columnsToSelect, Object... rowIds)
+    public <E> List<E> findAll(final Class<E> entityClass, String[] columnsToSelect, Object... rowIds)
     {
         EntityMetadata entityMetadata = KunderaMetadataManager.getEntityMetadata(entityClass);
+        int chunkSize = Math.max(1,
+                CassandraUtilities.getFindAllChunkSize(entityMetadata.getPersistenceUnit(), getExternalProperties()));
+
+        List<Object[]> chunks = new ArrayList<Object[]>();
+        for (int from = 0; from < rowIds.length; from += chunkSize)
+        {
+            Object[] chunk = new Object[Math.min(chunkSize, rowIds.length - from)];
+            System.arraycopy(rowIds, from, chunk, 0, chunk.length);
+            chunks.add(chunk);
+        }
+
         List<E> results = new ArrayList<E>();
-        results = find(entityClass, entityMetadata.getRelationNames(), entityMetadata.getRelationNames() != null
-                && !entityMetadata.getRelationNames().isEmpty(), entityMetadata, rowIds);
+        if (chunks.size() > 1 && asyncExecutor != null && !asyncExecutor.isWorkerThread())
+        {
+            // first chunk is read by this thread, while workers read the rest.
+            List<ListenableFuture<List<E>>> futures = new ArrayList<ListenableFuture<List<E>>>(chunks.size() - 1);
+            for (final Object[] chunk : chunks.subList(1, chunks.size()))
+            {
+                futures.add(asyncExecutor.submit(new CassandraAsyncExecutor.Operation<List<E>>()
+                {
+                    @Override
+                    public List<E> execute(Client client)
+                    {
+                        return ((CassandraClientBase) client).findChunk(entityClass, chunk);
+                    }
+                }));
+            }
+            results.addAll(findChunk(entityClass, chunks.get(0)));
+            for (ListenableFuture<List<E>> future : futures)
+            {
+                try
+                {
+                    results.addAll(future.get());
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new KunderaException(e);
+                }
+                catch (ExecutionException e)
+                {
+                    if (e.getCause() instanceof RuntimeException)
+                    {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw new KunderaException(e.getCause());
+                }
+            }
+        }
+        else
+        {
+            for (Object[] chunk : chunks)
+            {
+                results.addAll(findChunk(entityClass, chunk));
+            }
+        }
         return results.isEmpty() ? null : results;
     }
 
+    /**
+     * Finds entities of one chunk of row keys, with a single IN query on CQL3
+     * tables and a multiget otherwise.
+     * 
+     * @param entityClass
+     *            the entity class
+     * @param rowIds
+     *            the row ids
+     * @return found entities, never null.
+     */
+    private <E> List<E> findChunk(Class<E> entityClass, Object[] rowIds)
+    {
+        EntityMetadata entityMetadata = KunderaMetadataManager.getEntityMetadata(entityClass);
+        List<String> relationNames = entityMetadata.getRelationNames();
+        MetamodelImpl metaModel = (MetamodelImpl) KunderaMetadata.INSTANCE.getApplicationMetadata().getMetamodel(
+                entityMetadata.getPersistenceUnit());
+
+        List results;
+        if (isCql3Enabled(entityMetadata)
+                && !metaModel.isEmbeddable(entityMetadata.getIdAttribute().getBindableJavaType()))
+        {
+            results = cqlClient.findAll(entityMetadata, relationNames, rowIds);
+        }
+        else
+        {
+            results = find(entityClass, relationNames, relationNames != null && !relationNames.isEmpty(),
+                    entityMetadata, rowIds);
+        }
+        return results != null ? results : new ArrayList<E>(0);
+    }
+
     /**
      * Find.
      * 
@@ -890,14 +975,30 @@ public abstract class CassandraClientBase extends ClientBase implements ClientPr
      */
     protected String createInsertQuery(EntityMetadata entityMetadata, Object entity, Cassandra.Client cassandra_client,
             List<RelationHolder> rlHolders, Object ttlColumns)
+    {
+        return createInsertQuery(entityMetadata, entity, rlHolders, ttlColumns, null);
+    }
+
+    /**
+     * Return insert query string for given entity, with bind markers in place
+     * of values if <code>bindValues</code> is given.
+     * 
+     * @param bindValues
+     *            list to collect values into, null to inline values.
+     * @return insert query, or null if values were to be bound but some could
+     *         not.
+     */
+    private String createInsertQuery(EntityMetadata entityMetadata, Object entity, List<RelationHolder> rlHolders,
+            Object ttlColumns, List<Object> bindValues)
     {
         CQLTranslator translator = new CQLTranslator();
+        translator.setBindValues(bindValues);
         String insert_Query = translator.INSERT_QUERY;
 
         insert_Query = StringUtils.replace(insert_Query, CQLTranslator.COLUMN_FAMILY,
                 translator.ensureCase(new StringBuilder(), entityMetadata.getTableName(), false).toString());
         HashMap<TranslationType, String> translation = translator.prepareColumnOrColumnValues(entity, entityMetadata,
-                TranslationType.ALL, externalProperties);
+                TranslationType.ALL, externalProperties, dirtyAttributes);
 
         String columnNames = translation.get(TranslationType.COLUMN);
         String columnValues = translation.get(TranslationType.VALUE);
@@ -909,8 +1010,16 @@ public abstract class CassandraClientBase extends ClientBase implements ClientPr
             columnNameBuilder.append(",");
             columnValueBuilder.append(",");
             translator.appendColumnName(columnNameBuilder, rl.getRelationName());
-            translator.appendValue(columnValueBuilder, rl.getRelationValue().getClass(), rl.getRelationValue(), true,
-                    false);
+            if (!translator.bindValue(columnValueBuilder, rl.getRelationValue().getClass(), rl.getRelationValue()))
+            {
+                translator.appendValue(columnValueBuilder, rl.getRelationValue().getClass(), rl.getRelationValue(),
+                        true, false);
+            }
+        }
+
+        if (translator.hasInlinedValues())
+        {
+            return null;
         }
 
         translation.put(TranslationType.COLUMN, columnNameBuilder.toString());
@@ -921,7 +1030,7 @@ public abstract class CassandraClientBase extends ClientBase implements ClientPr
         insert_Query = StringUtils
                 .replace(insert_Query, CQLTranslator.COLUMNS, translation.get(TranslationType.COLUMN));
 
-        if (log.isInfoEnabled())
+        if (log.isInfoEnabled() && bindValues == null)
         {
             log.info("Returning cql query {}.", insert_Query);
         }
@@ -1035,10 +1144,25 @@ public abstract class CassandraClientBase extends ClientBase implements ClientPr
      */
     public void close()
     {
-        clear();
-        setCqlVersion(CassandraConstants.CQL_VERSION_2_0);
-        closed = true;
-        externalProperties = null;
+        try
+        {
+            if (counterAggregator != null)
+            {
+                counterAggregator.flush();
+            }
+        }
+        catch (RuntimeException e)
+        {
+            // Increments are kept by aggregator and written by its next flush.
+            log.warn("Error while flushing counters on close, Caused by: {}.", e.getMessage());
+        }
+        finally
+        {
+            clear();
+            setCqlVersion(CassandraConstants.CQL_VERSION_2_0);
+            closed = true;
+            externalProperties = null;
+        }
     }
 
     /**
@@ -1377,6 +1501,7 @@ public abstract class CassandraClientBase extends ClientBase implements ClientPr
                     EntityMetadata metadata = KunderaMetadataManager.getEntityMetadata(node.getDataClass());
                     persistenceUnit = metadata.getPersistenceUnit();
                     isUpdate = node.isUpdate();
+                    dirtyAttributes = getDirtyAttributes(node, metadata);
 
                     MetamodelImpl metaModel = (MetamodelImpl) KunderaMetadata.INSTANCE.getApplicationMetadata()
                             .getMetamodel(metadata.getPersistenceUnit());
@@ -1413,13 +1538,17 @@ public abstract class CassandraClientBase extends ClientBase implements ClientPr
                             mutationMap = prepareMutation(metadata, entity, id, relationHolders, mutationMap);
 
                             recordsExecuted += mutationMap.size();
-                            if (!batchMutationMap.containsKey(metadata.getEntityClazz()))
+                            prepareIndexMutation(metadata, entity, mutationMap);
+                            // counters taken by counter aggregator leave no
+                            // mutations.
+                            if (!mutationMap.isEmpty() && !batchMutationMap.containsKey(metadata.getEntityClazz()))
                             {
                                 batchMutationMap.put(metadata.getEntityClazz(), mutationMap);
                             }
-                            else
+                            else if (!mutationMap.isEmpty())
                             {
-                                batchMutationMap.get(metadata.getEntityClazz()).putAll(mutationMap);
+                                // index rows may be shared by entities.
+                                mergeMutations(batchMutationMap.get(metadata.getEntityClazz()), mutationMap);
                             }
 
                             indexNode(node, metadata);
@@ -1431,7 +1560,12 @@ public abstract class CassandraClientBase extends ClientBase implements ClientPr
 
             // Write Mutation map to database
 
-            if (!batchMutationMap.isEmpty())
+            if (!batchMutationMap.isEmpty() && batchMutationExecutor != null)
+            {
+                batchMutationExecutor.execute(groupByHost(mergeMutations(batchMutationMap)), consistencyLevel,
+                        newConnectionProvider());
+            }
+            else if (!batchMutationMap.isEmpty())
             {
                 pooledConnection = getConection();
                 conn = getConnection(pooledConnection);
@@ -1449,6 +1583,11 @@ public abstract class CassandraClientBase extends ClientBase implements ClientPr
                 executeCQLQuery(batchQueryBuilder.toString(), isCql3Enabled);
             }
         }
+        catch (BatchMutationException e)
+        {
+            log.error("Error while persisting record. Caused by: .", e);
+            throw e;
+        }
         catch (Exception e)
         {
             log.error("Error while persisting record. Caused by: .", e);
@@ -1466,6 +1605,206 @@ public abstract class CassandraClientBase extends ClientBase implements ClientPr
         return recordsExecuted;
     }
 
+    /**
+     * Merges mutation maps of all entity classes of a batch into one.
+     * 
+     * @param batchMutationMap
+     *            entity class to mutation map.
+     * @return row key to mutation map.
+     */
+    private Map<ByteBuffer, Map<String, List<Mutation>>> mergeMutations(
+            Map<Class<?>, Map<ByteBuffer, Map<String, List<Mutation>>>> batchMutationMap)
+    {
+        Map<ByteBuffer, Map<String, List<Mutation>>> merged = new HashMap<ByteBuffer, Map<String, List<Mutation>>>();
+        for (Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap : batchMutationMap.values())
+        {
+            mergeMutations(merged, mutationMap);
+        }
+        return merged;
+    }
+
+    /**
+     * Adds mutations of one mutation map to another, rows present in both
+     * get mutations of both.
+     * 
+     * @param merged
+     *            mutation map to add to.
+     * @param mutationMap
+     *            mutation map to add.
+     */
+    private void mergeMutations(Map<ByteBuffer, Map<String, List<Mutation>>> merged,
+            Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap)
+    {
+        for (Map.Entry<ByteBuffer, Map<String, List<Mutation>>> row : mutationMap.entrySet())
+        {
+            Map<String, List<Mutation>> columnFamilies = merged.get(row.getKey());
+            if (columnFamilies == null)
+            {
+                merged.put(row.getKey(), row.getValue());
+                continue;
+            }
+            for (Map.Entry<String, List<Mutation>> columnFamily : row.getValue().entrySet())
+            {
+                List<Mutation> mutations = columnFamilies.get(columnFamily.getKey());
+                if (mutations == null)
+                {
+                    columnFamilies.put(columnFamily.getKey(), columnFamily.getValue());
+                }
+                else
+                {
+                    mutations.addAll(columnFamily.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Groups rows of a batch by the host they are written through. By default
+     * all rows go through one group, see {@link #getConnectionForHost(Object)}.
+     * 
+     * @param mutationMap
+     *            row key to mutation map.
+     * @return host to mutation map.
+     */
+    protected Map<Object, Map<ByteBuffer, Map<String, List<Mutation>>>> groupByHost(
+            Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap)
+    {
+        return Collections.<Object, Map<ByteBuffer, Map<String, List<Mutation>>>> singletonMap(null, mutationMap);
+    }
+
+    /**
+     * Hands out this client's pooled connections to executor threads.
+     * 
+     * @return connection provider.
+     */
+    private BatchMutationExecutor.ConnectionProvider newConnectionProvider()
+    {
+        return new BatchMutationExecutor.ConnectionProvider()
+        {
+            @Override
+            public Object getConnection(Object host)
+            {
+                return getConnectionForHost(host);
+            }
+
+            @Override
+            public Cassandra.Client getClient(Object connection)
+            {
+                return CassandraClientBase.this.getConnection(connection);
+            }
+
+            @Override
+            public void releaseConnection(Object connection)
+            {
+                CassandraClientBase.this.releaseConnection(connection);
+            }
+        };
+    }
+
+    /**
+     * Starts a full scan of entity's column family, reading token ranges of
+     * the ring in parallel. Pages of rows returned by the scanner are turned
+     * into entities with {@link #fromKeySlices(EntityMetadata, List)}.
+     * 
+     * @param m
+     *            the entity metadata
+     * @param columns
+     *            columns to read, all if null or empty.
+     * @return started scanner, to be closed if not read till the end.
+     */
+    public TokenRangeScanner scan(EntityMetadata m, List<String> columns)
+    {
+        SlicePredicate slicePredicate = new SlicePredicate();
+        if (columns != null && !columns.isEmpty())
+        {
+            List<ByteBuffer> columnNames = new ArrayList<ByteBuffer>(columns.size());
+            for (String colName : columns)
+            {
+                if (colName != null)
+                {
+                    columnNames.add(ByteBufferUtil.bytes(colName));
+                }
+            }
+            slicePredicate.setColumn_names(columnNames);
+        }
+        else
+        {
+            slicePredicate.setSlice_range(new SliceRange(Bytes.EMPTY.getBytes(), Bytes.EMPTY.getBytes(), false,
+                    Integer.MAX_VALUE));
+        }
+
+        TokenRangeScanner scanner = CassandraUtilities.createTokenRangeScanner(m.getPersistenceUnit(),
+                getExternalProperties(), m.getSchema(), new ColumnParent(m.getTableName()), slicePredicate,
+                getConsistencyLevel(), newConnectionProvider());
+        scanner.start();
+        return scanner;
+    }
+
+    /**
+     * Populates entities of rows read by get_range_slices.
+     * 
+     * @param m
+     *            the entity metadata
+     * @param keySlices
+     *            the rows
+     * @return entities, wrapped in {@link EnhanceEntity} if entity holds
+     *         relations.
+     */
+    public List<Object> fromKeySlices(EntityMetadata m, List<KeySlice> keySlices)
+    {
+        List<String> relations = m.getRelationNames();
+        boolean isRelation = relations != null && !relations.isEmpty();
+        if (m.isCounterColumnType())
+        {
+            return onCounterColumn(m, isRelation, relations, keySlices);
+        }
+
+        List<Object> entities = new ArrayList<Object>(keySlices.size());
+        if (m.getType().isSuperColumnFamilyMetadata())
+        {
+            Map<Bytes, List<SuperColumn>> qResults = ThriftDataResultHelper.transformThriftResult(
+                    ColumnFamilyType.SUPER_COLUMN, keySlices, null);
+            computeEntityViaSuperColumns(m, isRelation, relations, entities, qResults);
+        }
+        else
+        {
+            Map<Bytes, List<Column>> qResults = ThriftDataResultHelper.transformThriftResult(ColumnFamilyType.COLUMN,
+                    keySlices, null);
+            computeEntityViaColumns(m, isRelation, relations, entities, qResults);
+        }
+        return entities;
+    }
+
+    /**
+     * Adds mutations of entity's index rows to its mutation map, to be written
+     * together with entity's row. Does nothing by default, as indexes are
+     * written by {@link #indexNode(Node, EntityMetadata)}.
+     * 
+     * @param entityMetadata
+     *            the entity metadata
+     * @param entity
+     *            the entity
+     * @param mutationMap
+     *            the mutation map
+     */
+    protected void prepareIndexMutation(EntityMetadata entityMetadata, Object entity,
+            Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap)
+    {
+    }
+
+    /**
+     * Returns pooled connection of a host returned by
+     * {@link #groupByHost(Map)}.
+     * 
+     * @param host
+     *            the host
+     * @return pooled connection.
+     */
+    protected Object getConnectionForHost(Object host)
+    {
+        return getConection();
+    }
+
     /**
      * Prepare mutation.
      * 
@@ -1504,7 +1843,7 @@ public abstract class CassandraClientBase extends ClientBase implements ClientPr
         {
             String columnFamily = entityMetadata.getTableName();
             tf = getDataHandler().toThriftRow(entity, id, entityMetadata, columnFamily,
-                    getTtlValues().get(columnFamily));
+                    getTtlValues().get(columnFamily), dirtyAttributes);
         }
         catch (Exception e)
         {
@@ -1521,7 +1860,11 @@ public abstract class CassandraClientBase extends ClientBase implements ClientPr
 
         /*********** Handling for counter column family ************/
 
-        if (entityMetadata.isCounterColumnType())
+        if (aggregateCounters(entityMetadata, tf))
+        {
+            return mutationMap;
+        }
+        else if (entityMetadata.isCounterColumnType())
         {
             List<CounterColumn> thriftCounterColumns = tf.getCounterColumns();
             List<CounterSuperColumn> thriftCounterSuperColumns = tf.getCounterSuperColumns();
@@ -1584,6 +1927,67 @@ public abstract class CassandraClientBase extends ClientBase implements ClientPr
         return mutationMap;
     }
 
+    /**
+     * Hands counter columns of a counter entity's row over to counter
+     * aggregator, if one is configured.
+     * 
+     * @param entityMetadata
+     *            the entity metadata
+     * @param tf
+     *            thrift row of entity
+     * @return true, if counters are written later by counter aggregator.
+     */
+    protected boolean aggregateCounters(EntityMetadata entityMetadata, ThriftRow tf)
+    {
+        if (counterAggregator == null || !entityMetadata.isCounterColumnType())
+        {
+            return false;
+        }
+        Bytes rowKey = CassandraUtilities.toBytes(tf.getId(), entityMetadata.getIdAttribute().getBindableJavaType());
+        counterAggregator.add(entityMetadata.getTableName(), rowKey.getBytes(), tf.getCounterColumns(),
+                tf.getCounterSuperColumns());
+        return true;
+    }
+
+    /**
+     * Writes given mutations with a single batch_mutate call.
+     * 
+     * @param mutationMap
+     *            mutations by row key and column family.
+     */
+    public void batchMutate(Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap)
+    {
+        Object pooledConnection = getConection();
+        try
+        {
+            getConnection(pooledConnection).batch_mutate(mutationMap, getConsistencyLevel());
+        }
+        catch (InvalidRequestException e)
+        {
+            log.error("Error while writing batch of {} rows, Caused by: .", mutationMap.size(), e);
+            throw new KunderaException(e);
+        }
+        catch (UnavailableException e)
+        {
+            log.error("Error while writing batch of {} rows, Caused by: .", mutationMap.size(), e);
+            throw new KunderaException(e);
+        }
+        catch (TimedOutException e)
+        {
+            log.error("Error while writing batch of {} rows, Caused by: .", mutationMap.size(), e);
+            throw new KunderaException(e);
+        }
+        catch (TException e)
+        {
+            log.error("Error while writing batch of {} rows, Caused by: .", mutationMap.size(), e);
+            throw new KunderaException(e);
+        }
+        finally
+        {
+            releaseConnection(pooledConnection);
+        }
+    }
+
     /**
      * Check on batch limit.
      */
@@ -1740,6 +2144,202 @@ public abstract class CassandraClientBase extends ClientBase implements ClientPr
         }
     }
 
+    /**
+     * Executes cql3 statement as prepared statement, binding given values.
+     * 
+     * @param cqlQuery
+     *            statement with bind markers
+     * @param bindValues
+     *            values in marker order
+     * @return result, or null if values could not be bound, in which case
+     *         statement is to be executed with inlined values.
+     */
+    protected CqlResult executeCQLQuery(String cqlQuery, List<Object> bindValues) throws InvalidRequestException,
+            UnavailableException, TimedOutException, SchemaDisagreementException, TException
+    {
+        Object pooledConnection = getConection();
+        Cassandra.Client conn = getConnection(pooledConnection);
+        try
+        {
+            return statementCache.execute(conn, cqlQuery, bindValues, consistencyLevel);
+        }
+        finally
+        {
+            releaseConnection(pooledConnection);
+        }
+    }
+
+    /**
+     * @return true, if cql3 statements are executed as prepared statements.
+     */
+    protected boolean isStatementCacheEnabled()
+    {
+        return statementCache != null && statementCache.isEnabled();
+    }
+
+    /**
+     * Sets prepared statements cache, shared by all clients of a persistence
+     * unit.
+     * 
+     * @param statementCache
+     *            the statement cache
+     */
+    protected void setStatementCache(CQLStatementCache statementCache)
+    {
+        this.statementCache = statementCache;
+    }
+
+    /**
+     * Sets executor splitting batch mutations, shared by all clients of a
+     * persistence unit.
+     * 
+     * @param batchMutationExecutor
+     *            the batch mutation executor
+     */
+    protected void setBatchMutationExecutor(BatchMutationExecutor batchMutationExecutor)
+    {
+        this.batchMutationExecutor = batchMutationExecutor;
+    }
+
+    /**
+     * Sets executor of asynchronous operations, shared by all clients of a
+     * persistence unit.
+     * 
+     * @param asyncExecutor
+     *            the async executor
+     */
+    protected void setAsyncExecutor(CassandraAsyncExecutor asyncExecutor)
+    {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    /**
+     * Sets aggregator of counter increments, shared by all clients of a
+     * persistence unit.
+     * 
+     * @param counterAggregator
+     *            the counter aggregator
+     */
+    protected void setCounterAggregator(CounterAggregator counterAggregator)
+    {
+        this.counterAggregator = counterAggregator;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * com.impetus.client.cassandra.CassandraAsyncClient#findAsync(java.lang
+     * .Class, java.lang.Object)
+     */
+    @Override
+    public <E> ListenableFuture<E> findAsync(final Class<E> entityClass, final Object key)
+    {
+        return getAsyncExecutor().submit(new CassandraAsyncExecutor.Operation<E>()
+        {
+            @Override
+            public E execute(Client client)
+            {
+                return entityClass.cast(client.find(entityClass, key));
+            }
+        });
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * com.impetus.client.cassandra.CassandraAsyncClient#findAllAsync(java.lang
+     * .Class, java.lang.Object[])
+     */
+    @Override
+    public <E> ListenableFuture<List<E>> findAllAsync(final Class<E> entityClass, final Object... keys)
+    {
+        return getAsyncExecutor().submit(new CassandraAsyncExecutor.Operation<List<E>>()
+        {
+            @Override
+            public List<E> execute(Client client)
+            {
+                return client.findAll(entityClass, null, keys);
+            }
+        });
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * com.impetus.client.cassandra.CassandraAsyncClient#persistAsync(java.lang
+     * .Object)
+     */
+    @Override
+    public <E> ListenableFuture<E> persistAsync(final E entity)
+    {
+        EntityMetadata metadata = KunderaMetadataManager.getEntityMetadata(entity.getClass());
+        Object id = PropertyAccessorHelper.getId(entity, metadata);
+        final Node node = new Node(ObjectGraphUtils.getNodeId(id, entity.getClass()), entity.getClass(), null, null,
+                id);
+        node.setData(entity);
+        return getAsyncExecutor().submit(new CassandraAsyncExecutor.Operation<E>()
+        {
+            @Override
+            public E execute(Client client)
+            {
+                client.persist(node);
+                return entity;
+            }
+        });
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * com.impetus.client.cassandra.CassandraAsyncClient#executeQueryAsync(java
+     * .lang.Class, java.lang.String)
+     */
+    @Override
+    public <E> ListenableFuture<List<E>> executeQueryAsync(final Class<E> entityClass, final String cqlQuery)
+    {
+        return getAsyncExecutor().submit(new CassandraAsyncExecutor.Operation<List<E>>()
+        {
+            @Override
+            public List<E> execute(Client client)
+            {
+                return ((CassandraClientBase) client).executeQuery(cqlQuery, entityClass, null);
+            }
+        });
+    }
+
+    /**
+     * Submits an operation to be run over a client of executor's pool.
+     * 
+     * @param operation
+     *            the operation
+     * @return future result of the operation.
+     */
+    public <T> ListenableFuture<T> submit(CassandraAsyncExecutor.Operation<T> operation)
+    {
+        return getAsyncExecutor().submit(operation);
+    }
+
+    /**
+     * @return true, if client can run operations asynchronously.
+     */
+    public boolean isAsyncEnabled()
+    {
+        return asyncExecutor != null;
+    }
+
+    private CassandraAsyncExecutor getAsyncExecutor()
+    {
+        if (asyncExecutor == null)
+        {
+            throw new KunderaException("Asynchronous operations are not supported by " + getClass().getSimpleName());
+        }
+        return asyncExecutor;
+    }
+
     /**
      * Find List of objects based on value {@columnValue} of column
      * {@columnName}
@@ -1860,6 +2460,15 @@ public abstract class CassandraClientBase extends ClientBase implements ClientPr
             }
             else
             {
+                if (isStatementCacheEnabled())
+                {
+                    List<Object> values = new ArrayList<Object>();
+                    query = createInsertQuery(entityMetadata, entity, rlHolders, ttlColumns, values);
+                    if (query != null && statementCache.execute(conn, query, values, consistencyLevel) != null)
+                    {
+                        return;
+                    }
+                }
                 query = createInsertQuery(entityMetadata, entity, conn, rlHolders, ttlColumns);
             }
             // conn.set_cql_version(getCqlVersion());
@@ -1891,38 +2500,74 @@ public abstract class CassandraClientBase extends ClientBase implements ClientPr
                 result = executeCQLQuery(cqlQuery, isCql3Enabled);
                 if (result != null && (result.getRows() != null || result.getRowsSize() > 0))
                 {
-                    returnedEntities = new ArrayList<Object>(result.getRowsSize());
-                    Iterator<CqlRow> iter = result.getRowsIterator();
-                    while (iter.hasNext())
-                    {
-                        CqlRow row = iter.next();
-                        Object rowKey = null;
-
-                        ThriftRow thriftRow = null;
-                        thriftRow = new ThriftRow(rowKey, entityMetadata.getTableName(), row.getColumns(),
-                                new ArrayList<SuperColumn>(0), new ArrayList<CounterColumn>(0),
-                                new ArrayList<CounterSuperColumn>(0));
+                    returnedEntities = populateEntities(result, entityMetadata, relationalField, dataHandler);
+                }
+            }
+            catch (Exception e)
+            {
+                log.error("Error while executing native CQL query Caused by: .", e);
+                throw new PersistenceException(e);
+            }
 
-                        Object entity = dataHandler.populateEntity(thriftRow, entityMetadata, relationalField,
-                                relationalField != null && !relationalField.isEmpty());
+            return returnedEntities;
+        }
 
-                        if (entity != null)
-                        {
-                            returnedEntities.add(entity);
-                        }
-                        else
-                        {
-                            returnedEntities.add(row.getColumns().get(0));
-                        }
-                    }
+        /**
+         * Executes select statement with given values bound to its markers.
+         * 
+         * @return entities, or null if values could not be bound.
+         */
+        private List executeQuery(String cqlQuery, List<Object> bindValues, Class clazz,
+                List<String> relationalField, CassandraDataHandler dataHandler)
+        {
+            EntityMetadata entityMetadata = KunderaMetadataManager.getEntityMetadata(clazz);
+            try
+            {
+                CqlResult result = executeCQLQuery(cqlQuery, bindValues);
+                if (result == null)
+                {
+                    return null;
+                }
+                if (result.getRows() != null || result.getRowsSize() > 0)
+                {
+                    return populateEntities(result, entityMetadata, relationalField, dataHandler);
                 }
+                return new ArrayList();
             }
             catch (Exception e)
             {
-                log.error("Error while executing native CQL query Caused by: .", e);
+                log.error("Error while executing prepared CQL query {}, Caused by: .", cqlQuery, e);
                 throw new PersistenceException(e);
             }
+        }
+
+        private List populateEntities(CqlResult result, EntityMetadata entityMetadata, List<String> relationalField,
+                CassandraDataHandler dataHandler)
+        {
+            List returnedEntities = new ArrayList<Object>(result.getRowsSize());
+            Iterator<CqlRow> iter = result.getRowsIterator();
+            while (iter.hasNext())
+            {
+                CqlRow row = iter.next();
+                Object rowKey = null;
+
+                ThriftRow thriftRow = null;
+                thriftRow = new ThriftRow(rowKey, entityMetadata.getTableName(), row.getColumns(),
+                        new ArrayList<SuperColumn>(0), new ArrayList<CounterColumn>(0),
+                        new ArrayList<CounterSuperColumn>(0));
+
+                Object entity = dataHandler.populateEntity(thriftRow, entityMetadata, relationalField,
+                        relationalField != null && !relationalField.isEmpty());
 
+                if (entity != null)
+                {
+                    returnedEntities.add(entity);
+                }
+                else
+                {
+                    returnedEntities.add(row.getColumns().get(0));
+                }
+            }
             return returnedEntities;
         }
 
@@ -1938,6 +2583,27 @@ public abstract class CassandraClientBase extends ClientBase implements ClientPr
         public List<Object> find(MetamodelImpl metaModel, EntityMetadata metadata, Object rowId,
                 List<String> relationNames)
         {
+            if (isStatementCacheEnabled())
+            {
+                List<Object> values = new ArrayList<Object>();
+                CQLTranslator translator = new CQLTranslator();
+                translator.setBindValues(values);
+                String select_Query = translator.SELECTALL_QUERY;
+                select_Query = StringUtils.replace(select_Query, CQLTranslator.COLUMN_FAMILY,
+                        translator.ensureCase(new StringBuilder(), metadata.getTableName(), false).toString());
+                StringBuilder builder = new StringBuilder(select_Query);
+                onWhereClause(metadata, rowId, translator, builder, metaModel);
+                if (!translator.hasInlinedValues())
+                {
+                    List result = executeQuery(builder.toString(), values, metadata.getEntityClazz(), relationNames,
+                            getDataHandler());
+                    if (result != null)
+                    {
+                        return result;
+                    }
+                }
+            }
+
             CQLTranslator translator = new CQLTranslator();
             String select_Query = translator.SELECTALL_QUERY;
             select_Query = StringUtils.replace(select_Query, CQLTranslator.COLUMN_FAMILY,
@@ -1947,6 +2613,50 @@ public abstract class CassandraClientBase extends ClientBase implements ClientPr
             return CassandraClientBase.this.executeQuery(builder.toString(), metadata.getEntityClazz(), relationNames);
         }
 
+        /**
+         * Finds entities of all given row ids with one IN query.
+         * 
+         * @param metadata
+         * @param relationNames
+         * @param rowIds
+         * @return
+         */
+        public List<Object> findAll(EntityMetadata metadata, List<String> relationNames, Object... rowIds)
+        {
+            Class idClazz = ((AbstractAttribute) metadata.getIdAttribute()).getBindableJavaType();
+            String idColumnName = CassandraUtilities.getIdColumnName(metadata, getExternalProperties());
+
+            if (isStatementCacheEnabled())
+            {
+                List<Object> values = new ArrayList<Object>();
+                CQLTranslator translator = new CQLTranslator();
+                translator.setBindValues(values);
+                StringBuilder builder = buildSelectAllQuery(translator, metadata);
+                translator.buildInClause(builder, idClazz, idColumnName, rowIds);
+                if (!translator.hasInlinedValues())
+                {
+                    List result = executeQuery(builder.toString(), values, metadata.getEntityClazz(), relationNames,
+                            getDataHandler());
+                    if (result != null)
+                    {
+                        return result;
+                    }
+                }
+            }
+
+            CQLTranslator translator = new CQLTranslator();
+            StringBuilder builder = buildSelectAllQuery(translator, metadata);
+            translator.buildInClause(builder, idClazz, idColumnName, rowIds);
+            return CassandraClientBase.this.executeQuery(builder.toString(), metadata.getEntityClazz(), relationNames);
+        }
+
+        private StringBuilder buildSelectAllQuery(CQLTranslator translator, EntityMetadata metadata)
+        {
+            String selectQuery = StringUtils.replace(CQLTranslator.SELECTALL_QUERY, CQLTranslator.COLUMN_FAMILY,
+                    translator.ensureCase(new StringBuilder(), metadata.getTableName(), false).toString());
+            return new StringBuilder(selectQuery).append(CQLTranslator.ADD_WHERE_CLAUSE);
+        }
+
         /**
          * Find List of objects based on value {@columnValue} of column
          * {@columnName}
@@ -1969,6 +2679,27 @@ public abstract class CassandraClientBase extends ClientBase implements ClientPr
             StringBuilder selectQueryBuilder = new StringBuilder(selectQuery);
             selectQueryBuilder.append(CQLTranslator.ADD_WHERE_CLAUSE);
 
+            if (isStatementCacheEnabled())
+            {
+                List<Object> values = new ArrayList<Object>();
+                translator.setBindValues(values);
+                StringBuilder boundQueryBuilder = new StringBuilder(selectQueryBuilder);
+                translator.buildWhereClause(boundQueryBuilder, columnValue.getClass(), columnName, columnValue,
+                        CQLTranslator.EQ_CLAUSE, false);
+                translator.setBindValues(null);
+                if (!values.isEmpty())
+                {
+                    boundQueryBuilder.delete(boundQueryBuilder.lastIndexOf(CQLTranslator.AND_CLAUSE),
+                            boundQueryBuilder.length());
+                    List result = executeQuery(boundQueryBuilder.toString(), values, clazz, m.getRelationNames(),
+                            dataHandler);
+                    if (result != null)
+                    {
+                        return result;
+                    }
+                }
+            }
+
             translator.buildWhereClause(selectQueryBuilder, columnValue.getClass(), columnName, columnValue,
                     CQLTranslator.EQ_CLAUSE, false);
             selectQueryBuilder.delete(selectQueryBuilder.lastIndexOf(CQLTranslator.AND_CLAUSE),
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.cassandra.common;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.impetus.kundera.KunderaException;
+
+/**
+ * Thrown when one or more chunks of a split batch_mutate fail, reports every
+ * failed chunk. Chunks not listed were written.
+ */
+public class BatchMutationException extends KunderaException
+{
+    private static final long serialVersionUID = -3546198732040157915L;
+
+    private final int chunks;
+
+    private final List<Failure> failures;
+
+    /**
+     * @param chunks
+     *            number of chunks the batch was split into.
+     * @param failures
+     *            failed chunks, at least one.
+     */
+    public BatchMutationException(int chunks, List<Failure> failures)
+    {
+        super(buildMessage(chunks, failures), failures.get(0).getCause());
+        this.chunks = chunks;
+        this.failures = Collections.unmodifiableList(failures);
+    }
+
+    /**
+     * @return number of chunks the batch was split into.
+     */
+    public int getChunks()
+    {
+        return chunks;
+    }
+
+    /**
+     * @return failed chunks.
+     */
+    public List<Failure> getFailures()
+    {
+        return failures;
+    }
+
+    /**
+     * @return number of rows in failed chunks.
+     */
+    public int getFailedRows()
+    {
+        int rows = 0;
+        for (Failure failure : failures)
+        {
+            rows += failure.getRows();
+        }
+        return rows;
+    }
+
+    private static String buildMessage(int chunks, List<Failure> failures)
+    {
+        StringBuilder builder = new StringBuilder();
+        builder.append(failures.size()).append(" of ").append(chunks).append(" batch mutation chunks failed:");
+        for (Failure failure : failures)
+        {
+            builder.append(" [chunk ").append(failure.getChunk()).append(", ").append(failure.getRows())
+                    .append(" rows: ").append(failure.getCause()).append("]");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Failure of a single chunk.
+     */
+    public static final class Failure
+    {
+        private final int chunk;
+
+        private final int rows;
+
+        private final Throwable cause;
+
+        public Failure(int chunk, int rows, Throwable cause)
+        {
+            this.chunk = chunk;
+            this.rows = rows;
+            this.cause = cause;
+        }
+
+        /**
+         * @return index of the chunk.
+         */
+        public int getChunk()
+        {
+            return chunk;
+        }
+
+        /**
+         * @return number of rows in the chunk.
+         */
+        public int getRows()
+        {
+            return rows;
+        }
+
+        public Throwable getCause()
+        {
+            return cause;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.cassandra.common;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.cassandra.thrift.Cassandra;
+import org.apache.cassandra.thrift.Column;
+import org.apache.cassandra.thrift.ColumnOrSuperColumn;
+import org.apache.cassandra.thrift.ConsistencyLevel;
+import org.apache.cassandra.thrift.CounterColumn;
+import org.apache.cassandra.thrift.Deletion;
+import org.apache.cassandra.thrift.Mutation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Splits a batch_mutate into chunks bounded by row count and estimated size
+ * and sends them concurrently, each chunk on its own pooled connection.
+ * Shared by all clients of a client factory.
+ */
+public final class BatchMutationExecutor
+{
+    /** The logger. */
+    private static Logger logger = LoggerFactory.getLogger(BatchMutationExecutor.class);
+
+    /** Fixed cost of a column in the thrift frame, besides name and value. */
+    private static final int COLUMN_OVERHEAD = 16;
+
+    private final int maxRows;
+
+    private final long maxBytes;
+
+    private final ExecutorService executor;
+
+    /**
+     * @param maxRows
+     *            rows per chunk, 0 for no limit.
+     * @param maxBytes
+     *            estimated bytes per chunk, 0 for no limit.
+     * @param threads
+     *            chunks sent at a time, 1 sends them one after another on the
+     *            calling thread.
+     */
+    public BatchMutationExecutor(int maxRows, long maxBytes, int threads)
+    {
+        this.maxRows = maxRows;
+        this.maxBytes = maxBytes;
+        this.executor = threads > 1 ? Executors.newFixedThreadPool(threads, new ThreadFactory()
+        {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r)
+            {
+                Thread thread = new Thread(r, "kundera-batch-mutation-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        }) : null;
+    }
+
+    /**
+     * Writes given mutations, grouped by host they are sent to.
+     * 
+     * @param groups
+     *            host (as understood by connection provider) to mutation map.
+     * @param consistencyLevel
+     * @param provider
+     *            source of pooled connections.
+     * @throws BatchMutationException
+     *             listing every failed chunk.
+     */
+    public void execute(Map<Object, Map<ByteBuffer, Map<String, List<Mutation>>>> groups,
+            final ConsistencyLevel consistencyLevel, final ConnectionProvider provider)
+    {
+        final List<Object> hosts = new ArrayList<Object>();
+        final List<Map<ByteBuffer, Map<String, List<Mutation>>>> chunks = new ArrayList<Map<ByteBuffer, Map<String, List<Mutation>>>>();
+        for (Map.Entry<Object, Map<ByteBuffer, Map<String, List<Mutation>>>> group : groups.entrySet())
+        {
+            for (Map<ByteBuffer, Map<String, List<Mutation>>> chunk : split(group.getValue(), maxRows, maxBytes))
+            {
+                hosts.add(group.getKey());
+                chunks.add(chunk);
+            }
+        }
+
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("Sending batch mutation in {} chunks to {} hosts.", chunks.size(), groups.size());
+        }
+
+        List<BatchMutationException.Failure> failures = new ArrayList<BatchMutationException.Failure>();
+        if (executor == null || chunks.size() == 1)
+        {
+            for (int i = 0; i < chunks.size(); i++)
+            {
+                try
+                {
+                    mutate(provider, hosts.get(i), chunks.get(i), consistencyLevel);
+                }
+                catch (Exception e)
+                {
+                    failures.add(new BatchMutationException.Failure(i, chunks.get(i).size(), e));
+                }
+            }
+        }
+        else
+        {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>(chunks.size());
+            for (int i = 0; i < chunks.size(); i++)
+            {
+                final Object host = hosts.get(i);
+                final Map<ByteBuffer, Map<String, List<Mutation>>> chunk = chunks.get(i);
+                futures.add(executor.submit(new Callable<Void>()
+                {
+                    @Override
+                    public Void call() throws Exception
+                    {
+                        mutate(provider, host, chunk, consistencyLevel);
+                        return null;
+                    }
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++)
+            {
+                try
+                {
+                    futures.get(i).get();
+                }
+                catch (ExecutionException e)
+                {
+                    failures.add(new BatchMutationException.Failure(i, chunks.get(i).size(), e.getCause()));
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    failures.add(new BatchMutationException.Failure(i, chunks.get(i).size(), e));
+                }
+            }
+        }
+
+        if (!failures.isEmpty())
+        {
+            throw new BatchMutationException(chunks.size(), failures);
+        }
+    }
+
+    /**
+     * Stops worker threads.
+     */
+    public void shutdown()
+    {
+        if (executor != null)
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private void mutate(ConnectionProvider provider, Object host,
+            Map<ByteBuffer, Map<String, List<Mutation>>> chunk, ConsistencyLevel consistencyLevel) throws Exception
+    {
+        Object connection = provider.getConnection(host);
+        try
+        {
+            provider.getClient(connection).batch_mutate(chunk, consistencyLevel);
+        }
+        finally
+        {
+            provider.releaseConnection(connection);
+        }
+    }
+
+    /**
+     * Splits mutation map into chunks of at most maxRows rows and maxBytes
+     * estimated bytes. A row is never split, so a single row larger than
+     * maxBytes makes a chunk of its own.
+     * 
+     * @param mutationMap
+     * @param maxRows
+     *            0 for no limit.
+     * @param maxBytes
+     *            0 for no limit.
+     * @return chunks, in row order of given map.
+     */
+    public static List<Map<ByteBuffer, Map<String, List<Mutation>>>> split(
+            Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap, int maxRows, long maxBytes)
+    {
+        List<Map<ByteBuffer, Map<String, List<Mutation>>>> chunks = new ArrayList<Map<ByteBuffer, Map<String, List<Mutation>>>>();
+        Map<ByteBuffer, Map<String, List<Mutation>>> chunk = new HashMap<ByteBuffer, Map<String, List<Mutation>>>();
+        long chunkBytes = 0;
+        for (Map.Entry<ByteBuffer, Map<String, List<Mutation>>> row : mutationMap.entrySet())
+        {
+            long rowBytes = estimateSize(row.getKey(), row.getValue());
+            if (!chunk.isEmpty()
+                    && ((maxRows > 0 && chunk.size() >= maxRows) || (maxBytes > 0 && chunkBytes + rowBytes > maxBytes)))
+            {
+                chunks.add(chunk);
+                chunk = new HashMap<ByteBuffer, Map<String, List<Mutation>>>();
+                chunkBytes = 0;
+            }
+            chunk.put(row.getKey(), row.getValue());
+            chunkBytes += rowBytes;
+        }
+        if (!chunk.isEmpty())
+        {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * @return approximate serialized size of a row's mutations.
+     */
+    static long estimateSize(ByteBuffer rowKey, Map<String, List<Mutation>> mutations)
+    {
+        long size = rowKey.remaining();
+        for (Map.Entry<String, List<Mutation>> columnFamily : mutations.entrySet())
+        {
+            size += columnFamily.getKey().length();
+            for (Mutation mutation : columnFamily.getValue())
+            {
+                size += estimateSize(mutation);
+            }
+        }
+        return size;
+    }
+
+    private static long estimateSize(Mutation mutation)
+    {
+        long size = COLUMN_OVERHEAD;
+        if (mutation.isSetColumn_or_supercolumn())
+        {
+            ColumnOrSuperColumn cosc = mutation.getColumn_or_supercolumn();
+            if (cosc.isSetColumn())
+            {
+                size += estimateSize(cosc.getColumn());
+            }
+            else if (cosc.isSetSuper_column())
+            {
+                size += cosc.getSuper_column().bufferForName().remaining();
+                for (Column column : cosc.getSuper_column().getColumns())
+                {
+                    size += COLUMN_OVERHEAD + estimateSize(column);
+                }
+            }
+            else if (cosc.isSetCounter_column())
+            {
+                size += cosc.getCounter_column().bufferForName().remaining() + 8;
+            }
+            else if (cosc.isSetCounter_super_column())
+            {
+                size += cosc.getCounter_super_column().bufferForName().remaining();
+                for (CounterColumn column : cosc.getCounter_super_column().getColumns())
+                {
+                    size += COLUMN_OVERHEAD + column.bufferForName().remaining() + 8;
+                }
+            }
+        }
+        else if (mutation.isSetDeletion())
+        {
+            Deletion deletion = mutation.getDeletion();
+            if (deletion.isSetSuper_column())
+            {
+                size += deletion.bufferForSuper_column().remaining();
+            }
+            if (deletion.isSetPredicate() && deletion.getPredicate().isSetColumn_names())
+            {
+                for (ByteBuffer name : deletion.getPredicate().getColumn_names())
+                {
+                    size += name.remaining();
+                }
+            }
+        }
+        return size;
+    }
+
+    private static long estimateSize(Column column)
+    {
+        return column.bufferForName().remaining() + (column.isSetValue() ? column.bufferForValue().remaining() : 0);
+    }
+
+    /**
+     * Hands out pooled connections of a client to the executor threads.
+     */
+    public interface ConnectionProvider
+    {
+        /**
+         * @param host
+         *            group key given to
+         *            {@link BatchMutationExecutor#execute(Map, ConsistencyLevel, ConnectionProvider)}
+         * @return pooled connection.
+         */
+        Object getConnection(Object host);
+
+        Cassandra.Client getClient(Object connection);
+
+        void releaseConnection(Object connection);
+    }
+}
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.cassandra.common;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.impetus.kundera.client.Client;
+import com.impetus.kundera.loader.ClientFactory;
+
+/**
+ * Bounded executor running asynchronous client operations of a persistence
+ * unit. Each worker thread lazily gets its own client from the client
+ * factory, as clients are not thread safe; connections come from the
+ * factory's pools. Operations submitted while the queue is full fail with
+ * {@link RejectedExecutionException} instead of blocking the caller.
+ */
+public final class CassandraAsyncExecutor
+{
+    /** The logger. */
+    private static Logger logger = LoggerFactory.getLogger(CassandraAsyncExecutor.class);
+
+    private final ClientFactory clientFactory;
+
+    private final ListeningExecutorService executor;
+
+    private final ThreadLocal<Client> clients = new ThreadLocal<Client>();
+
+    private final List<Client> createdClients = new CopyOnWriteArrayList<Client>();
+
+    /**
+     * @param clientFactory
+     *            factory of worker clients.
+     * @param threads
+     *            maximum number of operations running at a time.
+     * @param queueSize
+     *            maximum number of operations waiting.
+     */
+    public CassandraAsyncExecutor(ClientFactory clientFactory, int threads, int queueSize)
+    {
+        if (threads <= 0 || queueSize <= 0)
+        {
+            throw new IllegalArgumentException("Async threads and queue size must be positive, but are " + threads
+                    + " and " + queueSize);
+        }
+        this.clientFactory = clientFactory;
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueSize), new ThreadFactory()
+                {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r)
+                    {
+                        Thread thread = new Thread(r, "kundera-cassandra-async-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = MoreExecutors.listeningDecorator(pool);
+    }
+
+    /**
+     * Runs operation on a worker thread.
+     * 
+     * @param operation
+     * @return future of operation's result.
+     */
+    public <T> ListenableFuture<T> submit(final Operation<T> operation)
+    {
+        try
+        {
+            return executor.submit(new Callable<T>()
+            {
+                @Override
+                public T call() throws Exception
+                {
+                    return operation.execute(getClient());
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            logger.warn("Rejecting asynchronous operation, Caused by: {}.", e.getMessage());
+            return Futures.immediateFailedFuture(e);
+        }
+    }
+
+    /**
+     * @return true, if called from one of this executor's worker threads.
+     */
+    public boolean isWorkerThread()
+    {
+        return clients.get() != null;
+    }
+
+    /**
+     * Stops worker threads and closes their clients.
+     */
+    public void shutdown()
+    {
+        executor.shutdownNow();
+        for (Client client : createdClients)
+        {
+            try
+            {
+                client.close();
+            }
+            catch (RuntimeException e)
+            {
+                logger.warn("Error while closing asynchronous client, Caused by: {}.", e.getMessage());
+            }
+        }
+        createdClients.clear();
+    }
+
+    private Client getClient()
+    {
+        Client client = clients.get();
+        if (client == null)
+        {
+            client = clientFactory.getClientInstance();
+            clients.set(client);
+            createdClients.add(client);
+        }
+        return client;
+    }
+
+    /**
+     * Client operation run by a worker thread.
+     */
+    public interface Operation<T>
+    {
+        T execute(Client client) throws Exception;
+    }
+}
@@ -92,4 +92,103 @@ public interface CassandraConstants
     public static final String SOCKET_TIMEOUT = "socket.timeout";
 
     public static final String MAX_WAIT = "max.wait";
+
+    /** Number of CQL3 prepared statements cached per connection, 0 disables. */
+    public static final String PREPARED_STATEMENT_CACHE_SIZE = "kundera.cassandra.prepared.statement.cache.size";
+
+    public static final int DEFAULT_PREPARED_STATEMENT_CACHE_SIZE = 128;
+
+    /** Seconds between token ring reloads of token aware load balancer. */
+    public static final String RING_REFRESH_INTERVAL = "kundera.cassandra.ring.refresh.interval";
+
+    public static final int DEFAULT_RING_REFRESH_INTERVAL = 60;
+
+    /** Maximum rows per batch_mutate call of a flushed batch, 0 for no limit. */
+    public static final String BATCH_MUTATION_ROWS = "kundera.cassandra.batch.mutation.rows";
+
+    public static final int DEFAULT_BATCH_MUTATION_ROWS = 500;
+
+    /** Maximum estimated bytes per batch_mutate call, 0 for no limit. */
+    public static final String BATCH_MUTATION_BYTES = "kundera.cassandra.batch.mutation.bytes";
+
+    public static final int DEFAULT_BATCH_MUTATION_BYTES = 4 * 1024 * 1024;
+
+    /** Number of batch_mutate calls of a batch sent at a time. */
+    public static final String BATCH_MUTATION_THREADS = "kundera.cassandra.batch.mutation.threads";
+
+    public static final int DEFAULT_BATCH_MUTATION_THREADS = 4;
+
+    /** Number of asynchronous operations run at a time. */
+    public static final String ASYNC_THREADS = "kundera.cassandra.async.threads";
+
+    public static final int DEFAULT_ASYNC_THREADS = 16;
+
+    /** Number of asynchronous operations waiting, more are rejected. */
+    public static final String ASYNC_QUEUE_SIZE = "kundera.cassandra.async.queue.size";
+
+    public static final int DEFAULT_ASYNC_QUEUE_SIZE = 1024;
+
+    /** Number of row keys read by one multiget or IN query of findAll. */
+    public static final String FIND_ALL_CHUNK_SIZE = "kundera.cassandra.find.all.chunk.size";
+
+    public static final int DEFAULT_FIND_ALL_CHUNK_SIZE = 100;
+
+    /** Number of token ranges read at a time by a full scan. */
+    public static final String SCAN_THREADS = "kundera.cassandra.scan.threads";
+
+    public static final int DEFAULT_SCAN_THREADS = 4;
+
+    /** Number of rows read per request by a full scan. */
+    public static final String SCAN_PAGE_SIZE = "kundera.cassandra.scan.page.size";
+
+    public static final int DEFAULT_SCAN_PAGE_SIZE = 1000;
+
+    /** Approximate number of keys in a token range of a full scan. */
+    public static final String SCAN_SPLIT_SIZE = "kundera.cassandra.scan.split.size";
+
+    public static final int DEFAULT_SCAN_SPLIT_SIZE = 65536;
+
+    /** Number of inverted index super columns cached, 0 to disable cache. */
+    public static final String INVERTED_INDEX_CACHE_SIZE = "kundera.cassandra.inverted.index.cache.size";
+
+    public static final int DEFAULT_INVERTED_INDEX_CACHE_SIZE = 0;
+
+    /** Number of rows read per CQL3 query while iterating over results. */
+    public static final String ITERATE_PAGE_SIZE = "kundera.cassandra.iterate.page.size";
+
+    public static final int DEFAULT_ITERATE_PAGE_SIZE = 100;
+
+    /** Whether next page of iterated results is read in background. */
+    public static final String ITERATE_READ_AHEAD = "kundera.cassandra.iterate.read.ahead";
+
+    /** Whether counter increments are coalesced locally and written later. */
+    public static final String COUNTER_AGGREGATION = "kundera.cassandra.counter.aggregation";
+
+    /** Milliseconds between writes of aggregated counters. */
+    public static final String COUNTER_FLUSH_INTERVAL = "kundera.cassandra.counter.flush.interval";
+
+    public static final int DEFAULT_COUNTER_FLUSH_INTERVAL = 1000;
+
+    /** Number of pending counter increments triggering an early write. */
+    public static final String COUNTER_FLUSH_SIZE = "kundera.cassandra.counter.flush.size";
+
+    public static final int DEFAULT_COUNTER_FLUSH_SIZE = 10000;
+
+    /** Whether slow reads are repeated on a second host. */
+    public static final String SPECULATIVE_RETRY = "kundera.cassandra.speculative.retry";
+
+    /** Percentile of read response times after which a read is repeated. */
+    public static final String SPECULATIVE_RETRY_PERCENTILE = "kundera.cassandra.speculative.retry.percentile";
+
+    public static final int DEFAULT_SPECULATIVE_RETRY_PERCENTILE = 99;
+
+    /** Minimum milliseconds a read runs before it is repeated. */
+    public static final String SPECULATIVE_RETRY_MIN_DELAY = "kundera.cassandra.speculative.retry.min.delay";
+
+    public static final int DEFAULT_SPECULATIVE_RETRY_MIN_DELAY = 5;
+
+    /** Maximum number of speculatively retried reads running at a time. */
+    public static final String SPECULATIVE_RETRY_THREADS = "kundera.cassandra.speculative.retry.threads";
+
+    public static final int DEFAULT_SPECULATIVE_RETRY_THREADS = 16;
 }
@@ -16,6 +16,7 @@
 package com.impetus.client.cassandra.common;
 
 import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.Date;
 import java.util.List;
@@ -23,12 +24,19 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.UUID;
 
+import org.apache.cassandra.thrift.ColumnParent;
+import org.apache.cassandra.thrift.ConsistencyLevel;
+import org.apache.cassandra.thrift.Mutation;
+import org.apache.cassandra.thrift.SlicePredicate;
 import org.apache.commons.lang.StringUtils;
 import org.scale7.cassandra.pelops.Bytes;
 
+import com.impetus.client.cassandra.CassandraClientBase;
+import com.impetus.client.cassandra.index.InvertedIndexCache;
 import com.impetus.client.cassandra.thrift.CQLTranslator;
 import com.impetus.kundera.Constants;
 import com.impetus.kundera.PersistenceProperties;
+import com.impetus.kundera.loader.ClientFactory;
 import com.impetus.kundera.metadata.MetadataUtils;
 import com.impetus.kundera.metadata.model.EntityMetadata;
 import com.impetus.kundera.metadata.model.KunderaMetadata;
@@ -198,4 +206,268 @@ public class CassandraUtilities
         return autoDdlOption == null || containsBasicCollectionField ? ((AbstractAttribute) m.getIdAttribute()).getJPAColumnName()
                 : CassandraConstants.CQL_KEY;
     }
+
+    /**
+     * Returns number of prepared statements to cache per connection, as given
+     * by {@link CassandraConstants#PREPARED_STATEMENT_CACHE_SIZE} in external or
+     * persistence unit properties.
+     * 
+     * @param persistenceUnit
+     * @param externalProperties
+     * @return cache size, 0 if disabled.
+     */
+    public static int getPreparedStatementCacheSize(final String persistenceUnit,
+            final Map<String, Object> externalProperties)
+    {
+        return getIntProperty(persistenceUnit, externalProperties, CassandraConstants.PREPARED_STATEMENT_CACHE_SIZE,
+                CassandraConstants.DEFAULT_PREPARED_STATEMENT_CACHE_SIZE);
+    }
+
+    /**
+     * Returns seconds between token ring reloads, as given by
+     * {@link CassandraConstants#RING_REFRESH_INTERVAL} in external or
+     * persistence unit properties.
+     * 
+     * @param persistenceUnit
+     * @param externalProperties
+     * @return refresh interval, 0 if ring is read only once.
+     */
+    public static int getRingRefreshInterval(final String persistenceUnit,
+            final Map<String, Object> externalProperties)
+    {
+        return getIntProperty(persistenceUnit, externalProperties, CassandraConstants.RING_REFRESH_INTERVAL,
+                CassandraConstants.DEFAULT_RING_REFRESH_INTERVAL);
+    }
+
+    /**
+     * Returns number of row keys fetched per request by findAll, as given by
+     * {@link CassandraConstants#FIND_ALL_CHUNK_SIZE} in external or
+     * persistence unit properties.
+     * 
+     * @param persistenceUnit
+     * @param externalProperties
+     * @return chunk size.
+     */
+    public static int getFindAllChunkSize(final String persistenceUnit, final Map<String, Object> externalProperties)
+    {
+        return getIntProperty(persistenceUnit, externalProperties, CassandraConstants.FIND_ALL_CHUNK_SIZE,
+                CassandraConstants.DEFAULT_FIND_ALL_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates cache of inverted index super columns as configured by
+     * {@link CassandraConstants#INVERTED_INDEX_CACHE_SIZE}.
+     * 
+     * @param persistenceUnit
+     * @param externalProperties
+     * @return inverted index cache, null if disabled.
+     */
+    public static InvertedIndexCache createInvertedIndexCache(final String persistenceUnit,
+            final Map<String, Object> externalProperties)
+    {
+        int size = getIntProperty(persistenceUnit, externalProperties, CassandraConstants.INVERTED_INDEX_CACHE_SIZE,
+                CassandraConstants.DEFAULT_INVERTED_INDEX_CACHE_SIZE);
+        return size > 0 ? new InvertedIndexCache(size) : null;
+    }
+
+    /**
+     * Creates executor splitting batch mutations as configured by
+     * {@link CassandraConstants#BATCH_MUTATION_ROWS},
+     * {@link CassandraConstants#BATCH_MUTATION_BYTES} and
+     * {@link CassandraConstants#BATCH_MUTATION_THREADS}.
+     * 
+     * @param persistenceUnit
+     * @param externalProperties
+     * @return batch mutation executor.
+     */
+    public static BatchMutationExecutor createBatchMutationExecutor(final String persistenceUnit,
+            final Map<String, Object> externalProperties)
+    {
+        return new BatchMutationExecutor(getIntProperty(persistenceUnit, externalProperties,
+                CassandraConstants.BATCH_MUTATION_ROWS, CassandraConstants.DEFAULT_BATCH_MUTATION_ROWS),
+                getIntProperty(persistenceUnit, externalProperties, CassandraConstants.BATCH_MUTATION_BYTES,
+                        CassandraConstants.DEFAULT_BATCH_MUTATION_BYTES), getIntProperty(persistenceUnit,
+                        externalProperties, CassandraConstants.BATCH_MUTATION_THREADS,
+                        CassandraConstants.DEFAULT_BATCH_MUTATION_THREADS));
+    }
+
+    /**
+     * Creates scanner of a column family as configured by
+     * {@link CassandraConstants#SCAN_PAGE_SIZE},
+     * {@link CassandraConstants#SCAN_THREADS} and
+     * {@link CassandraConstants#SCAN_SPLIT_SIZE}.
+     * 
+     * @param persistenceUnit
+     * @param externalProperties
+     * @param keyspace
+     * @param columnParent
+     * @param predicate
+     * @param consistencyLevel
+     * @param connectionProvider
+     * @return token range scanner, not yet started.
+     */
+    public static TokenRangeScanner createTokenRangeScanner(final String persistenceUnit,
+            final Map<String, Object> externalProperties, final String keyspace, final ColumnParent columnParent,
+            final SlicePredicate predicate, final ConsistencyLevel consistencyLevel,
+            final BatchMutationExecutor.ConnectionProvider connectionProvider)
+    {
+        return new TokenRangeScanner(keyspace, columnParent, predicate, consistencyLevel, getIntProperty(
+                persistenceUnit, externalProperties, CassandraConstants.SCAN_PAGE_SIZE,
+                CassandraConstants.DEFAULT_SCAN_PAGE_SIZE), getIntProperty(persistenceUnit, externalProperties,
+                CassandraConstants.SCAN_THREADS, CassandraConstants.DEFAULT_SCAN_THREADS), getIntProperty(
+                persistenceUnit, externalProperties, CassandraConstants.SCAN_SPLIT_SIZE,
+                CassandraConstants.DEFAULT_SCAN_SPLIT_SIZE), connectionProvider);
+    }
+
+    /**
+     * Creates executor of asynchronous operations as configured by
+     * {@link CassandraConstants#ASYNC_THREADS} and
+     * {@link CassandraConstants#ASYNC_QUEUE_SIZE}.
+     * 
+     * @param clientFactory
+     * @param persistenceUnit
+     * @param externalProperties
+     * @return asynchronous executor.
+     */
+    public static CassandraAsyncExecutor createAsyncExecutor(final ClientFactory clientFactory,
+            final String persistenceUnit, final Map<String, Object> externalProperties)
+    {
+        return new CassandraAsyncExecutor(clientFactory, getIntProperty(persistenceUnit, externalProperties,
+                CassandraConstants.ASYNC_THREADS, CassandraConstants.DEFAULT_ASYNC_THREADS), getIntProperty(
+                persistenceUnit, externalProperties, CassandraConstants.ASYNC_QUEUE_SIZE,
+                CassandraConstants.DEFAULT_ASYNC_QUEUE_SIZE));
+    }
+
+    /**
+     * Creates aggregator of counter increments if enabled by
+     * {@link CassandraConstants#COUNTER_AGGREGATION}, flushing as configured
+     * by {@link CassandraConstants#COUNTER_FLUSH_INTERVAL} and
+     * {@link CassandraConstants#COUNTER_FLUSH_SIZE}. Counters are written by a
+     * client of given factory.
+     * 
+     * @param clientFactory
+     * @param persistenceUnit
+     * @param externalProperties
+     * @return counter aggregator, null if disabled.
+     */
+    public static CounterAggregator createCounterAggregator(final ClientFactory clientFactory,
+            final String persistenceUnit, final Map<String, Object> externalProperties)
+    {
+        Object enabled = getProperty(persistenceUnit, externalProperties, CassandraConstants.COUNTER_AGGREGATION);
+        if (enabled == null || !Boolean.parseBoolean(enabled.toString().trim()))
+        {
+            return null;
+        }
+        return new CounterAggregator(new CounterAggregator.Writer()
+        {
+            private CassandraClientBase client;
+
+            @Override
+            public void write(Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap)
+            {
+                if (client == null)
+                {
+                    client = (CassandraClientBase) clientFactory.getClientInstance();
+                }
+                client.batchMutate(mutationMap);
+            }
+
+            @Override
+            public void close()
+            {
+                if (client != null)
+                {
+                    client.close();
+                }
+            }
+        }, getIntProperty(persistenceUnit, externalProperties, CassandraConstants.COUNTER_FLUSH_SIZE,
+                CassandraConstants.DEFAULT_COUNTER_FLUSH_SIZE), getIntProperty(persistenceUnit, externalProperties,
+                CassandraConstants.COUNTER_FLUSH_INTERVAL, CassandraConstants.DEFAULT_COUNTER_FLUSH_INTERVAL));
+    }
+
+    /**
+     * Creates executor of speculatively retried reads if enabled by
+     * {@link CassandraConstants#SPECULATIVE_RETRY}, as configured by
+     * {@link CassandraConstants#SPECULATIVE_RETRY_PERCENTILE},
+     * {@link CassandraConstants#SPECULATIVE_RETRY_MIN_DELAY} and
+     * {@link CassandraConstants#SPECULATIVE_RETRY_THREADS}.
+     * 
+     * @param persistenceUnit
+     * @param externalProperties
+     * @return speculative executor, null if disabled.
+     */
+    public static SpeculativeExecutor createSpeculativeExecutor(final String persistenceUnit,
+            final Map<String, Object> externalProperties)
+    {
+        Object enabled = getProperty(persistenceUnit, externalProperties, CassandraConstants.SPECULATIVE_RETRY);
+        if (enabled == null || !Boolean.parseBoolean(enabled.toString().trim()))
+        {
+            return null;
+        }
+        return new SpeculativeExecutor(getIntProperty(persistenceUnit, externalProperties,
+                CassandraConstants.SPECULATIVE_RETRY_PERCENTILE, CassandraConstants.DEFAULT_SPECULATIVE_RETRY_PERCENTILE),
+                getIntProperty(persistenceUnit, externalProperties, CassandraConstants.SPECULATIVE_RETRY_MIN_DELAY,
+                        CassandraConstants.DEFAULT_SPECULATIVE_RETRY_MIN_DELAY), getIntProperty(persistenceUnit,
+                        externalProperties, CassandraConstants.SPECULATIVE_RETRY_THREADS,
+                        CassandraConstants.DEFAULT_SPECULATIVE_RETRY_THREADS));
+    }
+
+    /**
+     * Returns number of rows read per query while iterating over CQL3
+     * results, as given by {@link CassandraConstants#ITERATE_PAGE_SIZE}.
+     * 
+     * @param persistenceUnit
+     * @param externalProperties
+     * @return page size.
+     */
+    public static int getIteratePageSize(final String persistenceUnit, final Map<String, Object> externalProperties)
+    {
+        return getIntProperty(persistenceUnit, externalProperties, CassandraConstants.ITERATE_PAGE_SIZE,
+                CassandraConstants.DEFAULT_ITERATE_PAGE_SIZE);
+    }
+
+    /**
+     * Returns whether next page of iterated CQL3 results is read in
+     * background, as given by {@link CassandraConstants#ITERATE_READ_AHEAD}.
+     * 
+     * @param persistenceUnit
+     * @param externalProperties
+     * @return true, if read ahead is enabled.
+     */
+    public static boolean isIterateReadAhead(final String persistenceUnit, final Map<String, Object> externalProperties)
+    {
+        Object value = getProperty(persistenceUnit, externalProperties, CassandraConstants.ITERATE_READ_AHEAD);
+        return value != null && Boolean.parseBoolean(value.toString().trim());
+    }
+
+    private static Object getProperty(final String persistenceUnit, final Map<String, Object> externalProperties,
+            final String propertyName)
+    {
+        Object value = externalProperties != null ? externalProperties.get(propertyName) : null;
+        if (value == null)
+        {
+            PersistenceUnitMetadata persistenceUnitMetadata = KunderaMetadata.INSTANCE.getApplicationMetadata()
+                    .getPersistenceUnitMetadata(persistenceUnit);
+            value = persistenceUnitMetadata != null ? persistenceUnitMetadata.getProperty(propertyName) : null;
+        }
+        return value;
+    }
+
+    private static int getIntProperty(final String persistenceUnit, final Map<String, Object> externalProperties,
+            final String propertyName, final int defaultValue)
+    {
+        Object value = getProperty(persistenceUnit, externalProperties, propertyName);
+        if (value == null || StringUtils.isBlank(value.toString()))
+        {
+            return defaultValue;
+        }
+        try
+        {
+            return Integer.parseInt(value.toString().trim());
+        }
+        catch (NumberFormatException nfe)
+        {
+            throw new IllegalArgumentException(propertyName + " must be a number, but is " + value);
+        }
+    }
 }
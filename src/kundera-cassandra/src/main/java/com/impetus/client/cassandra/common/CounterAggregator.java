@@ -0,0 +1,399 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.cassandra.common;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.cassandra.thrift.ColumnOrSuperColumn;
+import org.apache.cassandra.thrift.CounterColumn;
+import org.apache.cassandra.thrift.CounterSuperColumn;
+import org.apache.cassandra.thrift.Mutation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces counter increments of a persistence unit locally, one running
+ * delta per counter column, and writes them as a single batch_mutate of
+ * counter columns every flush interval, or earlier once flush size
+ * increments are pending. Deltas are kept in a concurrent map of atomic
+ * longs, so concurrent increments of a counter neither lock nor block each
+ * other. Pending increments are not visible to reads until flushed.
+ * <p>
+ * Increments of a failed flush are merged back into the pending counters and
+ * written by a later flush. A batch which timed out may still have been
+ * applied by the server, in which case its increments are counted twice.
+ * Increments pending when shutdown fails to flush are logged and lost.
+ */
+public final class CounterAggregator
+{
+    /** The logger. */
+    private static Logger logger = LoggerFactory.getLogger(CounterAggregator.class);
+
+    /** Value of a counter removed by flush, increments go to a new one. */
+    private static final long RETIRED = Long.MIN_VALUE;
+
+    private final ConcurrentMap<CounterKey, AtomicLong> counters = new ConcurrentHashMap<CounterKey, AtomicLong>();
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final Writer writer;
+
+    private final int flushSize;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Runnable flushTask = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            flushRequested.set(false);
+            try
+            {
+                flush();
+            }
+            catch (RuntimeException e)
+            {
+                logger.error("Error while flushing counters, Caused by: .", e);
+            }
+        }
+    };
+
+    private volatile boolean shutdown;
+
+    /**
+     * @param writer
+     *            writer of flushed counters.
+     * @param flushSize
+     *            number of pending increments triggering a flush.
+     * @param flushInterval
+     *            milliseconds between flushes.
+     */
+    public CounterAggregator(Writer writer, int flushSize, long flushInterval)
+    {
+        if (flushSize <= 0 || flushInterval <= 0)
+        {
+            throw new IllegalArgumentException("Counter flush size and interval must be positive, but are "
+                    + flushSize + " and " + flushInterval);
+        }
+        this.writer = writer;
+        this.flushSize = flushSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+        {
+            @Override
+            public Thread newThread(Runnable r)
+            {
+                Thread thread = new Thread(r, "kundera-cassandra-counters");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(flushTask, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds counter columns of a row.
+     * 
+     * @param columnFamily
+     *            counter column family.
+     * @param rowKey
+     *            row key.
+     * @param columns
+     *            counter columns, may be null.
+     * @param superColumns
+     *            counter super columns, may be null.
+     */
+    public void add(String columnFamily, ByteBuffer rowKey, List<CounterColumn> columns,
+            List<CounterSuperColumn> superColumns)
+    {
+        if (columns != null)
+        {
+            for (CounterColumn column : columns)
+            {
+                increment(columnFamily, rowKey, null, column.bufferForName(), column.getValue());
+            }
+        }
+        if (superColumns != null)
+        {
+            for (CounterSuperColumn superColumn : superColumns)
+            {
+                for (CounterColumn column : superColumn.getColumns())
+                {
+                    increment(columnFamily, rowKey, superColumn.bufferForName(), column.bufferForName(),
+                            column.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds delta to a counter column.
+     * 
+     * @param columnFamily
+     *            counter column family.
+     * @param rowKey
+     *            row key.
+     * @param superColumn
+     *            super column name, null for a standard column family.
+     * @param column
+     *            counter column name.
+     * @param delta
+     *            increment.
+     */
+    public void increment(String columnFamily, ByteBuffer rowKey, ByteBuffer superColumn, ByteBuffer column,
+            long delta)
+    {
+        if (shutdown)
+        {
+            throw new IllegalStateException("Counter aggregator is shut down.");
+        }
+        merge(new CounterKey(columnFamily, rowKey, superColumn, column), delta);
+
+        if (pending.incrementAndGet() >= flushSize && flushRequested.compareAndSet(false, true))
+        {
+            scheduler.execute(flushTask);
+        }
+    }
+
+    /**
+     * Writes pending increments. Counters left unchanged since previous flush
+     * are removed. Increments are kept for next flush if the write fails.
+     * 
+     * @return number of counter columns written.
+     */
+    public synchronized int flush()
+    {
+        if (shutdown)
+        {
+            return 0;
+        }
+        pending.set(0);
+
+        Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap = new HashMap<ByteBuffer, Map<String, List<Mutation>>>();
+        Map<CounterKey, CounterSuperColumn> superColumns = new HashMap<CounterKey, CounterSuperColumn>();
+        Map<CounterKey, Long> deltas = new HashMap<CounterKey, Long>();
+        for (Map.Entry<CounterKey, AtomicLong> entry : counters.entrySet())
+        {
+            CounterKey key = entry.getKey();
+            AtomicLong counter = entry.getValue();
+            long delta = counter.getAndSet(0);
+            if (delta == 0)
+            {
+                if (counter.compareAndSet(0, RETIRED))
+                {
+                    counters.remove(key, counter);
+                }
+                continue;
+            }
+
+            CounterColumn column = new CounterColumn(key.column, delta);
+            if (key.superColumn == null)
+            {
+                getMutations(mutationMap, key).add(
+                        new Mutation().setColumn_or_supercolumn(new ColumnOrSuperColumn().setCounter_column(column)));
+            }
+            else
+            {
+                CounterKey superColumnKey = new CounterKey(key.columnFamily, key.rowKey, key.superColumn, null);
+                CounterSuperColumn superColumn = superColumns.get(superColumnKey);
+                if (superColumn == null)
+                {
+                    superColumn = new CounterSuperColumn(key.superColumn, new ArrayList<CounterColumn>());
+                    superColumns.put(superColumnKey, superColumn);
+                    getMutations(mutationMap, key).add(
+                            new Mutation().setColumn_or_supercolumn(new ColumnOrSuperColumn()
+                                    .setCounter_super_column(superColumn)));
+                }
+                superColumn.addToColumns(column);
+            }
+            deltas.put(key, delta);
+        }
+
+        if (!mutationMap.isEmpty())
+        {
+            try
+            {
+                writer.write(mutationMap);
+            }
+            catch (RuntimeException e)
+            {
+                for (Map.Entry<CounterKey, Long> entry : deltas.entrySet())
+                {
+                    merge(entry.getKey(), entry.getValue());
+                }
+                pending.addAndGet(deltas.size());
+                logger.error("Error while writing {} counter increments of {} rows, kept for next flush.",
+                        deltas.size(), mutationMap.size());
+                throw e;
+            }
+        }
+        return deltas.size();
+    }
+
+    /**
+     * Flushes pending increments and stops flushing.
+     */
+    public void shutdown()
+    {
+        scheduler.shutdownNow();
+        try
+        {
+            flush();
+        }
+        catch (RuntimeException e)
+        {
+            logger.error("Dropping {} pending counter increments on shutdown.", counters.size());
+            throw e;
+        }
+        finally
+        {
+            shutdown = true;
+            writer.close();
+        }
+    }
+
+    /**
+     * @return number of counter columns held.
+     */
+    int size()
+    {
+        return counters.size();
+    }
+
+    /**
+     * Adds delta to running delta of a counter.
+     */
+    private void merge(CounterKey key, long delta)
+    {
+        for (;;)
+        {
+            AtomicLong counter = counters.get(key);
+            if (counter == null)
+            {
+                AtomicLong created = new AtomicLong();
+                counter = counters.putIfAbsent(key, created);
+                if (counter == null)
+                {
+                    counter = created;
+                }
+            }
+            long value = counter.get();
+            if (value == RETIRED)
+            {
+                counters.remove(key, counter);
+            }
+            else if (counter.compareAndSet(value, value + delta))
+            {
+                break;
+            }
+        }
+    }
+
+    private static List<Mutation> getMutations(Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap,
+            CounterKey key)
+    {
+        Map<String, List<Mutation>> columnFamilies = mutationMap.get(key.rowKey);
+        if (columnFamilies == null)
+        {
+            columnFamilies = new HashMap<String, List<Mutation>>();
+            mutationMap.put(key.rowKey, columnFamilies);
+        }
+        List<Mutation> mutations = columnFamilies.get(key.columnFamily);
+        if (mutations == null)
+        {
+            mutations = new ArrayList<Mutation>();
+            columnFamilies.put(key.columnFamily, mutations);
+        }
+        return mutations;
+    }
+
+    /**
+     * Writes flushed counters.
+     */
+    public interface Writer
+    {
+        /**
+         * @param mutationMap
+         *            counter mutations by row key and column family.
+         */
+        void write(Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap);
+
+        void close();
+    }
+
+    /**
+     * Counter column of a row.
+     */
+    private static final class CounterKey
+    {
+        private final String columnFamily;
+
+        private final ByteBuffer rowKey;
+
+        private final ByteBuffer superColumn;
+
+        private final ByteBuffer column;
+
+        private CounterKey(String columnFamily, ByteBuffer rowKey, ByteBuffer superColumn, ByteBuffer column)
+        {
+            this.columnFamily = columnFamily;
+            this.rowKey = rowKey;
+            this.superColumn = superColumn;
+            this.column = column;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof CounterKey))
+            {
+                return false;
+            }
+            CounterKey other = (CounterKey) obj;
+            return columnFamily.equals(other.columnFamily) && rowKey.equals(other.rowKey)
+                    && isEqual(superColumn, other.superColumn) && isEqual(column, other.column);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int h = columnFamily.hashCode();
+            h = 31 * h + rowKey.hashCode();
+            h = 31 * h + (superColumn != null ? superColumn.hashCode() : 0);
+            return 31 * h + (column != null ? column.hashCode() : 0);
+        }
+
+        private static boolean isEqual(Object o1, Object o2)
+        {
+            return o1 == null ? o2 == null : o1.equals(o2);
+        }
+    }
+}
@@ -0,0 +1,347 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.cassandra.common;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Runs idempotent reads with speculative retry: a read which has not answered
+ * within the configured percentile of recent read response times is issued
+ * again on a second host, and whichever answers first wins. The slower read
+ * is not interrupted, it completes in background and releases its own
+ * connection.
+ * <p>
+ * Response times are sampled over a window of recent reads; until the window
+ * has enough samples reads are not speculated. Reads are run by a bounded
+ * pool of worker threads; when all of them are busy reads run on the calling
+ * thread without speculation.
+ */
+public final class SpeculativeExecutor
+{
+    /** The logger. */
+    private static Logger logger = LoggerFactory.getLogger(SpeculativeExecutor.class);
+
+    /** Number of recent response times the percentile is taken from. */
+    private static final int WINDOW = 1024;
+
+    /** Number of reads after which the speculation delay is recomputed. */
+    private static final int REFRESH = 128;
+
+    private final ListeningExecutorService executor;
+
+    private final int percentile;
+
+    private final long minDelay;
+
+    private final AtomicLongArray samples = new AtomicLongArray(WINDOW);
+
+    private final AtomicLong sampled = new AtomicLong();
+
+    private volatile long delay = -1;
+
+    private final AtomicLong reads = new AtomicLong();
+
+    private final AtomicLong speculations = new AtomicLong();
+
+    private final AtomicLong wins = new AtomicLong();
+
+    /**
+     * @param percentile
+     *            percentile of response times after which a read is
+     *            speculated, between 1 and 99.
+     * @param minDelayMillis
+     *            minimum milliseconds to wait before speculating.
+     * @param threads
+     *            maximum number of reads running on worker threads.
+     */
+    public SpeculativeExecutor(int percentile, int minDelayMillis, int threads)
+    {
+        if (percentile < 1 || percentile > 99 || minDelayMillis < 0 || threads <= 0)
+        {
+            throw new IllegalArgumentException("Speculative retry percentile must be between 1 and 99, min delay"
+                    + " and threads positive, but are " + percentile + ", " + minDelayMillis + " and " + threads);
+        }
+        this.percentile = percentile;
+        this.minDelay = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), new ThreadFactory()
+                {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r)
+                    {
+                        Thread thread = new Thread(r, "kundera-cassandra-speculative-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = MoreExecutors.listeningDecorator(pool);
+    }
+
+    /**
+     * Runs read on host, speculatively repeating it on backup host if it is
+     * slow.
+     * 
+     * @param host
+     *            host to read from.
+     * @param backupHost
+     *            host to speculatively read from, null to read from host only.
+     * @param read
+     *            idempotent read.
+     * @return result of the first read answering.
+     * @throws Exception
+     *             failure of the read, or of the second one if both failed.
+     */
+    public <T> T execute(final Object host, final Object backupHost, final Read<T> read) throws Exception
+    {
+        reads.incrementAndGet();
+        long threshold = delay;
+        if (backupHost == null || threshold < 0)
+        {
+            return timed(host, read);
+        }
+
+        ListenableFuture<T> primary;
+        try
+        {
+            primary = executor.submit(new Callable<T>()
+            {
+                @Override
+                public T call() throws Exception
+                {
+                    return timed(host, read);
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            return timed(host, read);
+        }
+
+        try
+        {
+            return primary.get(threshold, TimeUnit.NANOSECONDS);
+        }
+        catch (ExecutionException e)
+        {
+            throw unwrap(e);
+        }
+        catch (TimeoutException e)
+        {
+            speculations.incrementAndGet();
+        }
+
+        ListenableFuture<T> backup;
+        try
+        {
+            backup = executor.submit(new Callable<T>()
+            {
+                @Override
+                public T call() throws Exception
+                {
+                    return read.execute(backupHost);
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            return get(primary);
+        }
+
+        SettableFuture<T> first = SettableFuture.create();
+        AtomicBoolean answered = new AtomicBoolean();
+        AtomicInteger failures = new AtomicInteger();
+        Futures.addCallback(primary, new FirstAnswer<T>(first, answered, failures, false));
+        Futures.addCallback(backup, new FirstAnswer<T>(first, answered, failures, true));
+        return get(first);
+    }
+
+    /**
+     * @return number of reads run.
+     */
+    public long getReads()
+    {
+        return reads.get();
+    }
+
+    /**
+     * @return number of reads repeated on a second host.
+     */
+    public long getSpeculations()
+    {
+        return speculations.get();
+    }
+
+    /**
+     * @return number of speculated reads the second host answered first.
+     */
+    public long getSpeculativeWins()
+    {
+        return wins.get();
+    }
+
+    /**
+     * @return nanoseconds a read runs before it is speculated, -1 until
+     *         enough response times are sampled.
+     */
+    public long getDelay()
+    {
+        return delay;
+    }
+
+    /**
+     * Stops accepting reads, running ones complete.
+     */
+    public void shutdown()
+    {
+        executor.shutdown();
+        if (logger.isInfoEnabled())
+        {
+            logger.info("Speculated {} of {} reads, second host answered first {} times.", new Object[] {
+                    speculations.get(), reads.get(), wins.get() });
+        }
+    }
+
+    private <T> T timed(Object host, Read<T> read) throws Exception
+    {
+        long start = System.nanoTime();
+        T result = read.execute(host);
+        record(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Adds a response time sample, recomputing speculation delay every
+     * {@link #REFRESH} samples.
+     */
+    void record(long elapsedNanos)
+    {
+        long count = sampled.incrementAndGet();
+        samples.set((int) ((count - 1) % WINDOW), elapsedNanos);
+        if (count % REFRESH == 0)
+        {
+            int size = (int) Math.min(count, WINDOW);
+            long[] sorted = new long[size];
+            for (int i = 0; i < size; i++)
+            {
+                sorted[i] = samples.get(i);
+            }
+            Arrays.sort(sorted);
+            int index = Math.max(0, (int) Math.ceil(percentile * size / 100.0) - 1);
+            delay = Math.max(minDelay, sorted[index]);
+        }
+    }
+
+    private static <T> T get(Future<T> future) throws Exception
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (ExecutionException e)
+        {
+            throw unwrap(e);
+        }
+    }
+
+    private static Exception unwrap(ExecutionException e)
+    {
+        Throwable cause = e.getCause();
+        if (cause instanceof Error)
+        {
+            throw (Error) cause;
+        }
+        return cause instanceof Exception ? (Exception) cause : e;
+    }
+
+    /**
+     * Completes future with the first successful answer, or with the last
+     * failure once both reads failed.
+     */
+    private final class FirstAnswer<T> implements FutureCallback<T>
+    {
+        private final SettableFuture<T> first;
+
+        private final AtomicBoolean answered;
+
+        private final AtomicInteger failures;
+
+        private final boolean backup;
+
+        private FirstAnswer(SettableFuture<T> first, AtomicBoolean answered, AtomicInteger failures, boolean backup)
+        {
+            this.first = first;
+            this.answered = answered;
+            this.failures = failures;
+            this.backup = backup;
+        }
+
+        @Override
+        public void onSuccess(T result)
+        {
+            if (answered.compareAndSet(false, true))
+            {
+                if (backup)
+                {
+                    wins.incrementAndGet();
+                }
+                first.set(result);
+            }
+        }
+
+        @Override
+        public void onFailure(Throwable t)
+        {
+            if (failures.incrementAndGet() == 2)
+            {
+                first.setException(t);
+            }
+        }
+    }
+
+    /**
+     * Idempotent read, run against a host.
+     */
+    public interface Read<T>
+    {
+        T execute(Object host) throws Exception;
+    }
+}
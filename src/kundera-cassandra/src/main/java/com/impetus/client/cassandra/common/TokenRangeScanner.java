@@ -0,0 +1,446 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.cassandra.common;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.cassandra.dht.IPartitioner;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.thrift.Cassandra;
+import org.apache.cassandra.thrift.ColumnParent;
+import org.apache.cassandra.thrift.ConsistencyLevel;
+import org.apache.cassandra.thrift.InvalidRequestException;
+import org.apache.cassandra.thrift.KeyRange;
+import org.apache.cassandra.thrift.KeySlice;
+import org.apache.cassandra.thrift.SlicePredicate;
+import org.apache.cassandra.thrift.TokenRange;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.thrift.TException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.impetus.client.cassandra.common.BatchMutationExecutor.ConnectionProvider;
+import com.impetus.kundera.KunderaException;
+
+/**
+ * Full scan of a column family. The ring is split into token sub-ranges of
+ * about {@code splitSize} keys with describe_splits, sub-ranges are paged
+ * through by up to {@code threads} threads at a time and pages of rows are
+ * handed to the reading thread as they arrive. At most {@code threads * 2}
+ * pages are buffered, so a slow reader holds back the scan instead of
+ * filling up the heap.
+ */
+public final class TokenRangeScanner implements Iterator<List<KeySlice>>
+{
+    /** The logger. */
+    private static Logger logger = LoggerFactory.getLogger(TokenRangeScanner.class);
+
+    private final String keyspace;
+
+    private final ColumnParent columnParent;
+
+    private final SlicePredicate predicate;
+
+    private final ConsistencyLevel consistencyLevel;
+
+    private final int pageSize;
+
+    private final int threads;
+
+    private final int splitSize;
+
+    private final ConnectionProvider connectionProvider;
+
+    private final BlockingQueue<List<KeySlice>> pages;
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    private ExecutorService executor;
+
+    private volatile Throwable failure;
+
+    private volatile boolean closed;
+
+    private List<KeySlice> next;
+
+    /**
+     * @param keyspace
+     *            keyspace of column family.
+     * @param columnParent
+     *            column family to scan.
+     * @param predicate
+     *            columns read of each row.
+     * @param consistencyLevel
+     *            consistency level of reads.
+     * @param pageSize
+     *            rows read per request.
+     * @param threads
+     *            sub-ranges scanned at a time.
+     * @param splitSize
+     *            approximate number of keys per sub-range.
+     * @param connectionProvider
+     *            source of pooled connections.
+     */
+    public TokenRangeScanner(String keyspace, ColumnParent columnParent, SlicePredicate predicate,
+            ConsistencyLevel consistencyLevel, int pageSize, int threads, int splitSize,
+            ConnectionProvider connectionProvider)
+    {
+        if (pageSize < 2 || threads <= 0 || splitSize <= 0)
+        {
+            throw new IllegalArgumentException("Scan page size must be at least 2, threads and split size positive, "
+                    + "but are " + pageSize + ", " + threads + " and " + splitSize);
+        }
+        this.keyspace = keyspace;
+        this.columnParent = columnParent;
+        this.predicate = predicate;
+        this.consistencyLevel = consistencyLevel;
+        this.pageSize = pageSize;
+        this.threads = threads;
+        this.splitSize = splitSize;
+        this.connectionProvider = connectionProvider;
+        this.pages = new ArrayBlockingQueue<List<KeySlice>>(threads * 2);
+    }
+
+    /**
+     * Reads token sub-ranges of the column family and starts scanning them.
+     */
+    public void start()
+    {
+        if (executor != null)
+        {
+            throw new IllegalStateException("Scan of " + columnParent.getColumn_family() + " is already started");
+        }
+
+        List<Split> splits;
+        Object connection = connectionProvider.getConnection(null);
+        try
+        {
+            splits = getSplits(connectionProvider.getClient(connection));
+        }
+        catch (InvalidRequestException e)
+        {
+            logger.error("Error while splitting column family {}, Caused by: .", columnParent.getColumn_family(), e);
+            throw new KunderaException(e);
+        }
+        catch (TException e)
+        {
+            logger.error("Error while splitting column family {}, Caused by: .", columnParent.getColumn_family(), e);
+            throw new KunderaException(e);
+        }
+        finally
+        {
+            connectionProvider.releaseConnection(connection);
+        }
+
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("Scanning column family {} in {} token ranges.", columnParent.getColumn_family(),
+                    splits.size());
+        }
+
+        executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, splits.size())), new ThreadFactory()
+        {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r)
+            {
+                Thread thread = new Thread(r, "kundera-cassandra-scan-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        running.set(splits.size());
+        for (final Split split : splits)
+        {
+            executor.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        scan(split);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                    catch (Throwable t)
+                    {
+                        if (!closed)
+                        {
+                            logger.error("Error while scanning token range {} of column family {}, Caused by: .",
+                                    new Object[] { split, columnParent.getColumn_family(), t });
+                            failure = t;
+                            close();
+                        }
+                    }
+                    finally
+                    {
+                        running.decrementAndGet();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        if (next == null)
+        {
+            next = take();
+        }
+        return next != null;
+    }
+
+    @Override
+    public List<KeySlice> next()
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException("Scan of " + columnParent.getColumn_family() + " is complete");
+        }
+        List<KeySlice> page = next;
+        next = null;
+        return page;
+    }
+
+    @Override
+    public void remove()
+    {
+        throw new UnsupportedOperationException("remove is not supported over scans");
+    }
+
+    /**
+     * Stops scanning, rows not read yet are dropped.
+     */
+    public void close()
+    {
+        closed = true;
+        if (executor != null)
+        {
+            executor.shutdownNow();
+        }
+        pages.clear();
+    }
+
+    private List<KeySlice> take()
+    {
+        if (executor == null)
+        {
+            throw new IllegalStateException("Scan of " + columnParent.getColumn_family() + " is not started");
+        }
+        try
+        {
+            while (true)
+            {
+                checkFailure();
+                if (closed)
+                {
+                    return null;
+                }
+                List<KeySlice> page = pages.poll(100, TimeUnit.MILLISECONDS);
+                if (page == null && running.get() == 0)
+                {
+                    // all pages are queued once every range is done.
+                    page = pages.poll();
+                    checkFailure();
+                    if (page == null)
+                    {
+                        return null;
+                    }
+                }
+                if (page != null)
+                {
+                    return page;
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            close();
+            throw new KunderaException(e);
+        }
+    }
+
+    private void checkFailure()
+    {
+        if (failure != null)
+        {
+            throw new KunderaException("Scan of " + columnParent.getColumn_family() + " failed", failure);
+        }
+    }
+
+    private void scan(Split split) throws Exception
+    {
+        Object connection = connectionProvider.getConnection(null);
+        try
+        {
+            Cassandra.Client client = connectionProvider.getClient(connection);
+            KeyRange range = split.newRange(null, pageSize);
+            ByteBuffer lastKey = null;
+            while (!closed)
+            {
+                List<KeySlice> slices = client.get_range_slices(columnParent, predicate, range, consistencyLevel);
+                List<KeySlice> page = new ArrayList<KeySlice>(slices.size());
+                for (KeySlice slice : slices)
+                {
+                    // next page starts with last row of the previous one,
+                    // rows without columns are deleted.
+                    if (!slice.bufferForKey().equals(lastKey) && slice.getColumnsSize() > 0)
+                    {
+                        page.add(slice);
+                    }
+                }
+                if (!page.isEmpty())
+                {
+                    pages.put(page);
+                }
+                if (slices.size() < pageSize)
+                {
+                    break;
+                }
+                lastKey = slices.get(slices.size() - 1).bufferForKey();
+                range = split.newRange(lastKey, pageSize);
+            }
+        }
+        finally
+        {
+            connectionProvider.releaseConnection(connection);
+        }
+    }
+
+    private List<Split> getSplits(Cassandra.Client client) throws InvalidRequestException, TException
+    {
+        IPartitioner partitioner;
+        try
+        {
+            partitioner = FBUtilities.newPartitioner(client.describe_partitioner());
+        }
+        catch (ConfigurationException e)
+        {
+            throw new KunderaException(e);
+        }
+
+        List<Split> splits = new ArrayList<Split>();
+        for (TokenRange range : client.describe_ring(keyspace))
+        {
+            List<String> tokens = client.describe_splits(columnParent.getColumn_family(), range.getStart_token(),
+                    range.getEnd_token(), splitSize);
+            for (int i = 1; i < tokens.size(); i++)
+            {
+                addSplit(partitioner, tokens.get(i - 1), tokens.get(i), splits);
+            }
+        }
+        return splits;
+    }
+
+    /**
+     * Adds token range (start, end] to splits. A range wrapping around the
+     * ring is cut at the minimum token, as pages after the first one start
+     * from a key and key ranges must not wrap.
+     * 
+     * @param partitioner
+     *            partitioner of the cluster.
+     * @param start
+     *            exclusive start token.
+     * @param end
+     *            inclusive end token.
+     * @param splits
+     *            splits to add to.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    static void addSplit(IPartitioner partitioner, String start, String end, List<Split> splits)
+    {
+        Token.TokenFactory factory = partitioner.getTokenFactory();
+        Token minimum = partitioner.getMinimumToken();
+        Token startToken = factory.fromString(start);
+        Token endToken = factory.fromString(end);
+        if (startToken.compareTo(endToken) >= 0 && !endToken.equals(minimum))
+        {
+            String minimumToken = factory.toString(minimum);
+            splits.add(new Split(start, minimumToken));
+            splits.add(new Split(minimumToken, end));
+        }
+        else
+        {
+            splits.add(new Split(start, end));
+        }
+    }
+
+    /**
+     * Token range (start, end] scanned by one thread.
+     */
+    static final class Split
+    {
+        private final String start;
+
+        private final String end;
+
+        Split(String start, String end)
+        {
+            this.start = start;
+            this.end = end;
+        }
+
+        String getStart()
+        {
+            return start;
+        }
+
+        String getEnd()
+        {
+            return end;
+        }
+
+        private KeyRange newRange(ByteBuffer startKey, int count)
+        {
+            KeyRange range = new KeyRange(count);
+            if (startKey == null)
+            {
+                range.setStart_token(start);
+            }
+            else
+            {
+                range.setStart_key(startKey);
+            }
+            range.setEnd_token(end);
+            return range;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "(" + start + ", " + end + "]";
+        }
+    }
+}
@@ -15,6 +15,7 @@
  */
 package com.impetus.client.cassandra.datahandler;
 
+import java.util.BitSet;
 import java.util.List;
 
 import org.apache.cassandra.thrift.ConsistencyLevel;
@@ -118,4 +119,20 @@ public interface CassandraDataHandler
      * @throws Exception
      */
     ThriftRow toThriftRow(Object e, Object id, EntityMetadata m, String columnFamily, Object columnTTLs) throws Exception;
+
+    /**
+     * Converts entity into thrift row, holding changed attributes only.
+     * 
+     * @param e
+     * @param id
+     * @param m
+     * @param columnFamily
+     * @param columnTTLs
+     * @param dirtyAttributes
+     *            changed attributes, null if all attributes are to be written
+     * @return
+     * @throws Exception
+     */
+    ThriftRow toThriftRow(Object e, Object id, EntityMetadata m, String columnFamily, Object columnTTLs,
+            BitSet dirtyAttributes) throws Exception;
 }
@@ -19,6 +19,7 @@ import java.lang.reflect.Field;
 import java.math.BigDecimal;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -71,6 +72,7 @@ import com.impetus.kundera.property.PropertyAccessException;
 import com.impetus.kundera.property.PropertyAccessor;
 import com.impetus.kundera.property.PropertyAccessorFactory;
 import com.impetus.kundera.property.PropertyAccessorHelper;
+import com.impetus.kundera.property.RowBuffer;
 import com.impetus.kundera.property.accessor.BigDecimalAccessor;
 import com.impetus.kundera.property.accessor.IntegerAccessor;
 import com.impetus.kundera.property.accessor.LongAccessor;
@@ -309,7 +311,7 @@ public abstract class CassandraDataHandlerBase
             for (Column column : sc.getColumns())
             {
                 String name = PropertyAccessorFactory.STRING.fromBytes(String.class, column.getName());
-                byte[] value = column.getValue();
+                ByteBuffer value = column.bufferForValue();
                 if (value == null)
                 {
                     continue;
@@ -328,7 +330,7 @@ public abstract class CassandraDataHandlerBase
             for (Column column : sc.getColumns())
             {
                 String name = PropertyAccessorFactory.STRING.fromBytes(String.class, column.getName());
-                byte[] value = column.getValue();
+                ByteBuffer value = column.bufferForValue();
 
                 if (value == null)
                 {
@@ -362,6 +364,21 @@ public abstract class CassandraDataHandlerBase
      */
     public ThriftRow toThriftRow(Object e, Object id, EntityMetadata m, String columnFamily, Object columnTTLs)
             throws Exception
+    {
+        return toThriftRow(e, id, m, columnFamily, columnTTLs, null);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * com.impetus.client.cassandra.datahandler.CassandraDataHandler#toThriftRow
+     * (java.lang.Object, java.lang.Object,
+     * com.impetus.kundera.metadata.model.EntityMetadata, java.lang.String,
+     * java.lang.Object, java.util.BitSet)
+     */
+    public ThriftRow toThriftRow(Object e, Object id, EntityMetadata m, String columnFamily, Object columnTTLs,
+            BitSet dirtyAttributes) throws Exception
     {
         // timestamp to use in thrift column objects
         // long timestamp = System.currentTimeMillis();
@@ -373,7 +390,7 @@ public abstract class CassandraDataHandlerBase
 
         long timestamp = System.currentTimeMillis();
         // Add super columns to thrift row
-        onColumnOrSuperColumnThriftRow(tr, m, e, id, timestamp, columnTTLs);
+        onColumnOrSuperColumnThriftRow(tr, m, e, id, timestamp, columnTTLs, dirtyAttributes);
         return tr;
     }
 
@@ -957,7 +974,7 @@ public abstract class CassandraDataHandlerBase
         for (Column column : superColumn.getColumns())
         {
             String thriftColumnName = PropertyAccessorFactory.STRING.fromBytes(String.class, column.getName());
-            byte[] thriftColumnValue = column.getValue();
+            ByteBuffer thriftColumnValue = column.bufferForValue();
             PropertyAccessorHelper.set(embeddedObject, superColumnFieldMap.get(thriftColumnName), thriftColumnValue);
         }
     }
@@ -1399,10 +1416,12 @@ public abstract class CassandraDataHandlerBase
      *            the timestamp2
      * @param columnTTLs
      *            TODO
+     * @param dirtyAttributes
+     *            changed attributes, null if all attributes are to be written
      */
 
     private void onColumnOrSuperColumnThriftRow(ThriftRow tr, EntityMetadata m, Object e, Object id, long timestamp,
-            Object columnTTLs)
+            Object columnTTLs, BitSet dirtyAttributes)
     {
 
         // Iterate through Super columns
@@ -1412,10 +1431,16 @@ public abstract class CassandraDataHandlerBase
 
         EntityType entityType = metaModel.entity(m.getEntityClazz());
 
+        // All column values of this row are encoded into one buffer and
+        // handed to thrift as slices of it. Mutations are sent after this
+        // method returns, so the buffer is never reused for another row.
+        RowBuffer row = m.isCounterColumnType() ? null : new RowBuffer();
+
         Set<Attribute> attributes = entityType.getAttributes();
         for (Attribute attribute : attributes)
         {
-            if (!attribute.getName().equals(m.getIdAttribute().getName()) && !attribute.isAssociation())
+            if (!attribute.getName().equals(m.getIdAttribute().getName()) && !attribute.isAssociation()
+                    && MetadataUtils.isAttributeToBeWritten(m, attribute, dirtyAttributes))
             {
                 Field field = (Field) ((Attribute) attribute).getJavaMember();
                 byte[] name = PropertyAccessorFactory.STRING
@@ -1429,7 +1454,7 @@ public abstract class CassandraDataHandlerBase
                 }
                 else
                 {
-                    Object value = getColumnValue(m, e, field);
+                    Object value = getColumnValue(m, e, field, row);
 
                     if (m.getType().equals(Type.SUPER_COLUMN_FAMILY))
                     {
@@ -1458,7 +1483,7 @@ public abstract class CassandraDataHandlerBase
         // for nosql!
         if (discrColumn != null && discrValue != null)
         {
-            Column column = prepareColumn(PropertyAccessorHelper.getBytes(discrValue),
+            Column column = prepareColumn(ByteBuffer.wrap(PropertyAccessorHelper.getBytes(discrValue)),
                     PropertyAccessorHelper.getBytes(discrColumn), timestamp, 0);
             tr.addColumn(column);
 
@@ -1486,12 +1511,14 @@ public abstract class CassandraDataHandlerBase
         return ttl == null ? 0 : ttl;
     }
 
-    private Object getColumnValue(EntityMetadata m, Object e, Field field)
+    private Object getColumnValue(EntityMetadata m, Object e, Field field, RowBuffer row)
     {
         Object value;
         if (!m.isCounterColumnType())
         {
-            value = PropertyAccessorHelper.get(e, field);
+            int start = row.position();
+            int length = PropertyAccessorHelper.encode(PropertyAccessorHelper.getObject(e, field), field, row);
+            value = length < 0 ? null : row.slice(start, length);
         }
         else
         {
@@ -1527,7 +1554,7 @@ public abstract class CassandraDataHandlerBase
             }
             else
             {
-                Column column = prepareColumn((byte[]) value, name, timestamp, ttl);
+                Column column = prepareColumn((ByteBuffer) value, name, timestamp, ttl);
                 tr.addColumn(column);
             }
         }
@@ -1566,7 +1593,7 @@ public abstract class CassandraDataHandlerBase
             {
                 SuperColumn superCol = new SuperColumn();
                 superCol.setName(name);
-                Column column = prepareColumn((byte[]) value, name, timestamp, 0);
+                Column column = prepareColumn((ByteBuffer) value, name, timestamp, 0);
                 List<Column> subColumn = new ArrayList<Column>();
                 subColumn.add(column);
                 superCol.setColumns(subColumn);
@@ -1589,7 +1616,7 @@ public abstract class CassandraDataHandlerBase
      *            TODO
      * @return the column
      */
-    private Column prepareColumn(byte[] value, byte[] name, long timestamp, int ttl)
+    private Column prepareColumn(ByteBuffer value, byte[] name, long timestamp, int ttl)
     {
         Column column = new Column();
         column.setName(name);
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.cassandra.index;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.cassandra.thrift.SuperColumn;
+
+/**
+ * Bounded, least recently used cache of super columns read from inverted
+ * index tables, shared by clients of a persistence unit. Entries are dropped
+ * when clients of the persistence unit write or delete them, but writes made
+ * elsewhere are only seen once an entry is evicted; so the cache is meant for
+ * index tables that are mostly read.
+ */
+public final class InvertedIndexCache
+{
+    private final Map<Key, SuperColumn> superColumns;
+
+    /**
+     * @param maxSize
+     *            maximum number of cached super columns.
+     */
+    public InvertedIndexCache(final int maxSize)
+    {
+        if (maxSize <= 0)
+        {
+            throw new IllegalArgumentException("Inverted index cache size must be positive, but is " + maxSize);
+        }
+        this.superColumns = new LinkedHashMap<Key, SuperColumn>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, SuperColumn> eldest)
+            {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return cached super column, null if not cached.
+     */
+    public synchronized SuperColumn get(String columnFamily, String rowKey, byte[] superColumnName)
+    {
+        return superColumns.get(new Key(columnFamily, rowKey, superColumnName));
+    }
+
+    public synchronized void put(String columnFamily, String rowKey, SuperColumn superColumn)
+    {
+        superColumns.put(new Key(columnFamily, rowKey, superColumn.getName()), superColumn);
+    }
+
+    public synchronized void invalidate(String columnFamily, String rowKey, byte[] superColumnName)
+    {
+        superColumns.remove(new Key(columnFamily, rowKey, superColumnName));
+    }
+
+    public synchronized int size()
+    {
+        return superColumns.size();
+    }
+
+    private static final class Key
+    {
+        private final String columnFamily;
+
+        private final String rowKey;
+
+        private final ByteBuffer superColumnName;
+
+        private Key(String columnFamily, String rowKey, byte[] superColumnName)
+        {
+            this.columnFamily = columnFamily;
+            this.rowKey = rowKey;
+            this.superColumnName = ByteBuffer.wrap(superColumnName);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof Key))
+            {
+                return false;
+            }
+            Key other = (Key) obj;
+            return columnFamily.equals(other.columnFamily) && rowKey.equals(other.rowKey)
+                    && superColumnName.equals(other.superColumnName);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return (31 * columnFamily.hashCode() + rowKey.hashCode()) * 31 + superColumnName.hashCode();
+        }
+    }
+}
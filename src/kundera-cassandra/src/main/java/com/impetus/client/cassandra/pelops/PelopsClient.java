@@ -129,6 +129,10 @@ public class PelopsClient extends CassandraClientBase implements Client<CassQuer
         this.clientMetadata = clientFactory.getClientMetadata();
         this.invertedIndexHandler = new PelopsInvertedIndexHandler(this, MetadataUtils.useSecondryIndex(this.clientMetadata));
         this.pool = pool;
+        setStatementCache(clientFactory.getStatementCache());
+        setBatchMutationExecutor(clientFactory.getBatchMutationExecutor());
+        setAsyncExecutor(clientFactory.getAsyncExecutor());
+        setCounterAggregator(clientFactory.getCounterAggregator());
     }
 
     @Override
@@ -317,13 +321,15 @@ public class PelopsClient extends CassandraClientBase implements Client<CassQuer
             Object columnValue, Class entityClazz)
     {
         Selector selector = clientFactory.getSelector(pool);
-        SlicePredicate slicePredicate = Selector.newColumnsPredicateAll(false, 10000);
         EntityMetadata metadata = KunderaMetadataManager.getEntityMetadata(entityClazz);
         // String childIdStr = (String) columnValue;
 
-        IndexClause ix = Selector.newIndexClause(Bytes.EMPTY, 10000, Selector.newIndexExpression(columnName
-                + Constants.JOIN_COLUMN_NAME_SEPARATOR + columnValue, IndexOperator.EQ,
-                Bytes.fromByteArray(PropertyAccessorHelper.getBytes(columnValue))));
+        String indexedColumn = columnName + Constants.JOIN_COLUMN_NAME_SEPARATOR + columnValue;
+        IndexClause ix = Selector.newIndexClause(Bytes.EMPTY, 10000, Selector.newIndexExpression(indexedColumn,
+                IndexOperator.EQ, Bytes.fromByteArray(PropertyAccessorHelper.getBytes(columnValue))));
+
+        // only row keys are needed, read indexed column alone.
+        SlicePredicate slicePredicate = Selector.newColumnsPredicate(indexedColumn);
 
         Map<Bytes, List<Column>> qResults = selector.getIndexedColumns(tableName, ix, slicePredicate,
                 getConsistencyLevel());
@@ -497,7 +503,8 @@ public class PelopsClient extends CassandraClientBase implements Client<CassQuer
             try
             {
                 String columnFamily = metadata.getTableName();
-                tf = dataHandler.toThriftRow(entity, id, metadata, columnFamily, getTtlValues().get(columnFamily));
+                tf = dataHandler.toThriftRow(entity, id, metadata, columnFamily, getTtlValues().get(columnFamily),
+                        dirtyAttributes);
             }
             catch (Exception e)
             {
@@ -505,6 +512,15 @@ public class PelopsClient extends CassandraClientBase implements Client<CassQuer
                 throw new KunderaException(e);
             }
             addRelationsToThriftRow(metadata, tf, rlHolders);
+            if (aggregateCounters(metadata, tf))
+            {
+                // written later by counter aggregator.
+                if (isTtlPerRequest())
+                {
+                    getTtlValues().clear();
+                }
+                return;
+            }
             Mutator mutator = clientFactory.getMutator(pool);
             if (metadata.isCounterColumnType())
             {
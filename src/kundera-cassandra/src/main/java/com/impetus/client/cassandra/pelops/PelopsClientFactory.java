@@ -39,12 +39,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Lists;
+import com.impetus.client.cassandra.common.BatchMutationExecutor;
+import com.impetus.client.cassandra.common.CassandraAsyncExecutor;
+import com.impetus.client.cassandra.common.CassandraUtilities;
+import com.impetus.client.cassandra.common.CounterAggregator;
 import com.impetus.client.cassandra.config.CassandraPropertyReader;
 import com.impetus.client.cassandra.query.CassandraEntityReader;
 import com.impetus.client.cassandra.schemamanager.CassandraSchemaManager;
 import com.impetus.client.cassandra.service.CassandraHost;
 import com.impetus.client.cassandra.service.CassandraHostConfiguration;
 import com.impetus.client.cassandra.service.CassandraRetryService;
+import com.impetus.client.cassandra.thrift.CQLStatementCache;
 import com.impetus.kundera.Constants;
 import com.impetus.kundera.KunderaException;
 import com.impetus.kundera.PersistenceProperties;
@@ -69,6 +74,14 @@ public class PelopsClientFactory extends GenericClientFactory
 
     private HostConfiguration configuration;
 
+    private CQLStatementCache statementCache;
+
+    private BatchMutationExecutor batchMutationExecutor;
+
+    private CassandraAsyncExecutor asyncExecutor;
+
+    private CounterAggregator counterAggregator;
+
     @Override
     public void initialize(Map<String, Object> externalProperty)
     {
@@ -81,6 +94,12 @@ public class PelopsClientFactory extends GenericClientFactory
         configuration = new CassandraHostConfiguration(externalProperties, CassandraPropertyReader.csmd,
                 getPersistenceUnit());
         hostRetryService = new CassandraRetryService(configuration, this);
+        statementCache = new CQLStatementCache(CassandraUtilities.getPreparedStatementCacheSize(getPersistenceUnit(),
+                externalProperties));
+        batchMutationExecutor = CassandraUtilities.createBatchMutationExecutor(getPersistenceUnit(),
+                externalProperties);
+        asyncExecutor = CassandraUtilities.createAsyncExecutor(this, getPersistenceUnit(), externalProperties);
+        counterAggregator = CassandraUtilities.createCounterAggregator(this, getPersistenceUnit(), externalProperties);
     }
 
     @Override
@@ -149,6 +168,38 @@ public class PelopsClientFactory extends GenericClientFactory
         return new PelopsClient(indexManager, reader, this, persistenceUnit, externalProperties, pool);
     }
 
+    /**
+     * @return prepared statements shared by clients of this factory.
+     */
+    public CQLStatementCache getStatementCache()
+    {
+        return statementCache;
+    }
+
+    /**
+     * @return batch mutation executor shared by clients of this factory.
+     */
+    public BatchMutationExecutor getBatchMutationExecutor()
+    {
+        return batchMutationExecutor;
+    }
+
+    /**
+     * @return executor of asynchronous operations of this factory's clients.
+     */
+    public CassandraAsyncExecutor getAsyncExecutor()
+    {
+        return asyncExecutor;
+    }
+
+    /**
+     * @return aggregator of counter increments, null if disabled.
+     */
+    public CounterAggregator getCounterAggregator()
+    {
+        return counterAggregator;
+    }
+
     @Override
     public boolean isThreadSafe()
     {
@@ -158,6 +209,11 @@ public class PelopsClientFactory extends GenericClientFactory
     @Override
     public void destroy()
     {
+        if (counterAggregator != null)
+        {
+            // pending increments are written while pools are still open.
+            counterAggregator.shutdown();
+        }
         if (indexManager != null)
         {
             indexManager.close();
@@ -167,6 +223,14 @@ public class PelopsClientFactory extends GenericClientFactory
             schemaManager.dropSchema();
         }
         schemaManager = null;
+        if (batchMutationExecutor != null)
+        {
+            batchMutationExecutor.shutdown();
+        }
+        if (asyncExecutor != null)
+        {
+            asyncExecutor.shutdown();
+        }
         // Pelops.shutdown();
         // Pelops.removePool(PelopsUtils.generatePoolName(getPersistenceUnit(),
         // externalProperties));
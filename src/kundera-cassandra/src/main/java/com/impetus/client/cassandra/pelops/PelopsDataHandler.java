@@ -17,6 +17,7 @@ package com.impetus.client.cassandra.pelops;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -65,6 +66,12 @@ final class PelopsDataHandler extends CassandraDataHandlerBase implements Cassan
                 .getColumnOrSuperColumnsFromRows(new ColumnParent(m.getTableName()), rowKeys,
                         Selector.newColumnsPredicateAll(true, 10000), consistencyLevel);
 
+        return populateEntity(rowKey, m, relationNames, isWrapReq, thriftColumnOrSuperColumns);
+    }
+
+    private Object populateEntity(Object rowKey, EntityMetadata m, List<String> relationNames, boolean isWrapReq,
+            Map<ByteBuffer, List<ColumnOrSuperColumn>> thriftColumnOrSuperColumns)
+    {
         ThriftRow tr = new ThriftRow();
         tr.setId(rowKey);
         tr.setColumnFamilyName(m.getTableName());
@@ -77,11 +84,45 @@ final class PelopsDataHandler extends CassandraDataHandlerBase implements Cassan
 
     /** Translation Methods */
 
+    /**
+     * Reads all rows with one multiget_slice call.
+     */
     @Override
     public List<Object> fromThriftRow(Class<?> clazz, EntityMetadata m, List<String> relationNames, boolean isWrapReq,
             ConsistencyLevel consistencyLevel, Object... rowIds) throws Exception
     {
-        return super.fromThriftRow(clazz, m, relationNames, isWrapReq, consistencyLevel, rowIds);
+        if (rowIds == null || rowIds.length <= 1)
+        {
+            return super.fromThriftRow(clazz, m, relationNames, isWrapReq, consistencyLevel, rowIds);
+        }
+
+        List<ByteBuffer> rowKeys = new ArrayList<ByteBuffer>(rowIds.length);
+        for (Object rowKey : rowIds)
+        {
+            rowKeys.add(ByteBuffer.wrap(PropertyAccessorHelper.toBytes(rowKey, m.getIdAttribute().getJavaType())));
+        }
+
+        Map<ByteBuffer, List<ColumnOrSuperColumn>> rows = pelopsClient.getSelector().getColumnOrSuperColumnsFromRows(
+                new ColumnParent(m.getTableName()), rowKeys, Selector.newColumnsPredicateAll(true, 10000),
+                consistencyLevel);
+
+        // keep order of given row keys.
+        List<Object> entities = new ArrayList<Object>(rowIds.length);
+        for (int i = 0; i < rowIds.length; i++)
+        {
+            List<ColumnOrSuperColumn> columnOrSuperColumns = rows.get(rowKeys.get(i));
+            if (columnOrSuperColumns != null && !columnOrSuperColumns.isEmpty())
+            {
+                Map<ByteBuffer, List<ColumnOrSuperColumn>> row = new HashMap<ByteBuffer, List<ColumnOrSuperColumn>>();
+                row.put(rowKeys.get(i), columnOrSuperColumns);
+                Object e = populateEntity(rowIds[i], m, relationNames, isWrapReq, row);
+                if (e != null)
+                {
+                    entities.add(e);
+                }
+            }
+        }
+        return entities;
     }
 
     @Override
@@ -0,0 +1,284 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.cassandra.query;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import javax.persistence.metamodel.EmbeddableType;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.impetus.client.cassandra.common.CassandraUtilities;
+import com.impetus.client.cassandra.thrift.CQLTranslator;
+import com.impetus.kundera.client.EnhanceEntity;
+import com.impetus.kundera.metadata.model.EntityMetadata;
+import com.impetus.kundera.metadata.model.MetamodelImpl;
+import com.impetus.kundera.metadata.model.attributes.AbstractAttribute;
+import com.impetus.kundera.property.PropertyAccessorHelper;
+import com.impetus.kundera.query.KunderaQuery.FilterClause;
+import com.impetus.kundera.utils.ReflectUtils;
+
+/**
+ * Builds CQL3 queries reading results of a query page by page. A page starts
+ * right after the primary key of previous page's last row: with a
+ * token(key) > token(last key) restriction for a simple key, and for a
+ * compound key with one query per clustering column over rest of the last
+ * row's partition, followed by the token restriction on partition key.
+ * Queries restricting the key in other ways, or ordering results, are read
+ * in a single page.
+ */
+final class CQLPager
+{
+    /** How pages after the first one are read. */
+    enum Continuation
+    {
+        /** no page after the first one. */
+        NONE,
+        /** rest of the last row's partition only. */
+        PARTITION,
+        /** rest of the partition, then following partitions. */
+        FULL
+    }
+
+    private final String query;
+
+    private final boolean hasWhereClause;
+
+    private final boolean allowFiltering;
+
+    private final Continuation continuation;
+
+    /** id column, or partition key followed by clustering columns. */
+    private final List<String> keyColumns = new ArrayList<String>();
+
+    private final List<Class<?>> keyTypes = new ArrayList<Class<?>>();
+
+    /** fields of compound key, null for a simple key. */
+    private final List<Field> keyFields;
+
+    private final EntityMetadata metadata;
+
+    /**
+     * @param metadata
+     *            entity metadata
+     * @param metaModel
+     *            meta model of entity's persistence unit
+     * @param externalProperties
+     *            client's external properties
+     * @param parsedQuery
+     *            CQL3 query of JPA query, ending with LIMIT clause.
+     * @param filterClauseQueue
+     *            filter clauses of JPA query.
+     * @param isOrdered
+     *            whether query has ORDER BY clause.
+     */
+    CQLPager(EntityMetadata metadata, MetamodelImpl metaModel, Map<String, Object> externalProperties,
+            String parsedQuery, Queue filterClauseQueue, boolean isOrdered)
+    {
+        this.metadata = metadata;
+        int limitIndex = parsedQuery.lastIndexOf(CQLTranslator.LIMIT);
+        this.query = limitIndex >= 0 ? parsedQuery.substring(0, limitIndex) : parsedQuery;
+        this.allowFiltering = parsedQuery.trim().endsWith("ALLOW FILTERING");
+        this.hasWhereClause = !filterClauseQueue.isEmpty();
+
+        String idColumn = ((AbstractAttribute) metadata.getIdAttribute()).getJPAColumnName();
+        Class<?> idClazz = metadata.getIdAttribute().getBindableJavaType();
+        if (metaModel.isEmbeddable(idClazz))
+        {
+            EmbeddableType compoundKey = metaModel.embeddable(idClazz);
+            keyFields = new ArrayList<Field>();
+            for (Field field : idClazz.getDeclaredFields())
+            {
+                if (!ReflectUtils.isTransientOrStatic(field))
+                {
+                    AbstractAttribute attribute = (AbstractAttribute) compoundKey.getAttribute(field.getName());
+                    keyFields.add(field);
+                    keyColumns.add(attribute.getJPAColumnName());
+                    keyTypes.add(attribute.getBindableJavaType());
+                }
+            }
+            continuation = isOrdered ? Continuation.NONE : getCompoundKeyContinuation(idColumn, filterClauseQueue);
+        }
+        else
+        {
+            keyFields = null;
+            keyColumns.add(CassandraUtilities.getIdColumnName(metadata, externalProperties));
+            keyTypes.add(idClazz);
+            continuation = isOrdered ? Continuation.NONE : getKeyContinuation(idColumn, filterClauseQueue);
+        }
+    }
+
+    /**
+     * Token of a simple key can be bound from below, unless query already
+     * does.
+     */
+    private Continuation getKeyContinuation(String idColumn, Queue filterClauseQueue)
+    {
+        for (Object o : filterClauseQueue)
+        {
+            if (o instanceof FilterClause && idColumn.equals(((FilterClause) o).getProperty()))
+            {
+                String condition = ((FilterClause) o).getCondition().trim();
+                if (!condition.equals("<") && !condition.equals("<="))
+                {
+                    return Continuation.NONE;
+                }
+            }
+        }
+        return Continuation.FULL;
+    }
+
+    /**
+     * Clustering columns of a compound key can be bound if query restricts
+     * nothing but partition key, with an equals clause.
+     */
+    private Continuation getCompoundKeyContinuation(String idColumn, Queue filterClauseQueue)
+    {
+        Continuation result = Continuation.FULL;
+        for (Object o : filterClauseQueue)
+        {
+            if (o instanceof FilterClause)
+            {
+                FilterClause clause = (FilterClause) o;
+                String fieldName = clause.getProperty();
+                if (idColumn.equals(fieldName))
+                {
+                    return Continuation.NONE;
+                }
+                if (StringUtils.contains(fieldName, '.'))
+                {
+                    fieldName = fieldName.substring(fieldName.indexOf('.') + 1);
+                    if (result != Continuation.FULL || !keyFields.get(0).getName().equals(fieldName)
+                            || !clause.getCondition().trim().equals("="))
+                    {
+                        return Continuation.NONE;
+                    }
+                    result = Continuation.PARTITION;
+                }
+            }
+        }
+        return result;
+    }
+
+    Continuation getContinuation()
+    {
+        return continuation;
+    }
+
+    /**
+     * @return number of queries needed to read a page after the first one.
+     */
+    int getQueryCount()
+    {
+        switch (continuation)
+        {
+        case NONE:
+            return 0;
+        case PARTITION:
+            return keyColumns.size() - 1;
+        default:
+            return keyColumns.size();
+        }
+    }
+
+    /**
+     * @param limit
+     *            maximum number of rows.
+     * @return query of first page.
+     */
+    String getFirstQuery(int limit)
+    {
+        return finish(new StringBuilder(query), limit);
+    }
+
+    /**
+     * Returns i-th query of a page. Queries of a page are run one after
+     * another, until the page is full.
+     * 
+     * @param lastKey
+     *            key values of previous page's last row, see
+     *            {@link #getKey(Object)}.
+     * @param i
+     *            index of query, less than {@link #getQueryCount()}.
+     * @param limit
+     *            maximum number of rows.
+     * @return query.
+     */
+    String getNextQuery(Object[] lastKey, int i, int limit)
+    {
+        CQLTranslator translator = new CQLTranslator();
+        StringBuilder builder = new StringBuilder(query);
+        builder.append(hasWhereClause ? CQLTranslator.AND_CLAUSE : CQLTranslator.ADD_WHERE_CLAUSE);
+
+        int clusteringColumns = keyColumns.size() - 1;
+        if (i < clusteringColumns)
+        {
+            // within partition: equal on preceding clustering columns and
+            // greater on the bound one, starting from the last one.
+            int bound = clusteringColumns - i;
+            for (int column = continuation == Continuation.PARTITION ? 1 : 0; column < bound; column++)
+            {
+                translator.buildWhereClause(builder, keyTypes.get(column), keyColumns.get(column), lastKey[column],
+                        CQLTranslator.EQ_CLAUSE, false);
+            }
+            translator.buildWhereClause(builder, keyTypes.get(bound), keyColumns.get(bound), lastKey[bound], " > ",
+                    false);
+        }
+        else
+        {
+            translator.buildWhereClause(builder, keyTypes.get(0), keyColumns.get(0), lastKey[0], " > ", true);
+        }
+        // strip last "AND" clause.
+        builder.delete(builder.lastIndexOf(CQLTranslator.AND_CLAUSE), builder.length());
+        return finish(builder, limit);
+    }
+
+    /**
+     * @param row
+     *            entity, or {@link EnhanceEntity} holding it.
+     * @return values of row's key columns.
+     */
+    Object[] getKey(Object row)
+    {
+        Object entity = row instanceof EnhanceEntity ? ((EnhanceEntity) row).getEntity() : row;
+        Object id = PropertyAccessorHelper.getId(entity, metadata);
+        if (keyFields == null)
+        {
+            return new Object[] { id };
+        }
+        Object[] key = new Object[keyFields.size()];
+        for (int i = 0; i < key.length; i++)
+        {
+            key[i] = PropertyAccessorHelper.getObject(id, keyFields.get(i));
+        }
+        return key;
+    }
+
+    private String finish(StringBuilder builder, int limit)
+    {
+        builder.append(CQLTranslator.LIMIT);
+        builder.append(limit);
+        if (allowFiltering)
+        {
+            new CQLTranslator().buildFilteringClause(builder);
+        }
+        return builder.toString();
+    }
+}
@@ -18,6 +18,7 @@ package com.impetus.client.cassandra.query;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -59,6 +60,7 @@ import com.impetus.kundera.metadata.model.attributes.AbstractAttribute;
 import com.impetus.kundera.metadata.model.type.AbstractManagedType;
 import com.impetus.kundera.persistence.EntityReader;
 import com.impetus.kundera.persistence.PersistenceDelegator;
+import com.impetus.kundera.persistence.context.PartialEntities;
 import com.impetus.kundera.property.PropertyAccessorHelper;
 import com.impetus.kundera.query.KunderaQuery;
 import com.impetus.kundera.query.KunderaQuery.FilterClause;
@@ -141,6 +143,7 @@ public class CassQuery extends QueryImpl
         {
             result = ((CassandraClientBase) client).executeQuery(onQueryOverCQL3(m, client, metaModel, null),
                     m.getEntityClazz(), null);
+            markPartialEntities(m, result);
         }
         else
         {
@@ -176,6 +179,7 @@ public class CassQuery extends QueryImpl
                                     ixClause, isRowKeyQuery, getColumnList(m, getKunderaQuery().getResult(), null),
                                     isSingleResult ? 1 : this.maxResult);
                         }
+                        markPartialEntities(m, result);
                     }
 
                 }
@@ -222,6 +226,7 @@ public class CassQuery extends QueryImpl
             ls = ((CassandraClientBase) client).executeQuery(
                     onQueryOverCQL3(m, client, metaModel, m.getRelationNames()), m.getEntityClazz(),
                     m.getRelationNames());
+            markPartialEntities(m, ls);
         }
         else
         {
@@ -392,6 +397,31 @@ public class CassQuery extends QueryImpl
         return null;
     }
 
+    /**
+     * Marks entities read by a query selecting a subset of entity's
+     * attributes as partially hydrated, see {@link PartialEntities}.
+     * 
+     * @param m
+     *            entity metadata
+     * @param results
+     *            entities, or enhance entities holding them.
+     */
+    void markPartialEntities(EntityMetadata m, List<?> results)
+    {
+        String[] selected = getKunderaQuery().getResult();
+        if (results == null || selected == null || selected.length < 2)
+        {
+            return;
+        }
+
+        BitSet loaded = PartialEntities.getAttributeIndexes(m, Arrays.copyOfRange(selected, 1, selected.length));
+        for (Object result : results)
+        {
+            PartialEntities.mark(result instanceof EnhanceEntity ? ((EnhanceEntity) result).getEntity() : result, m,
+                    loaded);
+        }
+    }
+
     /**
      * Prepare index clause.
      * 
@@ -89,6 +89,15 @@ public class CassandraEntityReader extends AbstractEntityReader implements Entit
         return super.findById(primaryKey, m, client);
     }
 
+    /**
+     * Cassandra clients read relation values of each row by findAll.
+     */
+    @Override
+    public boolean isFindAllWithRelations()
+    {
+        return true;
+    }
+
     /**
      * Method responsible for reading back entity and relations using secondary
      * indexes(if it holds any relation), else retrieve row keys using lucene.
@@ -17,9 +17,11 @@ package com.impetus.client.cassandra.query;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
 
 import javax.persistence.PersistenceException;
 import javax.persistence.Query;
@@ -32,12 +34,16 @@ import org.scale7.cassandra.pelops.Bytes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.impetus.client.cassandra.CassandraClientBase;
+import com.impetus.client.cassandra.common.CassandraAsyncExecutor;
 import com.impetus.client.cassandra.common.CassandraUtilities;
+import com.impetus.client.cassandra.common.TokenRangeScanner;
 import com.impetus.client.cassandra.index.CassandraIndexHelper;
 import com.impetus.client.cassandra.thrift.CQLTranslator;
 import com.impetus.kundera.client.Client;
 import com.impetus.kundera.client.ClientBase;
+import com.impetus.kundera.KunderaException;
 import com.impetus.kundera.client.EnhanceEntity;
 import com.impetus.kundera.metadata.MetadataUtils;
 import com.impetus.kundera.metadata.model.ApplicationMetadata;
@@ -93,6 +99,26 @@ class ResultIterator<E> implements IResultIterator<E>
 
     private E current;
 
+    private Boolean scan;
+
+    private TokenRangeScanner scanner;
+
+    private Iterator<Object> scanned;
+
+    private Boolean paged;
+
+    private CQLPager pager;
+
+    private int pageSize;
+
+    private boolean readAhead;
+
+    private int fetched;
+
+    private Object[] lastKey;
+
+    private ListenableFuture<List<Object>> nextPage;
+
     /**
      * Constructor with parameters
      * 
@@ -117,6 +143,16 @@ class ResultIterator<E> implements IResultIterator<E>
     @Override
     public boolean hasNext()
     {
+        if (isScan())
+        {
+            return hasNextScanned();
+        }
+
+        if (isPaged())
+        {
+            return hasNextPaged();
+        }
+
         if (checkOnFetchSize())
         {
             onCheckRelation();
@@ -135,6 +171,28 @@ class ResultIterator<E> implements IResultIterator<E>
     @Override
     public E next()
     {
+        if (isScan())
+        {
+            if (!hasNextScanned())
+            {
+                throw new NoSuchElementException("Nothing to scroll further for:" + entityMetadata.getEntityClazz());
+            }
+            count++;
+            current = getEntity(scanned.next());
+            return current;
+        }
+
+        if (isPaged())
+        {
+            if (!hasNextPaged())
+            {
+                throw new NoSuchElementException("Nothing to scroll further for:" + entityMetadata.getEntityClazz());
+            }
+            count++;
+            current = getEntity(scanned.next());
+            return current;
+        }
+
         if (current != null && checkOnEmptyResult() && current.equals(results.get(results.size() - 1)))
         {
             hasNext();
@@ -165,6 +223,245 @@ class ResultIterator<E> implements IResultIterator<E>
         throw new UnsupportedOperationException("fetch in chunks is not yet supported");
     }
 
+    /**
+     * Queries without any condition over non CQL3 column families are served
+     * by a full scan of parallel token ranges, see {@link TokenRangeScanner}.
+     * 
+     * @return true, if results are scanned.
+     */
+    private boolean isScan()
+    {
+        if (scan == null)
+        {
+            scan = !query.isNative() && !((CassandraClientBase) client).isCql3Enabled(entityMetadata)
+                    && query.getKunderaQuery().getFilterClauseQueue().isEmpty();
+        }
+        return scan;
+    }
+
+    /**
+     * Moves to next scanned entity, reading next page of rows if current one
+     * is consumed. Scan is closed once fetch size is reached.
+     * 
+     * @return true, if there is an entity to scroll.
+     */
+    private boolean hasNextScanned()
+    {
+        if (scrollComplete)
+        {
+            return false;
+        }
+        if (count >= fetchSize)
+        {
+            closeScan();
+            return false;
+        }
+
+        CassandraClientBase cassandraClient = (CassandraClientBase) client;
+        while (scanned == null || !scanned.hasNext())
+        {
+            if (scanner == null)
+            {
+                scanner = cassandraClient.scan(entityMetadata,
+                        query.getColumnList(entityMetadata, ((QueryImpl) query).getKunderaQuery().getResult(), null));
+            }
+            if (!scanner.hasNext())
+            {
+                closeScan();
+                return false;
+            }
+
+            List<Object> page = cassandraClient.fromKeySlices(entityMetadata, scanner.next());
+            query.markPartialEntities(entityMetadata, page);
+            if (entityMetadata.isRelationViaJoinTable()
+                    || (entityMetadata.getRelationNames() != null && !(entityMetadata.getRelationNames().isEmpty())))
+            {
+                query.setRelationalEntities(page, client, entityMetadata);
+            }
+            scanned = page.iterator();
+        }
+        return true;
+    }
+
+    private void closeScan()
+    {
+        scrollComplete = true;
+        if (scanner != null)
+        {
+            scanner.close();
+        }
+    }
+
+    /**
+     * JPA queries over CQL3 tables are read page by page, see
+     * {@link CQLPager}.
+     * 
+     * @return true, if results are paged.
+     */
+    private boolean isPaged()
+    {
+        if (paged == null)
+        {
+            paged = !query.isNative() && ((CassandraClientBase) client).isCql3Enabled(entityMetadata);
+        }
+        return paged;
+    }
+
+    /**
+     * Moves to next entity of current page, reading next page if current one
+     * is consumed.
+     * 
+     * @return true, if there is an entity to scroll.
+     */
+    private boolean hasNextPaged()
+    {
+        if (scrollComplete)
+        {
+            return false;
+        }
+        if (count >= fetchSize)
+        {
+            closePaged();
+            return false;
+        }
+
+        while (scanned == null || !scanned.hasNext())
+        {
+            List<Object> page = readPage();
+            if (page == null || page.isEmpty())
+            {
+                closePaged();
+                return false;
+            }
+            query.markPartialEntities(entityMetadata, page);
+            if (entityMetadata.isRelationViaJoinTable()
+                    || (entityMetadata.getRelationNames() != null && !(entityMetadata.getRelationNames().isEmpty())))
+            {
+                query.setRelationalEntities(page, client, entityMetadata);
+            }
+            scanned = page.iterator();
+        }
+        return true;
+    }
+
+    /**
+     * Reads next page of rows, taking it from read ahead if it was submitted.
+     * Next page is submitted for read ahead, when enabled.
+     * 
+     * @return rows of next page, null if there are no more rows.
+     */
+    private List<Object> readPage()
+    {
+        CassandraClientBase cassandraClient = (CassandraClientBase) client;
+        List<Object> page;
+        int limit;
+        if (pager == null)
+        {
+            externalProperties = cassandraClient.getExternalProperties();
+            MetamodelImpl metaModel = (MetamodelImpl) KunderaMetadata.INSTANCE.getApplicationMetadata().getMetamodel(
+                    entityMetadata.getPersistenceUnit());
+            String parsedQuery = query.onQueryOverCQL3(entityMetadata, client, metaModel, null);
+            if (log.isDebugEnabled())
+            {
+                log.debug("Paging over results of Cassandra query {}.", parsedQuery);
+            }
+            pager = new CQLPager(entityMetadata, metaModel, externalProperties, parsedQuery, query.getKunderaQuery()
+                    .getFilterClauseQueue(), query.getKunderaQuery().getOrdering() != null
+                    && !query.getKunderaQuery().getOrdering().isEmpty());
+            String persistenceUnit = entityMetadata.getPersistenceUnit();
+            pageSize = pager.getContinuation() == CQLPager.Continuation.NONE ? fetchSize : Math.min(fetchSize,
+                    CassandraUtilities.getIteratePageSize(persistenceUnit, externalProperties));
+            readAhead = cassandraClient.isAsyncEnabled()
+                    && CassandraUtilities.isIterateReadAhead(persistenceUnit, externalProperties);
+
+            limit = pageSize;
+            page = cassandraClient.executeQuery(pager.getFirstQuery(limit), entityMetadata.getEntityClazz(),
+                    entityMetadata.getRelationNames());
+        }
+        else if (nextPage != null)
+        {
+            limit = Math.min(pageSize, fetchSize - fetched);
+            page = getNextPage();
+        }
+        else if (lastKey != null)
+        {
+            limit = Math.min(pageSize, fetchSize - fetched);
+            page = readPage(cassandraClient, lastKey, limit);
+        }
+        else
+        {
+            return null;
+        }
+
+        fetched += page.size();
+        // a short page is the last one.
+        lastKey = page.size() < limit || page.isEmpty() || fetched >= fetchSize ? null : pager.getKey(page.get(page
+                .size() - 1));
+        if (readAhead && lastKey != null && pager.getQueryCount() > 0)
+        {
+            submitNextPage(cassandraClient, lastKey, Math.min(pageSize, fetchSize - fetched));
+        }
+        return page;
+    }
+
+    /**
+     * Reads a page following given key, running continuation queries of
+     * pager until page is full.
+     */
+    private List<Object> readPage(CassandraClientBase cassandraClient, Object[] key, int limit)
+    {
+        List<Object> page = new ArrayList<Object>(limit);
+        for (int i = 0; i < pager.getQueryCount() && page.size() < limit; i++)
+        {
+            page.addAll(cassandraClient.executeQuery(pager.getNextQuery(key, i, limit - page.size()),
+                    entityMetadata.getEntityClazz(), entityMetadata.getRelationNames()));
+        }
+        return page;
+    }
+
+    private void submitNextPage(CassandraClientBase cassandraClient, final Object[] key, final int limit)
+    {
+        nextPage = cassandraClient.submit(new CassandraAsyncExecutor.Operation<List<Object>>()
+        {
+            @Override
+            public List<Object> execute(Client client)
+            {
+                return readPage((CassandraClientBase) client, key, limit);
+            }
+        });
+    }
+
+    private List<Object> getNextPage()
+    {
+        try
+        {
+            return nextPage.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new KunderaException("Interrupted while reading next page of " + entityMetadata.getEntityClazz(), e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new PersistenceException("Error while scrolling over results, Caused by :.", e.getCause());
+        }
+        finally
+        {
+            nextPage = null;
+        }
+    }
+
+    private void closePaged()
+    {
+        scrollComplete = true;
+        if (nextPage != null)
+        {
+            nextPage.cancel(false);
+            nextPage = null;
+        }
+    }
+
     /**
      * Check on fetch size. returns true, if count on fetched rows is less than
      * fetch size.
@@ -229,73 +526,54 @@ class ResultIterator<E> implements IResultIterator<E>
         ApplicationMetadata appMetadata = KunderaMetadata.INSTANCE.getApplicationMetadata();
         externalProperties = ((CassandraClientBase) client).getExternalProperties();
 
-        // if id attribute is embeddable, it is meant for CQL translation.
-        // make it independent of embedded stuff and allow even to add non
-        // composite into where clause and let cassandra complain for it.
-
-        MetamodelImpl metaModel = (MetamodelImpl) KunderaMetadata.INSTANCE.getApplicationMetadata().getMetamodel(
-                m.getPersistenceUnit());
-
         String queryString = appMetadata.getQuery(((QueryImpl) query).getJPAQuery());
         
         boolean isNative = ((CassQuery) query).isNative()/*queryString == null ? true : appMetadata.isNative(((QueryImpl) query).getJPAQuery())*/;        
 
-        if (!isNative && ((CassandraClientBase) client).isCql3Enabled(m))
+        if (isNative)
         {
-            String parsedQuery = query.onQueryOverCQL3(m, client, metaModel, null);
-
-            parsedQuery = appendWhereClauseWithScroll(parsedQuery);
-            results = parsedQuery != null ? ((CassandraClientBase) client).executeQuery(parsedQuery,
-                    m.getEntityClazz(), m.getRelationNames()) : null;
-//            appMetadata.removeNativeQuery()
-
+            final String nativeQuery = appendWhereClauseWithScroll(queryString != null ? queryString:((QueryImpl) query).getJPAQuery());
+            results = nativeQuery != null ? ((CassandraClientBase) client).executeQuery(nativeQuery,
+                    m.getEntityClazz(), null) : null;
         }
         else
         {
-            if (isNative)
+            // Index in Inverted Index table if applicable
+            boolean useInvertedIndex = CassandraIndexHelper.isInvertedIndexingApplicable(m,
+                    MetadataUtils.useSecondryIndex(((ClientBase) client).getClientMetadata()));
+            Map<Boolean, List<IndexClause>> ixClause = query.prepareIndexClause(m, useInvertedIndex);
+            if (useInvertedIndex && !((QueryImpl) query).getKunderaQuery().getFilterClauseQueue().isEmpty())
             {
-                final String nativeQuery = appendWhereClauseWithScroll(queryString != null ? queryString:((QueryImpl) query).getJPAQuery());
-                results = nativeQuery != null ? ((CassandraClientBase) client).executeQuery(nativeQuery,
-                        m.getEntityClazz(), null) : null;
+                result = (List) ((CassandraEntityReader) this.reader).readFromIndexTable(m, client, ixClause);
             }
             else
             {
-                // Index in Inverted Index table if applicable
-                boolean useInvertedIndex = CassandraIndexHelper.isInvertedIndexingApplicable(m,
-                        MetadataUtils.useSecondryIndex(((ClientBase) client).getClientMetadata()));
-                Map<Boolean, List<IndexClause>> ixClause = query.prepareIndexClause(m, useInvertedIndex);
-                if (useInvertedIndex && !((QueryImpl) query).getKunderaQuery().getFilterClauseQueue().isEmpty())
+                boolean isRowKeyQuery = ixClause.keySet().iterator().next();
+
+                List<IndexExpression> expressions = !ixClause.get(isRowKeyQuery).isEmpty() ? ixClause
+                        .get(isRowKeyQuery).get(0).getExpressions() : null;
+
+                Map<String, byte[]> rowKeys = ((CassandraEntityReader) this.reader).getRowKeyValue(expressions,
+                        ((AbstractAttribute) m.getIdAttribute()).getJPAColumnName());
+
+                byte[] minValue = start == null ? rowKeys.get(MIN_) : start;
+                byte[] maxVal = rowKeys.get(MAX_);
+
+                results = ((CassandraClientBase) client).findByRange(minValue, maxVal, m,
+                        m.getRelationNames() != null && !m.getRelationNames().isEmpty(), m.getRelationNames(),
+                        query.getColumnList(m, ((QueryImpl) query).getKunderaQuery().getResult(), null),
+                        expressions, maxResult);
+                query.markPartialEntities(m, results);
+
+                if (maxResult == 1)
                 {
-                    result = (List) ((CassandraEntityReader) this.reader).readFromIndexTable(m, client, ixClause);
+                    maxResult++;
                 }
-                else
+                else if (maxResult > 1 && checkOnEmptyResult() && maxResult != results.size())
                 {
-                    boolean isRowKeyQuery = ixClause.keySet().iterator().next();
-
-                    List<IndexExpression> expressions = !ixClause.get(isRowKeyQuery).isEmpty() ? ixClause
-                            .get(isRowKeyQuery).get(0).getExpressions() : null;
-
-                    Map<String, byte[]> rowKeys = ((CassandraEntityReader) this.reader).getRowKeyValue(expressions,
-                            ((AbstractAttribute) m.getIdAttribute()).getJPAColumnName());
-
-                    byte[] minValue = start == null ? rowKeys.get(MIN_) : start;
-                    byte[] maxVal = rowKeys.get(MAX_);
-
-                    results = ((CassandraClientBase) client).findByRange(minValue, maxVal, m,
-                            m.getRelationNames() != null && !m.getRelationNames().isEmpty(), m.getRelationNames(),
-                            query.getColumnList(m, ((QueryImpl) query).getKunderaQuery().getResult(), null),
-                            expressions, maxResult);
-
-                    if (maxResult == 1)
-                    {
-                        maxResult++;
-                    }
-                    else if (maxResult > 1 && checkOnEmptyResult() && maxResult != results.size())
-                    {
-                        // means iterating over last record only, so need for
-                        // database trip anymore!.
-                        results = null;
-                    }
+                    // means iterating over last record only, so need for
+                    // database trip anymore!.
+                    results = null;
                 }
             }
         }
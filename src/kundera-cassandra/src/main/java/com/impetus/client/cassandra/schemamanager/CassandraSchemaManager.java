@@ -45,6 +45,7 @@ import org.apache.cassandra.thrift.CfDef;
 import org.apache.cassandra.thrift.ColumnDef;
 import org.apache.cassandra.thrift.Compression;
 import org.apache.cassandra.thrift.ConsistencyLevel;
+import org.apache.cassandra.thrift.IndexType;
 import org.apache.cassandra.thrift.InvalidRequestException;
 import org.apache.cassandra.thrift.KsDef;
 import org.apache.cassandra.thrift.NotFoundException;
@@ -119,6 +120,12 @@ public class CassandraSchemaManager extends AbstractSchemaManager implements Sch
     /** The tables. */
     private List<Table> tables;
 
+    /** Keyspace definition all schema decisions are taken against. */
+    private KeyspaceSnapshot snapshot;
+
+    /** Column family updates, applied together after all tables are compared. */
+    private List<CfDef> pendingUpdates = new ArrayList<CfDef>();
+
     /**
      * Instantiates a new cassandra schema manager.
      * 
@@ -157,6 +164,7 @@ public class CassandraSchemaManager extends AbstractSchemaManager implements Sch
                 {
                     dropColumnFamily(tableInfo);
                 }
+                KeyspaceSnapshot.unregister(databaseName);
             }
             catch (Exception ex)
             {
@@ -185,6 +193,10 @@ public class CassandraSchemaManager extends AbstractSchemaManager implements Sch
         {
             cassandra_client.system_drop_column_family(tableInfo.getTableName());
         }
+        if (snapshot != null)
+        {
+            snapshot.remove(tableInfo.getTableName());
+        }
     }
 
     /**
@@ -229,21 +241,34 @@ public class CassandraSchemaManager extends AbstractSchemaManager implements Sch
         KsDef ksDef = onCreateKeyspace(); // create keyspace event
         createColumnFamilies(tableInfos, ksDef); // create column family
                                                  // event.
+        applyPendingUpdates();
+
+        // register definitions as applied by server, for runtime lookups.
+        snapshot = KeyspaceSnapshot.describe(cassandra_client, databaseName);
     }
 
     private KsDef onCreateKeyspace() throws Exception
     {
+        KsDef ksDef;
         try
         {
-            createKeyspace();
+            ksDef = cassandra_client.describe_keyspace(databaseName);
         }
-        catch (InvalidRequestException irex)
+        catch (NotFoundException nfex)
         {
-            // Ignore and add a log.debug
+            try
+            {
+                ksDef = createKeyspace();
+            }
+            catch (InvalidRequestException irex)
+            {
+                // created concurrently.
+                ksDef = cassandra_client.describe_keyspace(databaseName);
+            }
         }
-        // keyspace already exists.
+        snapshot = new KeyspaceSnapshot(ksDef);
         cassandra_client.set_keyspace(databaseName);
-        return cassandra_client.describe_keyspace(databaseName);
+        return ksDef;
     }
 
     /**
@@ -317,10 +342,16 @@ public class CassandraSchemaManager extends AbstractSchemaManager implements Sch
         }
         else
         {
+            if (snapshot.hasColumnFamily(tableInfo.getTableName()))
+            {
+                onExistingColumnFamily(tableInfo, ksDef);
+                return;
+            }
             CfDef cf_def = handler.getTableMetadata(tableInfo);
             try
             {
                 cassandra_client.system_add_column_family(cf_def);
+                snapshot.put(cf_def);
             }
             catch (InvalidRequestException irex)
             {
@@ -346,36 +377,42 @@ public class CassandraSchemaManager extends AbstractSchemaManager implements Sch
 
         if (irex.getWhy() != null && irex.getWhy().contains(builder.toString()))
         {
-            SchemaOperationType operationType = SchemaOperationType.getInstance(operation);
-            switch (operationType)
-            {
-            case create:
-                handleCreate(tableInfo, ksDef);
+            onExistingColumnFamily(tableInfo, ksDef);
+        }
+        else
+        {
+            log.error("Error occurred while creating table{}, Caused by: .", tableInfo.getTableName(), irex);
+            throw new SchemaGenerationException("Error occurred while creating table " + tableInfo.getTableName(),
+                    irex, "Cassandra", databaseName);
+        }
+    }
 
-            case createdrop:
-                handleCreate(tableInfo, ksDef);
-                break;
+    private void onExistingColumnFamily(TableInfo tableInfo, KsDef ksDef) throws Exception
+    {
+        SchemaOperationType operationType = SchemaOperationType.getInstance(operation);
+        switch (operationType)
+        {
+        case create:
+        case createdrop:
+            handleCreate(tableInfo, ksDef);
+            break;
 
-            case update:
-                if (isCql3Enabled(tableInfo))
+        case update:
+            if (isCql3Enabled(tableInfo))
+            {
+                for (ColumnInfo column : tableInfo.getColumnMetadatas())
                 {
-                    for (ColumnInfo column : tableInfo.getColumnMetadatas())
+                    if (snapshot.getColumn(tableInfo.getTableName(), column.getColumnName()) == null)
                     {
                         addColumnToTable(tableInfo, column);
                     }
                 }
-                updateTable(ksDef, tableInfo);
-                break;
-
-            default:
-                break;
             }
-        }
-        else
-        {
-            log.error("Error occurred while creating table{}, Caused by: .", tableInfo.getTableName(), irex);
-            throw new SchemaGenerationException("Error occurred while creating table " + tableInfo.getTableName(),
-                    irex, "Cassandra", databaseName);
+            updateTable(tableInfo);
+            break;
+
+        default:
+            break;
         }
     }
 
@@ -429,8 +466,8 @@ public class CassandraSchemaManager extends AbstractSchemaManager implements Sch
     {
         try
         {
-            KsDef ksDef = cassandra_client.describe_keyspace(databaseName);
-            onValidateTables(tableInfos, ksDef);
+            snapshot = KeyspaceSnapshot.describe(cassandra_client, databaseName);
+            onValidateTables(tableInfos);
         }
         catch (Exception ex)
         {
@@ -499,6 +536,12 @@ public class CassandraSchemaManager extends AbstractSchemaManager implements Sch
      */
     private void createOrUpdateUsingCQL3(TableInfo tableInfo, KsDef ksDef) throws Exception
     {
+        if (snapshot.hasColumnFamily(tableInfo.getTableName()))
+        {
+            onExistingColumnFamily(tableInfo, ksDef);
+            return;
+        }
+
         CQLTranslator translator = new CQLTranslator();
         String columnFamilyQuery = CQLTranslator.CREATE_COLUMNFAMILY_QUERY;
         columnFamilyQuery = StringUtils.replace(columnFamilyQuery, CQLTranslator.COLUMN_FAMILY,
@@ -563,6 +606,7 @@ public class CassandraSchemaManager extends AbstractSchemaManager implements Sch
             cassandra_client.execute_cql3_query(
                     ByteBuffer.wrap(queryBuilder.toString().getBytes(Constants.CHARSET_UTF8)), Compression.NONE,
                     ConsistencyLevel.ONE);
+            snapshot.put(new CfDef(databaseName, tableInfo.getTableName()));
         }
         catch (InvalidRequestException irex)
         {
@@ -598,19 +642,40 @@ public class CassandraSchemaManager extends AbstractSchemaManager implements Sch
         return queryBuilder;
     }
 
-    private void createIndexUsingThrift(TableInfo tableInfo, CfDef cfDef) throws Exception
+    /**
+     * Sets index type of indexed columns on column family definition.
+     * 
+     * @return true if any column's index type changed.
+     */
+    private boolean setIndexTypes(TableInfo tableInfo, CfDef cfDef) throws Exception
     {
+        boolean isUpdated = false;
         for (IndexInfo indexInfo : tableInfo.getColumnsToBeIndexed())
         {
             for (ColumnDef columnDef : cfDef.getColumn_metadata())
             {
                 if (new String(columnDef.getName(), Constants.ENCODING).equals(indexInfo.getColumnName()))
                 {
-                    columnDef.setIndex_type(CassandraIndexHelper.getIndexType(indexInfo.getIndexType()));
+                    IndexType indexType = CassandraIndexHelper.getIndexType(indexInfo.getIndexType());
+                    isUpdated = isUpdated || !indexType.equals(columnDef.getIndex_type());
+                    columnDef.setIndex_type(indexType);
                 }
             }
         }
-        cassandra_client.system_update_column_family(cfDef);
+        return isUpdated;
+    }
+
+    /**
+     * Applies column family updates collected while comparing tables against
+     * keyspace snapshot, in order.
+     */
+    private void applyPendingUpdates() throws Exception
+    {
+        for (CfDef cfDef : pendingUpdates)
+        {
+            cassandra_client.system_update_column_family(cfDef);
+        }
+        pendingUpdates.clear();
     }
 
     /**
@@ -635,6 +700,10 @@ public class CassandraSchemaManager extends AbstractSchemaManager implements Sch
                     return;
                 }
             }
+            if (snapshot.isIndexed(tableInfo.getTableName(), indexInfo.getColumnName()))
+            {
+                continue;
+            }
             String replacedWithindexName = StringUtils.replace(indexQueryBuilder.toString(), "$COLUMN_NAME",
                     indexInfo.getColumnName());
             try
@@ -669,6 +738,10 @@ public class CassandraSchemaManager extends AbstractSchemaManager implements Sch
         translator.ensureCase(dropQuery, tableInfo.getTableName(), false);
         cassandra_client.execute_cql3_query(ByteBuffer.wrap(dropQuery.toString().getBytes()), Compression.NONE,
                 ConsistencyLevel.ONE);
+        if (snapshot != null)
+        {
+            snapshot.remove(tableInfo.getTableName());
+        }
     }
 
     /**
@@ -848,9 +921,10 @@ public class CassandraSchemaManager extends AbstractSchemaManager implements Sch
             SchemaDisagreementException, TException
     {
         CfDef cfDef = getInvertedIndexCF(tableInfo);
-        if (cfDef != null)
+        if (cfDef != null && !snapshot.hasColumnFamily(cfDef.getName()))
         {
             cassandra_client.system_add_column_family(cfDef);
+            snapshot.put(cfDef);
         }
     }
 
@@ -892,6 +966,7 @@ public class CassandraSchemaManager extends AbstractSchemaManager implements Sch
             try
             {
                 cassandra_client.system_drop_column_family(tableInfo.getTableName() + Constants.INDEX_TABLE_SUFFIX);
+                snapshot.remove(tableInfo.getTableName() + Constants.INDEX_TABLE_SUFFIX);
             }
             catch (Exception ex)
             {
@@ -907,45 +982,31 @@ public class CassandraSchemaManager extends AbstractSchemaManager implements Sch
      * check for Tables method check the existence of schema and table.
      * 
      * @param tableInfos
-     *            list of TableInfos and ksDef object of KsDef
-     * @param ksDef
-     *            the ks def
+     *            list of TableInfos
      * @throws TException
      * @throws InvalidRequestException
      */
-    private void onValidateTables(List<TableInfo> tableInfos, KsDef ksDef) throws Exception
+    private void onValidateTables(List<TableInfo> tableInfos) throws Exception
     {
-        cassandra_client.set_keyspace(ksDef.getName());
+        cassandra_client.set_keyspace(snapshot.getKeyspace());
         for (TableInfo tableInfo : tableInfos)
         {
-            onValidateTable(ksDef, tableInfo);
+            onValidateTable(tableInfo);
         }
     }
 
-    private void onValidateTable(KsDef ksDef, TableInfo tableInfo) throws Exception
+    private void onValidateTable(TableInfo tableInfo) throws Exception
     {
-        boolean tablefound = false;
-        for (CfDef cfDef : ksDef.getCf_defs())
+        CfDef cfDef = snapshot.getColumnFamily(tableInfo.getTableName(),
+                ColumnFamilyType.getInstanceOf(tableInfo.getType()).name());
+        if (cfDef != null && cfDef.getColumn_type().equals(ColumnFamilyType.Standard.name()))
         {
-            if (cfDef.getName().equals(tableInfo.getTableName())
-                    && (cfDef.getColumn_type().equals(ColumnFamilyType.getInstanceOf(tableInfo.getType()).name())))
+            for (ColumnInfo columnInfo : tableInfo.getColumnMetadatas())
             {
-                if (cfDef.getColumn_type().equals(ColumnFamilyType.Standard.name()))
-                {
-                    for (ColumnInfo columnInfo : tableInfo.getColumnMetadatas())
-                    {
-                        onValidateColumn(tableInfo, cfDef, columnInfo);
-                    }
-                    tablefound = true;
-                    break;
-                }
-                else if (cfDef.getColumn_type().equals(ColumnFamilyType.Super.name()))
-                {
-                    tablefound = true;
-                }
+                onValidateColumn(tableInfo, cfDef, columnInfo);
             }
         }
-        if (!tablefound)
+        if (cfDef == null)
         {
             throw new SchemaGenerationException("Column family " + tableInfo.getTableName()
                     + " does not exist in keyspace " + databaseName + "", "Cassandra", databaseName,
@@ -955,16 +1016,8 @@ public class CassandraSchemaManager extends AbstractSchemaManager implements Sch
 
     private void onValidateColumn(TableInfo tableInfo, CfDef cfDef, ColumnInfo columnInfo) throws Exception
     {
-        boolean columnfound = false;
-        for (ColumnDef columnDef : cfDef.getColumn_metadata())
-        {
-            if (isMetadataSame(columnDef, columnInfo, isCql3Enabled(tableInfo)))
-            {
-                columnfound = true;
-                break;
-            }
-        }
-        if (!columnfound)
+        ColumnDef columnDef = snapshot.getColumn(cfDef.getName(), columnInfo.getColumnName());
+        if (columnDef == null || !isMetadataSame(columnDef, columnInfo, isCql3Enabled(tableInfo)))
         {
             throw new SchemaGenerationException("Column " + columnInfo.getColumnName()
                     + " does not exist in column family " + tableInfo.getTableName() + "", "Cassandra", databaseName,
@@ -990,36 +1043,37 @@ public class CassandraSchemaManager extends AbstractSchemaManager implements Sch
     }
 
     /**
+     * Compares table with its column family definition in keyspace snapshot
+     * and queues an update for changed or missing columns.
      * 
-     * @param ksDef
      * @param tableInfo
-     * @throws InvalidRequestException
-     * @throws SchemaDisagreementException
-     * @throws TException
      * @throws UnsupportedEncodingException
      */
-    private void updateTable(KsDef ksDef, TableInfo tableInfo) throws Exception
+    private void updateTable(TableInfo tableInfo) throws Exception
     {
-        for (CfDef cfDef : ksDef.getCf_defs())
+        CfDef cfDef = snapshot.getColumnFamily(tableInfo.getTableName(),
+                ColumnFamilyType.getInstanceOf(tableInfo.getType()).name());
+        if (cfDef != null)
         {
-            if (cfDef.getName().equals(tableInfo.getTableName())
-                    && cfDef.getColumn_type().equals(ColumnFamilyType.getInstanceOf(tableInfo.getType()).name()))
+            cfDef = new CfDef(cfDef);
+            boolean toUpdate = false;
+            if (cfDef.getColumn_type().equals(STANDARDCOLUMNFAMILY))
             {
-                boolean toUpdate = false;
-                if (cfDef.getColumn_type().equals(STANDARDCOLUMNFAMILY))
+                for (ColumnInfo columnInfo : tableInfo.getColumnMetadatas())
                 {
-                    for (ColumnInfo columnInfo : tableInfo.getColumnMetadatas())
-                    {
-                        toUpdate = isCfDefUpdated(columnInfo, cfDef, isCql3Enabled(tableInfo), tableInfo) ? true
-                                : toUpdate;
-                    }
+                    toUpdate = isCfDefUpdated(columnInfo, cfDef, isCql3Enabled(tableInfo), tableInfo) ? true
+                            : toUpdate;
                 }
-                if (toUpdate)
+            }
+            if (toUpdate)
+            {
+                // changed validators are applied without index first.
+                pendingUpdates.add(new CfDef(cfDef));
+                if (setIndexTypes(tableInfo, cfDef))
                 {
-                    cassandra_client.system_update_column_family(cfDef);
-                    createIndexUsingThrift(tableInfo, cfDef);
+                    pendingUpdates.add(cfDef);
                 }
-                break;
+                snapshot.put(cfDef);
             }
         }
     }
@@ -0,0 +1,228 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.cassandra.schemamanager;
+
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.cassandra.thrift.Cassandra;
+import org.apache.cassandra.thrift.CfDef;
+import org.apache.cassandra.thrift.ColumnDef;
+import org.apache.cassandra.thrift.KsDef;
+
+import com.impetus.kundera.Constants;
+
+/**
+ * In-memory snapshot of a keyspace definition, read with a single
+ * describe_keyspace and indexed by column family and column name. Schema
+ * manager takes all validate and update decisions against it instead of
+ * describing the keyspace table by table, and registers it per keyspace for
+ * runtime metadata lookups by clients.
+ * <p>
+ * Column family definitions are replaced, never modified, once registered;
+ * callers altering a definition must work on a copy and {@link #put(CfDef)}
+ * it back after the schema change succeeded.
+ */
+public final class KeyspaceSnapshot
+{
+    private static final Charset UTF8 = Charset.forName(Constants.CHARSET_UTF8);
+
+    /** Registered snapshots, by keyspace name. */
+    private static final Map<String, KeyspaceSnapshot> snapshots = new ConcurrentHashMap<String, KeyspaceSnapshot>();
+
+    private final String keyspace;
+
+    private final Map<String, CfDef> columnFamilies = new ConcurrentHashMap<String, CfDef>();
+
+    private final Map<String, Map<String, ColumnDef>> columns = new ConcurrentHashMap<String, Map<String, ColumnDef>>();
+
+    /**
+     * Builds a snapshot of given keyspace definition.
+     * 
+     * @param ksDef
+     *            keyspace definition.
+     */
+    public KeyspaceSnapshot(KsDef ksDef)
+    {
+        this.keyspace = ksDef.getName();
+        if (ksDef.getCf_defs() != null)
+        {
+            for (CfDef cfDef : ksDef.getCf_defs())
+            {
+                put(cfDef);
+            }
+        }
+    }
+
+    /**
+     * Describes keyspace on given client and registers its snapshot, replacing
+     * any earlier one.
+     * 
+     * @param client
+     *            cassandra client.
+     * @param keyspace
+     *            keyspace name.
+     * @return registered snapshot.
+     * @throws Exception
+     *             if keyspace could not be described, e.g. NotFoundException
+     *             for a missing keyspace.
+     */
+    public static KeyspaceSnapshot describe(Cassandra.Client client, String keyspace) throws Exception
+    {
+        KeyspaceSnapshot snapshot = new KeyspaceSnapshot(client.describe_keyspace(keyspace));
+        register(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Registers snapshot for its keyspace.
+     * 
+     * @param snapshot
+     *            keyspace snapshot.
+     */
+    public static void register(KeyspaceSnapshot snapshot)
+    {
+        snapshots.put(snapshot.getKeyspace(), snapshot);
+    }
+
+    /**
+     * Returns registered snapshot of keyspace, or null if not described yet.
+     * 
+     * @param keyspace
+     *            keyspace name.
+     * @return keyspace snapshot.
+     */
+    public static KeyspaceSnapshot get(String keyspace)
+    {
+        return snapshots.get(keyspace);
+    }
+
+    /**
+     * Discards registered snapshot of keyspace, e.g. after its schema was
+     * dropped.
+     * 
+     * @param keyspace
+     *            keyspace name.
+     */
+    public static void unregister(String keyspace)
+    {
+        snapshots.remove(keyspace);
+    }
+
+    /**
+     * @return keyspace name.
+     */
+    public String getKeyspace()
+    {
+        return keyspace;
+    }
+
+    /**
+     * @param columnFamily
+     *            column family name.
+     * @return true if column family exists in keyspace.
+     */
+    public boolean hasColumnFamily(String columnFamily)
+    {
+        return columnFamilies.containsKey(columnFamily);
+    }
+
+    /**
+     * @param columnFamily
+     *            column family name.
+     * @return column family definition, or null if not found.
+     */
+    public CfDef getColumnFamily(String columnFamily)
+    {
+        return columnFamilies.get(columnFamily);
+    }
+
+    /**
+     * @param columnFamily
+     *            column family name.
+     * @param columnType
+     *            column type i.e. Standard or Super.
+     * @return column family definition, or null if not found or of another
+     *         column type.
+     */
+    public CfDef getColumnFamily(String columnFamily, String columnType)
+    {
+        CfDef cfDef = columnFamilies.get(columnFamily);
+        return cfDef != null && columnType.equals(cfDef.getColumn_type()) ? cfDef : null;
+    }
+
+    /**
+     * @param columnFamily
+     *            column family name.
+     * @param column
+     *            column name.
+     * @return column definition, or null if column family or column is not
+     *         defined.
+     */
+    public ColumnDef getColumn(String columnFamily, String column)
+    {
+        Map<String, ColumnDef> columnDefs = columns.get(columnFamily);
+        return columnDefs != null ? columnDefs.get(column) : null;
+    }
+
+    /**
+     * @param columnFamily
+     *            column family name.
+     * @param column
+     *            column name.
+     * @return true if column is defined with a secondary index.
+     */
+    public boolean isIndexed(String columnFamily, String column)
+    {
+        ColumnDef columnDef = getColumn(columnFamily, column);
+        return columnDef != null && columnDef.isSetIndex_type();
+    }
+
+    /**
+     * Adds or replaces a column family definition.
+     * 
+     * @param cfDef
+     *            column family definition.
+     */
+    public void put(CfDef cfDef)
+    {
+        Map<String, ColumnDef> columnDefs = new HashMap<String, ColumnDef>();
+        if (cfDef.getColumn_metadata() != null)
+        {
+            for (ColumnDef columnDef : cfDef.getColumn_metadata())
+            {
+                columnDefs.put(new String(columnDef.getName(), UTF8), columnDef);
+            }
+        }
+        columns.put(cfDef.getName(), Collections.unmodifiableMap(columnDefs));
+        columnFamilies.put(cfDef.getName(), cfDef);
+    }
+
+    /**
+     * Removes a column family definition, e.g. after it was dropped.
+     * 
+     * @param columnFamily
+     *            column family name.
+     */
+    public void remove(String columnFamily)
+    {
+        columnFamilies.remove(columnFamily);
+        columns.remove(columnFamily);
+    }
+}
@@ -17,6 +17,7 @@ package com.impetus.client.cassandra.service;
 
 import java.util.Iterator;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
@@ -113,6 +114,11 @@ public class CassandraRetryService extends RetryService
     {
         downedHostQueue.add(cassandraHost);
 
+        if (clientFactory instanceof ThriftClientFactory)
+        {
+            ((ThriftClientFactory) clientFactory).onHostDown(cassandraHost);
+        }
+
         // schedule a check of this host immediately,
         executor.submit(new Runnable()
         {
@@ -133,6 +139,18 @@ public class CassandraRetryService extends RetryService
         });
     }
 
+    /**
+     * Runs given task periodically until this service is shut down.
+     * 
+     * @param task
+     * @param periodInSeconds
+     * @return handle of the scheduled task.
+     */
+    public ScheduledFuture<?> schedule(Runnable task, long periodInSeconds)
+    {
+        return executor.scheduleWithFixedDelay(task, periodInSeconds, periodInSeconds, TimeUnit.SECONDS);
+    }
+
     @Override
     public void shutdown()
     {
@@ -0,0 +1,347 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.cassandra.service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.dataforte.cassandra.pool.ConnectionPool;
+
+import org.apache.cassandra.dht.IPartitioner;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.thrift.Cassandra;
+import org.apache.cassandra.thrift.InvalidRequestException;
+import org.apache.cassandra.thrift.TokenRange;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.thrift.TException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.impetus.kundera.service.policy.LoadBalancingPolicy;
+
+/**
+ * Load balancing policy which routes a row key to one of its replicas, as
+ * given by the token ring read through <code>describe_ring</code>. Among the
+ * replicas (or among all pools when the key is unknown) the host with the
+ * lowest exponentially weighted moving average of response time wins; hosts
+ * reported down by {@link CassandraRetryService} are skipped until they come
+ * back.
+ */
+public class TokenAwareBalancingPolicy implements LoadBalancingPolicy
+{
+    /** The logger. */
+    private static Logger logger = LoggerFactory.getLogger(TokenAwareBalancingPolicy.class);
+
+    /** Weight of the latest sample in the moving average. */
+    private static final double ALPHA = 0.25;
+
+    private final ConcurrentMap<String, Double> latencies = new ConcurrentHashMap<String, Double>();
+
+    private final Set<String> downHosts = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private final ConcurrentMap<String, String> addresses = new ConcurrentHashMap<String, String>();
+
+    private final Random random = new Random();
+
+    private volatile Ring ring;
+
+    /**
+     * Returns pool of an up host, choosing the faster of two random picks.
+     */
+    @Override
+    public Object getPool(Collection<Object> pools)
+    {
+        List<Object> candidates = new ArrayList<Object>(pools.size());
+        for (Object pool : pools)
+        {
+            if (!downHosts.contains(getAddress(pool)))
+            {
+                candidates.add(pool);
+            }
+        }
+        if (candidates.isEmpty())
+        {
+            candidates.addAll(pools);
+        }
+        if (candidates.size() == 1)
+        {
+            return candidates.get(0);
+        }
+
+        Object first = candidates.get(random.nextInt(candidates.size()));
+        Object second = candidates.get(random.nextInt(candidates.size()));
+        return getScore(getAddress(first)) <= getScore(getAddress(second)) ? first : second;
+    }
+
+    /**
+     * Returns pool of the fastest up replica owning given row key, falling
+     * back to {@link #getPool(Collection)} if ring is unknown or no replica
+     * is available.
+     * 
+     * @param pools
+     *            pools of up hosts.
+     * @param rowKey
+     *            serialized partition key.
+     * @return pool object.
+     */
+    public Object getPool(Collection<Object> pools, ByteBuffer rowKey)
+    {
+        Ring current = ring;
+        if (current != null && rowKey != null && rowKey.hasRemaining())
+        {
+            Set<String> replicas = current.getReplicas(rowKey);
+            Object selected = null;
+            double selectedScore = Double.MAX_VALUE;
+            for (Object pool : pools)
+            {
+                String address = getAddress(pool);
+                if (replicas.contains(address) && !downHosts.contains(address))
+                {
+                    double score = getScore(address);
+                    if (selected == null || score < selectedScore)
+                    {
+                        selected = pool;
+                        selectedScore = score;
+                    }
+                }
+            }
+            if (selected != null)
+            {
+                return selected;
+            }
+        }
+        return getPool(pools);
+    }
+
+    /**
+     * Reloads token ring of given keyspace, previous ring is kept if it can
+     * not be read.
+     * 
+     * @param client
+     *            connection to any host of the cluster.
+     * @param keyspace
+     *            keyspace whose replica placement is used.
+     */
+    public void refresh(Cassandra.Client client, String keyspace)
+    {
+        try
+        {
+            update(client.describe_partitioner(), client.describe_ring(keyspace));
+        }
+        catch (InvalidRequestException e)
+        {
+            logger.warn("Error while reading token ring of keyspace {}, Caused by: {}.", keyspace, e.getMessage());
+        }
+        catch (TException e)
+        {
+            logger.warn("Error while reading token ring of keyspace {}, Caused by: {}.", keyspace, e.getMessage());
+        }
+    }
+
+    /**
+     * Replaces token ring with given ranges.
+     * 
+     * @param partitionerClass
+     *            partitioner of the cluster.
+     * @param ranges
+     *            token ranges with their replicas.
+     */
+    void update(String partitionerClass, List<TokenRange> ranges)
+    {
+        try
+        {
+            ring = new Ring(FBUtilities.newPartitioner(partitionerClass), ranges);
+        }
+        catch (ConfigurationException e)
+        {
+            logger.warn("Unknown partitioner {}, token aware routing disabled.", partitionerClass);
+            ring = null;
+        }
+    }
+
+    /**
+     * Adds a response time sample of given host to its moving average.
+     * 
+     * @param host
+     * @param elapsedNanos
+     */
+    public void recordLatency(String host, long elapsedNanos)
+    {
+        String address = resolve(host);
+        Double previous = latencies.putIfAbsent(address, (double) elapsedNanos);
+        while (previous != null)
+        {
+            double next = ALPHA * elapsedNanos + (1 - ALPHA) * previous;
+            if (latencies.replace(address, previous, next))
+            {
+                break;
+            }
+            previous = latencies.get(address);
+        }
+    }
+
+    /**
+     * Marks host down, it will not be chosen until {@link #markUp(String)}.
+     * 
+     * @param host
+     */
+    public void markDown(String host)
+    {
+        downHosts.add(resolve(host));
+    }
+
+    /**
+     * Marks host up and resets its response time.
+     * 
+     * @param host
+     */
+    public void markUp(String host)
+    {
+        String address = resolve(host);
+        downHosts.remove(address);
+        latencies.remove(address);
+    }
+
+    /**
+     * @param host
+     * @return moving average of response time in nanoseconds, 0 if unknown.
+     */
+    public double getScore(String host)
+    {
+        Double score = latencies.get(resolve(host));
+        return score != null ? score : 0;
+    }
+
+    /**
+     * @param pool
+     * @return host name the given pool connects to.
+     */
+    protected String getHost(Object pool)
+    {
+        return ((ConnectionPool) pool).getPoolProperties().getHost();
+    }
+
+    private String getAddress(Object pool)
+    {
+        return resolve(getHost(pool));
+    }
+
+    private String resolve(String host)
+    {
+        String address = addresses.get(host);
+        if (address == null)
+        {
+            try
+            {
+                address = InetAddress.getByName(host).getHostAddress();
+            }
+            catch (UnknownHostException e)
+            {
+                address = host;
+            }
+            addresses.put(host, address);
+        }
+        return address;
+    }
+
+    /**
+     * Immutable snapshot of the token ring.
+     */
+    private final class Ring
+    {
+        private final IPartitioner partitioner;
+
+        private final Token[] endTokens;
+
+        private final List<Set<String>> replicas;
+
+        @SuppressWarnings("unchecked")
+        private Ring(IPartitioner partitioner, List<TokenRange> ranges)
+        {
+            this.partitioner = partitioner;
+            final Token.TokenFactory factory = partitioner.getTokenFactory();
+
+            List<TokenRange> sorted = new ArrayList<TokenRange>(ranges);
+            Collections.sort(sorted, new Comparator<TokenRange>()
+            {
+                @Override
+                public int compare(TokenRange r1, TokenRange r2)
+                {
+                    return factory.fromString(r1.getEnd_token()).compareTo(factory.fromString(r2.getEnd_token()));
+                }
+            });
+
+            endTokens = new Token[sorted.size()];
+            replicas = new ArrayList<Set<String>>(sorted.size());
+            for (int i = 0; i < sorted.size(); i++)
+            {
+                TokenRange range = sorted.get(i);
+                endTokens[i] = factory.fromString(range.getEnd_token());
+
+                // prefer rpc address, unless node listens on all interfaces.
+                List<String> rpcEndpoints = range.getRpc_endpoints();
+                Set<String> hosts = new HashSet<String>();
+                for (int j = 0; j < range.getEndpoints().size(); j++)
+                {
+                    String endpoint = range.getEndpoints().get(j);
+                    if (rpcEndpoints != null && j < rpcEndpoints.size() && !"0.0.0.0".equals(rpcEndpoints.get(j)))
+                    {
+                        endpoint = rpcEndpoints.get(j);
+                    }
+                    hosts.add(resolve(endpoint));
+                }
+                replicas.add(hosts);
+            }
+        }
+
+        /**
+         * Ranges are (start, end], so owner is the first range whose end
+         * token is not less than key's token, wrapping around the ring.
+         */
+        @SuppressWarnings("unchecked")
+        private Set<String> getReplicas(ByteBuffer rowKey)
+        {
+            if (endTokens.length == 0)
+            {
+                return Collections.emptySet();
+            }
+            Token token = partitioner.getToken(rowKey.duplicate());
+            int index = Arrays.binarySearch(endTokens, token);
+            if (index < 0)
+            {
+                index = -index - 1;
+                if (index == endTokens.length)
+                {
+                    index = 0;
+                }
+            }
+            return replicas.get(index);
+        }
+    }
+}
@@ -0,0 +1,351 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.cassandra.thrift;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.cassandra.db.marshal.AbstractType;
+import org.apache.cassandra.db.marshal.AsciiType;
+import org.apache.cassandra.db.marshal.BooleanType;
+import org.apache.cassandra.db.marshal.BytesType;
+import org.apache.cassandra.db.marshal.CounterColumnType;
+import org.apache.cassandra.db.marshal.DateType;
+import org.apache.cassandra.db.marshal.DecimalType;
+import org.apache.cassandra.db.marshal.DoubleType;
+import org.apache.cassandra.db.marshal.FloatType;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.db.marshal.IntegerType;
+import org.apache.cassandra.db.marshal.LexicalUUIDType;
+import org.apache.cassandra.db.marshal.LongType;
+import org.apache.cassandra.db.marshal.MarshalException;
+import org.apache.cassandra.db.marshal.ReversedType;
+import org.apache.cassandra.db.marshal.TimeUUIDType;
+import org.apache.cassandra.db.marshal.TypeParser;
+import org.apache.cassandra.db.marshal.UTF8Type;
+import org.apache.cassandra.db.marshal.UUIDType;
+import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.exceptions.SyntaxException;
+import org.apache.cassandra.thrift.Cassandra;
+import org.apache.cassandra.thrift.Compression;
+import org.apache.cassandra.thrift.ConsistencyLevel;
+import org.apache.cassandra.thrift.CqlPreparedResult;
+import org.apache.cassandra.thrift.CqlResult;
+import org.apache.cassandra.thrift.InvalidRequestException;
+import org.apache.cassandra.thrift.SchemaDisagreementException;
+import org.apache.cassandra.thrift.TimedOutException;
+import org.apache.cassandra.thrift.UnavailableException;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.thrift.TException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.impetus.kundera.property.PropertyAccessorHelper;
+
+/**
+ * Cache of CQL3 prepared statements, shared by all clients of a persistence
+ * unit. Cassandra keeps prepared statements per connection, hence statements
+ * are held per {@link Cassandra.Client} and prepared lazily the first time a
+ * statement shape is executed on a connection. Connections dropped by the pool
+ * are released along with their statements.
+ * 
+ * Values are bound using the bytes of Kundera's property accessors when the
+ * java type and the column type share a binary format, otherwise through the
+ * column type's string conversion.
+ */
+public final class CQLStatementCache
+{
+    /** the log used by this class. */
+    private static Logger log = LoggerFactory.getLogger(CQLStatementCache.class);
+
+    /** Column types a java type can be bound to with its accessor bytes. */
+    private static final Map<Class<?>, Set<Class<?>>> binaryCompatible = new HashMap<Class<?>, Set<Class<?>>>();
+
+    static
+    {
+        compatible(UTF8Type.class, String.class);
+        compatible(AsciiType.class, String.class);
+        compatible(LongType.class, Long.class);
+        compatible(CounterColumnType.class, Long.class);
+        compatible(Int32Type.class, Integer.class);
+        compatible(IntegerType.class, Integer.class, Long.class, Short.class, java.math.BigInteger.class);
+        compatible(DoubleType.class, Double.class);
+        compatible(FloatType.class, Float.class);
+        compatible(BooleanType.class, Boolean.class);
+        compatible(UUIDType.class, UUID.class);
+        compatible(TimeUUIDType.class, UUID.class);
+        compatible(LexicalUUIDType.class, UUID.class);
+        compatible(DateType.class, java.util.Date.class);
+        compatible(DecimalType.class, java.math.BigDecimal.class);
+        compatible(BytesType.class, byte[].class);
+    }
+
+    private final int maxStatementsPerConnection;
+
+    private final Map<Cassandra.Client, Map<String, PreparedStatement>> statements = new WeakHashMap<Cassandra.Client, Map<String, PreparedStatement>>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong prepareCount = new AtomicLong();
+
+    /**
+     * Instantiates a new statement cache.
+     * 
+     * @param maxStatementsPerConnection
+     *            number of statements kept per connection, 0 disables caching.
+     */
+    public CQLStatementCache(int maxStatementsPerConnection)
+    {
+        if (maxStatementsPerConnection < 0)
+        {
+            throw new IllegalArgumentException("Invalid prepared statement cache size " + maxStatementsPerConnection);
+        }
+        this.maxStatementsPerConnection = maxStatementsPerConnection;
+    }
+
+    private static void compatible(Class<?> columnType, Class<?>... javaTypes)
+    {
+        Set<Class<?>> types = new HashSet<Class<?>>();
+        Collections.addAll(types, javaTypes);
+        binaryCompatible.put(columnType, types);
+    }
+
+    /**
+     * @return true, if statements are cached.
+     */
+    public boolean isEnabled()
+    {
+        return maxStatementsPerConnection > 0;
+    }
+
+    /**
+     * Executes statement with given values bound to its markers, preparing it
+     * on this connection if needed.
+     * 
+     * @param conn
+     *            connection
+     * @param statement
+     *            cql3 statement with one '?' marker per value
+     * @param values
+     *            values to bind, in marker order
+     * @param consistencyLevel
+     *            consistency level
+     * @return query result, or null if values could not be bound to the
+     *         column types; caller should then execute the statement with
+     *         inlined values.
+     */
+    public CqlResult execute(Cassandra.Client conn, String statement, List<Object> values,
+            ConsistencyLevel consistencyLevel) throws InvalidRequestException, UnavailableException,
+            TimedOutException, SchemaDisagreementException, TException
+    {
+        PreparedStatement prepared = getPrepared(conn, statement);
+        List<ByteBuffer> bound = bind(prepared, values);
+        if (bound == null)
+        {
+            return null;
+        }
+        try
+        {
+            return conn.execute_prepared_cql3_query(prepared.itemId, bound, consistencyLevel);
+        }
+        catch (InvalidRequestException irex)
+        {
+            // server may have dropped it, i.e. it evicted it or was
+            // restarted. prepare once more before giving up.
+            if (!remove(conn, statement, prepared))
+            {
+                throw irex;
+            }
+            log.debug("Re-preparing statement {}, Caused by: {}.", statement, irex.getWhy());
+            prepared = getPrepared(conn, statement);
+            return conn.execute_prepared_cql3_query(prepared.itemId, bound, consistencyLevel);
+        }
+    }
+
+    /**
+     * @return number of executions that found their statement prepared.
+     */
+    public long getHitCount()
+    {
+        return hitCount.get();
+    }
+
+    /**
+     * @return number of statements prepared.
+     */
+    public long getPrepareCount()
+    {
+        return prepareCount.get();
+    }
+
+    private PreparedStatement getPrepared(Cassandra.Client conn, String statement) throws InvalidRequestException,
+            TException
+    {
+        Map<String, PreparedStatement> perConnection;
+        synchronized (statements)
+        {
+            perConnection = statements.get(conn);
+            if (perConnection == null)
+            {
+                perConnection = newStatementMap();
+                statements.put(conn, perConnection);
+            }
+        }
+
+        PreparedStatement prepared;
+        synchronized (perConnection)
+        {
+            prepared = perConnection.get(statement);
+        }
+        if (prepared != null)
+        {
+            hitCount.incrementAndGet();
+            return prepared;
+        }
+
+        // a connection is used by one thread at a time, no need to guard
+        // against concurrent preparation.
+        CqlPreparedResult result = conn.prepare_cql3_query(ByteBufferUtil.bytes(statement), Compression.NONE);
+        prepareCount.incrementAndGet();
+        prepared = new PreparedStatement(result);
+        synchronized (perConnection)
+        {
+            perConnection.put(statement, prepared);
+        }
+        return prepared;
+    }
+
+    private boolean remove(Cassandra.Client conn, String statement, PreparedStatement prepared)
+    {
+        Map<String, PreparedStatement> perConnection;
+        synchronized (statements)
+        {
+            perConnection = statements.get(conn);
+        }
+        if (perConnection == null)
+        {
+            return false;
+        }
+        synchronized (perConnection)
+        {
+            return perConnection.get(statement) == prepared && perConnection.remove(statement) != null;
+        }
+    }
+
+    private Map<String, PreparedStatement> newStatementMap()
+    {
+        return new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest)
+            {
+                return size() > maxStatementsPerConnection;
+            }
+        };
+    }
+
+    private List<ByteBuffer> bind(PreparedStatement prepared, List<Object> values)
+    {
+        if (prepared.types.length != values.size())
+        {
+            log.warn("Statement expects {} values, {} given, executing it unprepared.", prepared.types.length,
+                    values.size());
+            return null;
+        }
+        List<ByteBuffer> bound = new ArrayList<ByteBuffer>(values.size());
+        for (int i = 0; i < prepared.types.length; i++)
+        {
+            ByteBuffer value = bind(prepared.types[i], values.get(i));
+            if (value == null)
+            {
+                return null;
+            }
+            bound.add(value);
+        }
+        return bound;
+    }
+
+    private ByteBuffer bind(AbstractType<?> type, Object value)
+    {
+        if (type == null || value == null)
+        {
+            return null;
+        }
+        try
+        {
+            Set<Class<?>> javaTypes = binaryCompatible.get(type.getClass());
+            if (javaTypes != null && javaTypes.contains(value.getClass()))
+            {
+                return ByteBuffer.wrap(PropertyAccessorHelper.getBytes(value));
+            }
+            return type.fromString(PropertyAccessorHelper.getString(value));
+        }
+        catch (MarshalException mex)
+        {
+            log.debug("Value {} can not be bound to {}, Caused by: {}.", new Object[] { value, type, mex.getMessage() });
+            return null;
+        }
+    }
+
+    /**
+     * Server side handle of a statement along with the types of its markers.
+     */
+    private static final class PreparedStatement
+    {
+        private final int itemId;
+
+        private final AbstractType<?>[] types;
+
+        private PreparedStatement(CqlPreparedResult result)
+        {
+            this.itemId = result.getItemId();
+            List<String> variableTypes = result.getVariable_types();
+            this.types = new AbstractType<?>[variableTypes != null ? variableTypes.size() : result.getCount()];
+            for (int i = 0; variableTypes != null && i < types.length; i++)
+            {
+                types[i] = parse(variableTypes.get(i));
+            }
+        }
+
+        private static AbstractType<?> parse(String type)
+        {
+            try
+            {
+                AbstractType<?> parsed = TypeParser.parse(type);
+                return parsed instanceof ReversedType ? ((ReversedType<?>) parsed).baseType : parsed;
+            }
+            catch (SyntaxException e)
+            {
+                log.warn("Unknown column type {}, Caused by: {}.", type, e.getMessage());
+            }
+            catch (ConfigurationException e)
+            {
+                log.warn("Unknown column type {}, Caused by: {}.", type, e.getMessage());
+            }
+            return null;
+        }
+    }
+}
@@ -19,6 +19,7 @@ import java.lang.reflect.Field;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
@@ -55,6 +56,7 @@ import org.apache.commons.codec.binary.Hex;
 
 import com.impetus.client.cassandra.common.CassandraConstants;
 import com.impetus.client.cassandra.common.CassandraUtilities;
+import com.impetus.kundera.metadata.MetadataUtils;
 import com.impetus.kundera.metadata.model.EntityMetadata;
 import com.impetus.kundera.metadata.model.KunderaMetadata;
 import com.impetus.kundera.metadata.model.MetamodelImpl;
@@ -135,11 +137,45 @@ public final class CQLTranslator
     
     public static final String SPACE_STRING = " ";
 
+    public static final String BIND_MARKER = "?";
+
+    public static final String IN_CLAUSE = " IN (";
+
+    /** values collected in place of bind markers, null when inlining. */
+    private List<Object> bindValues;
+
+    /** whether a value had to be inlined while collecting bind values. */
+    private boolean inlinedValues;
+
     public CQLTranslator()
     {
 
     }
 
+    /**
+     * Switches this translator to emit a bind marker for each column value
+     * instead of the value itself, collecting values into given list. Values
+     * which can not be bound (i.e. collections) are still inlined, see
+     * {@link #hasInlinedValues()}.
+     * 
+     * @param bindValues
+     *            list to collect values into, null to inline values again.
+     */
+    public void setBindValues(List<Object> bindValues)
+    {
+        this.bindValues = bindValues;
+        this.inlinedValues = false;
+    }
+
+    /**
+     * @return true, if a value was inlined since bind values were set. Such a
+     *         statement's text depends on data and is not worth preparing.
+     */
+    public boolean hasInlinedValues()
+    {
+        return inlinedValues;
+    }
+
     public static enum TranslationType
     {
         COLUMN, VALUE, ALL;
@@ -160,6 +196,28 @@ public final class CQLTranslator
      */
     public HashMap<TranslationType, String> prepareColumnOrColumnValues(final Object record,
             final EntityMetadata entityMetadata, TranslationType type, Map<String, Object> externalProperties)
+    {
+        return prepareColumnOrColumnValues(record, entityMetadata, type, externalProperties, null);
+    }
+
+    /**
+     * Prepares column name or column values for changed attributes only.
+     * 
+     * @param record
+     *            entity.
+     * @param entityMetadata
+     *            entity meta data
+     * @param type
+     *            translation type.
+     * @param externalProperties
+     *            external properties
+     * @param dirtyAttributes
+     *            changed attributes, null if all attributes are to be written
+     * @return Map containing translation type as key and string as value.
+     */
+    public HashMap<TranslationType, String> prepareColumnOrColumnValues(final Object record,
+            final EntityMetadata entityMetadata, TranslationType type, Map<String, Object> externalProperties,
+            BitSet dirtyAttributes)
     {
         HashMap<TranslationType, String> parsedColumnOrColumnValue = new HashMap<CQLTranslator.TranslationType, String>();
         if (type == null)
@@ -175,7 +233,7 @@ public final class CQLTranslator
         StringBuilder columnBuilder = new StringBuilder();
 
         onTranslation(record, entityMetadata, type, metaModel, entityClazz, entityType, builder, columnBuilder,
-                externalProperties);
+                externalProperties, dirtyAttributes);
 
         if (type.equals(TranslationType.ALL) || type.equals(TranslationType.VALUE))
         {
@@ -281,9 +339,10 @@ public final class CQLTranslator
     
     private void onTranslation(final Object record, final EntityMetadata m, TranslationType type,
             MetamodelImpl metaModel, Class entityClazz, EntityType entityType, StringBuilder builder,
-            StringBuilder columnBuilder, Map<String, Object> externalProperties)
+            StringBuilder columnBuilder, Map<String, Object> externalProperties, BitSet dirtyAttributes)
     {
-        Set<Attribute> attributes = entityType.getAttributes();
+        Set<Attribute> attributes = MetadataUtils.getAttributesToBeWritten(m, entityType.getAttributes(),
+                dirtyAttributes);
         Iterator<Attribute> iterator = attributes.iterator();
         while (iterator.hasNext())
         {
@@ -386,10 +445,41 @@ public final class CQLTranslator
     {
         builder = ensureCase(builder, field, useToken);
         builder.append(clause);
+        if (!useToken && bindValue(builder, fieldClazz, value))
+        {
+            builder.append(AND_CLAUSE);
+            return;
+        }
         appendValue(builder, fieldClazz, value, false, useToken);
         builder.append(AND_CLAUSE);
     }
 
+    /**
+     * Builds IN clause on given field for all values.
+     * 
+     * @param builder
+     * @param fieldClazz
+     * @param field
+     * @param values
+     */
+    public void buildInClause(StringBuilder builder, Class fieldClazz, String field, Object... values)
+    {
+        builder = ensureCase(builder, field, false);
+        builder.append(IN_CLAUSE);
+        for (int i = 0; i < values.length; i++)
+        {
+            if (i > 0)
+            {
+                builder.append(COMMA_STR);
+            }
+            if (!bindValue(builder, fieldClazz, values[i]))
+            {
+                appendValue(builder, fieldClazz, values[i], false, false);
+            }
+        }
+        builder.append(CLOSE_BRACKET);
+    }
+
     /**
      * Builds set clause for a given counter field.
      * 
@@ -519,11 +609,39 @@ public final class CQLTranslator
     private boolean appendColumnValue(StringBuilder builder, Object valueObj, Field column)
     {
         Object value = PropertyAccessorHelper.getObject(valueObj, column);
+        if (bindValue(builder, column.getType(), value))
+        {
+            return true;
+        }
         boolean isPresent = false;
         isPresent = appendValue(builder, column.getType(), value, isPresent, false);
         return isPresent;
     }
 
+    /**
+     * Appends a bind marker and collects value, if collecting bind values.
+     * 
+     * @param builder
+     * @param fieldClazz
+     * @param value
+     * @return true, if marker was appended.
+     */
+    public boolean bindValue(StringBuilder builder, Class fieldClazz, Object value)
+    {
+        if (bindValues == null || value == null)
+        {
+            return false;
+        }
+        if (Collection.class.isAssignableFrom(fieldClazz) || Map.class.isAssignableFrom(fieldClazz))
+        {
+            inlinedValues = true;
+            return false;
+        }
+        builder.append(BIND_MARKER);
+        bindValues.add(value);
+        return true;
+    }
+
     /**
      * Appends value to builder object for given class type
      * 
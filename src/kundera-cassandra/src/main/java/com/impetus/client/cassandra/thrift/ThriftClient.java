@@ -19,12 +19,14 @@ import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Field;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 
+import javax.persistence.Embeddable;
 import javax.persistence.PersistenceException;
 
 import net.dataforte.cassandra.pool.ConnectionPool;
@@ -55,8 +57,8 @@ import org.slf4j.LoggerFactory;
 
 import com.impetus.client.cassandra.CassandraClientBase;
 import com.impetus.client.cassandra.common.CassandraUtilities;
+import com.impetus.client.cassandra.common.SpeculativeExecutor;
 import com.impetus.client.cassandra.datahandler.CassandraDataHandler;
-import com.impetus.client.cassandra.index.InvertedIndexHandler;
 import com.impetus.client.cassandra.query.CassQuery;
 import com.impetus.client.cassandra.thrift.ThriftClientFactory.Connection;
 import com.impetus.client.cassandra.thrift.ThriftDataResultHelper.ColumnFamilyType;
@@ -100,7 +102,7 @@ public class ThriftClient extends CassandraClientBase implements Client<CassQuer
     private ThriftDataHandler dataHandler;
 
     /** Handler for Inverted indexing */
-    private InvertedIndexHandler invertedIndexHandler;
+    private ThriftInvertedIndexHandler invertedIndexHandler;
 
     /** The reader. */
     private EntityReader reader;
@@ -109,6 +111,8 @@ public class ThriftClient extends CassandraClientBase implements Client<CassQuer
 
     private ConnectionPool pool;
 
+    private SpeculativeExecutor speculativeExecutor;
+
     public ThriftClient(ThriftClientFactory clientFactory, IndexManager indexManager, EntityReader reader,
             String persistenceUnit, ConnectionPool pool, Map<String, Object> externalProperties)
     {
@@ -119,8 +123,14 @@ public class ThriftClient extends CassandraClientBase implements Client<CassQuer
         this.dataHandler = new ThriftDataHandler(this);
         this.reader = reader;
         this.clientMetadata = clientFactory.getClientMetadata();
-        this.invertedIndexHandler = new ThriftInvertedIndexHandler(this,MetadataUtils.useSecondryIndex(clientMetadata));
+        this.invertedIndexHandler = new ThriftInvertedIndexHandler(this,
+                MetadataUtils.useSecondryIndex(clientMetadata), clientFactory.getInvertedIndexCache());
         this.pool = pool;
+        setStatementCache(clientFactory.getStatementCache());
+        setBatchMutationExecutor(clientFactory.getBatchMutationExecutor());
+        setAsyncExecutor(clientFactory.getAsyncExecutor());
+        setCounterAggregator(clientFactory.getCounterAggregator());
+        this.speculativeExecutor = clientFactory.getSpeculativeExecutor();
     }
 
     /**
@@ -138,7 +148,7 @@ public class ThriftClient extends CassandraClientBase implements Client<CassQuer
     @Override
     protected void onPersist(EntityMetadata entityMetadata, Object entity, Object id, List<RelationHolder> rlHolders)
     {
-        Connection conn = getConection();
+        Connection conn = getConection(entityMetadata, id);
         try
         {
 
@@ -154,8 +164,13 @@ public class ThriftClient extends CassandraClientBase implements Client<CassQuer
             {
                 Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap = new HashMap<ByteBuffer, Map<String, List<Mutation>>>();
                 prepareMutation(entityMetadata, entity, id, rlHolders, mutationMap);
-                // Write Mutation map to database
-                conn.getClient().batch_mutate(mutationMap, getConsistencyLevel());
+                prepareIndexMutation(entityMetadata, entity, mutationMap);
+                // Write Mutation map to database, unless counters were taken
+                // by counter aggregator.
+                if (!mutationMap.isEmpty())
+                {
+                    conn.getClient().batch_mutate(mutationMap, getConsistencyLevel());
+                }
 
                 mutationMap.clear();
                 mutationMap = null;
@@ -301,9 +316,22 @@ public class ThriftClient extends CassandraClientBase implements Client<CassQuer
     {
         super.indexNode(node, entityMetadata);
 
-        // Write to inverted index table if applicable
-        // setCassandraClient();
-        invertedIndexHandler.write(node, entityMetadata, getPersistenceUnit(), getConsistencyLevel(), dataHandler);
+        // Write to inverted index table if applicable, rows written with
+        // batch_mutate already hold their index mutations.
+        if (isCql3Enabled(entityMetadata))
+        {
+            invertedIndexHandler.write(node, entityMetadata, getPersistenceUnit(), getConsistencyLevel(), dataHandler);
+        }
+    }
+
+    /**
+     * Adds inverted index mutations of entity to its mutation map.
+     */
+    @Override
+    protected void prepareIndexMutation(EntityMetadata entityMetadata, Object entity,
+            Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap)
+    {
+        invertedIndexHandler.addIndexMutations(entity, entityMetadata, dataHandler, mutationMap);
     }
 
     /**
@@ -490,15 +518,15 @@ public class ThriftClient extends CassandraClientBase implements Client<CassQuer
         List<Object> rowKeys = new ArrayList<Object>();
         EntityMetadata metadata = KunderaMetadataManager.getEntityMetadata(entityClazz);
 
-        SlicePredicate slicePredicate = new SlicePredicate();
-
-        slicePredicate.setSlice_range(new SliceRange(Bytes.EMPTY.getBytes(), Bytes.EMPTY.getBytes(), false, Integer.MAX_VALUE));
-
         String childIdStr = PropertyAccessorHelper.getString(columnValue);
         IndexExpression ie = new IndexExpression(Bytes.fromUTF8(
                 columnName + Constants.JOIN_COLUMN_NAME_SEPARATOR + childIdStr).getBytes(), IndexOperator.EQ, Bytes
                 .fromUTF8(childIdStr).getBytes());
 
+        // only row keys are needed, read indexed column alone.
+        SlicePredicate slicePredicate = new SlicePredicate();
+        slicePredicate.setColumn_names(Arrays.asList(ie.bufferForColumn_name()));
+
         List<IndexExpression> expressions = new ArrayList<IndexExpression>();
         expressions.add(ie);
 
@@ -646,7 +674,7 @@ public class ThriftClient extends CassandraClientBase implements Client<CassQuer
         Connection conn = null;
         try
         {
-            conn = /* PelopsUtils.getCassandraConnection(pool) */getConection();
+            conn = /* PelopsUtils.getCassandraConnection(pool) */getConection(metadata, pKey);
             MetamodelImpl metaModel = (MetamodelImpl) KunderaMetadata.INSTANCE.getApplicationMetadata().getMetamodel(
                     metadata.getPersistenceUnit());
 
@@ -1042,13 +1070,88 @@ public class ThriftClient extends CassandraClientBase implements Client<CassQuer
 
     protected Connection getConection()
     {
-        Connection connection = clientFactory.getConnection(pool);
+        Connection connection = clientFactory.getConnection(pool, null);
         return connection;
     }
 
+    /**
+     * Returns connection for an operation on a single row, routed to one of
+     * its replicas when token aware load balancing is enabled.
+     * 
+     * @param m
+     * @param rowKey
+     * @return connection.
+     */
+    protected Connection getConection(EntityMetadata m, Object rowKey)
+    {
+        return clientFactory.getConnection(pool, getRoutingKey(m, rowKey));
+    }
+
+    /**
+     * Runs an idempotent read against the host given row is routed to. With
+     * speculative retry enabled, a slow read is repeated against a second
+     * host and the first answer is returned.
+     * 
+     * @param m
+     * @param rowKey
+     *            row key, null if read is not on a single row.
+     * @param read
+     *            read, run with a {@link ConnectionPool} as host.
+     * @return result of the read.
+     * @throws Exception
+     */
+    protected <T> T read(EntityMetadata m, Object rowKey, SpeculativeExecutor.Read<T> read) throws Exception
+    {
+        ByteBuffer key = getRoutingKey(m, rowKey);
+        ConnectionPool host = clientFactory.getPool(pool, key);
+        if (speculativeExecutor == null)
+        {
+            return read.execute(host);
+        }
+        return speculativeExecutor.execute(host, clientFactory.getBackupPool(host, key), read);
+    }
+
+    private ByteBuffer getRoutingKey(EntityMetadata m, Object rowKey)
+    {
+        if (rowKey != null && !m.getIdAttribute().getBindableJavaType().isAnnotationPresent(Embeddable.class))
+        {
+            return ByteBuffer.wrap(PropertyAccessorHelper.toBytes(rowKey, m.getIdAttribute().getJavaType()));
+        }
+        return null;
+    }
+
+    /**
+     * Groups rows by the pool {@link ThriftClientFactory} routes them to, so
+     * that with token aware load balancing each chunk goes to a replica.
+     */
+    @Override
+    protected Map<Object, Map<ByteBuffer, Map<String, List<Mutation>>>> groupByHost(
+            Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap)
+    {
+        Map<Object, Map<ByteBuffer, Map<String, List<Mutation>>>> groups = new HashMap<Object, Map<ByteBuffer, Map<String, List<Mutation>>>>();
+        for (Map.Entry<ByteBuffer, Map<String, List<Mutation>>> row : mutationMap.entrySet())
+        {
+            ConnectionPool host = clientFactory.getPool(pool, row.getKey());
+            Map<ByteBuffer, Map<String, List<Mutation>>> group = groups.get(host);
+            if (group == null)
+            {
+                group = new HashMap<ByteBuffer, Map<String, List<Mutation>>>();
+                groups.put(host, group);
+            }
+            group.put(row.getKey(), row.getValue());
+        }
+        return groups;
+    }
+
+    @Override
+    protected Object getConnectionForHost(Object host)
+    {
+        return clientFactory.getConnection((ConnectionPool) host);
+    }
+
     protected void releaseConnection(Object conn)
     {
-        clientFactory.releaseConnection(((Connection) conn).getPool(), ((Connection) conn).getClient());
+        clientFactory.releaseConnection((Connection) conn);
     }
 
     @Override
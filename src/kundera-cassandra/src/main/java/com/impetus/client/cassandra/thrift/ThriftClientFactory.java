@@ -15,6 +15,8 @@
  */
 package com.impetus.client.cassandra.thrift;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -33,6 +35,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Lists;
+import com.impetus.client.cassandra.common.BatchMutationExecutor;
+import com.impetus.client.cassandra.common.CassandraAsyncExecutor;
+import com.impetus.client.cassandra.common.CassandraUtilities;
+import com.impetus.client.cassandra.common.CounterAggregator;
+import com.impetus.client.cassandra.common.SpeculativeExecutor;
+import com.impetus.client.cassandra.index.InvertedIndexCache;
 import com.impetus.client.cassandra.config.CassandraPropertyReader;
 import com.impetus.client.cassandra.pelops.PelopsClientFactory;
 import com.impetus.client.cassandra.pelops.PelopsUtils;
@@ -41,6 +49,7 @@ import com.impetus.client.cassandra.schemamanager.CassandraSchemaManager;
 import com.impetus.client.cassandra.service.CassandraHost;
 import com.impetus.client.cassandra.service.CassandraHostConfiguration;
 import com.impetus.client.cassandra.service.CassandraRetryService;
+import com.impetus.client.cassandra.service.TokenAwareBalancingPolicy;
 import com.impetus.kundera.Constants;
 import com.impetus.kundera.KunderaException;
 import com.impetus.kundera.PersistenceProperties;
@@ -69,6 +78,18 @@ public class ThriftClientFactory extends GenericClientFactory
 
     protected HostConfiguration configuration;
 
+    private CQLStatementCache statementCache;
+
+    private BatchMutationExecutor batchMutationExecutor;
+
+    private CassandraAsyncExecutor asyncExecutor;
+
+    private CounterAggregator counterAggregator;
+
+    private InvertedIndexCache invertedIndexCache;
+
+    private SpeculativeExecutor speculativeExecutor;
+
     @Override
     public SchemaManager getSchemaManager(Map<String, Object> externalProperty)
     {
@@ -96,6 +117,11 @@ public class ThriftClientFactory extends GenericClientFactory
     @Override
     public void destroy()
     {
+        if (counterAggregator != null)
+        {
+            // pending increments are written while pools are still open.
+            counterAggregator.shutdown();
+        }
         if (indexManager != null)
         {
             indexManager.close();
@@ -105,6 +131,18 @@ public class ThriftClientFactory extends GenericClientFactory
             schemaManager.dropSchema();
         }
         schemaManager = null;
+        if (batchMutationExecutor != null)
+        {
+            batchMutationExecutor.shutdown();
+        }
+        if (asyncExecutor != null)
+        {
+            asyncExecutor.shutdown();
+        }
+        if (speculativeExecutor != null)
+        {
+            speculativeExecutor.shutdown();
+        }
         externalProperties = null;
 
         for (Object connectionPool : hostPools.values())
@@ -129,6 +167,14 @@ public class ThriftClientFactory extends GenericClientFactory
         configuration = new CassandraHostConfiguration(externalProperties, CassandraPropertyReader.csmd,
                 getPersistenceUnit());
         hostRetryService = new CassandraRetryService(configuration, this);
+        statementCache = new CQLStatementCache(CassandraUtilities.getPreparedStatementCacheSize(getPersistenceUnit(),
+                externalProperties));
+        batchMutationExecutor = CassandraUtilities.createBatchMutationExecutor(getPersistenceUnit(),
+                externalProperties);
+        asyncExecutor = CassandraUtilities.createAsyncExecutor(this, getPersistenceUnit(), externalProperties);
+        counterAggregator = CassandraUtilities.createCounterAggregator(this, getPersistenceUnit(), externalProperties);
+        invertedIndexCache = CassandraUtilities.createInvertedIndexCache(getPersistenceUnit(), externalProperties);
+        speculativeExecutor = CassandraUtilities.createSpeculativeExecutor(getPersistenceUnit(), externalProperties);
     }
 
     @Override
@@ -173,9 +219,50 @@ public class ThriftClientFactory extends GenericClientFactory
                 }
             }
         }
+
+        if (loadBalancingPolicy instanceof TokenAwareBalancingPolicy && !hostPools.isEmpty())
+        {
+            final String ringKeyspace = keyspace;
+            refreshRing(ringKeyspace);
+            int interval = CassandraUtilities.getRingRefreshInterval(getPersistenceUnit(), externalProperties);
+            if (interval > 0)
+            {
+                ((CassandraRetryService) hostRetryService).schedule(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        refreshRing(ringKeyspace);
+                    }
+                }, interval);
+            }
+        }
         return null;
     }
 
+    /**
+     * Reloads token ring used by {@link TokenAwareBalancingPolicy}.
+     * 
+     * @param keyspace
+     */
+    private void refreshRing(String keyspace)
+    {
+        Connection connection = null;
+        try
+        {
+            connection = getConnection(getPoolUsingPolicy());
+            ((TokenAwareBalancingPolicy) loadBalancingPolicy).refresh(connection.getClient(), keyspace);
+        }
+        catch (KunderaException e)
+        {
+            logger.warn("Could not refresh token ring of keyspace {}, Caused by {}.", keyspace, e.getMessage());
+        }
+        finally
+        {
+            releaseConnection(connection);
+        }
+    }
+
     @Override
     protected Client instantiateClient(String persistenceUnit)
     {
@@ -183,6 +270,54 @@ public class ThriftClientFactory extends GenericClientFactory
         return new ThriftClient(this, indexManager, reader, persistenceUnit, pool, externalProperties);
     }
 
+    /**
+     * @return prepared statements shared by clients of this factory.
+     */
+    public CQLStatementCache getStatementCache()
+    {
+        return statementCache;
+    }
+
+    /**
+     * @return batch mutation executor shared by clients of this factory.
+     */
+    public BatchMutationExecutor getBatchMutationExecutor()
+    {
+        return batchMutationExecutor;
+    }
+
+    /**
+     * @return executor of asynchronous operations of this factory's clients.
+     */
+    public CassandraAsyncExecutor getAsyncExecutor()
+    {
+        return asyncExecutor;
+    }
+
+    /**
+     * @return aggregator of counter increments, null if disabled.
+     */
+    public CounterAggregator getCounterAggregator()
+    {
+        return counterAggregator;
+    }
+
+    /**
+     * @return cache of inverted index super columns, null if disabled.
+     */
+    public InvertedIndexCache getInvertedIndexCache()
+    {
+        return invertedIndexCache;
+    }
+
+    /**
+     * @return executor of speculatively retried reads, null if disabled.
+     */
+    public SpeculativeExecutor getSpeculativeExecutor()
+    {
+        return speculativeExecutor;
+    }
+
     /**
      * 
      * @return pool an the basis of LoadBalancing policy.
@@ -235,12 +370,79 @@ public class ThriftClientFactory extends GenericClientFactory
             case LEASTACTIVE:
                 loadBalancingPolicy = new ThriftLeastActiveBalancingPolcy();
                 break;
+            case TOKENAWARE:
+                loadBalancingPolicy = new TokenAwareBalancingPolicy();
+                break;
             default:
                 loadBalancingPolicy = new RoundRobinBalancingPolicy();
                 break;
             }
         }
-        loadBalancingPolicy = new RoundRobinBalancingPolicy();
+        else
+        {
+            loadBalancingPolicy = new RoundRobinBalancingPolicy();
+        }
+    }
+
+    /**
+     * Returns connection for an operation on given row key. With
+     * {@link TokenAwareBalancingPolicy} pool is chosen per request, among
+     * replicas of the key if it is known, else given pool is used.
+     * 
+     * @param pool
+     *            pool of the client.
+     * @param rowKey
+     *            serialized row key, may be null.
+     * @return connection.
+     */
+    Connection getConnection(ConnectionPool pool, ByteBuffer rowKey)
+    {
+        return getConnection(getPool(pool, rowKey));
+    }
+
+    /**
+     * Returns pool to use for an operation on given row key, see
+     * {@link #getConnection(ConnectionPool, ByteBuffer)}.
+     * 
+     * @param pool
+     *            pool of the client.
+     * @param rowKey
+     *            serialized row key, may be null.
+     * @return pool.
+     */
+    ConnectionPool getPool(ConnectionPool pool, ByteBuffer rowKey)
+    {
+        if (loadBalancingPolicy instanceof TokenAwareBalancingPolicy && !hostPools.isEmpty())
+        {
+            return (ConnectionPool) ((TokenAwareBalancingPolicy) loadBalancingPolicy).getPool(hostPools.values(),
+                    rowKey);
+        }
+        return pool;
+    }
+
+    /**
+     * Returns pool of a second host to speculatively repeat a read on given
+     * row key, see {@link #getPool(ConnectionPool, ByteBuffer)}.
+     * 
+     * @param pool
+     *            pool the read was sent to.
+     * @param rowKey
+     *            serialized row key, may be null.
+     * @return pool of another host, null if there is none.
+     */
+    ConnectionPool getBackupPool(ConnectionPool pool, ByteBuffer rowKey)
+    {
+        List<Object> pools = new ArrayList<Object>(hostPools.values());
+        pools.remove(pool);
+        if (pools.isEmpty())
+        {
+            return null;
+        }
+        if (loadBalancingPolicy instanceof TokenAwareBalancingPolicy)
+        {
+            return (ConnectionPool) ((TokenAwareBalancingPolicy) loadBalancingPolicy).getPool(pools, rowKey);
+        }
+        return (ConnectionPool) loadBalancingPolicy.getPool(pools);
     }
 
     Connection getConnection(ConnectionPool pool)
@@ -282,6 +484,38 @@ public class ThriftClientFactory extends GenericClientFactory
         }
     }
 
+    /**
+     * Releases connection, feeding its response time to
+     * {@link TokenAwareBalancingPolicy}.
+     * 
+     * @param connection
+     */
+    void releaseConnection(Connection connection)
+    {
+        if (connection != null)
+        {
+            if (loadBalancingPolicy instanceof TokenAwareBalancingPolicy)
+            {
+                ((TokenAwareBalancingPolicy) loadBalancingPolicy).recordLatency(connection.getPool()
+                        .getPoolProperties().getHost(), System.nanoTime() - connection.borrowedAt);
+            }
+            releaseConnection(connection.getPool(), connection.getClient());
+        }
+    }
+
+    /**
+     * Called by {@link CassandraRetryService} when a host goes down.
+     * 
+     * @param cassandraHost
+     */
+    public void onHostDown(CassandraHost cassandraHost)
+    {
+        if (loadBalancingPolicy instanceof TokenAwareBalancingPolicy)
+        {
+            ((TokenAwareBalancingPolicy) loadBalancingPolicy).markDown(cassandraHost.getHost());
+        }
+    }
+
     /**
      * Adds a pool in hostPools map for given host.
      * 
@@ -307,6 +541,10 @@ public class ThriftClientFactory extends GenericClientFactory
             }
             ConnectionPool pool = new ConnectionPool(prop);
             hostPools.put(cassandraHost, pool);
+            if (loadBalancingPolicy instanceof TokenAwareBalancingPolicy)
+            {
+                ((TokenAwareBalancingPolicy) loadBalancingPolicy).markUp(cassandraHost.getHost());
+            }
             return true;
         }
         catch (TException e)
@@ -377,6 +615,8 @@ public class ThriftClientFactory extends GenericClientFactory
 
         private ConnectionPool pool;
 
+        private final long borrowedAt = System.nanoTime();
+
         public Connection(org.apache.cassandra.thrift.Cassandra.Client client, ConnectionPool pool)
         {
             this.client = client;
@@ -17,6 +17,7 @@ package com.impetus.client.cassandra.thrift;
 
 import java.nio.ByteBuffer;
 import java.nio.charset.CharacterCodingException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,6 +31,7 @@ import org.apache.cassandra.thrift.SuperColumn;
 import org.scale7.cassandra.pelops.Bytes;
 
 import com.impetus.client.cassandra.datahandler.CassandraDataHandler;
+import com.impetus.client.cassandra.common.SpeculativeExecutor;
 import com.impetus.client.cassandra.datahandler.CassandraDataHandlerBase;
 import com.impetus.client.cassandra.thrift.ThriftClientFactory.Connection;
 import com.impetus.kundera.db.DataRow;
@@ -64,31 +66,99 @@ public final class ThriftDataHandler extends CassandraDataHandlerBase implements
      * java.util.List, boolean, org.apache.cassandra.thrift.ConsistencyLevel)
      */
     @Override
-    public Object fromThriftRow(Class<?> clazz, EntityMetadata m, Object rowKey, List<String> relationNames,
-            boolean isWrapReq, ConsistencyLevel consistencyLevel) throws Exception
+    public Object fromThriftRow(Class<?> clazz, final EntityMetadata m, Object rowKey, List<String> relationNames,
+            boolean isWrapReq, final ConsistencyLevel consistencyLevel) throws Exception
     {
         // List<String> superColumnNames = m.getEmbeddedColumnFieldNames();
 
         Object e = null;
-        SlicePredicate predicate = new SlicePredicate();
+        final SlicePredicate predicate = new SlicePredicate();
         predicate.setSlice_range(new SliceRange(Bytes.EMPTY.getBytes(), Bytes.EMPTY.getBytes(), true, 10000));
 
-        ByteBuffer key = ByteBuffer.wrap(PropertyAccessorHelper.toBytes(rowKey, m.getIdAttribute().getJavaType()));
-        Connection conn = thriftClient.getConection();
-        try
+        final ByteBuffer key = ByteBuffer.wrap(PropertyAccessorHelper.toBytes(rowKey, m.getIdAttribute()
+                .getJavaType()));
+        List<ColumnOrSuperColumn> columnOrSuperColumns = thriftClient.read(m, rowKey,
+                new SpeculativeExecutor.Read<List<ColumnOrSuperColumn>>()
+                {
+                    @Override
+                    public List<ColumnOrSuperColumn> execute(Object host) throws Exception
+                    {
+                        Connection conn = (Connection) thriftClient.getConnectionForHost(host);
+                        try
+                        {
+                            return conn.getClient().get_slice(key, new ColumnParent(m.getTableName()), predicate,
+                                    consistencyLevel);
+                        }
+                        finally
+                        {
+                            thriftClient.releaseConnection(conn);
+                        }
+                    }
+                });
+
+        Map<ByteBuffer, List<ColumnOrSuperColumn>> thriftColumnOrSuperColumns = new HashMap<ByteBuffer, List<ColumnOrSuperColumn>>();
+        thriftColumnOrSuperColumns.put(key, columnOrSuperColumns);
+        e = populateEntityFromSlice(m, relationNames, isWrapReq, e, thriftColumnOrSuperColumns);
+        return e;
+    }
+
+    /**
+     * Reads all rows with one multiget_slice call.
+     */
+    @Override
+    public List<Object> fromThriftRow(Class<?> clazz, final EntityMetadata m, List<String> relationNames,
+            boolean isWrapReq, final ConsistencyLevel consistencyLevel, Object... rowIds) throws Exception
+    {
+        if (rowIds == null || rowIds.length <= 1)
         {
-            List<ColumnOrSuperColumn> columnOrSuperColumns = conn.getClient().get_slice(key, new ColumnParent(
-                    m.getTableName()), predicate, consistencyLevel);
+            return super.fromThriftRow(clazz, m, relationNames, isWrapReq, consistencyLevel, rowIds);
+        }
+
+        final SlicePredicate predicate = new SlicePredicate();
+        predicate.setSlice_range(new SliceRange(Bytes.EMPTY.getBytes(), Bytes.EMPTY.getBytes(), true, 10000));
 
-            Map<ByteBuffer, List<ColumnOrSuperColumn>> thriftColumnOrSuperColumns = new HashMap<ByteBuffer, List<ColumnOrSuperColumn>>();
-            thriftColumnOrSuperColumns.put(key, columnOrSuperColumns);
-            e = populateEntityFromSlice(m, relationNames, isWrapReq, e, thriftColumnOrSuperColumns);
+        final List<ByteBuffer> keys = new ArrayList<ByteBuffer>(rowIds.length);
+        for (Object rowKey : rowIds)
+        {
+            keys.add(ByteBuffer.wrap(PropertyAccessorHelper.toBytes(rowKey, m.getIdAttribute().getJavaType())));
         }
-        finally
+
+        Map<ByteBuffer, List<ColumnOrSuperColumn>> rows = thriftClient.read(m, null,
+                new SpeculativeExecutor.Read<Map<ByteBuffer, List<ColumnOrSuperColumn>>>()
+                {
+                    @Override
+                    public Map<ByteBuffer, List<ColumnOrSuperColumn>> execute(Object host) throws Exception
+                    {
+                        Connection conn = (Connection) thriftClient.getConnectionForHost(host);
+                        try
+                        {
+                            return conn.getClient().multiget_slice(keys, new ColumnParent(m.getTableName()),
+                                    predicate, consistencyLevel);
+                        }
+                        finally
+                        {
+                            thriftClient.releaseConnection(conn);
+                        }
+                    }
+                });
+
+        // keep order of given row keys.
+        List<Object> entities = new ArrayList<Object>(rowIds.length);
+        for (ByteBuffer key : keys)
         {
-            thriftClient.releaseConnection(conn);
+            List<ColumnOrSuperColumn> columnOrSuperColumns = rows.get(key);
+            if (columnOrSuperColumns != null && !columnOrSuperColumns.isEmpty())
+            {
+                Map<ByteBuffer, List<ColumnOrSuperColumn>> row = new HashMap<ByteBuffer, List<ColumnOrSuperColumn>>();
+                row.put(key, columnOrSuperColumns);
+                Object e = populateEntityFromSlice(m, relationNames, isWrapReq, null, row);
+                if (e != null)
+                {
+                    entities.add(e);
+                }
+            }
         }
-        return e;
+        return entities;
     }
 
     @Override
@@ -17,6 +17,7 @@ package com.impetus.client.cassandra.thrift;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +27,7 @@ import org.apache.cassandra.thrift.ColumnOrSuperColumn;
 import org.apache.cassandra.thrift.ColumnParent;
 import org.apache.cassandra.thrift.ColumnPath;
 import org.apache.cassandra.thrift.ConsistencyLevel;
+import org.apache.cassandra.thrift.Deletion;
 import org.apache.cassandra.thrift.IndexClause;
 import org.apache.cassandra.thrift.InvalidRequestException;
 import org.apache.cassandra.thrift.Mutation;
@@ -39,9 +41,9 @@ import org.apache.thrift.TException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.impetus.client.cassandra.common.CassandraUtilities;
 import com.impetus.client.cassandra.datahandler.CassandraDataHandler;
 import com.impetus.client.cassandra.index.CassandraIndexHelper;
+import com.impetus.client.cassandra.index.InvertedIndexCache;
 import com.impetus.client.cassandra.index.InvertedIndexHandler;
 import com.impetus.client.cassandra.index.InvertedIndexHandlerBase;
 import com.impetus.client.cassandra.thrift.ThriftClientFactory.Connection;
@@ -64,101 +66,97 @@ public class ThriftInvertedIndexHandler extends InvertedIndexHandlerBase impleme
 
     private final ThriftClient thriftClient;
 
+    /** cache of read index super columns, null if disabled. */
+    private final InvertedIndexCache cache;
+
+    /** index deletions of entity being deleted. */
+    private Map<ByteBuffer, Map<String, List<Mutation>>> pendingDeletions;
+
     public ThriftInvertedIndexHandler(final ThriftClient thriftClient, final boolean useSecondryIndex)
+    {
+        this(thriftClient, useSecondryIndex, null);
+    }
+
+    public ThriftInvertedIndexHandler(final ThriftClient thriftClient, final boolean useSecondryIndex,
+            final InvertedIndexCache cache)
     {
         this.thriftClient = thriftClient;
         this.useSecondryIndex = useSecondryIndex;
+        this.cache = cache;
     }
 
     @Override
     public void write(Node node, EntityMetadata entityMetadata, String persistenceUnit,
             ConsistencyLevel consistencyLevel, CassandraDataHandler cdHandler)
     {
-        // Write to Inverted Index table if applicable
-        boolean invertedIndexingApplicable = CassandraIndexHelper.isInvertedIndexingApplicable(entityMetadata, useSecondryIndex);
+        Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap = new HashMap<ByteBuffer, Map<String, List<Mutation>>>();
+        if (addIndexMutations(node.getData(), entityMetadata, cdHandler, mutationMap))
+        {
+            batchMutate(mutationMap, consistencyLevel);
+        }
+    }
 
-        if (invertedIndexingApplicable)
+    /**
+     * Adds mutations of entity's inverted index rows to mutation map, so that
+     * they are written by the same batch_mutate as entity's own row.
+     * 
+     * @param entity
+     *            the entity
+     * @param entityMetadata
+     *            the entity metadata
+     * @param cdHandler
+     *            data handler
+     * @param mutationMap
+     *            row key to mutation map.
+     * @return true, if inverted indexing is applicable to entity.
+     */
+    public boolean addIndexMutations(Object entity, EntityMetadata entityMetadata, CassandraDataHandler cdHandler,
+            Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap)
+    {
+        // Write to Inverted Index table if applicable
+        if (!CassandraIndexHelper.isInvertedIndexingApplicable(entityMetadata, useSecondryIndex))
         {
-            String indexColumnFamily = CassandraIndexHelper.getInvertedIndexTableName(entityMetadata.getTableName());
+            return false;
+        }
 
-            ThriftDataHandler thriftDataHandler = (ThriftDataHandler) cdHandler;
+        String indexColumnFamily = CassandraIndexHelper.getInvertedIndexTableName(entityMetadata.getTableName());
 
-            List<ThriftRow> indexThriftyRows = thriftDataHandler.toIndexThriftRow(node.getData(), entityMetadata,
-                    indexColumnFamily);
-            Connection conn = thriftClient.getConection();
-            try
-            {
-                String keyspace = CassandraUtilities.getKeyspace(persistenceUnit);
+        List<ThriftRow> indexThriftyRows = ((ThriftDataHandler) cdHandler).toIndexThriftRow(entity, entityMetadata,
+                indexColumnFamily);
 
-                for (ThriftRow thriftRow : indexThriftyRows)
-                {
-                    byte[] rowKey = PropertyAccessorHelper.toBytes(thriftRow.getId(), thriftRow.getId().getClass());
+        for (ThriftRow thriftRow : indexThriftyRows)
+        {
+            ByteBuffer rowKey = ByteBuffer.wrap(PropertyAccessorHelper.toBytes(thriftRow.getId(), thriftRow.getId()
+                    .getClass()));
 
-                    // Create Insertion List
-                    List<Mutation> insertion_list = new ArrayList<Mutation>();
+            List<Column> thriftColumns = thriftRow.getColumns();
+            List<SuperColumn> thriftSuperColumns = thriftRow.getSuperColumns();
+            if (thriftColumns != null)
+            {
+                for (Column column : thriftColumns)
+                {
+                    Mutation mut = new Mutation();
+                    mut.setColumn_or_supercolumn(new ColumnOrSuperColumn().setColumn(column));
+                    addMutation(mutationMap, rowKey, indexColumnFamily, mut);
+                }
+            }
 
-                    List<Column> thriftColumns = thriftRow.getColumns();
-                    List<SuperColumn> thriftSuperColumns = thriftRow.getSuperColumns();
-                    if (thriftColumns != null && !thriftColumns.isEmpty())
-                    {
-                        for (Column column : thriftColumns)
-                        {
-                            Mutation mut = new Mutation();
-                            mut.setColumn_or_supercolumn(new ColumnOrSuperColumn().setColumn(column));
-                            insertion_list.add(mut);
-                        }
-                    }
+            if (thriftSuperColumns != null)
+            {
+                for (SuperColumn superColumn : thriftSuperColumns)
+                {
+                    Mutation mut = new Mutation();
+                    mut.setColumn_or_supercolumn(new ColumnOrSuperColumn().setSuper_column(superColumn));
+                    addMutation(mutationMap, rowKey, indexColumnFamily, mut);
 
-                    if (thriftSuperColumns != null && !thriftSuperColumns.isEmpty())
+                    if (cache != null)
                     {
-                        for (SuperColumn superColumn : thriftSuperColumns)
-                        {
-                            Mutation mut = new Mutation();
-                            mut.setColumn_or_supercolumn(new ColumnOrSuperColumn().setSuper_column(superColumn));
-                            insertion_list.add(mut);
-                        }
+                        cache.invalidate(indexColumnFamily, thriftRow.getId().toString(), superColumn.getName());
                     }
-
-                    // Create Mutation Map
-                    Map<String, List<Mutation>> columnFamilyValues = new HashMap<String, List<Mutation>>();
-                    columnFamilyValues.put(indexColumnFamily, insertion_list);
-                    Map<ByteBuffer, Map<String, List<Mutation>>> mulationMap = new HashMap<ByteBuffer, Map<String, List<Mutation>>>();
-                    mulationMap.put(ByteBuffer.wrap(rowKey), columnFamilyValues);
-
-                    // Write Mutation map to database
-                    conn.getClient().batch_mutate(mulationMap, consistencyLevel);
                 }
             }
-            catch (IllegalStateException e)
-            {
-                log.error("Unable to insert records into inverted index, Caused by: .", e);
-                throw new IndexingException(e);
-            }
-            catch (InvalidRequestException e)
-            {
-                log.error("Unable to insert records into inverted index, Caused by: .", e);
-                throw new IndexingException(e);
-            }
-            catch (TException e)
-            {
-                log.error("Unable to insert records into inverted index, Caused by: .", e);
-                throw new IndexingException(e);
-            }
-            catch (UnavailableException e)
-            {
-                log.error("Unable to insert records into inverted index, Caused by: .", e);
-                throw new IndexingException(e);
-            }
-            catch (TimedOutException e)
-            {
-                log.error("Unable to insert records into inverted index, Caused by: .", e);
-                throw new IndexingException(e);
-            }
-            finally
-            {
-                thriftClient.releaseConnection(conn);
-            }
         }
+        return true;
     }
 
     @Override
@@ -230,6 +228,15 @@ public class ThriftInvertedIndexHandler extends InvertedIndexHandlerBase impleme
     protected SuperColumn getSuperColumnForRow(ConsistencyLevel consistencyLevel, String columnFamilyName,
             String rowKey, byte[] superColumnName, String persistenceUnit)
     {
+        if (cache != null)
+        {
+            SuperColumn cached = cache.get(columnFamilyName, rowKey, superColumnName);
+            if (cached != null)
+            {
+                return cached;
+            }
+        }
+
         ColumnPath cp = new ColumnPath(columnFamilyName);
         cp.setSuper_column(superColumnName);
         ColumnOrSuperColumn cosc = null;
@@ -269,64 +276,90 @@ public class ThriftInvertedIndexHandler extends InvertedIndexHandlerBase impleme
         }
         SuperColumn thriftSuperColumn = ThriftDataResultHelper.transformThriftResult(cosc,
                 ColumnFamilyType.SUPER_COLUMN, null);
+        if (cache != null && thriftSuperColumn != null)
+        {
+            cache.put(columnFamilyName, rowKey, thriftSuperColumn);
+        }
         return thriftSuperColumn;
     }
 
     @Override
     public void delete(Object entity, EntityMetadata metadata, ConsistencyLevel consistencyLevel)
     {
-
-        super.delete(entity, metadata, consistencyLevel);
-
+        // columns removed by deleteColumn are written with one batch_mutate.
+        pendingDeletions = new HashMap<ByteBuffer, Map<String, List<Mutation>>>();
+        try
+        {
+            super.delete(entity, metadata, consistencyLevel);
+            if (!pendingDeletions.isEmpty())
+            {
+                batchMutate(pendingDeletions, consistencyLevel);
+            }
+        }
+        finally
+        {
+            pendingDeletions = null;
+        }
     }
 
+    /**
+     * Removes entity's column from index super column. Super column itself is
+     * not read, as a super column holding no live column is never returned.
+     */
     @Override
     protected void deleteColumn(String indexColumnFamily, String rowKey, byte[] superColumnName,
             String persistenceUnit, ConsistencyLevel consistencyLevel, byte[] columnName)
     {
-        ColumnPath cp = new ColumnPath(indexColumnFamily);
-        cp.setSuper_column(superColumnName);
+        if (cache != null)
+        {
+            cache.invalidate(indexColumnFamily, rowKey, superColumnName);
+        }
+
+        Deletion deletion = new Deletion();
+        deletion.setTimestamp(System.currentTimeMillis());
+        deletion.setSuper_column(superColumnName);
+        deletion.setPredicate(new SlicePredicate().setColumn_names(Arrays.asList(ByteBuffer.wrap(columnName))));
+        Mutation mut = new Mutation();
+        mut.setDeletion(deletion);
+
+        if (pendingDeletions != null)
+        {
+            addMutation(pendingDeletions, ByteBuffer.wrap(rowKey.getBytes()), indexColumnFamily, mut);
+        }
+        else
+        {
+            Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap = new HashMap<ByteBuffer, Map<String, List<Mutation>>>();
+            addMutation(mutationMap, ByteBuffer.wrap(rowKey.getBytes()), indexColumnFamily, mut);
+            batchMutate(mutationMap, consistencyLevel);
+        }
+    }
+
+    private void batchMutate(Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap,
+            ConsistencyLevel consistencyLevel)
+    {
         Connection conn = thriftClient.getConection();
         try
         {
-            ColumnOrSuperColumn cosc;
-            try
-            {
-                cosc = conn.getClient().get(ByteBuffer.wrap(rowKey.getBytes()), cp, consistencyLevel);
-            }
-            catch (NotFoundException e)
-            {
-                return;
-            }
-            SuperColumn thriftSuperColumn = ThriftDataResultHelper.transformThriftResult(cosc,
-                    ColumnFamilyType.SUPER_COLUMN, null);
-
-            if (thriftSuperColumn != null && thriftSuperColumn.getColumns() != null
-                    && thriftSuperColumn.getColumns().size() > 1)
-            {
-                cp.setColumn(columnName);
-            }
-            conn.getClient().remove(ByteBuffer.wrap(rowKey.getBytes()), cp, System.currentTimeMillis(),
-                    consistencyLevel);
+            conn.getClient().batch_mutate(mutationMap, consistencyLevel);
         }
         catch (InvalidRequestException e)
         {
-            log.error("Unable to delete data from inverted index, Caused by: .", e);
+            log.error("Unable to write records into inverted index, Caused by: .", e);
             throw new IndexingException(e);
         }
-        catch (UnavailableException e)
+        catch (TException e)
         {
-            log.error("Unable to delete data from inverted index, Caused by: .", e);
+            log.error("Unable to write records into inverted index, Caused by: .", e);
             throw new IndexingException(e);
         }
-        catch (TimedOutException e)
+        catch (UnavailableException e)
         {
-            log.error("Unable to delete data from inverted index, Caused by: .", e);
+            log.error("Unable to write records into inverted index, Caused by: .", e);
             throw new IndexingException(e);
         }
-        catch (TException e)
+        catch (TimedOutException e)
         {
-            log.error("Unable to delete data from inverted index, Caused by: .", e);
+            log.error("Unable to write records into inverted index, Caused by: .", e);
             throw new IndexingException(e);
         }
         finally
@@ -334,4 +367,22 @@ public class ThriftInvertedIndexHandler extends InvertedIndexHandlerBase impleme
             thriftClient.releaseConnection(conn);
         }
     }
+
+    private static void addMutation(Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap, ByteBuffer rowKey,
+            String columnFamily, Mutation mutation)
+    {
+        Map<String, List<Mutation>> columnFamilyValues = mutationMap.get(rowKey);
+        if (columnFamilyValues == null)
+        {
+            columnFamilyValues = new HashMap<String, List<Mutation>>();
+            mutationMap.put(rowKey, columnFamilyValues);
+        }
+        List<Mutation> mutations = columnFamilyValues.get(columnFamily);
+        if (mutations == null)
+        {
+            mutations = new ArrayList<Mutation>();
+            columnFamilyValues.put(columnFamily, mutations);
+        }
+        mutations.add(mutation);
+    }
 }
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.cassandra.common;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.apache.cassandra.thrift.Cassandra;
+import org.apache.cassandra.thrift.Column;
+import org.apache.cassandra.thrift.ColumnOrSuperColumn;
+import org.apache.cassandra.thrift.ConsistencyLevel;
+import org.apache.cassandra.thrift.Mutation;
+import org.apache.cassandra.thrift.TimedOutException;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.junit.Test;
+
+/**
+ * Test case for {@link BatchMutationExecutor}.
+ */
+public class BatchMutationExecutorTest
+{
+    @Test
+    public void testSplitByRows()
+    {
+        List<Map<ByteBuffer, Map<String, List<Mutation>>>> chunks = BatchMutationExecutor.split(rows(10, 10), 4, 0);
+        Assert.assertEquals(3, chunks.size());
+        Assert.assertEquals(4, chunks.get(0).size());
+        Assert.assertEquals(4, chunks.get(1).size());
+        Assert.assertEquals(2, chunks.get(2).size());
+
+        Assert.assertEquals(1, BatchMutationExecutor.split(rows(10, 10), 0, 0).size());
+    }
+
+    @Test
+    public void testSplitByBytes()
+    {
+        Map<ByteBuffer, Map<String, List<Mutation>>> rows = rows(10, 1000);
+        long rowBytes = BatchMutationExecutor.estimateSize(rows.keySet().iterator().next(), rows.values().iterator()
+                .next());
+        Assert.assertTrue(rowBytes > 1000);
+
+        List<Map<ByteBuffer, Map<String, List<Mutation>>>> chunks = BatchMutationExecutor.split(rows, 0,
+                3 * rowBytes);
+        Assert.assertEquals(4, chunks.size());
+        Assert.assertEquals(1, chunks.get(3).size());
+
+        // a row larger than the limit still makes a chunk.
+        Assert.assertEquals(10, BatchMutationExecutor.split(rows, 0, 10).size());
+    }
+
+    @Test
+    public void testExecuteReportsFailedChunks()
+    {
+        BatchMutationExecutor executor = new BatchMutationExecutor(2, 0, 3);
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger released = new AtomicInteger();
+        Map<Object, Map<ByteBuffer, Map<String, List<Mutation>>>> groups = new HashMap<Object, Map<ByteBuffer, Map<String, List<Mutation>>>>();
+        groups.put("host1", rows(4, 10));
+        groups.put("host2", rows(3, 10));
+        try
+        {
+            executor.execute(groups, ConsistencyLevel.ONE, new BatchMutationExecutor.ConnectionProvider()
+            {
+                @Override
+                public Object getConnection(Object host)
+                {
+                    return host;
+                }
+
+                @Override
+                public Cassandra.Client getClient(final Object connection)
+                {
+                    return new Cassandra.Client(null)
+                    {
+                        @Override
+                        public void batch_mutate(Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap,
+                                ConsistencyLevel consistencyLevel) throws TimedOutException
+                        {
+                            calls.incrementAndGet();
+                            if ("host2".equals(connection))
+                            {
+                                throw new TimedOutException();
+                            }
+                        }
+                    };
+                }
+
+                @Override
+                public void releaseConnection(Object connection)
+                {
+                    released.incrementAndGet();
+                }
+            });
+            Assert.fail("Should have failed for host2");
+        }
+        catch (BatchMutationException e)
+        {
+            Assert.assertEquals(4, e.getChunks());
+            Assert.assertEquals(2, e.getFailures().size());
+            Assert.assertEquals(3, e.getFailedRows());
+            Assert.assertTrue(e.getCause() instanceof TimedOutException);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        Assert.assertEquals(4, calls.get());
+        Assert.assertEquals(4, released.get());
+    }
+
+    private Map<ByteBuffer, Map<String, List<Mutation>>> rows(int count, int valueSize)
+    {
+        Map<ByteBuffer, Map<String, List<Mutation>>> rows = new LinkedHashMap<ByteBuffer, Map<String, List<Mutation>>>();
+        for (int i = 0; i < count; i++)
+        {
+            Column column = new Column(ByteBufferUtil.bytes("name"));
+            column.setValue(new byte[valueSize]);
+            column.setTimestamp(System.currentTimeMillis());
+
+            List<Mutation> mutations = new ArrayList<Mutation>();
+            mutations.add(new Mutation().setColumn_or_supercolumn(new ColumnOrSuperColumn().setColumn(column)));
+            Map<String, List<Mutation>> columnFamilies = new HashMap<String, List<Mutation>>();
+            columnFamilies.put("CF", mutations);
+            rows.put(ByteBufferUtil.bytes("row" + i), columnFamilies);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.cassandra.common;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.impetus.kundera.client.Client;
+import com.impetus.kundera.configure.schema.api.SchemaManager;
+import com.impetus.kundera.loader.ClientFactory;
+
+/**
+ * Test case for {@link CassandraAsyncExecutor}.
+ */
+public class CassandraAsyncExecutorTest
+{
+    private final AtomicInteger created = new AtomicInteger();
+
+    private final AtomicInteger closed = new AtomicInteger();
+
+    private final ClientFactory clientFactory = new ClientFactory()
+    {
+        @Override
+        public void load(String persistenceUnit, Map<String, Object> puProperties)
+        {
+        }
+
+        @Override
+        public Client getClientInstance()
+        {
+            created.incrementAndGet();
+            return (Client) Proxy.newProxyInstance(Client.class.getClassLoader(), new Class[] { Client.class },
+                    new InvocationHandler()
+                    {
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args)
+                        {
+                            if ("hashCode".equals(method.getName()))
+                            {
+                                return System.identityHashCode(proxy);
+                            }
+                            else if ("equals".equals(method.getName()))
+                            {
+                                return proxy == args[0];
+                            }
+                            else if ("close".equals(method.getName()))
+                            {
+                                closed.incrementAndGet();
+                            }
+                            return null;
+                        }
+                    });
+        }
+
+        @Override
+        public SchemaManager getSchemaManager(Map<String, Object> puProperties)
+        {
+            return null;
+        }
+    };
+
+    @Test
+    public void testClientPerWorkerThread() throws Exception
+    {
+        CassandraAsyncExecutor executor = new CassandraAsyncExecutor(clientFactory, 2, 100);
+        List<ListenableFuture<Client>> futures = new ArrayList<ListenableFuture<Client>>();
+        for (int i = 0; i < 50; i++)
+        {
+            futures.add(executor.submit(new CassandraAsyncExecutor.Operation<Client>()
+            {
+                @Override
+                public Client execute(Client client)
+                {
+                    return client;
+                }
+            }));
+        }
+        Set<Client> clients = new HashSet<Client>();
+        for (ListenableFuture<Client> future : futures)
+        {
+            clients.add(future.get(5, TimeUnit.SECONDS));
+        }
+        Assert.assertTrue(clients.size() <= 2);
+        Assert.assertEquals(clients.size(), created.get());
+
+        executor.shutdown();
+        Assert.assertEquals(created.get(), closed.get());
+    }
+
+    @Test
+    public void testRejectsWhenQueueIsFull() throws Exception
+    {
+        CassandraAsyncExecutor executor = new CassandraAsyncExecutor(clientFactory, 1, 1);
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        CassandraAsyncExecutor.Operation<Object> blocking = new CassandraAsyncExecutor.Operation<Object>()
+        {
+            @Override
+            public Object execute(Client client) throws Exception
+            {
+                running.countDown();
+                release.await();
+                return null;
+            }
+        };
+        try
+        {
+            ListenableFuture<Object> first = executor.submit(blocking);
+            running.await();
+            ListenableFuture<Object> queued = executor.submit(blocking);
+            ListenableFuture<Object> rejected = executor.submit(blocking);
+            try
+            {
+                rejected.get();
+                Assert.fail("Should have been rejected");
+            }
+            catch (ExecutionException e)
+            {
+                Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            queued.get(5, TimeUnit.SECONDS);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.cassandra.common;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.apache.cassandra.thrift.CounterColumn;
+import org.apache.cassandra.thrift.CounterSuperColumn;
+import org.apache.cassandra.thrift.Mutation;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.junit.Test;
+
+/**
+ * Test case for {@link CounterAggregator}.
+ */
+public class CounterAggregatorTest
+{
+    private static final ByteBuffer ROW = ByteBufferUtil.bytes("row");
+
+    @Test
+    public void testConcurrentIncrements() throws Exception
+    {
+        RecordingWriter writer = new RecordingWriter();
+        final CounterAggregator aggregator = new CounterAggregator(writer, Integer.MAX_VALUE, 60000);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        final CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < 4; i++)
+        {
+            executor.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        start.await();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        return;
+                    }
+                    for (int j = 0; j < 1000; j++)
+                    {
+                        aggregator.increment("Metrics", ROW, null, ByteBufferUtil.bytes("hits"), 1);
+                        if (j % 100 == 0)
+                        {
+                            aggregator.flush();
+                        }
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        aggregator.flush();
+
+        long total = 0;
+        for (Map<ByteBuffer, Map<String, List<Mutation>>> batch : writer.batches)
+        {
+            Assert.assertEquals(1, batch.size());
+            List<Mutation> mutations = batch.get(ROW).get("Metrics");
+            Assert.assertEquals(1, mutations.size());
+            total += mutations.get(0).getColumn_or_supercolumn().getCounter_column().getValue();
+        }
+        Assert.assertEquals(4000, total);
+
+        // idle counters are dropped by next flush.
+        Assert.assertEquals(0, aggregator.flush());
+        Assert.assertEquals(0, aggregator.size());
+        aggregator.shutdown();
+        Assert.assertTrue(writer.closed);
+    }
+
+    @Test
+    public void testSuperColumns()
+    {
+        RecordingWriter writer = new RecordingWriter();
+        CounterAggregator aggregator = new CounterAggregator(writer, Integer.MAX_VALUE, 60000);
+
+        List<CounterColumn> columns = new ArrayList<CounterColumn>();
+        columns.add(new CounterColumn(ByteBufferUtil.bytes("a"), 1));
+        columns.add(new CounterColumn(ByteBufferUtil.bytes("b"), 2));
+        List<CounterSuperColumn> superColumns = new ArrayList<CounterSuperColumn>();
+        superColumns.add(new CounterSuperColumn(ByteBufferUtil.bytes("day"), columns));
+
+        aggregator.add("Metrics", ROW, null, superColumns);
+        aggregator.add("Metrics", ROW, null, superColumns);
+        Assert.assertEquals(2, aggregator.flush());
+
+        List<Mutation> mutations = writer.batches.get(0).get(ROW).get("Metrics");
+        Assert.assertEquals(1, mutations.size());
+        CounterSuperColumn superColumn = mutations.get(0).getColumn_or_supercolumn().getCounter_super_column();
+        Assert.assertEquals(2, superColumn.getColumnsSize());
+        long total = 0;
+        for (CounterColumn column : superColumn.getColumns())
+        {
+            total += column.getValue();
+        }
+        Assert.assertEquals(6, total);
+
+        aggregator.shutdown();
+        try
+        {
+            aggregator.add("Metrics", ROW, columns, null);
+            Assert.fail("Increments must be refused after shutdown.");
+        }
+        catch (IllegalStateException e)
+        {
+            Assert.assertEquals(1, writer.batches.size());
+        }
+    }
+
+    @Test
+    public void testFlushSize() throws Exception
+    {
+        RecordingWriter writer = new RecordingWriter();
+        CounterAggregator aggregator = new CounterAggregator(writer, 10, 60000);
+        for (int i = 0; i < 10; i++)
+        {
+            aggregator.increment("Metrics", ROW, null, ByteBufferUtil.bytes("hits"), 1);
+        }
+        for (int i = 0; i < 100 && writer.batches.isEmpty(); i++)
+        {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(1, writer.batches.size());
+        aggregator.shutdown();
+    }
+
+    @Test
+    public void testFailedFlush()
+    {
+        RecordingWriter writer = new RecordingWriter();
+        CounterAggregator aggregator = new CounterAggregator(writer, Integer.MAX_VALUE, 60000);
+        aggregator.increment("Metrics", ROW, null, ByteBufferUtil.bytes("hits"), 2);
+        aggregator.increment("Metrics", ROW, ByteBufferUtil.bytes("day"), ByteBufferUtil.bytes("hits"), 3);
+
+        writer.failures = 1;
+        try
+        {
+            aggregator.flush();
+            Assert.fail("Failed write must be reported.");
+        }
+        catch (RuntimeException e)
+        {
+            Assert.assertTrue(writer.batches.isEmpty());
+        }
+
+        // increments of failed flush are merged with later ones.
+        aggregator.increment("Metrics", ROW, null, ByteBufferUtil.bytes("hits"), 1);
+        Assert.assertEquals(2, aggregator.flush());
+        List<Mutation> mutations = writer.batches.get(0).get(ROW).get("Metrics");
+        Assert.assertEquals(2, mutations.size());
+        for (Mutation mutation : mutations)
+        {
+            if (mutation.getColumn_or_supercolumn().isSetCounter_column())
+            {
+                Assert.assertEquals(3, mutation.getColumn_or_supercolumn().getCounter_column().getValue());
+            }
+            else
+            {
+                CounterSuperColumn superColumn = mutation.getColumn_or_supercolumn().getCounter_super_column();
+                Assert.assertEquals(3, superColumn.getColumns().get(0).getValue());
+            }
+        }
+        aggregator.shutdown();
+    }
+
+    private static class RecordingWriter implements CounterAggregator.Writer
+    {
+        private final List<Map<ByteBuffer, Map<String, List<Mutation>>>> batches = new ArrayList<Map<ByteBuffer, Map<String, List<Mutation>>>>();
+
+        private boolean closed;
+
+        private int failures;
+
+        @Override
+        public synchronized void write(Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap)
+        {
+            if (failures > 0)
+            {
+                failures--;
+                throw new RuntimeException("Write failed.");
+            }
+            batches.add(mutationMap);
+        }
+
+        @Override
+        public void close()
+        {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.cassandra.common;
+
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test case for {@link SpeculativeExecutor}.
+ */
+public class SpeculativeExecutorTest
+{
+    private static final String SLOW = "slow";
+
+    private static final String FAST = "fast";
+
+    private SpeculativeExecutor executor = new SpeculativeExecutor(90, 20, 4);
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testNoSpeculationUntilSampled() throws Exception
+    {
+        for (int i = 0; i < 127; i++)
+        {
+            Assert.assertEquals(FAST, executor.execute(FAST, SLOW, new HostRead(0)));
+        }
+        Assert.assertEquals(-1, executor.getDelay());
+
+        executor.execute(FAST, SLOW, new HostRead(0));
+        Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(20), executor.getDelay());
+        Assert.assertEquals(128, executor.getReads());
+        Assert.assertEquals(0, executor.getSpeculations());
+    }
+
+    @Test
+    public void testSecondHostWins() throws Exception
+    {
+        warmUp();
+
+        Assert.assertEquals(FAST, executor.execute(SLOW, FAST, new HostRead(2000)));
+        Assert.assertEquals(1, executor.getSpeculations());
+        Assert.assertEquals(1, executor.getSpeculativeWins());
+
+        // no second host, nothing to speculate on.
+        Assert.assertEquals(FAST, executor.execute(FAST, null, new HostRead(0)));
+        Assert.assertEquals(1, executor.getSpeculations());
+    }
+
+    @Test
+    public void testFirstHostWins() throws Exception
+    {
+        warmUp();
+
+        Assert.assertEquals(SLOW, executor.execute(SLOW, FAST, new HostRead(100, 2000)));
+        Assert.assertEquals(1, executor.getSpeculations());
+        Assert.assertEquals(0, executor.getSpeculativeWins());
+    }
+
+    @Test
+    public void testBothFail() throws Exception
+    {
+        warmUp();
+
+        try
+        {
+            executor.execute(SLOW, FAST, new HostRead(-100, -100));
+            Assert.fail("Read should have failed.");
+        }
+        catch (IllegalStateException e)
+        {
+            Assert.assertEquals(1, executor.getSpeculations());
+        }
+    }
+
+    private void warmUp() throws Exception
+    {
+        for (int i = 0; i < 128; i++)
+        {
+            executor.execute(FAST, SLOW, new HostRead(0));
+        }
+        Assert.assertEquals(0, executor.getSpeculations());
+    }
+
+    /**
+     * Read returning its host after sleeping, on slow host for given slow
+     * millis, else for fast millis. Negative millis fail after sleeping.
+     */
+    private static class HostRead implements SpeculativeExecutor.Read<String>
+    {
+        private final long slowMillis;
+
+        private final long fastMillis;
+
+        private HostRead(long slowMillis)
+        {
+            this(slowMillis, 0);
+        }
+
+        private HostRead(long slowMillis, long fastMillis)
+        {
+            this.slowMillis = slowMillis;
+            this.fastMillis = fastMillis;
+        }
+
+        @Override
+        public String execute(Object host) throws Exception
+        {
+            long millis = SLOW.equals(host) ? slowMillis : fastMillis;
+            Thread.sleep(Math.abs(millis));
+            if (millis < 0)
+            {
+                throw new IllegalStateException("Read failed on " + host);
+            }
+            return (String) host;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.cassandra.common;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.apache.cassandra.dht.IPartitioner;
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.thrift.Cassandra;
+import org.apache.cassandra.thrift.Column;
+import org.apache.cassandra.thrift.ColumnOrSuperColumn;
+import org.apache.cassandra.thrift.ColumnParent;
+import org.apache.cassandra.thrift.ConsistencyLevel;
+import org.apache.cassandra.thrift.KeyRange;
+import org.apache.cassandra.thrift.KeySlice;
+import org.apache.cassandra.thrift.SlicePredicate;
+import org.apache.cassandra.thrift.TimedOutException;
+import org.apache.cassandra.thrift.TokenRange;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.thrift.TException;
+import org.junit.Test;
+
+import com.impetus.kundera.KunderaException;
+
+/**
+ * Test case for {@link TokenRangeScanner}.
+ */
+public class TokenRangeScannerTest
+{
+    private static final IPartitioner partitioner = new Murmur3Partitioner();
+
+    @Test
+    public void testAddSplit()
+    {
+        String minimum = partitioner.getTokenFactory().toString(partitioner.getMinimumToken());
+        List<TokenRangeScanner.Split> splits = new ArrayList<TokenRangeScanner.Split>();
+
+        TokenRangeScanner.addSplit(partitioner, "-10", "10", splits);
+        Assert.assertEquals(1, splits.size());
+
+        // wrapping range is cut at minimum token.
+        splits.clear();
+        TokenRangeScanner.addSplit(partitioner, "10", "-10", splits);
+        Assert.assertEquals(2, splits.size());
+        Assert.assertEquals("10", splits.get(0).getStart());
+        Assert.assertEquals(minimum, splits.get(0).getEnd());
+        Assert.assertEquals(minimum, splits.get(1).getStart());
+        Assert.assertEquals("-10", splits.get(1).getEnd());
+
+        // range of a single node.
+        splits.clear();
+        TokenRangeScanner.addSplit(partitioner, "10", "10", splits);
+        Assert.assertEquals(2, splits.size());
+
+        splits.clear();
+        TokenRangeScanner.addSplit(partitioner, "10", minimum, splits);
+        Assert.assertEquals(1, splits.size());
+    }
+
+    @Test
+    public void testScanReadsEachRowOnce()
+    {
+        FakeConnections connections = new FakeConnections(false);
+        TokenRangeScanner scanner = new TokenRangeScanner("KunderaExamples", new ColumnParent("users"),
+                new SlicePredicate(), ConsistencyLevel.ONE, 3, 2, 10, connections);
+        scanner.start();
+
+        List<String> keys = new ArrayList<String>();
+        while (scanner.hasNext())
+        {
+            for (KeySlice slice : scanner.next())
+            {
+                keys.add(new String(slice.getKey()));
+            }
+        }
+
+        Assert.assertEquals(50, keys.size());
+        Assert.assertEquals(50, new HashSet<String>(keys).size());
+        // deleted row is skipped.
+        Assert.assertFalse(keys.contains("deleted"));
+        Assert.assertEquals(connections.acquired.get(), connections.released.get());
+    }
+
+    @Test
+    public void testScanFailure()
+    {
+        TokenRangeScanner scanner = new TokenRangeScanner("KunderaExamples", new ColumnParent("users"),
+                new SlicePredicate(), ConsistencyLevel.ONE, 3, 2, 10, new FakeConnections(true));
+        scanner.start();
+        try
+        {
+            while (scanner.hasNext())
+            {
+                scanner.next();
+            }
+            Assert.fail("Scan should have failed");
+        }
+        catch (KunderaException e)
+        {
+            Assert.assertTrue(e.getCause() instanceof TimedOutException);
+        }
+    }
+
+    /**
+     * Single node ring holding 50 rows and a deleted one.
+     */
+    private static class FakeConnections implements BatchMutationExecutor.ConnectionProvider
+    {
+        private final AtomicInteger acquired = new AtomicInteger();
+
+        private final AtomicInteger released = new AtomicInteger();
+
+        private final boolean failing;
+
+        private final List<ByteBuffer> rows = new ArrayList<ByteBuffer>();
+
+        FakeConnections(boolean failing)
+        {
+            this.failing = failing;
+            for (int i = 0; i < 50; i++)
+            {
+                rows.add(ByteBufferUtil.bytes("k" + i));
+            }
+            rows.add(ByteBufferUtil.bytes("deleted"));
+        }
+
+        @Override
+        public Object getConnection(Object host)
+        {
+            acquired.incrementAndGet();
+            return new Object();
+        }
+
+        @Override
+        public void releaseConnection(Object connection)
+        {
+            released.incrementAndGet();
+        }
+
+        @Override
+        public Cassandra.Client getClient(Object connection)
+        {
+            return new Cassandra.Client(null)
+            {
+                @Override
+                public String describe_partitioner() throws TException
+                {
+                    return Murmur3Partitioner.class.getName();
+                }
+
+                @Override
+                public List<TokenRange> describe_ring(String keyspace)
+                {
+                    return Arrays.asList(new TokenRange("5000000000000000000", "5000000000000000000",
+                            Arrays.asList("127.0.0.1")));
+                }
+
+                @Override
+                public List<String> describe_splits(String cfName, String start_token, String end_token,
+                        int keys_per_split)
+                {
+                    return Arrays.asList(start_token, "-3000000000000000000", "3000000000000000000", end_token);
+                }
+
+                @Override
+                public List<KeySlice> get_range_slices(ColumnParent column_parent, SlicePredicate predicate,
+                        KeyRange range, ConsistencyLevel consistency_level) throws TimedOutException
+                {
+                    if (failing)
+                    {
+                        throw new TimedOutException();
+                    }
+                    return slices(range);
+                }
+            };
+        }
+
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        private List<KeySlice> slices(KeyRange range)
+        {
+            Token.TokenFactory factory = partitioner.getTokenFactory();
+            Token minimum = partitioner.getMinimumToken();
+            Token end = factory.fromString(range.getEnd_token());
+
+            List<ByteBuffer> sorted = new ArrayList<ByteBuffer>(rows);
+            Collections.sort(sorted, new Comparator<ByteBuffer>()
+            {
+                @Override
+                public int compare(ByteBuffer o1, ByteBuffer o2)
+                {
+                    return partitioner.getToken(o1).compareTo(partitioner.getToken(o2));
+                }
+            });
+
+            List<KeySlice> slices = new ArrayList<KeySlice>();
+            for (ByteBuffer key : sorted)
+            {
+                Token token = partitioner.getToken(key);
+                boolean afterStart = range.getStart_key() != null ? token.compareTo(partitioner.getToken(range
+                        .bufferForStart_key())) >= 0 : token.compareTo(factory.fromString(range.getStart_token())) > 0;
+                boolean beforeEnd = end.equals(minimum) || token.compareTo(end) <= 0;
+                if (afterStart && beforeEnd && slices.size() < range.getCount())
+                {
+                    List<ColumnOrSuperColumn> columns = new ArrayList<ColumnOrSuperColumn>();
+                    if (!key.equals(ByteBufferUtil.bytes("deleted")))
+                    {
+                        columns.add(new ColumnOrSuperColumn().setColumn(new Column(ByteBufferUtil.bytes("name"))));
+                    }
+                    slices.add(new KeySlice(key, columns));
+                }
+            }
+            return slices;
+        }
+    }
+}
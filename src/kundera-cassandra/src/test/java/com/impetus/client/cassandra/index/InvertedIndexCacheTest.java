@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.cassandra.index;
+
+import junit.framework.Assert;
+
+import org.apache.cassandra.thrift.Column;
+import org.apache.cassandra.thrift.SuperColumn;
+import org.junit.Test;
+
+/**
+ * Test case for {@link InvertedIndexCache}.
+ */
+public class InvertedIndexCacheTest
+{
+    @Test
+    public void testEvictsLeastRecentlyUsed()
+    {
+        InvertedIndexCache cache = new InvertedIndexCache(2);
+        cache.put("users_inv", "address.city", superColumn("Noida"));
+        cache.put("users_inv", "address.city", superColumn("Delhi"));
+
+        // reading Noida makes Delhi the eldest entry.
+        Assert.assertNotNull(cache.get("users_inv", "address.city", "Noida".getBytes()));
+        cache.put("users_inv", "address.city", superColumn("Pune"));
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNull(cache.get("users_inv", "address.city", "Delhi".getBytes()));
+        Assert.assertNotNull(cache.get("users_inv", "address.city", "Noida".getBytes()));
+        Assert.assertNull(cache.get("users_inv", "address.street", "Noida".getBytes()));
+    }
+
+    @Test
+    public void testInvalidate()
+    {
+        InvertedIndexCache cache = new InvertedIndexCache(10);
+        cache.put("users_inv", "address.city", superColumn("Noida"));
+        cache.invalidate("users_inv", "address.city", "Noida".getBytes());
+        Assert.assertNull(cache.get("users_inv", "address.city", "Noida".getBytes()));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    private SuperColumn superColumn(String name)
+    {
+        SuperColumn superColumn = new SuperColumn();
+        superColumn.setName(name.getBytes());
+        superColumn.addToColumns(new Column().setName("1".getBytes()));
+        return superColumn;
+    }
+}
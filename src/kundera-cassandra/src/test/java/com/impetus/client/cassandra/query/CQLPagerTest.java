@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.cassandra.query;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.impetus.client.cassandra.query.CQLPager.Continuation;
+import com.impetus.client.crud.compositeType.CassandraPrimeUser;
+import com.impetus.client.crud.compositeType.association.UserInfo;
+import com.impetus.client.persistence.CassandraCli;
+import com.impetus.kundera.metadata.KunderaMetadataManager;
+import com.impetus.kundera.metadata.model.EntityMetadata;
+import com.impetus.kundera.metadata.model.KunderaMetadata;
+import com.impetus.kundera.metadata.model.MetamodelImpl;
+import com.impetus.kundera.query.KunderaQuery;
+
+/**
+ * Test case for CQL3 queries built by {@link CQLPager}.
+ */
+public class CQLPagerTest
+{
+    private static final String KEYSPACE = "CompositeCassandra";
+
+    private static final String PU = "composite_pu";
+
+    private static final String USER_INFO_QUERY = "SELECT * FROM \"UserInfo\" ";
+
+    private static final String COMPOSITE_USER_QUERY = "SELECT * FROM \"CompositeUser\" ";
+
+    private static final UUID TIME_LINE_ID = UUID.fromString("6ba7b810-9dad-11d1-80b4-00c04fd430c8");
+
+    private EntityManagerFactory emf;
+
+    private MetamodelImpl metaModel;
+
+    private Map<String, Object> externalProperties = new HashMap<String, Object>();
+
+    @Before
+    public void setUp() throws Exception
+    {
+        CassandraCli.dropKeySpace(KEYSPACE);
+        CassandraCli.cassandraSetUp();
+        emf = Persistence.createEntityManagerFactory(PU);
+        metaModel = (MetamodelImpl) KunderaMetadata.INSTANCE.getApplicationMetadata().getMetamodel(PU);
+    }
+
+    @After
+    public void tearDown()
+    {
+        CassandraCli.dropKeySpace(KEYSPACE);
+        emf.close();
+    }
+
+    @Test
+    public void testSimpleKey()
+    {
+        CQLPager pager = pager(UserInfo.class, USER_INFO_QUERY + " LIMIT 100", false);
+        Assert.assertEquals(Continuation.FULL, pager.getContinuation());
+        Assert.assertEquals(1, pager.getQueryCount());
+        Assert.assertEquals(USER_INFO_QUERY + " LIMIT 10", pager.getFirstQuery(10));
+        Assert.assertEquals(USER_INFO_QUERY + " WHERE token(\"key\") > token('u1') LIMIT 10",
+                pager.getNextQuery(new Object[] { "u1" }, 0, 10));
+
+        // an upper bound on key is kept.
+        pager = pager(UserInfo.class, USER_INFO_QUERY + "WHERE token(\"key\") < token('u9') LIMIT 100", false,
+                clause("userInfo_id", "<", "u9"));
+        Assert.assertEquals(Continuation.FULL, pager.getContinuation());
+        Assert.assertEquals(USER_INFO_QUERY + "WHERE token(\"key\") < token('u9') AND token(\"key\") > token('u1') LIMIT 10",
+                pager.getNextQuery(new Object[] { "u1" }, 0, 10));
+
+        // filtering is kept after limit.
+        pager = pager(UserInfo.class, USER_INFO_QUERY + "WHERE \"age\" = 10 LIMIT 100 ALLOW FILTERING", false,
+                clause("age", "=", 10));
+        Assert.assertEquals(USER_INFO_QUERY + "WHERE \"age\" = 10 LIMIT 10 ALLOW FILTERING", pager.getFirstQuery(10));
+        Assert.assertEquals(USER_INFO_QUERY
+                + "WHERE \"age\" = 10 AND token(\"key\") > token('u1') LIMIT 10 ALLOW FILTERING",
+                pager.getNextQuery(new Object[] { "u1" }, 0, 10));
+    }
+
+    @Test
+    public void testCompoundKey()
+    {
+        CQLPager pager = pager(CassandraPrimeUser.class, COMPOSITE_USER_QUERY + " LIMIT 100", false);
+        Assert.assertEquals(Continuation.FULL, pager.getContinuation());
+        Assert.assertEquals(3, pager.getQueryCount());
+
+        Object[] lastKey = new Object[] { "mevivs", 1, TIME_LINE_ID };
+        Assert.assertEquals(COMPOSITE_USER_QUERY + " WHERE \"userId\"='mevivs' AND \"tweetId\"=1 AND \"timeLineId\" > "
+                + TIME_LINE_ID + " LIMIT 10", pager.getNextQuery(lastKey, 0, 10));
+        Assert.assertEquals(COMPOSITE_USER_QUERY + " WHERE \"userId\"='mevivs' AND \"tweetId\" > 1 LIMIT 10",
+                pager.getNextQuery(lastKey, 1, 10));
+        Assert.assertEquals(COMPOSITE_USER_QUERY + " WHERE token(\"userId\") > token('mevivs') LIMIT 10",
+                pager.getNextQuery(lastKey, 2, 10));
+    }
+
+    @Test
+    public void testPartitionKeyRestriction()
+    {
+        String query = COMPOSITE_USER_QUERY + "WHERE \"userId\"='mevivs' ";
+        CQLPager pager = pager(CassandraPrimeUser.class, query + " LIMIT 100", false,
+                clause("key.userId", "=", "mevivs"));
+        Assert.assertEquals(Continuation.PARTITION, pager.getContinuation());
+        Assert.assertEquals(2, pager.getQueryCount());
+
+        // partition key is restricted by query already.
+        Object[] lastKey = new Object[] { "mevivs", 1, TIME_LINE_ID };
+        Assert.assertEquals(query + " AND \"tweetId\"=1 AND \"timeLineId\" > " + TIME_LINE_ID + " LIMIT 10",
+                pager.getNextQuery(lastKey, 0, 10));
+        Assert.assertEquals(query + " AND \"tweetId\" > 1 LIMIT 10", pager.getNextQuery(lastKey, 1, 10));
+    }
+
+    @Test
+    public void testNoContinuation()
+    {
+        // ordered results.
+        Assert.assertEquals(Continuation.NONE, pager(UserInfo.class, USER_INFO_QUERY + " LIMIT 100", true)
+                .getContinuation());
+        Assert.assertEquals(Continuation.NONE, pager(CassandraPrimeUser.class, COMPOSITE_USER_QUERY + " LIMIT 100",
+                true).getContinuation());
+
+        // key bound from below or equal.
+        Assert.assertEquals(Continuation.NONE,
+                pager(UserInfo.class, USER_INFO_QUERY + " LIMIT 100", false, clause("userInfo_id", ">", "u1"))
+                        .getContinuation());
+        Assert.assertEquals(Continuation.NONE,
+                pager(UserInfo.class, USER_INFO_QUERY + " LIMIT 100", false, clause("userInfo_id", "=", "u1"))
+                        .getContinuation());
+
+        // compound key restricted as a whole, on a clustering column, or on
+        // partition key otherwise than equal.
+        Assert.assertEquals(Continuation.NONE,
+                pager(CassandraPrimeUser.class, COMPOSITE_USER_QUERY + " LIMIT 100", false, clause("key", "=", "k"))
+                        .getContinuation());
+        Assert.assertEquals(
+                Continuation.NONE,
+                pager(CassandraPrimeUser.class, COMPOSITE_USER_QUERY + " LIMIT 100", false,
+                        clause("key.tweetId", "=", 1)).getContinuation());
+        Assert.assertEquals(
+                Continuation.NONE,
+                pager(CassandraPrimeUser.class, COMPOSITE_USER_QUERY + " LIMIT 100", false,
+                        clause("key.userId", ">", "mevivs")).getContinuation());
+        Assert.assertEquals(
+                Continuation.NONE,
+                pager(CassandraPrimeUser.class, COMPOSITE_USER_QUERY + " LIMIT 100", false,
+                        clause("key.userId", "=", "mevivs"), clause("key.tweetId", "=", 1)).getContinuation());
+
+        CQLPager pager = pager(UserInfo.class, USER_INFO_QUERY + " LIMIT 100", true);
+        Assert.assertEquals(0, pager.getQueryCount());
+        Assert.assertEquals(USER_INFO_QUERY + " LIMIT 10", pager.getFirstQuery(10));
+    }
+
+    private CQLPager pager(Class<?> entityClazz, String parsedQuery, boolean isOrdered, Object... clauses)
+    {
+        EntityMetadata metadata = KunderaMetadataManager.getEntityMetadata(entityClazz);
+        Queue filterClauseQueue = new LinkedList<Object>(Arrays.asList(clauses));
+        return new CQLPager(metadata, metaModel, externalProperties, parsedQuery, filterClauseQueue, isOrdered);
+    }
+
+    private static Object clause(String property, String condition, Object value)
+    {
+        return new KunderaQuery().new FilterClause(property, condition, value);
+    }
+}
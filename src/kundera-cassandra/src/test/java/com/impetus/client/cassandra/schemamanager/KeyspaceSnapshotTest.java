@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.cassandra.schemamanager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.apache.cassandra.thrift.CfDef;
+import org.apache.cassandra.thrift.ColumnDef;
+import org.apache.cassandra.thrift.IndexType;
+import org.apache.cassandra.thrift.KsDef;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test case for {@link KeyspaceSnapshot}.
+ */
+public class KeyspaceSnapshotTest
+{
+    private static final String KEYSPACE = "KunderaSnapshotTest";
+
+    @After
+    public void tearDown()
+    {
+        KeyspaceSnapshot.unregister(KEYSPACE);
+    }
+
+    @Test
+    public void testLookup()
+    {
+        KeyspaceSnapshot snapshot = new KeyspaceSnapshot(getKsDef());
+
+        Assert.assertEquals(KEYSPACE, snapshot.getKeyspace());
+        Assert.assertTrue(snapshot.hasColumnFamily("PERSON"));
+        Assert.assertFalse(snapshot.hasColumnFamily("ADDRESS"));
+        Assert.assertNotNull(snapshot.getColumnFamily("PERSON", "Standard"));
+        Assert.assertNull(snapshot.getColumnFamily("PERSON", "Super"));
+
+        Assert.assertNotNull(snapshot.getColumn("PERSON", "AGE"));
+        Assert.assertNull(snapshot.getColumn("PERSON", "SALARY"));
+        Assert.assertNull(snapshot.getColumn("ADDRESS", "AGE"));
+        Assert.assertTrue(snapshot.isIndexed("PERSON", "AGE"));
+        Assert.assertFalse(snapshot.isIndexed("PERSON", "NAME"));
+    }
+
+    @Test
+    public void testPutAndRemove()
+    {
+        KeyspaceSnapshot snapshot = new KeyspaceSnapshot(getKsDef());
+
+        CfDef cfDef = new CfDef(snapshot.getColumnFamily("PERSON"));
+        cfDef.addToColumn_metadata(new ColumnDef().setName("SALARY".getBytes()).setValidation_class("LongType"));
+        Assert.assertNull(snapshot.getColumn("PERSON", "SALARY"));
+
+        snapshot.put(cfDef);
+        Assert.assertNotNull(snapshot.getColumn("PERSON", "SALARY"));
+        Assert.assertSame(cfDef, snapshot.getColumnFamily("PERSON"));
+
+        snapshot.remove("PERSON");
+        Assert.assertFalse(snapshot.hasColumnFamily("PERSON"));
+        Assert.assertNull(snapshot.getColumn("PERSON", "AGE"));
+    }
+
+    @Test
+    public void testRegistry()
+    {
+        Assert.assertNull(KeyspaceSnapshot.get(KEYSPACE));
+
+        KeyspaceSnapshot snapshot = new KeyspaceSnapshot(getKsDef());
+        KeyspaceSnapshot.register(snapshot);
+        Assert.assertSame(snapshot, KeyspaceSnapshot.get(KEYSPACE));
+
+        KeyspaceSnapshot.unregister(KEYSPACE);
+        Assert.assertNull(KeyspaceSnapshot.get(KEYSPACE));
+    }
+
+    private KsDef getKsDef()
+    {
+        CfDef cfDef = new CfDef(KEYSPACE, "PERSON");
+        cfDef.setColumn_type("Standard");
+        cfDef.addToColumn_metadata(new ColumnDef().setName("NAME".getBytes()).setValidation_class("UTF8Type"));
+        cfDef.addToColumn_metadata(new ColumnDef().setName("AGE".getBytes()).setValidation_class("Int32Type")
+                .setIndex_type(IndexType.KEYS));
+
+        List<CfDef> cfDefs = new ArrayList<CfDef>();
+        cfDefs.add(cfDef);
+        return new KsDef(KEYSPACE, "org.apache.cassandra.locator.SimpleStrategy", cfDefs);
+    }
+}
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.cassandra.service;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.thrift.TokenRange;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test case for {@link TokenAwareBalancingPolicy}.
+ */
+public class TokenAwareBalancingPolicyTest
+{
+    private TokenAwareBalancingPolicy policy;
+
+    private Collection<Object> pools;
+
+    @Before
+    public void setUp()
+    {
+        policy = new TokenAwareBalancingPolicy()
+        {
+            @Override
+            protected String getHost(Object pool)
+            {
+                return (String) pool;
+            }
+        };
+        pools = new ArrayList<Object>(Arrays.asList("127.0.0.1", "127.0.0.2", "127.0.0.3"));
+
+        List<TokenRange> ranges = new ArrayList<TokenRange>();
+        ranges.add(new TokenRange("-3074457345618258603", "3074457345618258602", Arrays.asList("127.0.0.2")));
+        ranges.add(new TokenRange("3074457345618258602", "-9223372036854775808", Arrays.asList("127.0.0.3")));
+        ranges.add(new TokenRange("-9223372036854775808", "-3074457345618258603", Arrays.asList("127.0.0.1")));
+        policy.update(Murmur3Partitioner.class.getName(), ranges);
+    }
+
+    @Test
+    public void testRoutesToReplica()
+    {
+        for (int i = 0; i < 100; i++)
+        {
+            ByteBuffer key = ByteBufferUtil.bytes("key" + i);
+            long token = (Long) new Murmur3Partitioner().getToken(key).token;
+            String owner = token > -3074457345618258603L && token <= 3074457345618258602L ? "127.0.0.2"
+                    : token > 3074457345618258602L ? "127.0.0.3" : "127.0.0.1";
+            Assert.assertEquals(owner, policy.getPool(pools, key));
+        }
+    }
+
+    @Test
+    public void testSkipsDownHosts()
+    {
+        policy.markDown("127.0.0.1");
+        policy.markDown("127.0.0.2");
+        for (int i = 0; i < 20; i++)
+        {
+            Assert.assertEquals("127.0.0.3", policy.getPool(pools, ByteBufferUtil.bytes("key" + i)));
+        }
+
+        policy.markUp("127.0.0.2");
+        policy.markDown("127.0.0.3");
+        for (int i = 0; i < 20; i++)
+        {
+            Assert.assertEquals("127.0.0.2", policy.getPool(pools));
+        }
+    }
+
+    @Test
+    public void testPrefersFasterHost()
+    {
+        policy.recordLatency("127.0.0.1", 1000);
+        policy.recordLatency("127.0.0.2", 100000);
+        policy.recordLatency("127.0.0.3", 100000);
+        Assert.assertEquals(1000.0, policy.getScore("127.0.0.1"));
+
+        policy.recordLatency("127.0.0.1", 5000);
+        Assert.assertEquals(2000.0, policy.getScore("127.0.0.1"));
+
+        int fastest = 0;
+        for (int i = 0; i < 200; i++)
+        {
+            if ("127.0.0.1".equals(policy.getPool(pools)))
+            {
+                fastest++;
+            }
+        }
+        // two random choices pick the fastest host unless both miss it.
+        Assert.assertTrue(fastest > 100);
+    }
+}
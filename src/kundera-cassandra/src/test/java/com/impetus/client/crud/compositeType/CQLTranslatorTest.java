@@ -15,7 +15,10 @@
  ******************************************************************************/
 package com.impetus.client.crud.compositeType;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 
 import javax.persistence.EntityManagerFactory;
@@ -83,6 +86,43 @@ public class CQLTranslatorTest
 //        Assert.assertEquals(columnAsCsv, translatedSql);
     }
     
+    @Test
+    public void testPrepareBindMarkers()
+    {
+        CQLTranslator translator = new CQLTranslator();
+        List<Object> values = new ArrayList<Object>();
+        translator.setBindValues(values);
+        UUID timeLineId = UUID.randomUUID();
+        CassandraCompoundKey key = new CassandraCompoundKey("mevivs", 1, timeLineId);
+        CassandraPrimeUser user = new CassandraPrimeUser(key);
+        user.setTweetBody("my first tweet");
+        EntityMetadata entityMetadata = KunderaMetadataManager.getEntityMetadata(CassandraPrimeUser.class);
+        String translatedSql = translator
+                .prepareColumnOrColumnValues(user, entityMetadata, TranslationType.VALUE, null).get(
+                        TranslationType.VALUE);
+
+        Assert.assertFalse(translator.hasInlinedValues());
+        Assert.assertFalse(StringUtils.contains(translatedSql, "mevivs"));
+        Assert.assertEquals(values.size(), StringUtils.countMatches(translatedSql, CQLTranslator.BIND_MARKER));
+        Assert.assertTrue(values.containsAll(Arrays.asList("mevivs", 1, timeLineId, "my first tweet")));
+    }
+
+    @Test
+    public void testBuildInClause()
+    {
+        CQLTranslator translator = new CQLTranslator();
+        StringBuilder builder = new StringBuilder();
+        translator.buildInClause(builder, String.class, "key", "a", "b");
+        Assert.assertEquals("\"key\" IN ('a', 'b')", builder.toString());
+
+        List<Object> values = new ArrayList<Object>();
+        translator.setBindValues(values);
+        builder = new StringBuilder();
+        translator.buildInClause(builder, String.class, "key", "a", "b", "c");
+        Assert.assertEquals("\"key\" IN (?, ?, ?)", builder.toString());
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), values);
+    }
+
     @Test
     public void testGetKeyword()
     {
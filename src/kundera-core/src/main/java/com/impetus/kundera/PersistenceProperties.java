@@ -90,4 +90,50 @@ public interface PersistenceProperties
     public static final String KUNDERA_TRANSACTION_RESOURCE = "kundera.transaction.resource.class";
 
     public static final String KUNDERA_INDEXER_CLASS = "kundera.indexer.class";
+
+    /**
+     * Strategy used to read/write entity fields, "reflection"(default),
+     * "generated" (accessor classes generated per field, see
+     * {@link com.impetus.kundera.property.FieldAccessorGenerator}) or class name
+     * of a {@link com.impetus.kundera.property.FieldAccessorFactory.Strategy}.
+     * Same strategy applies to all persistence units of a JVM.
+     */
+    public static final String KUNDERA_FIELD_ACCESSOR = "kundera.field.accessor";
+
+    /**
+     * Dirty checking mode of managed entities, "deepequals"(default) or
+     * "snapshot".
+     */
+    public static final String KUNDERA_DIRTY_CHECK = "kundera.dirty.check";
+
+    /**
+     * Whether merge writes only changed attributes of an entity, "true"(default)
+     * or "false". Changed attributes are known in snapshot dirty check mode
+     * only.
+     */
+    public static final String KUNDERA_PARTIAL_UPDATE = "kundera.partial.update";
+
+    /**
+     * Whether an entity manager spanning multiple persistence units flushes
+     * each of their clients concurrently, "true" or "false"(default).
+     */
+    public static final String KUNDERA_FLUSH_PARALLEL = "kundera.flush.parallel";
+
+    /**
+     * Maximum number of threads used for parallel flush, defaults to number of
+     * persistence units.
+     */
+    public static final String KUNDERA_FLUSH_POOL_SIZE = "kundera.flush.pool.size";
+
+    /**
+     * Number of keys per multiget while loading relations of query results,
+     * defaults to 0 (one read per relation).
+     */
+    public static final String KUNDERA_RELATION_BATCH_SIZE = "kundera.relation.batch.size";
+
+    /**
+     * Maximum number of parsed JPQL queries cached per entity manager factory,
+     * defaults to 256. 0 disables the cache.
+     */
+    public static final String KUNDERA_QUERY_PLAN_CACHE_SIZE = "kundera.query.plan.cache.size";
 }
@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.kundera.cache;
+
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.metamodel.Attribute;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.impetus.kundera.client.EnhanceEntity;
+import com.impetus.kundera.metadata.model.EntityMetadata;
+import com.impetus.kundera.property.PropertyAccessorHelper;
+import com.impetus.kundera.utils.ValueCopier;
+
+/**
+ * Second level cache of {@link javax.persistence.Cacheable} entities, shared
+ * by entity managers of a factory. Entities are kept in disassembled form, one
+ * copied value per non association attribute along with their relation values,
+ * so no cached state is ever shared with an entity handed out to the
+ * application. Associations are resolved again on every read.
+ */
+public final class SecondLevelCache
+{
+    /** The log instance. */
+    private static final Logger log = LoggerFactory.getLogger(SecondLevelCache.class);
+
+    /** Copies values, sharing immutable values only. */
+    private static final ValueCopier copier = new ValueCopier();
+
+    /** The underlying cache. */
+    private final Cache cache;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Instantiates a new second level cache.
+     * 
+     * @param cache
+     *            the underlying cache
+     */
+    public SecondLevelCache(Cache cache)
+    {
+        this.cache = cache;
+    }
+
+    /**
+     * Returns a fresh copy of cached entity along with its relation values, or
+     * null if entity is not cacheable or not cached.
+     * 
+     * @param m
+     *            entity metadata
+     * @param id
+     *            entity id
+     * @return enhance entity, or null
+     */
+    public EnhanceEntity get(EntityMetadata m, Object id)
+    {
+        if (!m.isCacheable())
+        {
+            return null;
+        }
+
+        Entry entry = (Entry) cache.get(cacheKey(m.getEntityClazz(), id));
+        EnhanceEntity ee = entry != null ? entry.assemble(m, id) : null;
+        if (ee != null)
+        {
+            hits.incrementAndGet();
+        }
+        else
+        {
+            misses.incrementAndGet();
+        }
+        return ee;
+    }
+
+    /**
+     * Caches state of entity, if cacheable. Associations are left out.
+     * 
+     * @param ee
+     *            entity along with its relation values
+     * @param m
+     *            entity metadata
+     */
+    public void put(EnhanceEntity ee, EntityMetadata m)
+    {
+        if (!m.isCacheable() || ee == null || ee.getEntity() == null)
+        {
+            return;
+        }
+
+        Entry entry = Entry.disassemble(ee, m);
+        if (entry != null)
+        {
+            cache.put(cacheKey(m.getEntityClazz(), ee.getEntityId()), entry);
+        }
+    }
+
+    /**
+     * Evicts entity from cache, if cacheable.
+     * 
+     * @param m
+     *            entity metadata
+     * @param id
+     *            entity id
+     */
+    public void evict(EntityMetadata m, Object id)
+    {
+        if (m != null && m.isCacheable() && id != null)
+        {
+            cache.evict(m.getEntityClazz(), cacheKey(m.getEntityClazz(), id));
+        }
+    }
+
+    /**
+     * @return number of reads served from cache.
+     */
+    public long getHitCount()
+    {
+        return hits.get();
+    }
+
+    /**
+     * @return number of reads of cacheable entities not served from cache.
+     */
+    public long getMissCount()
+    {
+        return misses.get();
+    }
+
+    private static String cacheKey(Class<?> clazz, Object id)
+    {
+        return clazz.getName() + "_" + id;
+    }
+
+    /**
+     * Disassembled entity state.
+     */
+    private static final class Entry implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        /** Values positioned by {@link EntityMetadata#getIndexedAttributes()}. */
+        private final Object[] values;
+
+        /** Relation values, keyed by join column name. */
+        private final Map<String, Object> relations;
+
+        private Entry(Object[] values, Map<String, Object> relations)
+        {
+            this.values = values;
+            this.relations = relations;
+        }
+
+        private static Entry disassemble(EnhanceEntity ee, EntityMetadata m)
+        {
+            Attribute[] attributes = m.getIndexedAttributes();
+            Object[] values = new Object[attributes.length];
+            for (int i = 0; i < attributes.length; i++)
+            {
+                if (!attributes[i].isAssociation())
+                {
+                    values[i] = copier.copy(PropertyAccessorHelper.getObject(ee.getEntity(),
+                            (Field) attributes[i].getJavaMember()));
+                    if (values[i] == ValueCopier.NOT_COPYABLE)
+                    {
+                        return null;
+                    }
+                }
+            }
+
+            Map<String, Object> relations = null;
+            if (ee.getRelations() != null)
+            {
+                relations = new HashMap<String, Object>();
+                for (Map.Entry<String, Object> relation : ee.getRelations().entrySet())
+                {
+                    Object value = copier.copy(relation.getValue());
+                    if (value == ValueCopier.NOT_COPYABLE)
+                    {
+                        return null;
+                    }
+                    relations.put(relation.getKey(), value);
+                }
+            }
+            return new Entry(values, relations);
+        }
+
+        private EnhanceEntity assemble(EntityMetadata m, Object id)
+        {
+            Attribute[] attributes = m.getIndexedAttributes();
+            if (attributes.length != values.length)
+            {
+                return null;
+            }
+
+            try
+            {
+                Object entity = m.getEntityClazz().newInstance();
+                for (int i = 0; i < attributes.length; i++)
+                {
+                    if (values[i] != null)
+                    {
+                        PropertyAccessorHelper.set(entity, (Field) attributes[i].getJavaMember(),
+                                copier.copy(values[i]));
+                    }
+                }
+                return new EnhanceEntity(entity, id, relations != null ? new HashMap<String, Object>(relations)
+                        : null);
+            }
+            catch (Exception e)
+            {
+                log.warn("Error while assembling cached entity of {}, Caused by: {}.", m.getEntityClazz(),
+                        e.getMessage());
+                return null;
+            }
+        }
+    }
+}
@@ -17,6 +17,7 @@ package com.impetus.kundera.client;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 
@@ -50,6 +51,9 @@ public abstract class ClientBase
     protected String persistenceUnit;
 
     protected boolean isUpdate;
+
+    /** Changed attributes of entity being persisted, null if all of them are to be written. */
+    protected BitSet dirtyAttributes;
     
     protected ClientMetadata clientMetadata;
 
@@ -84,6 +88,7 @@ public abstract class ClientBase
         Object id = node.getEntityId();
         EntityMetadata metadata = KunderaMetadataManager.getEntityMetadata(node.getDataClass());
         isUpdate = node.isUpdate();
+        dirtyAttributes = getDirtyAttributes(node, metadata);
         List<RelationHolder> relationHolders = getRelationHolders(node);
         /* id = */onPersist(metadata, entity, id, relationHolders);
         id = PropertyAccessorHelper.getId(entity, metadata);
@@ -91,6 +96,32 @@ public abstract class ClientBase
         indexNode(node, metadata);
     }
 
+    /**
+     * Returns changed attributes of node, if it is an update and partial
+     * update is enabled for entity. Updates of partially hydrated entities are
+     * limited to attributes which were read.
+     * 
+     * @param node
+     *            node to be persisted
+     * @param metadata
+     *            entity metadata
+     * @return changed attributes, null if all attributes are to be written
+     */
+    protected BitSet getDirtyAttributes(Node node, EntityMetadata metadata)
+    {
+        BitSet dirty = node.isUpdate() && metadata.isPartialUpdate() ? node.getDirtyAttributes() : null;
+        if (node.isUpdate() && node.isPartial())
+        {
+            BitSet loaded = (BitSet) node.getLoadedAttributes().clone();
+            if (dirty != null)
+            {
+                loaded.and(dirty);
+            }
+            return loaded;
+        }
+        return dirty;
+    }
+
     /**
      * @param node
      * @return
@@ -15,6 +15,7 @@
  */
 package com.impetus.kundera.graph;
 
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -39,6 +40,7 @@ import com.impetus.kundera.metadata.KunderaMetadataManager;
 import com.impetus.kundera.metadata.model.EntityMetadata;
 import com.impetus.kundera.metadata.model.Relation.ForeignKey;
 import com.impetus.kundera.persistence.PersistenceDelegator;
+import com.impetus.kundera.persistence.context.EntitySnapshot;
 import com.impetus.kundera.persistence.context.PersistenceCache;
 import com.impetus.kundera.persistence.event.EntityEventDispatcher;
 import com.impetus.kundera.utils.ObjectUtils;
@@ -101,6 +103,16 @@ public class Node implements NodeStateContext
 
     private boolean isProcessed;
 
+    // Attribute snapshot of node data, if snapshot dirty checking is enabled
+    private EntitySnapshot snapshot;
+
+    // Indexes of changed attributes, null if all of them are to be written
+    private BitSet dirtyAttributes;
+
+    // Indexes of attributes read into a partially hydrated entity, null if
+    // entity is complete
+    private BitSet loadedAttributes;
+
     private EntityEventDispatcher eventDispatcher = new EntityEventDispatcher();
 
     private Node(String nodeId, Object data, PersistenceCache pc, Object primaryKey)
@@ -318,7 +330,7 @@ public class Node implements NodeStateContext
     @Override
     public void addParentNode(NodeLink nodeLink, Node node)
     {
-        if (parents == null || parents.isEmpty())
+        if (parents == null)
         {
             parents = new HashMap<NodeLink, Node>();
         }
@@ -328,7 +340,7 @@ public class Node implements NodeStateContext
     @Override
     public void addChildNode(NodeLink nodeLink, Node node)
     {
-        if (children == null || children.isEmpty())
+        if (children == null)
         {
             children = new HashMap<NodeLink, Node>();
         }
@@ -621,6 +633,71 @@ public class Node implements NodeStateContext
         return isProcessed;
     }
 
+    /**
+     * @return the snapshot
+     */
+    public EntitySnapshot getSnapshot()
+    {
+        return snapshot;
+    }
+
+    /**
+     * @param snapshot
+     *            the snapshot to set
+     */
+    public void setSnapshot(EntitySnapshot snapshot)
+    {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Returns indexes of changed attributes, positioned as per
+     * {@link EntityMetadata#getIndexedAttributes()}.
+     * 
+     * @return the dirtyAttributes, null if unknown
+     */
+    public BitSet getDirtyAttributes()
+    {
+        return dirtyAttributes;
+    }
+
+    /**
+     * @param dirtyAttributes
+     *            the dirtyAttributes to set
+     */
+    public void setDirtyAttributes(BitSet dirtyAttributes)
+    {
+        this.dirtyAttributes = dirtyAttributes;
+    }
+
+    /**
+     * Returns indexes of attributes read into node data, positioned as per
+     * {@link EntityMetadata#getIndexedAttributes()}.
+     * 
+     * @return the loadedAttributes, null if node data is complete
+     */
+    public BitSet getLoadedAttributes()
+    {
+        return loadedAttributes;
+    }
+
+    /**
+     * @param loadedAttributes
+     *            the loadedAttributes to set
+     */
+    public void setLoadedAttributes(BitSet loadedAttributes)
+    {
+        this.loadedAttributes = loadedAttributes;
+    }
+
+    /**
+     * @return true, if node data is a partially hydrated entity
+     */
+    public boolean isPartial()
+    {
+        return loadedAttributes != null;
+    }
+
     /**
      * @return the isUpdate
      */
@@ -16,6 +16,7 @@
 package com.impetus.kundera.graph;
 
 import java.lang.reflect.Field;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
@@ -36,6 +37,8 @@ import com.impetus.kundera.metadata.model.Relation;
 import com.impetus.kundera.persistence.IdGenerator;
 import com.impetus.kundera.persistence.PersistenceDelegator;
 import com.impetus.kundera.persistence.PersistenceValidator;
+import com.impetus.kundera.persistence.context.EntitySnapshot;
+import com.impetus.kundera.persistence.context.PartialEntities;
 import com.impetus.kundera.persistence.context.PersistenceCache;
 import com.impetus.kundera.property.PropertyAccessorHelper;
 import com.impetus.kundera.proxy.KunderaProxy;
@@ -136,7 +139,7 @@ public class ObjectGraphBuilder
 
         // Construct this Node first, if one not already there in Persistence
         // Cache
-        Node nodeInPersistenceCache = persistenceCache.getMainCache().getNodeFromCache(nodeId);
+        Node nodeInPersistenceCache = persistenceCache.getMainCache().getNodeFromCache(entity.getClass(), id);
 
         // Make a deep copy of entity data
 
@@ -149,9 +152,9 @@ public class ObjectGraphBuilder
             node = nodeInPersistenceCache;
 
             // Determine whether this node is dirty based on comparison between
-            // Node data and entity data
+            // Node data (or its snapshot) and entity data
             // If dirty, set the entity data into node and mark it as dirty
-            if (!DeepEquals.deepEquals(node.getData(), entity))
+            if (isDirty(node, entity, entityMetadata))
             {
                 node.setData(entity);
                 node.setDirty(true);
@@ -165,6 +168,13 @@ public class ObjectGraphBuilder
             // replaced with the one provided in entity object
         }
 
+        // Attributes not read into a partially hydrated entity are left as
+        // they are in database.
+        if (node.getData() == entity)
+        {
+            node.setLoadedAttributes(PartialEntities.getLoadedAttributes(entity));
+        }
+
         // Put this node into object graph
         graph.addNode(nodeId, node);
 
@@ -230,12 +240,34 @@ public class ObjectGraphBuilder
         return node;
     }
 
+    /**
+     * Compares entity with node in persistence cache. If node carries a
+     * snapshot, changed attributes are recorded into node as well.
+     * 
+     * @param node
+     *            node in persistence cache
+     * @param entity
+     *            entity object
+     * @param entityMetadata
+     *            entity metadata
+     * @return true, if entity differs from node data
+     */
+    private boolean isDirty(Node node, Object entity, EntityMetadata entityMetadata)
+    {
+        EntitySnapshot snapshot = node.getSnapshot();
+        if (snapshot != null)
+        {
+            BitSet dirtyAttributes = snapshot.getDirtyAttributes(entity, entityMetadata);
+            node.setDirtyAttributes(dirtyAttributes);
+            return !dirtyAttributes.isEmpty();
+        }
+        return !DeepEquals.deepEquals(node.getData(), entity);
+    }
+
     private NodeState getChildNodeState(EntityMetadata metadata, Object childObj)
     {
         Object childId = PropertyAccessorHelper.getId(childObj, metadata);
-        String childNodeId = ObjectGraphUtils.getNodeId(childId, childObj.getClass());
-
-        Node childNodeInCache = persistenceCache.getMainCache().getNodeFromCache(childNodeId);
+        Node childNodeInCache = persistenceCache.getMainCache().getNodeFromCache(childObj.getClass(), childId);
 
         return childNodeInCache != null ? childNodeInCache.getCurrentNodeState():new TransientState();
     }
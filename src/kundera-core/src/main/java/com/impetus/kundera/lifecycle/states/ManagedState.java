@@ -17,6 +17,7 @@ package com.impetus.kundera.lifecycle.states;
 
 import javax.persistence.PersistenceContextType;
 
+import com.impetus.kundera.cache.SecondLevelCache;
 import com.impetus.kundera.client.Client;
 import com.impetus.kundera.client.EnhanceEntity;
 import com.impetus.kundera.graph.Node;
@@ -75,10 +76,20 @@ public class ManagedState extends NodeState
         EntityReader reader = client.getReader();
         EnhanceEntity ee = reader.findById(entityId, entityMetadata, client);
 
+        SecondLevelCache secondLevelCache = nodeStateContext.getPersistenceDelegator() != null ? nodeStateContext
+                .getPersistenceDelegator().getSecondLevelCache() : null;
+        if (secondLevelCache != null)
+        {
+            // Write through refreshed state.
+            secondLevelCache.evict(entityMetadata, entityId);
+            secondLevelCache.put(ee, entityMetadata);
+        }
+
         if (ee != null && ee.getEntity() != null)
         {
             Object nodeData = ee.getEntity();
             nodeStateContext.setData(nodeData);
+            nodeStateContext.getPersistenceCache().getMainCache().captureSnapshot((Node) nodeStateContext);
         }
 
         // Cascade refresh operation for all related entities for whom
@@ -122,7 +133,19 @@ public class ManagedState extends NodeState
             return;
         }
         
-        EnhanceEntity ee = reader.findById(entityId, entityMetadata, client);
+        // Read through second level cache, if configured.
+        SecondLevelCache secondLevelCache = nodeStateContext.getPersistenceDelegator() != null ? nodeStateContext
+                .getPersistenceDelegator().getSecondLevelCache() : null;
+        EnhanceEntity ee = secondLevelCache != null ? secondLevelCache.get(entityMetadata, entityId) : null;
+        if (ee == null)
+        {
+            ee = reader.findById(entityId, entityMetadata, client);
+            if (secondLevelCache != null)
+            {
+                secondLevelCache.put(ee, entityMetadata);
+            }
+        }
+
         // Recursively retrieve relationship entities (if there are any)
         if (ee != null && ee.getEntity() != null)
         {
@@ -147,20 +170,33 @@ public class ManagedState extends NodeState
         // Construct Node out of this entity and put into Persistence Cache
         if (nodeData != null)
         {
-
-            nodeStateContext.setData(nodeData);
-            nodeStateContext.getPersistenceCache().getMainCache().processNodeMapping((Node) nodeStateContext);
-
-            // This node is fresh and hence NOT dirty
-            nodeStateContext.setDirty(false);
-            // One time set as required for rollback.
-            Object original = ((Node) nodeStateContext).clone();
-            ((Node) nodeStateContext).setOriginalNode((Node) original);
+            onFind(nodeStateContext, nodeData);
         }
 
         // No state change, Node to remain in Managed state
     }
 
+    /**
+     * Sets entity read from database, along with its related entities, into
+     * node and puts node into persistence cache.
+     * 
+     * @param nodeStateContext
+     *            node being found
+     * @param nodeData
+     *            entity read from database
+     */
+    public void onFind(NodeStateContext nodeStateContext, Object nodeData)
+    {
+        nodeStateContext.setData(nodeData);
+        nodeStateContext.getPersistenceCache().getMainCache().processNodeMapping((Node) nodeStateContext);
+
+        // This node is fresh and hence NOT dirty
+        nodeStateContext.setDirty(false);
+        // One time set as required for rollback.
+        Object original = ((Node) nodeStateContext).clone();
+        ((Node) nodeStateContext).setOriginalNode((Node) original);
+    }
+
     @Override
     public void handleClose(NodeStateContext nodeStateContext)
     {
@@ -181,6 +217,7 @@ public class ManagedState extends NodeState
         // Flush this node to database
         Client client = nodeStateContext.getClient();
         client.persist((Node) nodeStateContext);
+        nodeStateContext.getPersistenceCache().getMainCache().captureSnapshot((Node) nodeStateContext);
 
         // logNodeEvent("FLUSHED", this, nodeStateContext.getNodeId());
 
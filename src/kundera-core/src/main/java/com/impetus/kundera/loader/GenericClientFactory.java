@@ -317,7 +317,7 @@ public abstract class GenericClientFactory implements ClientFactory, ClientLifeC
 
     protected enum LoadBalancer
     {
-        ROUNDROBIN, LEASTACTIVE;
+        ROUNDROBIN, LEASTACTIVE, TOKENAWARE;
 
         public static LoadBalancer getValue(String loadBalancename)
         {
@@ -329,6 +329,10 @@ public abstract class GenericClientFactory implements ClientFactory, ClientLifeC
             {
                 return LEASTACTIVE;
             }
+            else if (loadBalancename != null && loadBalancename.equalsIgnoreCase(TOKENAWARE.name()))
+            {
+                return TOKENAWARE;
+            }
             else
             {
                 logger.info("Using default load balancer {} . " + ROUNDROBIN.name());
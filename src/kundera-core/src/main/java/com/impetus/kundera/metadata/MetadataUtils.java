@@ -18,10 +18,12 @@ package com.impetus.kundera.metadata;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -303,6 +305,59 @@ public class MetadataUtils
         return clientMetadata != null ? clientMetadata.isUseSecondryIndex() : false;
     }
 
+    /**
+     * Returns true, if given attribute is to be written for an entity whose
+     * changed attributes are <code>dirtyAttributes</code>. Id attribute is
+     * always written.
+     * 
+     * @param m
+     *            entity metadata
+     * @param attribute
+     *            attribute
+     * @param dirtyAttributes
+     *            changed attributes, null if all attributes are to be written
+     * @return true, if attribute is to be written
+     */
+    public static boolean isAttributeToBeWritten(EntityMetadata m, Attribute attribute, BitSet dirtyAttributes)
+    {
+        if (dirtyAttributes == null || attribute.getName().equals(m.getIdAttribute().getName()))
+        {
+            return true;
+        }
+        int index = m.getAttributeIndex(attribute.getName());
+        return index < 0 || dirtyAttributes.get(index);
+    }
+
+    /**
+     * Returns attributes to be written for an entity whose changed attributes
+     * are <code>dirtyAttributes</code>.
+     * 
+     * @param m
+     *            entity metadata
+     * @param attributes
+     *            entity attributes
+     * @param dirtyAttributes
+     *            changed attributes, null if all attributes are to be written
+     * @return attributes to be written
+     */
+    public static Set<Attribute> getAttributesToBeWritten(EntityMetadata m, Set<Attribute> attributes,
+            BitSet dirtyAttributes)
+    {
+        if (dirtyAttributes == null)
+        {
+            return attributes;
+        }
+        Set<Attribute> attributesToBeWritten = new LinkedHashSet<Attribute>();
+        for (Attribute attribute : attributes)
+        {
+            if (isAttributeToBeWritten(m, attribute, dirtyAttributes))
+            {
+                attributesToBeWritten.add(attribute);
+            }
+        }
+        return attributesToBeWritten;
+    }
+
     
    /* *//**
      * Returns lucene indexing directory.
@@ -18,6 +18,8 @@ package com.impetus.kundera.metadata.model;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -73,6 +75,15 @@ public final class EntityMetadata
 
     private boolean isCounterColumnType = false;
 
+    /** Whether dirty checking is done on attribute snapshots. */
+    private boolean isSnapshotDirtyCheck = false;
+
+    /** Whether merge writes changed attributes only. */
+    private boolean isPartialUpdate = true;
+
+    /** Entity attributes in a stable order, used for dirty tracking. */
+    private volatile Attribute[] indexedAttributes;
+
     private SingularAttribute idAttribute;
 
     // private List<String> colToBeIndexed;
@@ -738,6 +749,102 @@ public final class EntityMetadata
         this.idAttribute = idAttribute;
     }
 
+    /**
+     * @return true, if dirty checking is done on attribute snapshots
+     */
+    public boolean isSnapshotDirtyCheck()
+    {
+        return isSnapshotDirtyCheck;
+    }
+
+    /**
+     * @param isSnapshotDirtyCheck
+     *            the isSnapshotDirtyCheck to set
+     */
+    public void setSnapshotDirtyCheck(boolean isSnapshotDirtyCheck)
+    {
+        this.isSnapshotDirtyCheck = isSnapshotDirtyCheck;
+    }
+
+    /**
+     * @return true, if merge writes changed attributes only
+     */
+    public boolean isPartialUpdate()
+    {
+        return isPartialUpdate;
+    }
+
+    /**
+     * @param isPartialUpdate
+     *            the isPartialUpdate to set
+     */
+    public void setPartialUpdate(boolean isPartialUpdate)
+    {
+        this.isPartialUpdate = isPartialUpdate;
+    }
+
+    /**
+     * Returns entity attributes sorted by name. Position of an attribute in
+     * this array is its index in attribute snapshots and dirty attribute sets.
+     * 
+     * @return indexed attributes
+     */
+    public Attribute[] getIndexedAttributes()
+    {
+        if (indexedAttributes == null)
+        {
+            getEntityType();
+            if (this.entityType == null)
+            {
+                return new Attribute[0];
+            }
+            Attribute[] attributes = (Attribute[]) this.entityType.getAttributes().toArray(new Attribute[0]);
+            Arrays.sort(attributes, new Comparator<Attribute>()
+            {
+                @Override
+                public int compare(Attribute a1, Attribute a2)
+                {
+                    return a1.getName().compareTo(a2.getName());
+                }
+            });
+            indexedAttributes = attributes;
+        }
+        return indexedAttributes;
+    }
+
+    /**
+     * Returns index of attribute with given name, or a negative value if
+     * entity has no such attribute.
+     * 
+     * @param attributeName
+     *            attribute name
+     * @return attribute index
+     */
+    public int getAttributeIndex(String attributeName)
+    {
+        Attribute[] attributes = getIndexedAttributes();
+        int low = 0;
+        int high = attributes.length - 1;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            int cmp = attributes[mid].getName().compareTo(attributeName);
+            if (cmp < 0)
+            {
+                low = mid + 1;
+            }
+            else if (cmp > 0)
+            {
+                high = mid - 1;
+            }
+            else
+            {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
     public void addJPAColumnMapping(String jpaColumnName, String fieldName)
     {
         jpaColumnMapping.put(jpaColumnName, fieldName);
@@ -578,6 +578,30 @@ public class PersistenceUnitMetadata implements PersistenceUnitInfo
         return 0;
     }
 
+    /**
+     * Returns number of keys to load per multiget while resolving relations,
+     * 0 if not configured.
+     * 
+     * @return relation batch size.
+     */
+    public int getRelationBatchSize()
+    {
+        String batchSize = getProperty(PersistenceProperties.KUNDERA_RELATION_BATCH_SIZE);
+        if (batchSize == null || batchSize.trim().isEmpty())
+        {
+            return 0;
+        }
+
+        try
+        {
+            return Integer.parseInt(batchSize.trim());
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IllegalArgumentException("kundera.relation.batch.size property must be numeric");
+        }
+    }
+
     /**
      * @return the mappedUrl
      */
@@ -64,6 +64,7 @@ import com.impetus.kundera.metadata.model.type.DefaultBasicType;
 import com.impetus.kundera.metadata.model.type.DefaultEmbeddableType;
 import com.impetus.kundera.metadata.model.type.DefaultEntityType;
 import com.impetus.kundera.metadata.model.type.DefaultMappedSuperClass;
+import com.impetus.kundera.property.FieldAccessorFactory;
 
 /**
  * The Class MetaModelBuilder.
@@ -94,6 +95,9 @@ public final class MetaModelBuilder<X, T>
     /** The embeddables. */
     private Map<Class<?>, AbstractManagedType<?>> embeddables = new HashMap<Class<?>, AbstractManagedType<?>>();
 
+    /** The field accessor strategy. */
+    private FieldAccessorFactory.Strategy fieldAccessorStrategy = FieldAccessorFactory.REFLECTION;
+
     /**
      * Process.
      * 
@@ -368,6 +372,8 @@ public final class MetaModelBuilder<X, T>
             {
                 if (isNonTransient(attribute))
                 {
+                    FieldAccessorFactory.register(attribute, fieldAccessorStrategy);
+
                     if (isPluralAttribute(attribute))
                     {
                         PluralAttribute<X, ?, ?> pluralAttribute = null;
@@ -550,6 +556,18 @@ public final class MetaModelBuilder<X, T>
         return embeddables;
     }
 
+    /**
+     * Sets the field accessor strategy, applied to attributes processed
+     * hereafter.
+     * 
+     * @param fieldAccessorStrategy
+     *            the field accessor strategy
+     */
+    public void setFieldAccessorStrategy(FieldAccessorFactory.Strategy fieldAccessorStrategy)
+    {
+        this.fieldAccessorStrategy = fieldAccessorStrategy;
+    }
+
     /**
      * @return the mappedSuperClassTypes
      */
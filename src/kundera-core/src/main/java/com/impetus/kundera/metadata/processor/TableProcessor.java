@@ -38,18 +38,21 @@ import javax.persistence.metamodel.SingularAttribute;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.impetus.kundera.PersistenceProperties;
 import com.impetus.kundera.loader.MetamodelLoaderException;
 import com.impetus.kundera.metadata.MetadataUtils;
 import com.impetus.kundera.metadata.model.ApplicationMetadata;
 import com.impetus.kundera.metadata.model.EntityMetadata;
 import com.impetus.kundera.metadata.model.EntityMetadata.Type;
 import com.impetus.kundera.metadata.model.KunderaMetadata;
+import com.impetus.kundera.metadata.model.PersistenceUnitMetadata;
 import com.impetus.kundera.metadata.model.attributes.AbstractAttribute;
 import com.impetus.kundera.metadata.model.type.AbstractIdentifiableType;
 import com.impetus.kundera.metadata.processor.relation.RelationMetadataProcessor;
 import com.impetus.kundera.metadata.processor.relation.RelationMetadataProcessorFactory;
 import com.impetus.kundera.metadata.validator.EntityValidatorImpl;
 import com.impetus.kundera.metadata.validator.InvalidEntityDefinitionException;
+import com.impetus.kundera.property.FieldAccessorFactory;
 
 /**
  * Metadata processor class for persistent entities.
@@ -125,7 +128,12 @@ public class TableProcessor extends AbstractEntityFieldProcessor
         {
             MetaModelBuilder<X, T> metaModelBuilder = KunderaMetadata.INSTANCE.getApplicationMetadata()
                     .getMetaModelBuilder(metadata.getPersistenceUnit());
+            metaModelBuilder.setFieldAccessorStrategy(getFieldAccessorStrategy(metadata.getPersistenceUnit(),
+                    puProperties));
             metaModelBuilder.process(clazz);
+            metadata.setSnapshotDirtyCheck(isSnapshotDirtyCheck(metadata.getPersistenceUnit(), puProperties));
+            metadata.setPartialUpdate(!"false".equalsIgnoreCase(getProperty(metadata.getPersistenceUnit(),
+                    puProperties, PersistenceProperties.KUNDERA_PARTIAL_UPDATE)));
 
             for (Field f : clazz.getDeclaredFields())
             {
@@ -159,6 +167,61 @@ public class TableProcessor extends AbstractEntityFieldProcessor
 
     }
 
+    /**
+     * Returns field accessor strategy configured for persistence unit.
+     * 
+     * @param persistenceUnit
+     *            the persistence unit
+     * @param puProperties
+     *            the external pu properties
+     * @return field accessor strategy
+     */
+    private FieldAccessorFactory.Strategy getFieldAccessorStrategy(String persistenceUnit, Map puProperties)
+    {
+        return FieldAccessorFactory.getStrategy(getProperty(persistenceUnit, puProperties,
+                PersistenceProperties.KUNDERA_FIELD_ACCESSOR));
+    }
+
+    /**
+     * Returns true, if snapshot based dirty checking is configured for
+     * persistence unit.
+     * 
+     * @param persistenceUnit
+     *            the persistence unit
+     * @param puProperties
+     *            the external pu properties
+     * @return true, if dirty check mode is "snapshot"
+     */
+    private boolean isSnapshotDirtyCheck(String persistenceUnit, Map puProperties)
+    {
+        return "snapshot".equalsIgnoreCase(getProperty(persistenceUnit, puProperties,
+                PersistenceProperties.KUNDERA_DIRTY_CHECK));
+    }
+
+    /**
+     * Returns value of given property for persistence unit. External
+     * properties take precedence over persistence.xml.
+     * 
+     * @param persistenceUnit
+     *            the persistence unit
+     * @param puProperties
+     *            the external pu properties
+     * @param property
+     *            property name
+     * @return property value
+     */
+    private String getProperty(String persistenceUnit, Map puProperties, String property)
+    {
+        String value = puProperties != null ? (String) puProperties.get(property) : null;
+        if (value == null)
+        {
+            PersistenceUnitMetadata puMetadata = KunderaMetadata.INSTANCE.getApplicationMetadata()
+                    .getPersistenceUnitMetadata(persistenceUnit);
+            value = puMetadata != null ? puMetadata.getProperty(property) : null;
+        }
+        return value;
+    }
+
     /**
      * Adds relationship info into metadata for a given field
      * <code>relationField</code>.
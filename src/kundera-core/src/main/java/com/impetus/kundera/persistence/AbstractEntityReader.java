@@ -17,8 +17,11 @@ package com.impetus.kundera.persistence;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -34,8 +37,10 @@ import com.impetus.kundera.client.EnhanceEntity;
 import com.impetus.kundera.metadata.KunderaMetadataManager;
 import com.impetus.kundera.metadata.MetadataUtils;
 import com.impetus.kundera.metadata.model.EntityMetadata;
+import com.impetus.kundera.metadata.model.PersistenceUnitMetadata;
 import com.impetus.kundera.metadata.model.Relation;
 import com.impetus.kundera.metadata.model.Relation.ForeignKey;
+import com.impetus.kundera.persistence.context.PartialEntities;
 import com.impetus.kundera.persistence.context.PersistenceCacheManager;
 import com.impetus.kundera.property.PropertyAccessException;
 import com.impetus.kundera.property.PropertyAccessorHelper;
@@ -58,6 +63,17 @@ public class AbstractEntityReader
 
     private AssociationBuilder associationBuilder;
 
+    /**
+     * Entities read by findAll of a client are not known to carry their
+     * relation values.
+     * 
+     * @return false
+     */
+    public boolean isFindAllWithRelations()
+    {
+        return false;
+    }
+
     /**
      * Retrieves an entity from ID
      * 
@@ -99,18 +115,24 @@ public class AbstractEntityReader
      * @return
      */
     private Object handleAssociation(final Object entity, final Map<String, Object> relationsMap,
-            final EntityMetadata m, final PersistenceDelegator pd, boolean lazilyloaded)
+            final EntityMetadata m, final PersistenceDelegator pd, boolean lazilyloaded, boolean readOnly,
+            final Map<Class<?>, Map<String, Object>> relationCache)
     {
 
         for (Relation relation : m.getRelations())
         {
+            if (isProjectedOut(entity, m, relation))
+            {
+                continue;
+            }
+
             ForeignKey relationType = relation.getType();
 
             Object relationalObject = PropertyAccessorHelper.getObject(entity, relation.getProperty());
 
             if (KunderaCoreUtils.isEmptyOrNull(relationalObject) || ProxyHelper.isProxyOrCollection(relationalObject))
             {
-                onRelation(entity, relationsMap, m, pd, relation, relationType, lazilyloaded);
+                onRelation(entity, relationsMap, m, pd, relation, relationType, lazilyloaded, readOnly, relationCache);
             }
         }
         return entity;
@@ -126,13 +148,23 @@ public class AbstractEntityReader
      * @param relation
      * @param relationType
      * @param lazilyloaded
+     * @param readOnly
+     * @param relationCache
      */
     private void onRelation(final Object entity, final Map<String, Object> relationsMap, final EntityMetadata m,
-            final PersistenceDelegator pd, Relation relation, ForeignKey relationType, boolean lazilyloaded)
+            final PersistenceDelegator pd, Relation relation, ForeignKey relationType, boolean lazilyloaded,
+            boolean readOnly, final Map<Class<?>, Map<String, Object>> relationCache)
     {
 
         FetchType fetchType = relation.getFetchType();
 
+        if (readOnly && ((!lazilyloaded && fetchType.equals(FetchType.LAZY))
+                || relation.getType().equals(ForeignKey.MANY_TO_MANY)))
+        {
+            // Neither proxies nor join table lookups for read only entities.
+            return;
+        }
+
         if (!lazilyloaded && fetchType.equals(FetchType.LAZY))
         {
             final Object entityId = PropertyAccessorHelper.getId(entity, m);
@@ -151,7 +183,7 @@ public class AbstractEntityReader
             }
             else
             {
-                onRelation(entity, relationsMap, relation, m, pd, lazilyloaded);
+                onRelation(entity, relationsMap, relation, m, pd, lazilyloaded, readOnly, relationCache);
             }
         }
     }
@@ -167,9 +199,15 @@ public class AbstractEntityReader
      *            contains relation name and it's value.
      * @param m
      *            entity metadata.
+     * @param readOnly
+     *            true, if relation entities are not to be attached to
+     *            persistence context.
+     * @param relationCache
+     *            relation entities fetched in advance, may be null.
      */
     private void onRelation(Object entity, Map<String, Object> relationsMap, final Relation relation,
-            final EntityMetadata metadata, final PersistenceDelegator pd, boolean lazilyloaded)
+            final EntityMetadata metadata, final PersistenceDelegator pd, boolean lazilyloaded, boolean readOnly,
+            final Map<Class<?>, Map<String, Object>> relationCache)
     {
         final Object entityId = PropertyAccessorHelper.getId(entity, metadata);
 
@@ -181,7 +219,8 @@ public class AbstractEntityReader
         Object relationValue = relationsMap != null ? relationsMap.get(relation.getJoinColumnName()) : null;
         EntityMetadata targetEntityMetadata = KunderaMetadataManager.getEntityMetadata(relation.getTargetEntity());
 
-        List relationalEntities = fetchRelations(relation, metadata, pd, entityId, relationValue, targetEntityMetadata);
+        List relationalEntities = fetchRelations(relation, metadata, pd, entityId, relationValue, targetEntityMetadata,
+                relationCache);
 
         // parse for associated relation.
 
@@ -191,9 +230,13 @@ public class AbstractEntityReader
             {
                 if (relationEntity != null)
                 {
-                    onParseRelation(entity, pd, targetEntityMetadata, relationEntity, relation, lazilyloaded);
-                    PersistenceCacheManager.addEntityToPersistenceCache(getEntity(relationEntity), pd,
-                            PropertyAccessorHelper.getId(relationEntity, targetEntityMetadata));
+                    onParseRelation(entity, pd, targetEntityMetadata, relationEntity, relation, lazilyloaded,
+                            readOnly, relationCache);
+                    if (!readOnly)
+                    {
+                        PersistenceCacheManager.addEntityToPersistenceCache(getEntity(relationEntity), pd,
+                                PropertyAccessorHelper.getId(relationEntity, targetEntityMetadata));
+                    }
                 }
             }
         }
@@ -210,12 +253,15 @@ public class AbstractEntityReader
      * @param relationEntity
      * @param relation
      * @param lazilyloaded
+     * @param readOnly
+     * @param relationCache
      */
     private void onParseRelation(Object entity, final PersistenceDelegator pd, EntityMetadata targetEntityMetadata,
-            Object relationEntity, Relation relation, boolean lazilyloaded)
+            Object relationEntity, Relation relation, boolean lazilyloaded, boolean readOnly,
+            final Map<Class<?>, Map<String, Object>> relationCache)
     {
         parseRelations(entity, getEntity(relationEntity), getPersistedRelations(relationEntity), pd,
-                targetEntityMetadata, lazilyloaded);
+                targetEntityMetadata, lazilyloaded, readOnly, relationCache);
 
         // if relation ship is unary, no problem else we need to add
         setRelationToEntity(entity, relationEntity, relation);
@@ -261,10 +307,12 @@ public class AbstractEntityReader
      * @param pd
      * @param metadata
      * @param lazilyloaded
+     * @param readOnly
+     * @param relationCache
      */
     private void parseRelations(final Object originalEntity, final Object relationEntity,
             final Map<String, Object> relationsMap, final PersistenceDelegator pd, final EntityMetadata metadata,
-            boolean lazilyloaded)
+            boolean lazilyloaded, boolean readOnly, final Map<Class<?>, Map<String, Object>> relationCache)
     {
 
         for (Relation relation : metadata.getRelations())
@@ -272,6 +320,11 @@ public class AbstractEntityReader
 
             FetchType fetchType = relation.getFetchType();
 
+            if (readOnly && !lazilyloaded && fetchType.equals(FetchType.LAZY))
+            {
+                continue;
+            }
+
             if (!lazilyloaded && fetchType.equals(FetchType.LAZY))
             {
                 final Object entityId = PropertyAccessorHelper.getId(relationEntity, metadata);
@@ -306,7 +359,7 @@ public class AbstractEntityReader
                     final EntityMetadata targetEntityMetadata = KunderaMetadataManager.getEntityMetadata(relation
                             .getTargetEntity());
                     List immediateRelations = fetchRelations(relation, metadata, pd, entityId, relationValue,
-                            targetEntityMetadata);
+                            targetEntityMetadata, relationCache);
                     // Here in case of one-to-many/many-to-one we should skip
                     // this
                     // relation as it
@@ -322,18 +375,41 @@ public class AbstractEntityReader
                             if (!compareTo(getEntity(immediateRelation), originalEntity))
                             {
                                 onParseRelation(relationEntity, pd, targetEntityMetadata, immediateRelation, relation,
-                                        lazilyloaded);
+                                        lazilyloaded, readOnly, relationCache);
                             }
                         }
                         setRelationToEntity(relationEntity, originalEntity, relation);
-                        PersistenceCacheManager.addEntityToPersistenceCache(getEntity(relationEntity), pd,
-                                PropertyAccessorHelper.getId(relationEntity, metadata));
+                        if (!readOnly)
+                        {
+                            PersistenceCacheManager.addEntityToPersistenceCache(getEntity(relationEntity), pd,
+                                    PropertyAccessorHelper.getId(relationEntity, metadata));
+                        }
                     }
                 }
             }
         }
     }
 
+    /**
+     * Relations of a partially hydrated entity, which were not selected by the
+     * query reading it, are neither fetched nor proxied. See
+     * {@link PartialEntities}.
+     * 
+     * @param entity
+     *            entity object
+     * @param m
+     *            entity metadata
+     * @param relation
+     *            relation
+     * @return true, if relation was not read into entity.
+     */
+    private boolean isProjectedOut(Object entity, EntityMetadata m, Relation relation)
+    {
+        BitSet loaded = PartialEntities.getLoadedAttributes(entity);
+        int index = loaded != null ? m.getAttributeIndex(relation.getProperty().getName()) : -1;
+        return index >= 0 && !loaded.get(index);
+    }
+
     /**
      * 
      * Based on relation type, method invokes database to fetch relation
@@ -351,19 +427,28 @@ public class AbstractEntityReader
      *            relational value
      * @param targetEntityMetadata
      *            relational entity's metadata.
+     * @param relationCache
+     *            relation entities fetched in advance, may be null.
      * 
      * @return list of fetched relations.
      */
     private List fetchRelations(final Relation relation, final EntityMetadata metadata, final PersistenceDelegator pd,
-            final Object entityId, Object relationValue, EntityMetadata targetEntityMetadata)
+            final Object entityId, Object relationValue, EntityMetadata targetEntityMetadata,
+            final Map<Class<?>, Map<String, Object>> relationCache)
     {
         List relationalEntities = new ArrayList();
 
         if ((relationValue != null && relation.isUnary()) || (relation.isJoinedByPrimaryKey()))
         {
-            // Call it
-            Object relationEntity = pd.getClient(targetEntityMetadata).find(relation.getTargetEntity(),
-                    relationValue != null ? relationValue : entityId);
+            Object key = relationValue != null ? relationValue : entityId;
+            Map<String, Object> fetched = relationCache != null ? relationCache.get(relation.getTargetEntity()) : null;
+            Object relationEntity = fetched != null ? fetched.get(key.toString()) : null;
+
+            // Call it, if not fetched in advance.
+            if (relationEntity == null)
+            {
+                relationEntity = pd.getClient(targetEntityMetadata).find(relation.getTargetEntity(), key);
+            }
             if (relationEntity != null)
             {
                 relationalEntities.add(relationEntity);
@@ -404,8 +489,160 @@ public class AbstractEntityReader
     public Object recursivelyFindEntities(Object entity, Map<String, Object> relationsMap, EntityMetadata m,
             PersistenceDelegator pd, boolean lazilyLoaded)
     {
-        return handleAssociation(entity, relationsMap, m, pd, lazilyLoaded);
+        return handleAssociation(entity, relationsMap, m, pd, lazilyLoaded, false, null);
+
+    }
+
+    /**
+     * Recursively fetches associated entities for a given <code>entity</code>,
+     * without attaching them to persistence context if read only.
+     * 
+     * @param entity
+     * @param relationsMap
+     * @param m
+     * @param pd
+     * @param lazilyLoaded
+     * @param readOnly
+     * @return
+     */
+    public Object recursivelyFindEntities(Object entity, Map<String, Object> relationsMap, EntityMetadata m,
+            PersistenceDelegator pd, boolean lazilyLoaded, boolean readOnly)
+    {
+        return handleAssociation(entity, relationsMap, m, pd, lazilyLoaded, readOnly, null);
+    }
 
+    /**
+     * Recursively fetches associated entities for a page of
+     * <code>enhanceEntities</code>. Unary relations are resolved in advance
+     * through {@link Client#findAll(Class, String[], Object...)}, per target
+     * entity type and level, when
+     * {@link PersistenceUnitMetadata#getRelationBatchSize()} is positive.
+     * 
+     * @param enhanceEntities
+     *            entities along with their relation values.
+     * @param m
+     *            entity meta data
+     * @param pd
+     *            persistence delegator.
+     * @param lazilyLoaded
+     *            true if invoked over lazily fetched object.
+     * @param readOnly
+     *            true, if entities are not to be attached to persistence
+     *            context.
+     * @return populated entities.
+     */
+    public List<Object> recursivelyFindEntities(List<EnhanceEntity> enhanceEntities, EntityMetadata m,
+            PersistenceDelegator pd, boolean lazilyLoaded, boolean readOnly)
+    {
+        Map<Class<?>, Map<String, Object>> relationCache = new HashMap<Class<?>, Map<String, Object>>();
+        prefetchRelations(enhanceEntities, m, pd, lazilyLoaded, relationCache);
+
+        List<Object> result = new ArrayList<Object>(enhanceEntities.size());
+        for (EnhanceEntity ee : enhanceEntities)
+        {
+            result.add(handleAssociation(ee.getEntity(), ee.getRelations(), m, pd, lazilyLoaded, readOnly,
+                    relationCache));
+        }
+        return result;
+    }
+
+    /**
+     * Collects distinct foreign keys of unary relations across given entities
+     * and loads them in batches, one level at a time.
+     * 
+     * @param entities
+     *            entities or enhance entities.
+     * @param m
+     *            entity meta data
+     * @param pd
+     *            persistence delegator.
+     * @param lazilyLoaded
+     *            true if invoked over lazily fetched object.
+     * @param relationCache
+     *            fetched relation entities, keyed by target class and id.
+     */
+    private void prefetchRelations(final Collection<?> entities, final EntityMetadata m, final PersistenceDelegator pd,
+            boolean lazilyLoaded, final Map<Class<?>, Map<String, Object>> relationCache)
+    {
+        if (entities == null || entities.isEmpty())
+        {
+            return;
+        }
+
+        for (Relation relation : m.getRelations())
+        {
+            if (!relation.isUnary() || (!lazilyLoaded && relation.getFetchType().equals(FetchType.LAZY)))
+            {
+                continue;
+            }
+
+            EntityMetadata targetEntityMetadata = KunderaMetadataManager.getEntityMetadata(relation.getTargetEntity());
+            int batchSize = KunderaMetadataManager.getPersistenceUnitMetadata(
+                    targetEntityMetadata.getPersistenceUnit()).getRelationBatchSize();
+            if (batchSize <= 0)
+            {
+                continue;
+            }
+
+            Map<String, Object> fetched = relationCache.get(relation.getTargetEntity());
+            if (fetched == null)
+            {
+                fetched = new HashMap<String, Object>();
+                relationCache.put(relation.getTargetEntity(), fetched);
+            }
+
+            // distinct keys, not yet fetched.
+            Map<String, Object> keys = new LinkedHashMap<String, Object>();
+            for (Object o : entities)
+            {
+                Object entity = getEntity(o);
+                Object relationalObject = PropertyAccessorHelper.getObject(entity, relation.getProperty());
+                if ((!KunderaCoreUtils.isEmptyOrNull(relationalObject) && !ProxyHelper
+                        .isProxyOrCollection(relationalObject)) || isProjectedOut(entity, m, relation))
+                {
+                    continue;
+                }
+
+                Map<String, Object> relationsMap = getPersistedRelations(o);
+                Object key = relationsMap != null ? relationsMap.get(relation.getJoinColumnName()) : null;
+                if (key == null && relation.isJoinedByPrimaryKey())
+                {
+                    key = PropertyAccessorHelper.getId(entity, m);
+                }
+
+                if (key != null && !fetched.containsKey(key.toString()))
+                {
+                    keys.put(key.toString(), key);
+                }
+            }
+
+            if (keys.isEmpty())
+            {
+                continue;
+            }
+
+            Client client = pd.getClient(targetEntityMetadata);
+            List<Object> keyList = new ArrayList<Object>(keys.values());
+            List<Object> relationEntities = new ArrayList<Object>();
+            for (int i = 0; i < keyList.size(); i += batchSize)
+            {
+                List<Object> batch = keyList.subList(i, Math.min(i + batchSize, keyList.size()));
+                List results = client.findAll(relation.getTargetEntity(), null, batch.toArray());
+                if (results != null)
+                {
+                    for (Object r : results)
+                    {
+                        if (r != null)
+                        {
+                            fetched.put(getId(getEntity(r), targetEntityMetadata).toString(), r);
+                            relationEntities.add(r);
+                        }
+                    }
+                }
+            }
+
+            prefetchRelations(relationEntities, targetEntityMetadata, pd, lazilyLoaded, relationCache);
+        }
     }
 
     /**
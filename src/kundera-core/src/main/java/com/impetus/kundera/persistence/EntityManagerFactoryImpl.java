@@ -20,6 +20,8 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.persistence.Cache;
 import javax.persistence.EntityManager;
@@ -41,11 +43,14 @@ import com.impetus.kundera.PersistenceUtilHelper;
 import com.impetus.kundera.cache.CacheException;
 import com.impetus.kundera.cache.CacheProvider;
 import com.impetus.kundera.cache.NonOperationalCacheProvider;
+import com.impetus.kundera.cache.SecondLevelCache;
 import com.impetus.kundera.client.ClientResolverException;
 import com.impetus.kundera.configure.ClientMetadataBuilder;
 import com.impetus.kundera.loader.ClientFactory;
 import com.impetus.kundera.loader.ClientLifeCycleManager;
 import com.impetus.kundera.metadata.KunderaMetadataManager;
+import com.impetus.kundera.query.QueryPlanCache;
+import com.impetus.kundera.utils.KunderaThreadFactory;
 
 /**
  * Implementation class for {@link EntityManagerFactory}
@@ -87,6 +92,18 @@ public class EntityManagerFactoryImpl implements EntityManagerFactory
     /** ClientFactory map holds one clientfactory for one persistence unit */
     private Map<String, ClientFactory> clientFactories = new ConcurrentHashMap<String, ClientFactory>();
 
+    /** Executor for parallel flush, null if not enabled. */
+    private ExecutorService flushExecutor;
+
+    /** Second level cache of cacheable entities, null if not configured. */
+    private SecondLevelCache secondLevelCache;
+
+    /** Default number of parsed queries to cache. */
+    private static final int DEFAULT_QUERY_PLAN_CACHE_SIZE = 256;
+
+    /** Cache of parsed queries, null if disabled. */
+    private QueryPlanCache queryPlanCache;
+
     /**
      * Use this if you want to construct this directly.
      * 
@@ -115,6 +132,12 @@ public class EntityManagerFactoryImpl implements EntityManagerFactory
         // Initialize L2 cache
         this.cacheProvider = initSecondLevelCache();
         this.cacheProvider.createCache(Constants.KUNDERA_SECONDARY_CACHE_NAME);
+        Cache l2Cache = this.cacheProvider.getCache(Constants.KUNDERA_SECONDARY_CACHE_NAME);
+        if (!(this.cacheProvider instanceof NonOperationalCacheProvider)
+                && l2Cache instanceof com.impetus.kundera.cache.Cache)
+        {
+            this.secondLevelCache = new SecondLevelCache((com.impetus.kundera.cache.Cache) l2Cache);
+        }
 
         // Invoke Client Loaders
         // logger.info("Loading Client(s) For Persistence Unit(s) " +
@@ -141,6 +164,9 @@ public class EntityManagerFactoryImpl implements EntityManagerFactory
 
         this.util = new KunderaPersistenceUnitUtil(cache);
 
+        this.flushExecutor = initFlushExecutor();
+        this.queryPlanCache = initQueryPlanCache();
+
         if (logger.isDebugEnabled())
             logger.info("EntityManagerFactory created for persistence unit : " + persistenceUnit);
     }
@@ -169,6 +195,12 @@ public class EntityManagerFactoryImpl implements EntityManagerFactory
                 cacheProvider.shutdown();
             }
 
+            if (flushExecutor != null)
+            {
+                flushExecutor.shutdown();
+                flushExecutor = null;
+            }
+
             for (String pu : persistenceUnits)
             {
                 ((ClientLifeCycleManager) clientFactories.get(pu)).destroy();
@@ -390,6 +422,89 @@ public class EntityManagerFactoryImpl implements EntityManagerFactory
         return cacheProvider;
     }
 
+    /**
+     * Creates bounded executor for parallel flush, if enabled and more than
+     * one persistence unit is in use.
+     * 
+     * @return the executor service, or null.
+     */
+    private ExecutorService initFlushExecutor()
+    {
+        if (persistenceUnits.length > 1
+                && Boolean.parseBoolean(getProperty(PersistenceProperties.KUNDERA_FLUSH_PARALLEL)))
+        {
+            String poolSize = getProperty(PersistenceProperties.KUNDERA_FLUSH_POOL_SIZE);
+            int nThreads = poolSize != null ? Integer.parseInt(poolSize.trim()) : persistenceUnits.length;
+            return Executors.newFixedThreadPool(Math.max(nThreads, 1), new KunderaThreadFactory("ParallelFlush"));
+        }
+        return null;
+    }
+
+    /**
+     * Returns property value from factory properties, if not found, from
+     * first persistence unit defining it.
+     */
+    private String getProperty(String property)
+    {
+        Object value = getProperties().get(property);
+        if (value != null)
+        {
+            return value.toString();
+        }
+        for (String pu : persistenceUnits)
+        {
+            String puValue = KunderaMetadataManager.getPersistenceUnitMetadata(pu).getProperty(property);
+            if (puValue != null)
+            {
+                return puValue;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates cache of parsed queries, unless its size is set to 0.
+     * 
+     * @return the query plan cache, or null.
+     */
+    private QueryPlanCache initQueryPlanCache()
+    {
+        String size = getProperty(PersistenceProperties.KUNDERA_QUERY_PLAN_CACHE_SIZE);
+        int maxSize = size != null ? Integer.parseInt(size.trim()) : DEFAULT_QUERY_PLAN_CACHE_SIZE;
+        return maxSize > 0 ? new QueryPlanCache(maxSize) : null;
+    }
+
+    /**
+     * Gets the executor used for parallel flush.
+     * 
+     * @return the flush executor, null if parallel flush is not enabled.
+     */
+    ExecutorService getFlushExecutor()
+    {
+        return flushExecutor;
+    }
+
+    /**
+     * Gets the second level cache of cacheable entities.
+     * 
+     * @return the second level cache, null if no cache provider is
+     *         configured.
+     */
+    SecondLevelCache getSecondLevelCache()
+    {
+        return secondLevelCache;
+    }
+
+    /**
+     * Gets the cache of parsed queries.
+     * 
+     * @return the query plan cache, null if disabled.
+     */
+    QueryPlanCache getQueryPlanCache()
+    {
+        return queryPlanCache;
+    }
+
     /**
      * Gets the persistence units.
      * 
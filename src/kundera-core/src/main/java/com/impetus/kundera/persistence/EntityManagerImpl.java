@@ -130,6 +130,9 @@ public class EntityManagerImpl implements EntityManager, ResourceManager
         this.persistenceCache.setPersistenceContextType(persistenceContextType);
 
         this.persistenceDelegator = new PersistenceDelegator(this.persistenceCache);
+        this.persistenceDelegator.setFlushExecutor(((EntityManagerFactoryImpl) this.factory).getFlushExecutor());
+        this.persistenceDelegator.setSecondLevelCache(((EntityManagerFactoryImpl) this.factory).getSecondLevelCache());
+        this.persistenceDelegator.setQueryPlanCache(((EntityManagerFactoryImpl) this.factory).getQueryPlanCache());
 
         for (String pu : ((EntityManagerFactoryImpl) this.factory).getPersistenceUnits())
         {
@@ -749,7 +752,27 @@ public class EntityManagerImpl implements EntityManager, ResourceManager
     public <T> T unwrap(Class<T> paramClass)
     {
         checkClosed();
-        throw new NotImplementedException("unwrap currently not supported by Kundera");
+        if (paramClass != null)
+        {
+            if (paramClass.isInstance(this))
+            {
+                return paramClass.cast(this);
+            }
+
+            // extensions offered by clients, e.g. asynchronous operations.
+            Map<String, Client> clientMap = getPersistenceDelegator().getDelegate();
+            if (clientMap != null)
+            {
+                for (Client client : clientMap.values())
+                {
+                    if (paramClass.isInstance(client))
+                    {
+                        return paramClass.cast(client);
+                    }
+                }
+            }
+        }
+        throw new NotImplementedException("unwrap currently not supported by Kundera for " + paramClass);
     }
 
     @Override
@@ -73,6 +73,49 @@ public interface EntityReader
     Object recursivelyFindEntities(Object entity, Map<String, Object> relationsMap, EntityMetadata m,
             PersistenceDelegator pd, boolean lazilyLoaded);
 
+    /**
+     * Recursively fetches associated entities, optionally without attaching
+     * any of them to persistence context. In read only mode lazy and many to
+     * many relations are not populated.
+     * 
+     * @param entity
+     *            entity.
+     * @param relationsMap
+     *            relation name and value map.
+     * @param m
+     *            entity meta data
+     * @param pd
+     *            persistence delegator.
+     * @param lazilyLoaded
+     *            true if invoked over lazily fetched object.
+     * @param readOnly
+     *            true, if entities are not to be attached to persistence
+     *            context.
+     * @return populated entity.
+     */
+    Object recursivelyFindEntities(Object entity, Map<String, Object> relationsMap, EntityMetadata m,
+            PersistenceDelegator pd, boolean lazilyLoaded, boolean readOnly);
+
+    /**
+     * Recursively fetches associated entities for a list of entities, loading
+     * unary relations in batches where configured.
+     * 
+     * @param enhanceEntities
+     *            entities along with relation name and value map.
+     * @param m
+     *            entity meta data
+     * @param pd
+     *            persistence delegator.
+     * @param lazilyLoaded
+     *            true if invoked over lazily fetched object.
+     * @param readOnly
+     *            true, if entities are not to be attached to persistence
+     *            context.
+     * @return populated entities.
+     */
+    List<Object> recursivelyFindEntities(List<EnhanceEntity> enhanceEntities, EntityMetadata m,
+            PersistenceDelegator pd, boolean lazilyLoaded, boolean readOnly);
+
     /**
      * Find by id.
      * 
@@ -88,4 +131,13 @@ public interface EntityReader
      */
     EnhanceEntity findById(Object primaryKey, EntityMetadata m, Client client);
 
+    /**
+     * Returns true, if entities read by {@link Client#findAll} of this
+     * reader's client carry their relation values, i.e. are wrapped into
+     * {@link EnhanceEntity} whenever they hold any.
+     * 
+     * @return true, if findAll reads relations along with entities
+     */
+    boolean isFindAllWithRelations();
+
 }
@@ -0,0 +1,259 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.kundera.persistence;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.impetus.kundera.KunderaException;
+import com.impetus.kundera.client.Client;
+import com.impetus.kundera.graph.Node;
+import com.impetus.kundera.persistence.api.Batcher;
+
+/**
+ * Flushes nodes of different clients (i.e. persistence units) concurrently on
+ * a bounded executor. Nodes of one client are always flushed in flush stack
+ * order by a single task. A node linked (as parent or child) with a node of
+ * another client that comes earlier in flush stack is deferred to a later
+ * wave, so that link values are available when it is written.
+ */
+final class ParallelFlushHandler
+{
+    /** The Constant log. */
+    private static final Logger log = LoggerFactory.getLogger(ParallelFlushHandler.class);
+
+    private final ExecutorService executor;
+
+    /**
+     * Instantiates a new parallel flush handler.
+     * 
+     * @param executor
+     *            executor to submit per client flush tasks to.
+     */
+    ParallelFlushHandler(ExecutorService executor)
+    {
+        this.executor = executor;
+    }
+
+    /**
+     * Flushes given nodes, wave by wave. Returns once all nodes are flushed.
+     * 
+     * @param nodes
+     *            nodes in flush stack order, with client already set.
+     */
+    void flush(List<Node> nodes)
+    {
+        for (List<List<Node>> wave : partition(nodes))
+        {
+            List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>(wave.size());
+            for (final List<Node> clientNodes : wave)
+            {
+                tasks.add(new Callable<Integer>()
+                {
+                    @Override
+                    public Integer call()
+                    {
+                        for (Node node : clientNodes)
+                        {
+                            node.flush();
+                        }
+                        return clientNodes.size();
+                    }
+                });
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    /**
+     * Executes batches of given batchers concurrently.
+     * 
+     * @param batchers
+     *            batchers to execute.
+     * @return true, if join table data is to be flushed afterwards, i.e. if
+     *         any of the batchers has no batch size or executed a non empty
+     *         batch.
+     */
+    boolean executeBatches(Collection<Batcher> batchers)
+    {
+        boolean flushJoinTableData = false;
+        List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>(batchers.size());
+        for (final Batcher batcher : batchers)
+        {
+            if (batcher.getBatchSize() == 0)
+            {
+                flushJoinTableData = true;
+            }
+            else
+            {
+                tasks.add(new Callable<Integer>()
+                {
+                    @Override
+                    public Integer call()
+                    {
+                        return batcher.executeBatch();
+                    }
+                });
+            }
+        }
+
+        for (Integer executed : invokeAll(tasks))
+        {
+            flushJoinTableData = flushJoinTableData || executed > 0;
+        }
+        return flushJoinTableData;
+    }
+
+    /**
+     * Splits nodes into waves of per client node lists. Waves are to be
+     * flushed one after another, client node lists of a wave concurrently.
+     * 
+     * @param nodes
+     *            nodes in flush stack order.
+     * @return waves.
+     */
+    List<List<List<Node>>> partition(List<Node> nodes)
+    {
+        Map<Node, Integer> levels = new HashMap<Node, Integer>();
+        Map<Client, Integer> clientLevels = new HashMap<Client, Integer>();
+        List<Map<Client, List<Node>>> waves = new ArrayList<Map<Client, List<Node>>>();
+
+        for (Node node : nodes)
+        {
+            Client client = node.getClient();
+            Integer clientLevel = clientLevels.get(client);
+            int level = clientLevel != null ? clientLevel : 0;
+
+            level = Math.max(level, getLinkedLevel(node, node.getParents(), levels));
+            level = Math.max(level, getLinkedLevel(node, node.getChildren(), levels));
+
+            levels.put(node, level);
+            clientLevels.put(client, level);
+
+            while (waves.size() <= level)
+            {
+                waves.add(new LinkedHashMap<Client, List<Node>>());
+            }
+            List<Node> clientNodes = waves.get(level).get(client);
+            if (clientNodes == null)
+            {
+                clientNodes = new ArrayList<Node>();
+                waves.get(level).put(client, clientNodes);
+            }
+            clientNodes.add(node);
+        }
+
+        List<List<List<Node>>> result = new ArrayList<List<List<Node>>>(waves.size());
+        for (Map<Client, List<Node>> wave : waves)
+        {
+            result.add(new ArrayList<List<Node>>(wave.values()));
+        }
+        return result;
+    }
+
+    /**
+     * Returns minimum level of node, so that it is flushed after already
+     * levelled linked nodes of other clients.
+     */
+    private int getLinkedLevel(Node node, Map<?, Node> linkedNodes, Map<Node, Integer> levels)
+    {
+        int level = 0;
+        if (linkedNodes != null)
+        {
+            for (Node linkedNode : linkedNodes.values())
+            {
+                Integer linkedLevel = levels.get(linkedNode);
+                if (linkedLevel != null && linkedNode.getClient() != node.getClient())
+                {
+                    level = Math.max(level, linkedLevel + 1);
+                }
+            }
+        }
+        return level;
+    }
+
+    /**
+     * Runs given tasks and waits for all of them, single task is run in
+     * calling thread. First failure, if any, is rethrown once all tasks are
+     * done.
+     */
+    private List<Integer> invokeAll(List<Callable<Integer>> tasks)
+    {
+        List<Integer> results = new ArrayList<Integer>(tasks.size());
+        if (tasks.size() == 1)
+        {
+            try
+            {
+                results.add(tasks.get(0).call());
+            }
+            catch (RuntimeException e)
+            {
+                throw e;
+            }
+            catch (Exception e)
+            {
+                throw new KunderaException(e);
+            }
+            return results;
+        }
+
+        List<Future<Integer>> futures = new ArrayList<Future<Integer>>(tasks.size());
+        for (Callable<Integer> task : tasks)
+        {
+            futures.add(executor.submit(task));
+        }
+
+        RuntimeException failure = null;
+        for (Future<Integer> future : futures)
+        {
+            try
+            {
+                results.add(future.get());
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                failure = failure != null ? failure : new KunderaException(e);
+            }
+            catch (ExecutionException e)
+            {
+                log.error("Error during parallel flush, Caused by: ", e.getCause());
+                if (failure == null)
+                {
+                    failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                            : new KunderaException(e.getCause());
+                }
+            }
+        }
+
+        if (failure != null)
+        {
+            throw failure;
+        }
+        return results;
+    }
+}
@@ -21,9 +21,11 @@ import java.util.Arrays;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.persistence.FlushModeType;
@@ -34,9 +36,11 @@ import org.slf4j.LoggerFactory;
 
 import com.impetus.kundera.KunderaException;
 import com.impetus.kundera.PersistenceProperties;
+import com.impetus.kundera.cache.SecondLevelCache;
 import com.impetus.kundera.client.Client;
 import com.impetus.kundera.client.ClientPropertiesSetter;
 import com.impetus.kundera.client.ClientResolverException;
+import com.impetus.kundera.client.EnhanceEntity;
 import com.impetus.kundera.graph.Node;
 import com.impetus.kundera.graph.ObjectGraph;
 import com.impetus.kundera.graph.ObjectGraphBuilder;
@@ -58,7 +62,9 @@ import com.impetus.kundera.persistence.context.PersistenceCache;
 import com.impetus.kundera.persistence.context.jointable.JoinTableData;
 import com.impetus.kundera.persistence.context.jointable.JoinTableData.OPERATION;
 import com.impetus.kundera.persistence.event.EntityEventDispatcher;
+import com.impetus.kundera.property.PropertyAccessorHelper;
 import com.impetus.kundera.proxy.LazyInitializerFactory;
+import com.impetus.kundera.query.QueryPlanCache;
 import com.impetus.kundera.query.QueryResolver;
 import com.impetus.kundera.utils.ObjectUtils;
 
@@ -100,6 +106,21 @@ public final class PersistenceDelegator
 
     private Coordinator coordinator;
 
+    /** Flushes clients concurrently, null if parallel flush is disabled. */
+    private ParallelFlushHandler parallelFlushHandler;
+
+    /** Second level cache, null if not configured. */
+    private SecondLevelCache secondLevelCache;
+
+    /** Nodes queued on batchers, evicted from second level cache once written. */
+    private Map<Batcher, List<Node>> batchedNodes = new HashMap<Batcher, List<Node>>();
+
+    /** Nodes written on commit, evicted from second level cache after it. */
+    private List<Node> synchronizedNodes = new ArrayList<Node>();
+
+    /** Cache of parsed queries, null if disabled. */
+    private QueryPlanCache queryPlanCache;
+
     /**
      * Instantiates a new persistence delegator.
      * 
@@ -223,15 +244,15 @@ public final class PersistenceDelegator
 
         EntityMetadata entityMetadata = getMetadata(entityClass);
 
-        String nodeId = ObjectGraphUtils.getNodeId(primaryKey, entityClass);
-
         // TODO all the scrap should go from here.
         MainCache mainCache = (MainCache) getPersistenceCache().getMainCache();
-        Node node = mainCache.getNodeFromCache(nodeId);
+        Node node = mainCache.getNodeFromCache(entityClass, primaryKey);
 
-        // if node is not in persistence cache or is dirty, fetch from database
-        if (node == null || node.isDirty())
+        // if node is not in persistence cache, is dirty or partially hydrated,
+        // fetch from database
+        if (node == null || node.isDirty() || node.isPartial())
         {
+            String nodeId = ObjectGraphUtils.getNodeId(primaryKey, entityClass);
             node = new Node(nodeId, entityClass, new ManagedState(), getPersistenceCache(), primaryKey);
             node.setClient(getClient(entityMetadata));
             // TODO ManagedState.java require serious attention.
@@ -254,8 +275,9 @@ public final class PersistenceDelegator
         }
         else
         {
-            E e = (E) ObjectUtils.deepCopy(nodeData);
-            
+            // Node data dirty checked on its snapshot is handed out as is.
+            E e = entityMetadata.isSnapshotDirtyCheck() ? (E) nodeData : (E) ObjectUtils.deepCopy(nodeData);
+
             onSetProxyOwners(entityMetadata,e);
             return e;
         }
@@ -272,7 +294,6 @@ public final class PersistenceDelegator
      * @see {@link PersistenceDelegator#find(Class, Object)}
      * @return List of found entities
      */
-    // TODO Is it possible to pass all primary keys directly to database client.
     public <E> List<E> find(Class<E> entityClass, Object... primaryKeys)
     {
         List<E> entities = new ArrayList<E>();
@@ -280,9 +301,32 @@ public final class PersistenceDelegator
         {
             return entities;
         }
-        Set pKeys = new HashSet(Arrays.asList(primaryKeys));
+        Set<Object> pKeys = new LinkedHashSet<Object>(Arrays.asList(primaryKeys));
+
+        // Keys not in persistence cache (or dirty there) are read in one go.
+        MainCache mainCache = (MainCache) getPersistenceCache().getMainCache();
+        List<Object> keysToLoad = new ArrayList<Object>();
         for (Object primaryKey : pKeys)
         {
+            if (primaryKey == null)
+            {
+                throw new IllegalArgumentException("PrimaryKey value must not be null for object you want to find.");
+            }
+            Node node = mainCache.getNodeFromCache(entityClass, primaryKey);
+            if (node == null || node.isDirty() || node.isPartial())
+            {
+                keysToLoad.add(primaryKey);
+            }
+        }
+        Set<Object> loadedKeys = keysToLoad.size() > 1 ? loadAll(entityClass, keysToLoad) : new HashSet<Object>();
+
+        for (Object primaryKey : pKeys)
+        {
+            // loaded keys missing from cache were not found.
+            if (loadedKeys.contains(primaryKey) && mainCache.getNodeFromCache(entityClass, primaryKey) == null)
+            {
+                continue;
+            }
             E e = find(entityClass, primaryKey);
             if (e != null)
                 entities.add(e);
@@ -290,6 +334,107 @@ public final class PersistenceDelegator
         return entities;
     }
 
+    /**
+     * Reads entities of given keys with a single {@link Client#findAll} call
+     * and puts them into persistence cache as managed nodes. Entities holding
+     * join columns are read so only if client's findAll reads their relation
+     * values as well.
+     * 
+     * @param entityClass
+     *            Entity Class
+     * @param primaryKeys
+     *            keys not in persistence cache
+     * @return keys read, found or not; empty if entities are to be read by
+     *         key one at a time.
+     */
+    private Set<Object> loadAll(Class<?> entityClass, List<Object> primaryKeys)
+    {
+        EntityMetadata entityMetadata = getMetadata(entityClass);
+        Client client = getClient(entityMetadata);
+        EntityReader reader = client.getReader();
+        Set<Object> loadedKeys = new HashSet<Object>();
+        boolean hasJoinColumns = entityMetadata.getRelationNames() != null
+                && !entityMetadata.getRelationNames().isEmpty();
+        if (reader == null || (hasJoinColumns && !reader.isFindAllWithRelations()))
+        {
+            return loadedKeys;
+        }
+
+        try
+        {
+            lock.readLock().lock();
+
+            List<EnhanceEntity> found = new ArrayList<EnhanceEntity>();
+            List<Object> keysToRead = new ArrayList<Object>();
+            for (Object primaryKey : primaryKeys)
+            {
+                EnhanceEntity ee = secondLevelCache != null ? secondLevelCache.get(entityMetadata, primaryKey) : null;
+                if (ee != null)
+                {
+                    found.add(ee);
+                    loadedKeys.add(primaryKey);
+                }
+                else
+                {
+                    keysToRead.add(primaryKey);
+                }
+            }
+
+            List results = keysToRead.isEmpty() ? null : client.findAll(entityClass, null, keysToRead.toArray());
+            if (results != null)
+            {
+                loadedKeys.addAll(keysToRead);
+                for (Object result : results)
+                {
+                    if (result == null)
+                    {
+                        continue;
+                    }
+                    EnhanceEntity ee = result instanceof EnhanceEntity ? (EnhanceEntity) result : new EnhanceEntity(
+                            result, PropertyAccessorHelper.getId(result, entityMetadata), null);
+                    if (secondLevelCache != null)
+                    {
+                        secondLevelCache.put(ee, entityMetadata);
+                    }
+                    found.add(ee);
+                }
+            }
+
+            List<Object> nodeDatas = new ArrayList<Object>(found.size());
+            if (!hasJoinColumns && !entityMetadata.isRelationViaJoinTable())
+            {
+                for (EnhanceEntity ee : found)
+                {
+                    nodeDatas.add(ee.getEntity());
+                }
+            }
+            else
+            {
+                nodeDatas.addAll(reader.recursivelyFindEntities(found, entityMetadata, this, false, false));
+            }
+
+            for (Object nodeData : nodeDatas)
+            {
+                if (nodeData == null)
+                {
+                    continue;
+                }
+                Object primaryKey = PropertyAccessorHelper.getId(nodeData, entityMetadata);
+                ManagedState state = new ManagedState();
+                Node node = new Node(ObjectGraphUtils.getNodeId(primaryKey, entityClass), entityClass, state,
+                        getPersistenceCache(), primaryKey);
+                node.setClient(client);
+                node.setPersistenceDelegator(this);
+                state.onFind(node, nodeData);
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+        return loadedKeys;
+    }
+
     /**
      * Retrieves {@link List} of entities for a given {@link Map} of embedded
      * column values. Purpose of this method is to provide functionality of
@@ -386,6 +531,8 @@ public final class PersistenceDelegator
         if (fs != null)
         {
             boolean isBatch = false;
+            List<Node> parallelNodes = isParallelFlush() ? new ArrayList<Node>(fs.size()) : null;
+            List<Node> flushedNodes = secondLevelCache != null ? new ArrayList<Node>(fs.size()) : null;
             while (!fs.isEmpty())
             {
                 Node node = fs.pop();
@@ -402,20 +549,44 @@ public final class PersistenceDelegator
                     {
                         isBatch = true;
                         ((Batcher) (node.getClient())).addBatch(node);
+                        onBatch((Batcher) node.getClient(), node);
                     }
                     else if (isTransactionInProgress
                             && MetadataUtils.defaultTransactionSupported(metadata.getPersistenceUnit()))
                     {
                         onSynchronization(node, metadata);
+                        if (secondLevelCache != null)
+                        {
+                            synchronizedNodes.add(node);
+                        }
+                    }
+                    else if (parallelNodes != null)
+                    {
+                        parallelNodes.add(node);
                     }
                     else
                     {
                         node.flush();
+                        if (flushedNodes != null)
+                        {
+                            flushedNodes.add(node);
+                        }
                     }
                 }
 
             }
 
+            if (parallelNodes != null && !parallelNodes.isEmpty())
+            {
+                parallelFlushHandler.flush(parallelNodes);
+                if (flushedNodes != null)
+                {
+                    flushedNodes.addAll(parallelNodes);
+                }
+            }
+
+            invalidate(flushedNodes);
+
             if (!isBatch)
             {
                 // TODO : This needs to be look for different
@@ -545,7 +716,7 @@ public final class PersistenceDelegator
     
     private Query getQueryInstance(String jpaQuery, boolean isNative, Class mappedClass)
     {
-        Query query = new QueryResolver().getQueryImplementation(jpaQuery, this,mappedClass,isNative);
+        Query query = new QueryResolver(queryPlanCache).getQueryImplementation(jpaQuery, this, mappedClass, isNative);
         return query;
     }
     /**
@@ -718,6 +889,8 @@ public final class PersistenceDelegator
     {
         enableFlush = true;
         execute();
+        // transaction resources are committed by now.
+        invalidate(synchronizedNodes);
         flushManager.commit();
         flushManager.clearFlushStack();
         isTransactionInProgress = false;
@@ -741,6 +914,8 @@ public final class PersistenceDelegator
     {
         flushManager.rollback(this);
         flushManager.clearFlushStack();
+        batchedNodes.clear();
+        synchronizedNodes.clear();
         getPersistenceCache().clean();
         isTransactionInProgress = false;
     }
@@ -810,7 +985,24 @@ public final class PersistenceDelegator
      */
     private void execute()
     {
-        if (clientMap != null)
+        if (clientMap != null && isParallelFlush())
+        {
+            List<Batcher> batchers = new ArrayList<Batcher>(clientMap.size());
+            for (Client client : clientMap.values())
+            {
+                if (client instanceof Batcher)
+                {
+                    batchers.add((Batcher) client);
+                }
+            }
+
+            // join table data is written once all batches are done.
+            if (parallelFlushHandler.executeBatches(batchers))
+            {
+                flushJoinTableData();
+            }
+        }
+        else if (clientMap != null)
         {
             for (Client client : clientMap.values())
             {
@@ -824,6 +1016,115 @@ public final class PersistenceDelegator
                 }
             }
         }
+
+        // batched nodes are written by now.
+        for (List<Node> nodes : batchedNodes.values())
+        {
+            invalidate(nodes);
+        }
+        batchedNodes.clear();
+    }
+
+    /**
+     * Keeps track of node added to batch of given batcher, for eviction from
+     * second level cache once it is written. Batchers write as soon as batch
+     * size is reached, so the batch is evicted at that point too.
+     * 
+     * @param batcher
+     *            batcher the node is added to.
+     * @param node
+     *            batched node.
+     */
+    private void onBatch(Batcher batcher, Node node)
+    {
+        if (secondLevelCache != null)
+        {
+            List<Node> nodes = batchedNodes.get(batcher);
+            if (nodes == null)
+            {
+                nodes = new ArrayList<Node>();
+                batchedNodes.put(batcher, nodes);
+            }
+            nodes.add(node);
+
+            if (nodes.size() >= batcher.getBatchSize())
+            {
+                invalidate(nodes);
+            }
+        }
+    }
+
+    /**
+     * Evicts entities of written nodes from second level cache and clears the
+     * list.
+     * 
+     * @param nodes
+     *            written nodes, may be null.
+     */
+    private void invalidate(List<Node> nodes)
+    {
+        if (nodes != null)
+        {
+            for (Node node : nodes)
+            {
+                flushManager.invalidate(node);
+            }
+            nodes.clear();
+        }
+    }
+
+    /**
+     * Enables parallel flush of clients on given executor.
+     * 
+     * @param executor
+     *            bounded executor, shared by entity managers of a factory.
+     */
+    void setFlushExecutor(ExecutorService executor)
+    {
+        this.parallelFlushHandler = executor != null ? new ParallelFlushHandler(executor) : null;
+    }
+
+    /**
+     * Enables read through of cacheable entities on find and their
+     * invalidation on flush.
+     * 
+     * @param secondLevelCache
+     *            second level cache, shared by entity managers of a factory.
+     */
+    void setSecondLevelCache(SecondLevelCache secondLevelCache)
+    {
+        this.secondLevelCache = secondLevelCache;
+        this.flushManager.setSecondLevelCache(secondLevelCache);
+    }
+
+    /**
+     * Sets cache of parsed queries.
+     * 
+     * @param queryPlanCache
+     *            query plan cache, shared by entity managers of a factory.
+     */
+    void setQueryPlanCache(QueryPlanCache queryPlanCache)
+    {
+        this.queryPlanCache = queryPlanCache;
+    }
+
+    /**
+     * Gets the second level cache.
+     * 
+     * @return the second level cache, null if not configured.
+     */
+    public SecondLevelCache getSecondLevelCache()
+    {
+        return secondLevelCache;
+    }
+
+    /**
+     * Returns true, if parallel flush is enabled and there is more than one
+     * client to flush to.
+     */
+    private boolean isParallelFlush()
+    {
+        return parallelFlushHandler != null && clientMap.size() > 1;
     }
 
     /**
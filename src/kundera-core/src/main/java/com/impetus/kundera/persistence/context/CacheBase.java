@@ -16,7 +16,6 @@
 package com.impetus.kundera.persistence.context;
 
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -25,56 +24,76 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.impetus.kundera.graph.Node;
-import com.impetus.kundera.graph.NodeLink;
 import com.impetus.kundera.graph.ObjectGraph;
-import com.impetus.kundera.graph.ObjectGraphUtils;
 import com.impetus.kundera.metadata.KunderaMetadataManager;
 import com.impetus.kundera.metadata.model.EntityMetadata;
 import com.impetus.kundera.property.PropertyAccessorHelper;
 import com.impetus.kundera.utils.ObjectUtils;
 
 /**
- * Base class for all cache required in persistence context
+ * Base class for all cache required in persistence context. Node mappings and
+ * head nodes are guarded by this cache, as nodes may be added or removed by
+ * parallel flush.
  * 
  * @author amresh.singh
  */
 public class CacheBase {
     private static Logger log = LoggerFactory.getLogger(CacheBase.class);
 
-    private Map<String, Node> nodeMappings;
+    private NodeMappings nodeMappings;
 
     private Set<Node> headNodes;
 
     public CacheBase() {
         headNodes = new HashSet<Node>();
-        nodeMappings = new HashMap<String, Node>();
+        nodeMappings = new NodeMappings();
     }
 
-    public Node getNodeFromCache(String nodeId) {
+    /**
+     * Returns node for given string node id. Nodes are not keyed by string
+     * ids, prefer {@link #getNodeFromCache(Class, Object)}.
+     */
+    public synchronized Node getNodeFromCache(String nodeId) {
         Node node = nodeMappings.get(nodeId);
         return node;
     }
 
+    /**
+     * Returns node for given entity class and primary key.
+     */
+    public synchronized Node getNodeFromCache(Class<?> entityClass, Object primaryKey) {
+        return nodeMappings.get(entityClass, primaryKey);
+    }
+
     public Node getNodeFromCache(Object entity) {
         if (entity == null) {
             throw new IllegalArgumentException("Entity is null, can't check whether it's in persistence context");
         }
+        Node node;
+        synchronized (this) {
+            node = nodeMappings.getByEntity(entity);
+        }
+        if (node != null) {
+            return node;
+        }
         EntityMetadata entityMetadata = KunderaMetadataManager.getEntityMetadata(entity.getClass());
         Object primaryKey = PropertyAccessorHelper.getId(entity, entityMetadata);
 
         if (primaryKey == null) {
             throw new IllegalArgumentException("Primary key not set into entity");
         }
-        String nodeId = ObjectGraphUtils.getNodeId(primaryKey, entity.getClass());
-        return getNodeFromCache(nodeId);
+        return getNodeFromCache(entity.getClass(), primaryKey);
     }
 
     public void addNodeToCache(Node node) {
         // Make a deep copy of Node data and and set into node
         // Original data object is now detached from Node and is possibly
-        // referred by user code
-        Object nodeDataCopy = ObjectUtils.deepCopy(node.getData());
-        node.setData(nodeDataCopy);
+        // referred by user code. Not required if changes are tracked on
+        // snapshot.
+        if (!isSnapshotDirtyCheck(node)) {
+            Object nodeDataCopy = ObjectUtils.deepCopy(node.getData());
+            node.setData(nodeDataCopy);
+        }
 
         /*
          * check if this node already exists in cache node mappings If yes, update parents and children links Otherwise,
@@ -84,30 +103,34 @@ public class CacheBase {
         processNodeMapping(node);
     }
 
-    public void processNodeMapping(Node node) {
-        if (nodeMappings.containsKey(node.getNodeId())) {
-            Node existingNode = nodeMappings.get(node.getNodeId());
+    public synchronized void processNodeMapping(Node node) {
+        // Snapshot is kept until node is flushed, later merges are compared
+        // with state in database.
+        if (node.getSnapshot() == null) {
+            captureSnapshot(node);
+        }
 
+        Node existingNode = nodeMappings.put(node);
+        if (existingNode != null && existingNode != node) {
+            // Links of replaced node are taken over, its maps are reused if
+            // this node has none.
             if (existingNode.getParents() != null) {
                 if (node.getParents() == null) {
-                    node.setParents(new HashMap<NodeLink, Node>());
+                    node.setParents(existingNode.getParents());
+                } else if (node.getParents() != existingNode.getParents()) {
+                    node.getParents().putAll(existingNode.getParents());
                 }
-                node.getParents().putAll(existingNode.getParents());
             }
 
             if (existingNode.getChildren() != null) {
                 if (node.getChildren() == null) {
-                    node.setChildren(new HashMap<NodeLink, Node>());
+                    node.setChildren(existingNode.getChildren());
+                } else if (node.getChildren() != existingNode.getChildren()) {
+                    node.getChildren().putAll(existingNode.getChildren());
                 }
-                node.getChildren().putAll(existingNode.getChildren());
             }
-
-            nodeMappings.put(node.getNodeId(), node);
-            logCacheEvent("ADDED TO ", node.getNodeId());
-        } else {
-            logCacheEvent("ADDED TO ", node.getNodeId());
-            nodeMappings.put(node.getNodeId(), node);
         }
+        logCacheEvent("ADDED TO ", node.getNodeId());
 
         // If it's a head node, add this to the list of head nodes in
         // Persistence Cache
@@ -116,20 +139,39 @@ public class CacheBase {
         }
     }
 
-    public void removeNodeFromCache(Node node) {
+    /**
+     * Captures snapshot of node data, if entity is dirty checked on snapshots.
+     * Called once node data matches state in database, i.e. when node is
+     * loaded and after it is flushed.
+     */
+    public void captureSnapshot(Node node) {
+        if (isSnapshotDirtyCheck(node)) {
+            node.setSnapshot(EntitySnapshot.capture(node.getData(),
+                    KunderaMetadataManager.getEntityMetadata(node.getDataClass())));
+            node.setDirtyAttributes(null);
+        }
+    }
+
+    private boolean isSnapshotDirtyCheck(Node node) {
+        if (node.getData() == null) {
+            return false;
+        }
+        EntityMetadata m = KunderaMetadataManager.getEntityMetadata(node.getDataClass());
+        return m != null && m.isSnapshotDirtyCheck();
+    }
+
+    public synchronized void removeNodeFromCache(Node node) {
         if (getHeadNodes().contains(node)) {
             getHeadNodes().remove(node);
         }
 
-        if (nodeMappings.get(node.getNodeId()) != null) {
-            nodeMappings.remove(node.getNodeId());
-        }
+        nodeMappings.remove(node);
 
         logCacheEvent("REMOVED FROM ", node.getNodeId());
         node = null; // Eligible for GC
     }
 
-    public void addGraphToCache(ObjectGraph graph, PersistenceCache persistenceCache) {
+    public synchronized void addGraphToCache(ObjectGraph graph, PersistenceCache persistenceCache) {
         // Add each node in the graph to cache
         for (String key : graph.getNodeMapping().keySet()) {
             Node thisNode = graph.getNodeMapping().get(key);
@@ -155,38 +197,41 @@ public class CacheBase {
      * @param nodeMappings
      *            the nodeMappings to set
      */
-    public void setNodeMappings(Map<String, Node> nodeMappings) {
-        this.nodeMappings = nodeMappings;
+    public synchronized void setNodeMappings(Map<String, Node> nodeMappings) {
+        this.nodeMappings.clear();
+        for (Node node : nodeMappings.values()) {
+            this.nodeMappings.put(node);
+        }
     }
 
     /**
      * @return the headNodes
      */
-    public Set<Node> getHeadNodes() {
+    public synchronized Set<Node> getHeadNodes() {
         return headNodes;
     }
 
-    public void addHeadNode(Node headNode) {
+    public synchronized void addHeadNode(Node headNode) {
         headNodes.add(headNode);
     }
 
-    public int size() {
+    public synchronized int size() {
         return nodeMappings.size();
     }
 
-    public Collection<Node> getAllNodes() {
+    public synchronized Collection<Node> getAllNodes() {
         return nodeMappings.values();
     }
 
     /**
      * 
      */
-    public void clear() {
+    public synchronized void clear() {
         this.nodeMappings.clear();
         this.headNodes.clear();
         this.nodeMappings=null;
         this.headNodes=null;
-        nodeMappings = new HashMap<String, Node>();
+        nodeMappings = new NodeMappings();
         headNodes = new HashSet<Node>();
     }
 }
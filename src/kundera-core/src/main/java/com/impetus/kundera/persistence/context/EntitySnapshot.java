@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.kundera.persistence.context;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.Entity;
+import javax.persistence.metamodel.Attribute;
+
+import com.impetus.kundera.metadata.KunderaMetadataManager;
+import com.impetus.kundera.metadata.model.EntityMetadata;
+import com.impetus.kundera.property.PropertyAccessorHelper;
+import com.impetus.kundera.proxy.ProxyHelper;
+import com.impetus.kundera.utils.ValueCopier;
+
+/**
+ * Snapshot of a managed entity's state as last loaded or flushed, used for
+ * dirty checking in place of a deep copy of the entity. Holds one value per
+ * attribute, positioned by {@link EntityMetadata#getIndexedAttributes()}.
+ * Immutable basic values are shared with the entity, related entities are
+ * kept by their ids and any other value by a copy of its content, compared
+ * by equality. Copies of mutable values take as much heap as in a deep copy.
+ */
+public final class EntitySnapshot
+{
+    /** Placeholder for lazily loaded associations. */
+    private static final Object UNLOADED = new Object();
+
+    /** Copies values into comparable form. */
+    private static final ValueCopier copier = new SnapshotCopier();
+
+    /** Attribute values. */
+    private final Object[] values;
+
+    private EntitySnapshot(Object[] values)
+    {
+        this.values = values;
+    }
+
+    /**
+     * Captures snapshot of given entity.
+     * 
+     * @param entity
+     *            entity object
+     * @param m
+     *            entity metadata
+     * @return entity snapshot
+     */
+    public static EntitySnapshot capture(Object entity, EntityMetadata m)
+    {
+        Attribute[] attributes = m.getIndexedAttributes();
+        Object[] values = new Object[attributes.length];
+        for (int i = 0; i < attributes.length; i++)
+        {
+            values[i] = snapshotOf(entity, attributes[i]);
+        }
+        return new EntitySnapshot(values);
+    }
+
+    /**
+     * Compares given entity with this snapshot and returns indexes of
+     * attributes which differ.
+     * 
+     * @param entity
+     *            entity object
+     * @param m
+     *            entity metadata
+     * @return dirty attribute indexes, empty if entity is unchanged
+     */
+    public BitSet getDirtyAttributes(Object entity, EntityMetadata m)
+    {
+        Attribute[] attributes = m.getIndexedAttributes();
+        BitSet dirtyAttributes = new BitSet(attributes.length);
+        for (int i = 0; i < attributes.length; i++)
+        {
+            Object value = snapshotOf(entity, attributes[i]);
+            if (i >= values.length || !isEqual(values[i], value))
+            {
+                dirtyAttributes.set(i);
+            }
+        }
+        return dirtyAttributes;
+    }
+
+    private static boolean isEqual(Object o1, Object o2)
+    {
+        // deepEquals compares primitive array copies by content.
+        return Arrays.deepEquals(new Object[] { o1 }, new Object[] { o2 });
+    }
+
+    private static Object snapshotOf(Object entity, Attribute attribute)
+    {
+        return copier.copy(PropertyAccessorHelper.getObject(entity, (Field) attribute.getJavaMember()));
+    }
+
+    /**
+     * Copies values into a form compared by equality. Related entities are
+     * copied as their ids only, so changes inside them are left to their own
+     * snapshots.
+     */
+    private static final class SnapshotCopier extends ValueCopier
+    {
+        @Override
+        protected Object copyReference(Object value)
+        {
+            if (ProxyHelper.isProxyOrCollection(value))
+            {
+                return UNLOADED;
+            }
+            EntityMetadata m = value.getClass().isAnnotationPresent(Entity.class) ? KunderaMetadataManager
+                    .getEntityMetadata(value.getClass()) : null;
+            if (m != null)
+            {
+                return copy(PropertyAccessorHelper.getId(value, m));
+            }
+            // no generic way to copy it, e.g. Locale, or already being copied.
+            return value;
+        }
+
+        @Override
+        protected Object newArray(Class<?> arrayType, Object[] elements)
+        {
+            return new ValueCopy(arrayType, elements);
+        }
+
+        @Override
+        protected Collection<Object> newCollection(Collection source)
+        {
+            // Copied elements may not suit a sorted collection's comparator.
+            return source instanceof Set ? new HashSet<Object>() : new ArrayList<Object>(source.size());
+        }
+
+        @Override
+        protected Map<Object, Object> newMap(Map source)
+        {
+            return new HashMap<Object, Object>();
+        }
+
+        @Override
+        protected Object newObject(Class<?> type, Field[] fields, Object[] values)
+        {
+            return new ValueCopy(type, values);
+        }
+    }
+
+    /**
+     * Copy of an object array or of fields of an embedded object.
+     */
+    private static final class ValueCopy
+    {
+        private final Class<?> type;
+
+        private final Object[] values;
+
+        private ValueCopy(Class<?> type, Object[] values)
+        {
+            this.type = type;
+            this.values = values;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof ValueCopy))
+            {
+                return false;
+            }
+            ValueCopy other = (ValueCopy) obj;
+            return type.equals(other.type) && Arrays.deepEquals(values, other.values);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * type.hashCode() + Arrays.deepHashCode(values);
+        }
+    }
+}
@@ -29,6 +29,7 @@ import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.impetus.kundera.cache.SecondLevelCache;
 import com.impetus.kundera.client.Client;
 import com.impetus.kundera.graph.Node;
 import com.impetus.kundera.graph.NodeLink;
@@ -72,6 +73,9 @@ public class FlushManager
     /** The Constant log. */
     private static final Logger log = LoggerFactory.getLogger(FlushManager.class);
 
+    /** Second level cache, null if not configured. */
+    private SecondLevelCache secondLevelCache;
+
     /**
      * Instantiates a new flush manager.
      */
@@ -436,6 +440,7 @@ public class FlushManager
                         {
                             client.persist(node.getOriginalNode());
                         }
+                        invalidate(node);
                     }
                     // mark it null for garbage collection.
                     event = null;
@@ -493,6 +498,33 @@ public class FlushManager
         eventLogQueue.onEvent(log, eventType);
     }
 
+    /**
+     * Sets the second level cache, entries of which are invalidated as nodes
+     * are rolled back.
+     * 
+     * @param secondLevelCache
+     *            the second level cache
+     */
+    public void setSecondLevelCache(SecondLevelCache secondLevelCache)
+    {
+        this.secondLevelCache = secondLevelCache;
+    }
+
+    /**
+     * Evicts entity of given node from second level cache.
+     * 
+     * @param node
+     *            the node
+     */
+    public void invalidate(Node node)
+    {
+        if (secondLevelCache != null)
+        {
+            secondLevelCache.evict(KunderaMetadataManager.getEntityMetadata(node.getDataClass()),
+                    node.getEntityId());
+        }
+    }
+
     private void rollbackJoinTableData(PersistenceDelegator delegator)
     {
         // on deleting join table data.
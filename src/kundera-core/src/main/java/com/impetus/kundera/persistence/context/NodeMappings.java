@@ -0,0 +1,302 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.kundera.persistence.context;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.impetus.kundera.graph.Node;
+import com.impetus.kundera.graph.ObjectGraphUtils;
+import com.impetus.kundera.metadata.KunderaMetadataManager;
+import com.impetus.kundera.metadata.model.EntityMetadata;
+import com.impetus.kundera.property.PropertyAccessorFactory;
+
+/**
+ * Nodes of a persistence context cache, keyed by entity class index and
+ * entity id. Lookups don't build string node ids, entity to node lookups go
+ * through an identity map first.
+ */
+final class NodeMappings
+{
+    /** Indexes of entity classes, shared by all persistence contexts. */
+    private static final Map<Class<?>, Integer> classIndexes = new ConcurrentHashMap<Class<?>, Integer>();
+
+    private static final AtomicInteger nextClassIndex = new AtomicInteger();
+
+    /** Id types compared by value, other ids are compared by string form. */
+    private static final List<Class<?>> valueIdTypes = Arrays.<Class<?>> asList(String.class, Integer.class,
+            Long.class, Short.class, Byte.class, Character.class, Boolean.class, Float.class, Double.class,
+            BigInteger.class, BigDecimal.class, UUID.class, Date.class);
+
+    /** Nodes of an entity class. */
+    private static final class ClassNodes
+    {
+        /** Id type, null if ids are keyed by their string form. */
+        private final Class<?> idType;
+
+        private final Map<Object, Node> nodes = new HashMap<Object, Node>();
+
+        private ClassNodes(Class<?> idType)
+        {
+            this.idType = idType;
+        }
+    }
+
+    private ClassNodes[] classNodes = new ClassNodes[16];
+
+    /** Entity object to node, valid as long as node data is the same object. */
+    private final Map<Object, Node> entityNodes = new IdentityHashMap<Object, Node>();
+
+    private int size;
+
+    /**
+     * Returns node for given entity class and id.
+     */
+    Node get(Class<?> entityClass, Object id)
+    {
+        ClassNodes slot = getClassNodes(entityClass, false);
+        return slot != null ? slot.nodes.get(getKey(slot, id)) : null;
+    }
+
+    /**
+     * Returns node holding given entity object, if any.
+     */
+    Node getByEntity(Object entity)
+    {
+        Node node = entityNodes.get(entity);
+        return node != null && node.getData() == entity ? node : null;
+    }
+
+    /**
+     * Returns node for given string node id, by scanning nodes of the cache.
+     */
+    Node get(String nodeId)
+    {
+        for (ClassNodes slot : classNodes)
+        {
+            if (slot != null)
+            {
+                for (Node node : slot.nodes.values())
+                {
+                    if (node.getNodeId().equals(nodeId))
+                    {
+                        return node;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Puts given node, returns node it replaces, if any.
+     */
+    Node put(Node node)
+    {
+        ClassNodes slot = getClassNodes(node.getDataClass(), true);
+        Node existingNode = slot.nodes.put(getKey(slot, getEntityId(node)), node);
+        if (existingNode == null)
+        {
+            size++;
+        }
+        else if (existingNode.getData() != null)
+        {
+            entityNodes.remove(existingNode.getData());
+        }
+        if (node.getData() != null)
+        {
+            entityNodes.put(node.getData(), node);
+        }
+        return existingNode;
+    }
+
+    /**
+     * Removes given node, returns removed node, if any.
+     */
+    Node remove(Node node)
+    {
+        ClassNodes slot = getClassNodes(node.getDataClass(), false);
+        Node removedNode = slot != null ? slot.nodes.remove(getKey(slot, getEntityId(node))) : null;
+        if (removedNode != null)
+        {
+            size--;
+            if (removedNode.getData() != null)
+            {
+                entityNodes.remove(removedNode.getData());
+            }
+        }
+        return removedNode;
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    Collection<Node> values()
+    {
+        List<Node> nodes = new ArrayList<Node>(size);
+        for (ClassNodes slot : classNodes)
+        {
+            if (slot != null)
+            {
+                nodes.addAll(slot.nodes.values());
+            }
+        }
+        return nodes;
+    }
+
+    void clear()
+    {
+        classNodes = new ClassNodes[16];
+        entityNodes.clear();
+        size = 0;
+    }
+
+    private ClassNodes getClassNodes(Class<?> entityClass, boolean create)
+    {
+        int index = getClassIndex(entityClass);
+        if (index >= classNodes.length)
+        {
+            if (!create)
+            {
+                return null;
+            }
+            classNodes = Arrays.copyOf(classNodes, Math.max(index + 1, classNodes.length * 2));
+        }
+        ClassNodes slot = classNodes[index];
+        if (slot == null && create)
+        {
+            slot = new ClassNodes(getIdType(entityClass));
+            classNodes[index] = slot;
+        }
+        return slot;
+    }
+
+    private static int getClassIndex(Class<?> entityClass)
+    {
+        Integer index = classIndexes.get(entityClass);
+        if (index == null)
+        {
+            synchronized (classIndexes)
+            {
+                index = classIndexes.get(entityClass);
+                if (index == null)
+                {
+                    index = nextClassIndex.getAndIncrement();
+                    classIndexes.put(entityClass, index);
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns id type of entity class if its ids are compared by value,
+     * otherwise null.
+     */
+    private static Class<?> getIdType(Class<?> entityClass)
+    {
+        EntityMetadata m = KunderaMetadataManager.getEntityMetadata(entityClass);
+        if (m == null || m.getIdAttribute() == null)
+        {
+            return null;
+        }
+        Class<?> idType = wrap(m.getIdAttribute().getJavaType());
+        return valueIdTypes.contains(idType) ? idType : null;
+    }
+
+    /**
+     * Returns map key of id. Ids of other type than declared one (e.g. string
+     * form of a numeric id) are converted, so that both map to same node.
+     */
+    private static Object getKey(ClassNodes slot, Object id)
+    {
+        if (slot.idType == null)
+        {
+            return id.toString();
+        }
+        if (slot.idType.isInstance(id))
+        {
+            return id;
+        }
+        try
+        {
+            return PropertyAccessorFactory.getPropertyAccessor(slot.idType).fromString(slot.idType, id.toString());
+        }
+        catch (RuntimeException e)
+        {
+            return id.toString();
+        }
+    }
+
+    private static Object getEntityId(Node node)
+    {
+        return node.getEntityId() != null ? node.getEntityId() : ObjectGraphUtils.getEntityId(node.getNodeId());
+    }
+
+    private static Class<?> wrap(Class<?> type)
+    {
+        if (!type.isPrimitive())
+        {
+            return type;
+        }
+        if (type == int.class)
+        {
+            return Integer.class;
+        }
+        if (type == long.class)
+        {
+            return Long.class;
+        }
+        if (type == short.class)
+        {
+            return Short.class;
+        }
+        if (type == byte.class)
+        {
+            return Byte.class;
+        }
+        if (type == char.class)
+        {
+            return Character.class;
+        }
+        if (type == boolean.class)
+        {
+            return Boolean.class;
+        }
+        if (type == float.class)
+        {
+            return Float.class;
+        }
+        if (type == double.class)
+        {
+            return Double.class;
+        }
+        return type;
+    }
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.kundera.persistence.context;
+
+import java.util.BitSet;
+import java.util.Map;
+
+import com.google.common.collect.MapMaker;
+import com.impetus.kundera.metadata.model.EntityMetadata;
+
+/**
+ * Keeps track of partially hydrated entities, read by queries fetching a
+ * subset of entity's columns. Attributes which were not read are neither
+ * written back on merge nor served from persistence cache on find, and
+ * relations which were not read are not fetched. Entities are held weakly and
+ * compared by identity.
+ */
+public final class PartialEntities
+{
+    /** Loaded attribute indexes, by entity instance. */
+    private static final Map<Object, BitSet> loadedAttributes = new MapMaker().weakKeys().makeMap();
+
+    private PartialEntities()
+    {
+    }
+
+    /**
+     * Returns indexes of given attributes and of id attribute, positioned as
+     * per {@link EntityMetadata#getIndexedAttributes()}.
+     * 
+     * @param m
+     *            entity metadata
+     * @param attributeNames
+     *            names of attributes read, unknown names are ignored
+     * @return loaded attribute indexes
+     */
+    public static BitSet getAttributeIndexes(EntityMetadata m, String... attributeNames)
+    {
+        BitSet loaded = new BitSet(m.getIndexedAttributes().length);
+        int idIndex = m.getAttributeIndex(m.getIdAttribute().getName());
+        if (idIndex >= 0)
+        {
+            loaded.set(idIndex);
+        }
+        for (String attributeName : attributeNames)
+        {
+            int index = attributeName != null ? m.getAttributeIndex(attributeName) : -1;
+            if (index >= 0)
+            {
+                loaded.set(index);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Marks entity as partially hydrated. Nothing is marked if all attributes
+     * of entity are loaded.
+     * 
+     * @param entity
+     *            entity object
+     * @param m
+     *            entity metadata
+     * @param loaded
+     *            loaded attribute indexes
+     */
+    public static void mark(Object entity, EntityMetadata m, BitSet loaded)
+    {
+        if (entity != null && loaded.cardinality() < m.getIndexedAttributes().length)
+        {
+            loadedAttributes.put(entity, loaded);
+        }
+    }
+
+    /**
+     * @param entity
+     *            entity object
+     * @return loaded attribute indexes, null if entity is not partially
+     *         hydrated
+     */
+    public static BitSet getLoadedAttributes(Object entity)
+    {
+        return entity != null ? loadedAttributes.get(entity) : null;
+    }
+}
@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.kundera.property;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Optional counterpart of {@link PropertyAccessor#toBytes(Object)} and
+ * {@link PropertyAccessor#fromBytes(Class, byte[])} for accessors that can
+ * write into a caller provided {@link RowBuffer} and read from a
+ * {@link ByteBuffer} slice, without allocating an intermediate byte[].
+ * 
+ * Implementations must produce exactly the bytes <code>toBytes</code> produces
+ * and accept exactly what <code>fromBytes</code> accepts.
+ * 
+ * @param <T>
+ *            the generic type
+ */
+public interface BinaryEncoder<T>
+{
+    /**
+     * Appends encoded value to buffer.
+     * 
+     * @param value
+     *            the value
+     * @param buffer
+     *            target buffer
+     * @return number of bytes written, or -1 if value is null and nothing was
+     *         written.
+     */
+    int encode(Object value, RowBuffer buffer);
+
+    /**
+     * Decodes value held between position and limit of given buffer. Buffer
+     * position is left untouched.
+     * 
+     * @param targetClass
+     *            the target class
+     * @param bytes
+     *            the bytes
+     * @return decoded value
+     */
+    T decode(Class targetClass, ByteBuffer bytes);
+}
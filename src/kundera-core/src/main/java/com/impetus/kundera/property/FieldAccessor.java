@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.kundera.property;
+
+import java.lang.reflect.Field;
+
+/**
+ * Reads and writes value of a single entity field. Implementations are built
+ * once per field (at metamodel load time) and shared across threads.
+ */
+public interface FieldAccessor
+{
+
+    /**
+     * Returns value of field for given target object.
+     * 
+     * @param target
+     *            the target
+     * @return the field value
+     */
+    Object get(Object target);
+
+    /**
+     * Sets value of field onto given target object.
+     * 
+     * @param target
+     *            the target
+     * @param value
+     *            the value
+     */
+    void set(Object target, Object value);
+
+    /**
+     * Returns field this accessor is built for.
+     * 
+     * @return the field
+     */
+    Field getField();
+}
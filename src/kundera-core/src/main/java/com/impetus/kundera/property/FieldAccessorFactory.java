@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.kundera.property;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds {@link FieldAccessor} for each entity field. Accessors are registered
+ * at metamodel load time using configured {@link Strategy} (see
+ * {@link com.impetus.kundera.PersistenceProperties#KUNDERA_FIELD_ACCESSOR}),
+ * any other field is lazily assigned a reflection based accessor.
+ * <p>
+ * Accessors are held per field, not per persistence unit, so the strategy is
+ * shared by all persistence units of the JVM: the first one registering an
+ * accessor sets it and a persistence unit configuring another one fails to
+ * load.
+ */
+public final class FieldAccessorFactory
+{
+
+    /** The log. */
+    private static Logger log = LoggerFactory.getLogger(FieldAccessorFactory.class);
+
+    /** Field to accessor map. */
+    private static Map<Field, FieldAccessor> accessors = new ConcurrentHashMap<Field, FieldAccessor>();
+
+    /** Strategy of registered accessors, null until first registration. */
+    private static Strategy strategy;
+
+    /**
+     * Field access strategy, builds accessor of a field. Custom strategies are
+     * configured by class name and need a public no argument constructor.
+     */
+    public static interface Strategy
+    {
+        /**
+         * Builds accessor for field.
+         * 
+         * @param field
+         *            the field
+         * @return field accessor
+         */
+        FieldAccessor buildAccessor(Field field);
+    }
+
+    /** Reflective Field.get/set on fields made accessible once, default. */
+    public static final Strategy REFLECTION = new Strategy()
+    {
+        @Override
+        public FieldAccessor buildAccessor(Field field)
+        {
+            return new ReflectionFieldAccessor(field);
+        }
+
+        @Override
+        public String toString()
+        {
+            return "reflection";
+        }
+    };
+
+    /** Accessor classes generated per field, see {@link FieldAccessorGenerator}. */
+    public static final Strategy GENERATED = new FieldAccessorGenerator();
+
+    private FieldAccessorFactory()
+    {
+
+    }
+
+    /**
+     * Returns strategy for given name, "reflection", "generated" or class name
+     * of a {@link Strategy} implementation. Default is {@link #REFLECTION}.
+     * 
+     * @param name
+     *            strategy name
+     * @return the strategy
+     */
+    public static Strategy getStrategy(String name)
+    {
+        if (name == null || name.trim().equalsIgnoreCase(REFLECTION.toString()))
+        {
+            return REFLECTION;
+        }
+        if (name.trim().equalsIgnoreCase(GENERATED.toString()))
+        {
+            return GENERATED;
+        }
+        try
+        {
+            return (Strategy) Class.forName(name.trim()).newInstance();
+        }
+        catch (Exception e)
+        {
+            log.warn("Invalid field accessor strategy {}, using {}, Caused by: {}.", new Object[] { name, REFLECTION,
+                    e.getMessage() });
+            return REFLECTION;
+        }
+    }
+
+    /**
+     * Returns accessor for given field.
+     * 
+     * @param field
+     *            the field
+     * @return field accessor
+     */
+    public static FieldAccessor getFieldAccessor(Field field)
+    {
+        FieldAccessor accessor = accessors.get(field);
+        if (accessor == null)
+        {
+            accessor = new ReflectionFieldAccessor(field);
+            accessors.put(field, accessor);
+        }
+        return accessor;
+    }
+
+    /**
+     * Builds and registers accessor for given field using provided strategy.
+     * 
+     * @param field
+     *            the field
+     * @param strategy
+     *            access strategy
+     * @return field accessor
+     * @throws IllegalStateException
+     *             if accessors were registered using another strategy.
+     */
+    public static FieldAccessor register(Field field, Strategy strategy)
+    {
+        setStrategy(strategy);
+        FieldAccessor accessor = buildAccessor(field, strategy);
+        accessors.put(field, accessor);
+        return accessor;
+    }
+
+    /**
+     * Builds accessor for field.
+     * 
+     * @param field
+     *            the field
+     * @param strategy
+     *            access strategy
+     * @return field accessor
+     */
+    static FieldAccessor buildAccessor(Field field, Strategy strategy)
+    {
+        return strategy.buildAccessor(field);
+    }
+
+    /**
+     * Clears registered accessors and strategy.
+     */
+    static synchronized void reset()
+    {
+        accessors.clear();
+        strategy = null;
+    }
+
+    private static synchronized void setStrategy(Strategy strategy)
+    {
+        if (FieldAccessorFactory.strategy == null)
+        {
+            FieldAccessorFactory.strategy = strategy;
+        }
+        else if (!FieldAccessorFactory.strategy.getClass().equals(strategy.getClass()))
+        {
+            throw new IllegalStateException("Field accessor strategy " + strategy + " conflicts with "
+                    + FieldAccessorFactory.strategy + ", used by another persistence unit of this JVM.");
+        }
+    }
+}
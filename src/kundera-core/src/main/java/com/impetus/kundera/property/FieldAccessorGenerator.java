@@ -0,0 +1,317 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.kundera.property;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtMethod;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+import javassist.NotFoundException;
+import javassist.bytecode.CodeAttribute;
+import javassist.bytecode.ConstPool;
+import javassist.bytecode.Opcode;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link FieldAccessorFactory.Strategy} generating, with javassist, an accessor
+ * class per field. Generated classes are defined in the package and class
+ * loader of the entity and access the field with plain bytecode, no
+ * reflection:
+ * <ul>
+ * <li>non private fields are read and written directly.</li>
+ * <li>private fields, not accessible from another class, through their getter
+ * and setter if both only read and write the field. Instances of subclasses,
+ * e.g. lazy loading proxies, whose accessor methods may do more, are accessed
+ * by reflection.</li>
+ * </ul>
+ * Other fields (final, private without plain accessor methods, or of types not
+ * visible from entity's package) get a {@link ReflectionFieldAccessor}.
+ */
+public class FieldAccessorGenerator implements FieldAccessorFactory.Strategy
+{
+
+    /** The log. */
+    private static Logger log = LoggerFactory.getLogger(FieldAccessorGenerator.class);
+
+    /** Suffix making generated class names unique. */
+    private static final AtomicInteger counter = new AtomicInteger();
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * com.impetus.kundera.property.FieldAccessorFactory.Strategy#buildAccessor
+     * (java.lang.reflect.Field)
+     */
+    @Override
+    public FieldAccessor buildAccessor(Field field)
+    {
+        Class<?> declaringClass = field.getDeclaringClass();
+        int modifiers = field.getModifiers();
+        if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || declaringClass.getClassLoader() == null
+                || !isVisible(declaringClass, declaringClass) || !isVisible(field.getType(), declaringClass))
+        {
+            return new ReflectionFieldAccessor(field);
+        }
+
+        ClassPool pool = new ClassPool(false);
+        pool.appendClassPath(new LoaderClassPath(declaringClass.getClassLoader()));
+        pool.appendClassPath(new LoaderClassPath(GeneratedFieldAccessor.class.getClassLoader()));
+        try
+        {
+            String getter;
+            String setter;
+            if (!Modifier.isPrivate(modifiers))
+            {
+                getter = field.getName();
+                setter = field.getName() + " = ";
+            }
+            else
+            {
+                CtClass entity = pool.get(declaringClass.getName());
+                getter = getPlainGetter(entity, field);
+                setter = getPlainSetter(entity, field);
+                if (getter == null || setter == null)
+                {
+                    return new ReflectionFieldAccessor(field);
+                }
+                getter += "()";
+            }
+            return generate(pool, field, getter, setter, Modifier.isPrivate(modifiers));
+        }
+        catch (Exception e)
+        {
+            log.debug("Using reflection to access {}, Caused by: {}.", field, e.getMessage());
+            return new ReflectionFieldAccessor(field);
+        }
+        catch (LinkageError e)
+        {
+            log.debug("Using reflection to access {}, Caused by: {}.", field, e.getMessage());
+            return new ReflectionFieldAccessor(field);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "generated";
+    }
+
+    private FieldAccessor generate(ClassPool pool, Field field, String getter, String setter, boolean checkClass)
+            throws Exception
+    {
+        Class<?> declaringClass = field.getDeclaringClass();
+        String entity = getTypeName(declaringClass);
+        CtClass accessorClass = pool.makeClass(declaringClass.getName() + "$$KunderaAccessor$" + field.getName() + "$"
+                + counter.incrementAndGet());
+        accessorClass.setSuperclass(pool.get(GeneratedFieldAccessor.class.getName()));
+
+        // instances of subclasses may override accessor methods.
+        String fallbackGet = checkClass ? "if (!isDeclaringClassInstance($1)) "
+                + "{ return getReflectionAccessor().get($1); } " : "";
+        String fallbackSet = checkClass ? "if (!isDeclaringClassInstance($1)) "
+                + "{ getReflectionAccessor().set($1, $2); return; } " : "";
+        String assignment = "((" + entity + ") $1)." + setter + getUnboxed(field.getType())
+                + (setter.endsWith(" = ") ? ";" : ");");
+        if (field.getType().isPrimitive())
+        {
+            // other values are converted, or rejected, by reflection.
+            assignment = "if ($2 instanceof " + getWrapper(field.getType()) + ") { " + assignment
+                    + " } else { getReflectionAccessor().set($1, $2); }";
+        }
+        accessorClass.addMethod(CtNewMethod.make("protected Object doGet(Object target) { " + fallbackGet
+                + "return ($w) ((" + entity + ") $1)." + getter + "; }", accessorClass));
+        accessorClass.addMethod(CtNewMethod.make("protected void doSet(Object target, Object value) { " + fallbackSet
+                + assignment + " }", accessorClass));
+
+        try
+        {
+            Class<?> clazz = accessorClass.toClass(declaringClass.getClassLoader(),
+                    declaringClass.getProtectionDomain());
+            GeneratedFieldAccessor accessor = (GeneratedFieldAccessor) clazz.newInstance();
+            accessor.init(field);
+            return accessor;
+        }
+        finally
+        {
+            accessorClass.detach();
+        }
+    }
+
+    /**
+     * Returns name of getter of field, if it only returns the field.
+     */
+    private String getPlainGetter(CtClass entity, Field field) throws NotFoundException
+    {
+        String suffix = Character.toUpperCase(field.getName().charAt(0)) + field.getName().substring(1);
+        String[] names = field.getType() == boolean.class ? new String[] { "is" + suffix, "get" + suffix }
+                : new String[] { "get" + suffix };
+        for (String name : names)
+        {
+            CtMethod method = getMethod(entity, name, new CtClass[0]);
+            if (method != null && method.getReturnType().getName().equals(getTypeName(field.getType()))
+                    && isPlain(method, field, new int[] { Opcode.ALOAD_0, Opcode.GETFIELD, 0, 0, returnOpcode(field) }))
+            {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns setter call prefix of field, if setter only writes the field.
+     */
+    private String getPlainSetter(CtClass entity, Field field) throws NotFoundException
+    {
+        String name = "set" + Character.toUpperCase(field.getName().charAt(0)) + field.getName().substring(1);
+        CtMethod method = getMethod(entity, name, new CtClass[] { entity.getClassPool().get(
+                getTypeName(field.getType())) });
+        if (method != null && method.getReturnType() == CtClass.voidType
+                && isPlain(method, field, new int[] { Opcode.ALOAD_0, loadOpcode(field), Opcode.PUTFIELD, 0, 0,
+                        Opcode.RETURN }))
+        {
+            return name + "(";
+        }
+        return null;
+    }
+
+    private CtMethod getMethod(CtClass entity, String name, CtClass[] parameters)
+    {
+        try
+        {
+            CtMethod method = entity.getDeclaredMethod(name, parameters);
+            int modifiers = method.getModifiers();
+            return javassist.Modifier.isPrivate(modifiers) || javassist.Modifier.isStatic(modifiers) ? null : method;
+        }
+        catch (NotFoundException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Checks method's bytecode against expected one, zeros standing for the
+     * index of field in constant pool.
+     */
+    private boolean isPlain(CtMethod method, Field field, int[] expected)
+    {
+        CodeAttribute code = method.getMethodInfo().getCodeAttribute();
+        if (code == null || code.getCodeLength() != expected.length)
+        {
+            return false;
+        }
+        byte[] bytes = code.getCode();
+        for (int i = 0; i < expected.length; i++)
+        {
+            if (expected[i] == Opcode.GETFIELD || expected[i] == Opcode.PUTFIELD)
+            {
+                int index = ((bytes[i + 1] & 0xff) << 8) | (bytes[i + 2] & 0xff);
+                ConstPool constPool = code.getConstPool();
+                if ((bytes[i] & 0xff) != expected[i] || !field.getName().equals(constPool.getFieldrefName(index))
+                        || !field.getDeclaringClass().getName().equals(constPool.getFieldrefClassName(index)))
+                {
+                    return false;
+                }
+                i += 2;
+            }
+            else if ((bytes[i] & 0xff) != expected[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int returnOpcode(Field field)
+    {
+        Class<?> type = field.getType();
+        if (!type.isPrimitive())
+        {
+            return Opcode.ARETURN;
+        }
+        return type == long.class ? Opcode.LRETURN : type == float.class ? Opcode.FRETURN
+                : type == double.class ? Opcode.DRETURN : Opcode.IRETURN;
+    }
+
+    private static int loadOpcode(Field field)
+    {
+        Class<?> type = field.getType();
+        if (!type.isPrimitive())
+        {
+            return Opcode.ALOAD_1;
+        }
+        return type == long.class ? Opcode.LLOAD_1 : type == float.class ? Opcode.FLOAD_1
+                : type == double.class ? Opcode.DLOAD_1 : Opcode.ILOAD_1;
+    }
+
+    /**
+     * Returns source casting value argument to field type.
+     */
+    private static String getUnboxed(Class<?> type)
+    {
+        if (!type.isPrimitive())
+        {
+            return "(" + getTypeName(type) + ") $2";
+        }
+        return "((" + getWrapper(type) + ") $2)." + type.getName() + "Value()";
+    }
+
+    private static String getWrapper(Class<?> type)
+    {
+        String name = type == int.class ? "Integer" : type == char.class ? "Character" : Character.toUpperCase(type
+                .getName().charAt(0)) + type.getName().substring(1);
+        return "java.lang." + name;
+    }
+
+    private static String getTypeName(Class<?> type)
+    {
+        return type.isArray() ? getTypeName(type.getComponentType()) + "[]" : type.getName();
+    }
+
+    /**
+     * Whether type can be referenced by a class of entity's package and class
+     * loader.
+     */
+    private static boolean isVisible(Class<?> type, Class<?> entity)
+    {
+        while (type.isArray())
+        {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive())
+        {
+            return true;
+        }
+        int modifiers = type.getModifiers();
+        boolean visible = Modifier.isPublic(modifiers)
+                || (!Modifier.isPrivate(modifiers) && type.getClassLoader() == entity.getClassLoader()
+                        && getPackageName(type).equals(getPackageName(entity)));
+        return visible && (type.getEnclosingClass() == null || isVisible(type.getEnclosingClass(), entity));
+    }
+
+    private static String getPackageName(Class<?> type)
+    {
+        int index = type.getName().lastIndexOf('.');
+        return index >= 0 ? type.getName().substring(0, index) : "";
+    }
+}
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.kundera.property;
+
+import java.lang.reflect.Field;
+
+/**
+ * Base class of {@link FieldAccessor}s generated by
+ * {@link FieldAccessorGenerator}. Generated subclasses read and write the
+ * field with plain bytecode, this class turns failures into
+ * {@link PropertyAccessException}s, as {@link ReflectionFieldAccessor} does.
+ */
+public abstract class GeneratedFieldAccessor implements FieldAccessor
+{
+
+    /** The field. */
+    private Field field;
+
+    /** Accessor of instances of other classes than field's declaring one. */
+    private FieldAccessor reflectionAccessor;
+
+    /**
+     * Reads field of target.
+     * 
+     * @param target
+     *            the target
+     * @return the field value
+     */
+    protected abstract Object doGet(Object target);
+
+    /**
+     * Writes field of target.
+     * 
+     * @param target
+     *            the target
+     * @param value
+     *            the value
+     */
+    protected abstract void doSet(Object target, Object value);
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.impetus.kundera.property.FieldAccessor#get(java.lang.Object)
+     */
+    @Override
+    public final Object get(Object target)
+    {
+        try
+        {
+            return doGet(target);
+        }
+        catch (ClassCastException e)
+        {
+            throw new PropertyAccessException(e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.impetus.kundera.property.FieldAccessor#set(java.lang.Object,
+     * java.lang.Object)
+     */
+    @Override
+    public final void set(Object target, Object value)
+    {
+        try
+        {
+            doSet(target, value);
+        }
+        catch (ClassCastException e)
+        {
+            throw new PropertyAccessException(e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.impetus.kundera.property.FieldAccessor#getField()
+     */
+    @Override
+    public Field getField()
+    {
+        return field;
+    }
+
+    /**
+     * Generated accessors calling getter and setter of a private field use
+     * reflection for instances of subclasses, whose accessor methods may be
+     * overridden (e.g. by lazy loading proxies).
+     * 
+     * @param target
+     *            the target
+     * @return true, if target is an instance of field's declaring class only.
+     */
+    protected final boolean isDeclaringClassInstance(Object target)
+    {
+        return target.getClass() == field.getDeclaringClass();
+    }
+
+    /**
+     * Returns reflection based accessor of the field, also used to set
+     * primitive fields from values other than their wrapper type (widening
+     * conversions, null).
+     * 
+     * @return field accessor
+     */
+    protected final FieldAccessor getReflectionAccessor()
+    {
+        return reflectionAccessor;
+    }
+
+    void init(Field field)
+    {
+        this.field = field;
+        this.reflectionAccessor = new ReflectionFieldAccessor(field);
+    }
+}
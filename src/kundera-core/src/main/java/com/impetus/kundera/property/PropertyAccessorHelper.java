@@ -17,6 +17,7 @@ package com.impetus.kundera.property;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
@@ -55,6 +56,22 @@ public class PropertyAccessorHelper
         set(target, field, value);
     }
 
+    /**
+     * Sets a byte buffer onto a field, decoding it in place when the field's
+     * accessor is a {@link BinaryEncoder}.
+     * 
+     * @param target
+     *            the target
+     * @param field
+     *            the field
+     * @param bytes
+     *            the bytes, read between position and limit
+     */
+    public static void set(Object target, Field field, ByteBuffer bytes)
+    {
+        set(target, field, getObject(field.getType(), PropertyAccessorFactory.getPropertyAccessor(field), bytes));
+    }
+
     /**
      * Sets a byte-array onto a field.
      * 
@@ -90,23 +107,7 @@ public class PropertyAccessorHelper
      */
     public static void set(Object target, Field field, Object value)
     {
-
-        if (!field.isAccessible())
-        {
-            field.setAccessible(true);
-        }
-        try
-        {
-            field.set(target, value);
-        }
-        catch (IllegalArgumentException iarg)
-        {
-            throw new PropertyAccessException(iarg);
-        }
-        catch (IllegalAccessException iacc)
-        {
-            throw new PropertyAccessException(iacc);
-        }
+        FieldAccessorFactory.getFieldAccessor(field).set(target, value);
     }
 
     /**
@@ -124,24 +125,7 @@ public class PropertyAccessorHelper
      */
     public static Object getObject(Object from, Field field)
     {
-
-        if (!field.isAccessible())
-        {
-            field.setAccessible(true);
-        }
-
-        try
-        {
-            return field.get(from);
-        }
-        catch (IllegalArgumentException iarg)
-        {
-            throw new PropertyAccessException(iarg);
-        }
-        catch (IllegalAccessException iacc)
-        {
-            throw new PropertyAccessException(iacc);
-        }
+        return FieldAccessorFactory.getFieldAccessor(field).get(from);
     }
 
     /**
@@ -153,25 +137,8 @@ public class PropertyAccessorHelper
      */
     public static Object getObjectCopy(Object from, Field field)
     {
-
-        if (!field.isAccessible())
-        {
-            field.setAccessible(true);
-        }
-
-        try
-        {
-            PropertyAccessor<?> accessor = PropertyAccessorFactory.getPropertyAccessor(field);
-            return accessor.getCopy(field.get(from));
-        }
-        catch (IllegalArgumentException iarg)
-        {
-            throw new PropertyAccessException(iarg);
-        }
-        catch (IllegalAccessException iacc)
-        {
-            throw new PropertyAccessException(iacc);
-        }
+        PropertyAccessor<?> accessor = PropertyAccessorFactory.getPropertyAccessor(field);
+        return accessor.getCopy(getObject(from, field));
     }
 
     /**
@@ -495,6 +462,43 @@ public class PropertyAccessorHelper
         return accessor.toBytes(o);
     }
 
+    /**
+     * Appends bytes of given field value to buffer, the same bytes
+     * {@link #toBytes(Object, Field)} would return.
+     * 
+     * @return number of bytes written, or -1 for null.
+     */
+    public static final int encode(Object o, Field f, RowBuffer buffer)
+    {
+        return encode(o, PropertyAccessorFactory.getPropertyAccessor(f), buffer);
+    }
+
+    /**
+     * Appends bytes of given value to buffer, the same bytes
+     * {@link #toBytes(Object, Class)} would return.
+     * 
+     * @return number of bytes written, or -1 for null.
+     */
+    public static final int encode(Object o, Class c, RowBuffer buffer)
+    {
+        return encode(o, PropertyAccessorFactory.getPropertyAccessor(c), buffer);
+    }
+
+    private static int encode(Object o, PropertyAccessor accessor, RowBuffer buffer)
+    {
+        if (accessor instanceof BinaryEncoder)
+        {
+            return ((BinaryEncoder) accessor).encode(o, buffer);
+        }
+        byte[] b = accessor.toBytes(o);
+        if (b == null)
+        {
+            return -1;
+        }
+        buffer.put(b, 0, b.length);
+        return b.length;
+    }
+
     public static Object fromSourceToTargetClass(Class<?> targetClass, Class<?> sourceClass, Object o)
     {
         if (!targetClass.equals(sourceClass))
@@ -534,6 +538,24 @@ public class PropertyAccessorHelper
         return PropertyAccessorFactory.getPropertyAccessor(clazz).fromBytes(clazz, b);
     }
 
+    public static Object getObject(Class clazz, ByteBuffer b)
+    {
+        return getObject(clazz, PropertyAccessorFactory.getPropertyAccessor(clazz), b);
+    }
+
+    private static Object getObject(Class clazz, PropertyAccessor accessor, ByteBuffer b)
+    {
+        if (b == null)
+        {
+            return accessor.fromBytes(clazz, null);
+        }
+        if (accessor instanceof BinaryEncoder)
+        {
+            return ((BinaryEncoder) accessor).decode(clazz, b);
+        }
+        return accessor.fromBytes(clazz, RowBuffer.toArray(b));
+    }
+
     public static final Collection getCollectionInstance(Field collectionField)
     {
         if (collectionField != null)
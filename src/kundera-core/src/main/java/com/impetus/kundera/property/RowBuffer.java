@@ -0,0 +1,283 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.kundera.property;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Growable byte buffer that encoders write column values into. A data handler
+ * typically allocates one per row, lets every {@link BinaryEncoder} append its
+ * value and then hands out {@link #slice(int, int)} views to the client API
+ * instead of one byte[] per column.
+ * 
+ * Slices keep referring to the array they were taken from, so they stay valid
+ * when the buffer grows; they are invalidated by {@link #clear()} though, hence
+ * a buffer must not be reused while slices of it are still pending.
+ */
+public final class RowBuffer
+{
+    /** Default initial capacity. */
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private byte[] buf;
+
+    private int position;
+
+    /**
+     * Instantiates a new row buffer with default capacity.
+     */
+    public RowBuffer()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Instantiates a new row buffer.
+     * 
+     * @param capacity
+     *            initial capacity in bytes
+     */
+    public RowBuffer(int capacity)
+    {
+        if (capacity < 0)
+        {
+            throw new IllegalArgumentException("Invalid capacity " + capacity);
+        }
+        buf = new byte[capacity];
+    }
+
+    /**
+     * Ensures room for <code>length</code> more bytes.
+     * 
+     * @param length
+     *            number of bytes about to be written
+     */
+    public void ensureCapacity(int length)
+    {
+        int required = position + length;
+        if (required > buf.length)
+        {
+            byte[] grown = new byte[Math.max(required, buf.length << 1)];
+            System.arraycopy(buf, 0, grown, 0, position);
+            buf = grown;
+        }
+    }
+
+    public RowBuffer put(byte b)
+    {
+        ensureCapacity(1);
+        buf[position++] = b;
+        return this;
+    }
+
+    public RowBuffer put(byte[] src, int offset, int length)
+    {
+        ensureCapacity(length);
+        System.arraycopy(src, offset, buf, position, length);
+        position += length;
+        return this;
+    }
+
+    public RowBuffer putShort(int value)
+    {
+        ensureCapacity(2);
+        buf[position++] = (byte) (value >>> 8);
+        buf[position++] = (byte) value;
+        return this;
+    }
+
+    public RowBuffer putInt(int value)
+    {
+        ensureCapacity(4);
+        buf[position++] = (byte) (value >>> 24);
+        buf[position++] = (byte) (value >>> 16);
+        buf[position++] = (byte) (value >>> 8);
+        buf[position++] = (byte) value;
+        return this;
+    }
+
+    public RowBuffer putLong(long value)
+    {
+        ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8)
+        {
+            buf[position++] = (byte) (value >>> shift);
+        }
+        return this;
+    }
+
+    /**
+     * Appends UTF-8 encoded characters of given string, without any
+     * intermediate byte[].
+     * 
+     * @param value
+     *            string to encode
+     * @return number of bytes written
+     */
+    public int putUTF8(String value)
+    {
+        int start = position;
+        int length = value.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++)
+        {
+            char c = value.charAt(i);
+            if (c < 0x80)
+            {
+                ensureCapacity(1);
+                buf[position++] = (byte) c;
+            }
+            else if (c < 0x800)
+            {
+                ensureCapacity(2);
+                buf[position++] = (byte) (0xc0 | (c >> 6));
+                buf[position++] = (byte) (0x80 | (c & 0x3f));
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1)))
+            {
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                ensureCapacity(4);
+                buf[position++] = (byte) (0xf0 | (cp >> 18));
+                buf[position++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                buf[position++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                buf[position++] = (byte) (0x80 | (cp & 0x3f));
+            }
+            else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE)
+            {
+                // unpaired surrogate, same replacement String.getBytes uses.
+                ensureCapacity(1);
+                buf[position++] = (byte) '?';
+            }
+            else
+            {
+                ensureCapacity(3);
+                buf[position++] = (byte) (0xe0 | (c >> 12));
+                buf[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buf[position++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return position - start;
+    }
+
+    /**
+     * @return current write position, i.e. number of bytes written so far.
+     */
+    public int position()
+    {
+        return position;
+    }
+
+    /**
+     * @return backing array, valid up to {@link #position()}.
+     */
+    public byte[] array()
+    {
+        return buf;
+    }
+
+    /**
+     * Returns a view over <code>length</code> bytes starting at
+     * <code>start</code>. No bytes are copied.
+     */
+    public ByteBuffer slice(int start, int length)
+    {
+        return ByteBuffer.wrap(buf, start, length).slice();
+    }
+
+    /**
+     * Copies given region into a new array, for APIs that insist on owning
+     * their byte[].
+     */
+    public byte[] toBytes(int start, int length)
+    {
+        byte[] copy = new byte[length];
+        System.arraycopy(buf, start, copy, 0, length);
+        return copy;
+    }
+
+    /**
+     * Resets the write position, keeping the allocated array.
+     */
+    public void clear()
+    {
+        position = 0;
+    }
+
+    /**
+     * Reads a big endian int at the current position of given buffer, without
+     * moving it.
+     */
+    public static int readInt(ByteBuffer bytes)
+    {
+        int p = bytes.position();
+        return (bytes.get(p) << 24) | ((bytes.get(p + 1) & 0xff) << 16) | ((bytes.get(p + 2) & 0xff) << 8)
+                | (bytes.get(p + 3) & 0xff);
+    }
+
+    /**
+     * Reads a big endian long at the current position of given buffer, without
+     * moving it.
+     */
+    public static long readLong(ByteBuffer bytes)
+    {
+        int p = bytes.position();
+        long value = 0;
+        for (int i = 0; i < 8; i++)
+        {
+            value = (value << 8) | (bytes.get(p + i) & 0xff);
+        }
+        return value;
+    }
+
+    /**
+     * Returns remaining bytes of given buffer as an array, sharing the backing
+     * array when it exactly matches.
+     */
+    public static byte[] toArray(ByteBuffer bytes)
+    {
+        if (bytes.hasArray() && bytes.arrayOffset() == 0 && bytes.position() == 0
+                && bytes.remaining() == bytes.array().length)
+        {
+            return bytes.array();
+        }
+        byte[] copy = new byte[bytes.remaining()];
+        bytes.duplicate().get(copy);
+        return copy;
+    }
+
+    /**
+     * @return an output stream appending to this buffer.
+     */
+    public OutputStream asOutputStream()
+    {
+        return new OutputStream()
+        {
+            @Override
+            public void write(int b)
+            {
+                put((byte) b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len)
+            {
+                put(b, off, len);
+            }
+        };
+    }
+}
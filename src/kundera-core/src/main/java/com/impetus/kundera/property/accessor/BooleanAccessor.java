@@ -15,15 +15,19 @@
  ******************************************************************************/
 package com.impetus.kundera.property.accessor;
 
+import java.nio.ByteBuffer;
+
+import com.impetus.kundera.property.BinaryEncoder;
 import com.impetus.kundera.property.PropertyAccessException;
 import com.impetus.kundera.property.PropertyAccessor;
+import com.impetus.kundera.property.RowBuffer;
 
 /**
  * The Class BooleanAccessor.
  * 
  * @author Amresh Singh
  */
-public class BooleanAccessor implements PropertyAccessor<Boolean>
+public class BooleanAccessor implements PropertyAccessor<Boolean>, BinaryEncoder<Boolean>
 {
 
     /*
@@ -104,4 +108,33 @@ public class BooleanAccessor implements PropertyAccessor<Boolean>
     {
         return Boolean.TRUE;
     }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.impetus.kundera.property.BinaryEncoder#encode(java.lang.Object,
+     * com.impetus.kundera.property.RowBuffer)
+     */
+    @Override
+    public int encode(Object object, RowBuffer buffer)
+    {
+        if (object == null)
+        {
+            return -1;
+        }
+        buffer.put((byte) ((Boolean) object ? 0x01 : 0x00));
+        return 1;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.impetus.kundera.property.BinaryEncoder#decode(java.lang.Class,
+     * java.nio.ByteBuffer)
+     */
+    @Override
+    public Boolean decode(Class targetClass, ByteBuffer bytes)
+    {
+        return (bytes == null || !bytes.hasRemaining()) ? false : bytes.get(bytes.position()) != 0x00;
+    }
 }
@@ -15,15 +15,19 @@
  ******************************************************************************/
 package com.impetus.kundera.property.accessor;
 
+import java.nio.ByteBuffer;
+
+import com.impetus.kundera.property.BinaryEncoder;
 import com.impetus.kundera.property.PropertyAccessException;
 import com.impetus.kundera.property.PropertyAccessor;
+import com.impetus.kundera.property.RowBuffer;
 
 /**
  * The Class CharAccessor.
  * 
  * @author Amresh Singh
  */
-public class CharAccessor implements PropertyAccessor<Character>
+public class CharAccessor implements PropertyAccessor<Character>, BinaryEncoder<Character>
 {
 
     /*
@@ -128,4 +132,38 @@ public class CharAccessor implements PropertyAccessor<Character>
     {
         return Character.MAX_VALUE;
     }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.impetus.kundera.property.BinaryEncoder#encode(java.lang.Object,
+     * com.impetus.kundera.property.RowBuffer)
+     */
+    @Override
+    public int encode(Object object, RowBuffer buffer)
+    {
+        if (object == null)
+        {
+            return -1;
+        }
+        char data = object.getClass().isAssignableFrom(String.class) ? ((String) object).charAt(0)
+                : (Character) object;
+        buffer.putShort(data);
+        return 2;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.impetus.kundera.property.BinaryEncoder#decode(java.lang.Class,
+     * java.nio.ByteBuffer)
+     */
+    @Override
+    public Character decode(Class targetClass, ByteBuffer bytes)
+    {
+        if (bytes == null || bytes.remaining() != 2)
+            return 0x0;
+        int p = bytes.position();
+        return (char) ((0xff & bytes.get(p)) << 8 | (0xff & bytes.get(p + 1)));
+    }
 }
@@ -15,6 +15,7 @@
  ******************************************************************************/
 package com.impetus.kundera.property.accessor;
 
+import java.nio.ByteBuffer;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -26,15 +27,17 @@ import java.util.Locale;
 import org.apache.commons.lang.StringUtils;
 
 import com.impetus.kundera.Constants;
+import com.impetus.kundera.property.BinaryEncoder;
 import com.impetus.kundera.property.PropertyAccessException;
 import com.impetus.kundera.property.PropertyAccessor;
+import com.impetus.kundera.property.RowBuffer;
 
 /**
  * The Class DateAccessor.
  * 
  * @author animesh.kumar
  */
-public class DateAccessor implements PropertyAccessor<Date>
+public class DateAccessor implements PropertyAccessor<Date>, BinaryEncoder<Date>
 {
 
     /** The Constant DATE_FORMATTER. */
@@ -257,4 +260,41 @@ public class DateAccessor implements PropertyAccessor<Date>
     {
         return new Date();
     }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.impetus.kundera.property.BinaryEncoder#encode(java.lang.Object,
+     * com.impetus.kundera.property.RowBuffer)
+     */
+    @Override
+    public int encode(Object date, RowBuffer buffer)
+    {
+        if (date == null)
+        {
+            return -1;
+        }
+        buffer.putLong(((Date) date).getTime());
+        return 8;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.impetus.kundera.property.BinaryEncoder#decode(java.lang.Class,
+     * java.nio.ByteBuffer)
+     */
+    @Override
+    public Date decode(Class targetClass, ByteBuffer bytes)
+    {
+        if (bytes == null)
+        {
+            return null;
+        }
+        if (bytes.remaining() == 8)
+        {
+            return new Date(RowBuffer.readLong(bytes));
+        }
+        return fromBytes(targetClass, RowBuffer.toArray(bytes));
+    }
 }
\ No newline at end of file
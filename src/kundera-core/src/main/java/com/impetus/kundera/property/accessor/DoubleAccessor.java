@@ -15,15 +15,19 @@
  ******************************************************************************/
 package com.impetus.kundera.property.accessor;
 
+import java.nio.ByteBuffer;
+
+import com.impetus.kundera.property.BinaryEncoder;
 import com.impetus.kundera.property.PropertyAccessException;
 import com.impetus.kundera.property.PropertyAccessor;
+import com.impetus.kundera.property.RowBuffer;
 
 /**
  * The Class DoubleAccessor.
  * 
  * @author Amresh Singh
  */
-public class DoubleAccessor implements PropertyAccessor<Double>
+public class DoubleAccessor implements PropertyAccessor<Double>, BinaryEncoder<Double>
 {
 
     /*
@@ -133,4 +137,35 @@ public class DoubleAccessor implements PropertyAccessor<Double>
     {
         return Double.MAX_VALUE;
     }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.impetus.kundera.property.BinaryEncoder#encode(java.lang.Object,
+     * com.impetus.kundera.property.RowBuffer)
+     */
+    @Override
+    public int encode(Object object, RowBuffer buffer)
+    {
+        if (object == null)
+        {
+            return -1;
+        }
+        buffer.putLong(Double.doubleToRawLongBits((Double) object));
+        return 8;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.impetus.kundera.property.BinaryEncoder#decode(java.lang.Class,
+     * java.nio.ByteBuffer)
+     */
+    @Override
+    public Double decode(Class targetClass, ByteBuffer bytes)
+    {
+        if (bytes == null || bytes.remaining() != 8)
+            return (double) 0x0;
+        return Double.longBitsToDouble(RowBuffer.readLong(bytes));
+    }
 }
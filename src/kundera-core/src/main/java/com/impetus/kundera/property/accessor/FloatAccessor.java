@@ -15,15 +15,19 @@
  ******************************************************************************/
 package com.impetus.kundera.property.accessor;
 
+import java.nio.ByteBuffer;
+
+import com.impetus.kundera.property.BinaryEncoder;
 import com.impetus.kundera.property.PropertyAccessException;
 import com.impetus.kundera.property.PropertyAccessor;
+import com.impetus.kundera.property.RowBuffer;
 
 /**
  * The Class FloatAccessor.
  * 
  * @author Amresh Singh
  */
-public class FloatAccessor implements PropertyAccessor<Float>
+public class FloatAccessor implements PropertyAccessor<Float>, BinaryEncoder<Float>
 {
 
     /*
@@ -128,4 +132,35 @@ public class FloatAccessor implements PropertyAccessor<Float>
     {
         return Float.MAX_VALUE;
     }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.impetus.kundera.property.BinaryEncoder#encode(java.lang.Object,
+     * com.impetus.kundera.property.RowBuffer)
+     */
+    @Override
+    public int encode(Object object, RowBuffer buffer)
+    {
+        if (object == null)
+        {
+            return -1;
+        }
+        buffer.putInt(Float.floatToRawIntBits((Float) object));
+        return 4;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.impetus.kundera.property.BinaryEncoder#decode(java.lang.Class,
+     * java.nio.ByteBuffer)
+     */
+    @Override
+    public Float decode(Class targetClass, ByteBuffer bytes)
+    {
+        if (bytes == null || bytes.remaining() != 4)
+            return (float) 0x0;
+        return Float.intBitsToFloat(RowBuffer.readInt(bytes));
+    }
 }
@@ -15,15 +15,19 @@
  ******************************************************************************/
 package com.impetus.kundera.property.accessor;
 
+import java.nio.ByteBuffer;
+
+import com.impetus.kundera.property.BinaryEncoder;
 import com.impetus.kundera.property.PropertyAccessException;
 import com.impetus.kundera.property.PropertyAccessor;
+import com.impetus.kundera.property.RowBuffer;
 
 /**
  * The Class IntegerAccessor.
  * 
  * @author animesh.kumar
  */
-public class IntegerAccessor implements PropertyAccessor<Integer>
+public class IntegerAccessor implements PropertyAccessor<Integer>, BinaryEncoder<Integer>
 {
 
     /* @see com.impetus.kundera.property.PropertyAccessor#fromBytes(byte[]) */
@@ -107,4 +111,37 @@ public class IntegerAccessor implements PropertyAccessor<Integer>
     {
         return Integer.MAX_VALUE;
     }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.impetus.kundera.property.BinaryEncoder#encode(java.lang.Object,
+     * com.impetus.kundera.property.RowBuffer)
+     */
+    @Override
+    public final int encode(Object val, RowBuffer buffer)
+    {
+        if (val == null)
+        {
+            return -1;
+        }
+        buffer.putInt((Integer) val);
+        return 4;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.impetus.kundera.property.BinaryEncoder#decode(java.lang.Class,
+     * java.nio.ByteBuffer)
+     */
+    @Override
+    public final Integer decode(Class targetClass, ByteBuffer bytes)
+    {
+        if (bytes == null)
+        {
+            return null;
+        }
+        return RowBuffer.readInt(bytes);
+    }
 }
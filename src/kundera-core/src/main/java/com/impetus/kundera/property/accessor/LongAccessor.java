@@ -17,15 +17,17 @@ package com.impetus.kundera.property.accessor;
 
 import java.nio.ByteBuffer;
 
+import com.impetus.kundera.property.BinaryEncoder;
 import com.impetus.kundera.property.PropertyAccessException;
 import com.impetus.kundera.property.PropertyAccessor;
+import com.impetus.kundera.property.RowBuffer;
 
 /**
  * The Class LongAccessor.
  * 
  * @author animesh.kumar
  */
-public class LongAccessor implements PropertyAccessor<Long>
+public class LongAccessor implements PropertyAccessor<Long>, BinaryEncoder<Long>
 {
 
     /*
@@ -109,4 +111,37 @@ public class LongAccessor implements PropertyAccessor<Long>
     {
         return Long.MAX_VALUE;
     }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.impetus.kundera.property.BinaryEncoder#encode(java.lang.Object,
+     * com.impetus.kundera.property.RowBuffer)
+     */
+    @Override
+    public final int encode(Object object, RowBuffer buffer)
+    {
+        if (object == null)
+        {
+            return -1;
+        }
+        buffer.putLong((Long) object);
+        return 8;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.impetus.kundera.property.BinaryEncoder#decode(java.lang.Class,
+     * java.nio.ByteBuffer)
+     */
+    @Override
+    public final Long decode(Class targetClass, ByteBuffer bytes)
+    {
+        if (bytes == null || bytes.remaining() != 8)
+        {
+            return null;
+        }
+        return RowBuffer.readLong(bytes);
+    }
 }
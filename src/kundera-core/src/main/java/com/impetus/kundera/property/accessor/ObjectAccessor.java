@@ -22,19 +22,22 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.impetus.kundera.property.BinaryEncoder;
 import com.impetus.kundera.property.PropertyAccessException;
 import com.impetus.kundera.property.PropertyAccessor;
+import com.impetus.kundera.property.RowBuffer;
 
 /**
  * The Class ObjectAccessor.
  * 
  * @author animesh.kumar
  */
-public class ObjectAccessor implements PropertyAccessor<Object>
+public class ObjectAccessor implements PropertyAccessor<Object>, BinaryEncoder<Object>
 {
 
     public static Logger log = LoggerFactory.getLogger(ObjectAccessor.class);
@@ -227,4 +230,72 @@ public class ObjectAccessor implements PropertyAccessor<Object>
             return null;
         }
     }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.impetus.kundera.property.BinaryEncoder#encode(java.lang.Object,
+     * com.impetus.kundera.property.RowBuffer)
+     */
+    @Override
+    public final int encode(Object o, RowBuffer buffer)
+    {
+        if (o == null)
+        {
+            return -1;
+        }
+        if (o instanceof byte[])
+        {
+            byte[] b = (byte[]) o;
+            buffer.put(b, 0, b.length);
+            return b.length;
+        }
+        int start = buffer.position();
+        try
+        {
+            ObjectOutputStream oos = new ObjectOutputStream(buffer.asOutputStream());
+            oos.writeObject(o);
+            oos.close();
+        }
+        catch (IOException e)
+        {
+            throw new PropertyAccessException(e);
+        }
+        return buffer.position() - start;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.impetus.kundera.property.BinaryEncoder#decode(java.lang.Class,
+     * java.nio.ByteBuffer)
+     */
+    @Override
+    public final Object decode(Class targetClass, ByteBuffer bytes)
+    {
+        if (bytes == null)
+        {
+            return null;
+        }
+        if ((targetClass != null && targetClass.equals(byte[].class)) || !bytes.hasArray())
+        {
+            return fromBytes(targetClass, RowBuffer.toArray(bytes));
+        }
+        try
+        {
+            ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes.array(), bytes.arrayOffset()
+                    + bytes.position(), bytes.remaining()));
+            Object o = ois.readObject();
+            ois.close();
+            return o;
+        }
+        catch (IOException e)
+        {
+            throw new PropertyAccessException(e);
+        }
+        catch (ClassNotFoundException e)
+        {
+            throw new PropertyAccessException(e);
+        }
+    }
 }
@@ -15,15 +15,19 @@
  ******************************************************************************/
 package com.impetus.kundera.property.accessor;
 
+import java.nio.ByteBuffer;
+
+import com.impetus.kundera.property.BinaryEncoder;
 import com.impetus.kundera.property.PropertyAccessException;
 import com.impetus.kundera.property.PropertyAccessor;
+import com.impetus.kundera.property.RowBuffer;
 
 /**
  * The Class ShortAccessor.
  * 
  * @author Amresh Singh
  */
-public class ShortAccessor implements PropertyAccessor<Short>
+public class ShortAccessor implements PropertyAccessor<Short>, BinaryEncoder<Short>
 {
 
     /*
@@ -114,4 +118,38 @@ public class ShortAccessor implements PropertyAccessor<Short>
     {
         return Short.MAX_VALUE;
     }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.impetus.kundera.property.BinaryEncoder#encode(java.lang.Object,
+     * com.impetus.kundera.property.RowBuffer)
+     */
+    @Override
+    public int encode(Object object, RowBuffer buffer)
+    {
+        if (object == null)
+        {
+            return -1;
+        }
+        Short s = object.getClass().isAssignableFrom(String.class) ? Short.valueOf(object.toString())
+                : (Short) object;
+        buffer.putShort(s);
+        return 2;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.impetus.kundera.property.BinaryEncoder#decode(java.lang.Class,
+     * java.nio.ByteBuffer)
+     */
+    @Override
+    public Short decode(Class targetClass, ByteBuffer bytes)
+    {
+        if (bytes == null || bytes.remaining() != 2)
+            return 0x0;
+        int p = bytes.position();
+        return (short) ((0xff & bytes.get(p)) << 8 | (0xff & bytes.get(p + 1)));
+    }
 }
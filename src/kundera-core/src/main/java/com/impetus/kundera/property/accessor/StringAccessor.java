@@ -16,17 +16,20 @@
 package com.impetus.kundera.property.accessor;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 
 import com.impetus.kundera.Constants;
+import com.impetus.kundera.property.BinaryEncoder;
 import com.impetus.kundera.property.PropertyAccessException;
 import com.impetus.kundera.property.PropertyAccessor;
+import com.impetus.kundera.property.RowBuffer;
 
 /**
  * The Class StringAccessor.
  * 
  * @author animesh.kumar
  */
-public class StringAccessor implements PropertyAccessor<String>
+public class StringAccessor implements PropertyAccessor<String>, BinaryEncoder<String>
 {
 
     /* @see com.impetus.kundera.property.PropertyAccessor#fromBytes(byte[]) */
@@ -110,4 +113,44 @@ public class StringAccessor implements PropertyAccessor<String>
     {
         return new String();
     }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.impetus.kundera.property.BinaryEncoder#encode(java.lang.Object,
+     * com.impetus.kundera.property.RowBuffer)
+     */
+    @Override
+    public final int encode(Object s, RowBuffer buffer)
+    {
+        return s != null ? buffer.putUTF8((String) s) : -1;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.impetus.kundera.property.BinaryEncoder#decode(java.lang.Class,
+     * java.nio.ByteBuffer)
+     */
+    @Override
+    public final String decode(Class targetClass, ByteBuffer bytes)
+    {
+        if (bytes == null)
+        {
+            return null;
+        }
+        try
+        {
+            if (bytes.hasArray())
+            {
+                return new String(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining(),
+                        Constants.ENCODING);
+            }
+            return new String(RowBuffer.toArray(bytes), Constants.ENCODING);
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            throw new PropertyAccessException(e);
+        }
+    }
 }
@@ -15,17 +15,20 @@
  ******************************************************************************/
 package com.impetus.kundera.property.accessor;
 
+import java.nio.ByteBuffer;
 import java.util.UUID;
 
+import com.impetus.kundera.property.BinaryEncoder;
 import com.impetus.kundera.property.PropertyAccessException;
 import com.impetus.kundera.property.PropertyAccessor;
+import com.impetus.kundera.property.RowBuffer;
 
 /**
  * The Class UUIDAccessor.
  * 
  * @author kcarlson
  */
-public class UUIDAccessor implements PropertyAccessor<UUID>
+public class UUIDAccessor implements PropertyAccessor<UUID>, BinaryEncoder<UUID>
 {
 
     /*
@@ -194,4 +197,45 @@ public class UUIDAccessor implements PropertyAccessor<UUID>
     {
         return UUID.randomUUID();
     }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.impetus.kundera.property.BinaryEncoder#encode(java.lang.Object,
+     * com.impetus.kundera.property.RowBuffer)
+     */
+    @Override
+    public int encode(Object object, RowBuffer buffer)
+    {
+        if (object == null)
+        {
+            return -1;
+        }
+        UUID uuid = (UUID) object;
+        buffer.putLong(uuid.getMostSignificantBits());
+        buffer.putLong(uuid.getLeastSignificantBits());
+        return 16;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.impetus.kundera.property.BinaryEncoder#decode(java.lang.Class,
+     * java.nio.ByteBuffer)
+     */
+    @Override
+    public UUID decode(Class targetClass, ByteBuffer bytes)
+    {
+        if (bytes == null)
+        {
+            return null;
+        }
+        if (bytes.remaining() < 16)
+        {
+            throw new PropertyAccessException("Invalid UUID length " + bytes.remaining());
+        }
+        ByteBuffer lsb = bytes.duplicate();
+        lsb.position(bytes.position() + 8);
+        return new UUID(RowBuffer.readLong(bytes), RowBuffer.readLong(lsb));
+    }
 }
\ No newline at end of file
@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -928,6 +929,70 @@ public class KunderaQuery
 
     }
 
+    /**
+     * Returns a copy of this parsed query, sharing parse results but having
+     * its own clauses, so parameters can be bound to it independently.
+     * 
+     * @return copy of this query
+     */
+    KunderaQuery copy()
+    {
+        KunderaQuery copy = new KunderaQuery();
+        copy.result = result;
+        copy.from = from;
+        copy.filter = filter;
+        copy.ordering = ordering;
+        copy.entityName = entityName;
+        copy.entityAlias = entityAlias;
+        copy.entityClass = entityClass;
+        copy.sortOrders = sortOrders != null ? new ArrayList<SortOrdering>(sortOrders) : null;
+        copy.persistenceUnit = persistenceUnit;
+        copy.isDeleteUpdate = isDeleteUpdate;
+        copy.isNativeQuery = isNativeQuery;
+
+        Map<Object, Object> clauses = new IdentityHashMap<Object, Object>();
+        for (Object o : filtersQueue)
+        {
+            if (o instanceof FilterClause)
+            {
+                FilterClause clause = (FilterClause) o;
+                FilterClause clauseCopy = copy.new FilterClause(clause.getProperty(), clause.getCondition(), null);
+                clauseCopy.value = clause.value;
+                clauses.put(clause, clauseCopy);
+                o = clauseCopy;
+            }
+            copy.filtersQueue.add(o);
+        }
+        for (UpdateClause clause : updateClauseQueue)
+        {
+            UpdateClause clauseCopy = copy.new UpdateClause(clause.getProperty(), null);
+            clauseCopy.value = clause.value;
+            clauses.put(clause, clauseCopy);
+            copy.updateClauseQueue.add(clauseCopy);
+        }
+
+        if (typedParameter != null)
+        {
+            copy.typedParameter = copy.new TypedParameter(typedParameter.getType());
+            copy.typedParameter.jpaParameters.addAll(typedParameter.jpaParameters);
+            if (typedParameter.getParameters() != null)
+            {
+                for (Map.Entry<String, FilterClause> entry : typedParameter.getParameters().entrySet())
+                {
+                    copy.typedParameter.addParameters(entry.getKey(), (FilterClause) clauses.get(entry.getValue()));
+                }
+            }
+            if (typedParameter.getUpdateParameters() != null)
+            {
+                for (Map.Entry<String, UpdateClause> entry : typedParameter.getUpdateParameters().entrySet())
+                {
+                    copy.typedParameter.addParameters(entry.getKey(), (UpdateClause) clauses.get(entry.getValue()));
+                }
+            }
+        }
+        return copy;
+    }
+
     /* @see java.lang.Object#clone() */
     /*
      * (non-Javadoc)
@@ -25,6 +25,14 @@ import java.util.Iterator;
  */
 public interface Query
 {
+    /**
+     * Query hint, "true" to stream results of {@link #iterate()} read only.
+     * Returned entities are not attached to persistence context, no proxies
+     * are created for lazy relations and many to many relations are not
+     * populated, so iterating over large results runs in constant memory.
+     */
+    String READ_ONLY_STREAM = "kundera.query.readonly.stream";
+
     /**
      * To set fetch size for query.
      */
@@ -190,25 +190,20 @@ public abstract class QueryImpl<E> implements Query, com.impetus.kundera.query.Q
         // if it contain a relation means it is a child
         // if it does not then it means it is a parent.
         List<Object> result = null;
-        if (enhanceEntities != null)
+        if (enhanceEntities != null && !enhanceEntities.isEmpty())
         {
+            List<EnhanceEntity> ees = new ArrayList<EnhanceEntity>(enhanceEntities.size());
             for (Object e : enhanceEntities)
             {
-                if (result == null)
-                {
-                    result = new ArrayList<Object>(enhanceEntities.size());
-                }
-
                 if (!(e instanceof EnhanceEntity))
                 {
                     e = new EnhanceEntity(e, PropertyAccessorHelper.getId(e, m), null);
                 }
 
-                EnhanceEntity ee = (EnhanceEntity) e;
-
-                result.add(getReader().recursivelyFindEntities(ee.getEntity(), ee.getRelations(), m,
-                        persistenceDelegeator,false));
+                ees.add((EnhanceEntity) e);
             }
+
+            result = getReader().recursivelyFindEntities(ees, m, persistenceDelegeator, false, isReadOnlyStream());
         }
 
         return result;
@@ -1110,6 +1105,18 @@ public abstract class QueryImpl<E> implements Query, com.impetus.kundera.query.Q
         return this.fetchSize;
     }
 
+    /**
+     * Returns true, if {@link com.impetus.kundera.query.Query#READ_ONLY_STREAM}
+     * hint is set.
+     * 
+     * @return true, if results are not to be attached to persistence context.
+     */
+    protected boolean isReadOnlyStream()
+    {
+        Object hint = hints.get(com.impetus.kundera.query.Query.READ_ONLY_STREAM);
+        return hint != null && Boolean.parseBoolean(hint.toString());
+    }
+
     public abstract void close();
     
     public abstract <E> Iterator<E> iterate();
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.kundera.query;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of parsed JPQL queries, shared by entity managers of a
+ * factory and hence scoped to its persistence units. Cached queries are never
+ * handed out, each execution gets its own copy to bind parameters to.
+ */
+public final class QueryPlanCache
+{
+    /** Parsed queries, keyed by query string. */
+    private final Map<String, KunderaQuery> plans;
+
+    /** Maximum number of cached queries. */
+    private final int maxSize;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong parseTime = new AtomicLong();
+
+    /**
+     * Instantiates a new query plan cache.
+     * 
+     * @param maxSize
+     *            maximum number of cached queries
+     */
+    public QueryPlanCache(int maxSize)
+    {
+        this.maxSize = maxSize;
+        this.plans = new ConcurrentHashMap<String, KunderaQuery>(Math.min(maxSize, 256));
+    }
+
+    /**
+     * Returns copy of cached query, or null if not cached.
+     * 
+     * @param query
+     *            query string
+     * @return kundera query to bind parameters to, or null.
+     */
+    KunderaQuery get(String query)
+    {
+        KunderaQuery plan = plans.get(query);
+        if (plan == null)
+        {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return plan.copy();
+    }
+
+    /**
+     * Caches a freshly parsed query. Once at capacity, an arbitrary entry is
+     * evicted.
+     * 
+     * @param query
+     *            query string
+     * @param plan
+     *            parsed query, with no parameters bound.
+     * @param parseNanos
+     *            time taken to parse it
+     * @return copy of parsed query, to bind parameters to.
+     */
+    KunderaQuery put(String query, KunderaQuery plan, long parseNanos)
+    {
+        parseTime.addAndGet(parseNanos);
+        if (plans.size() >= maxSize)
+        {
+            Iterator<String> keys = plans.keySet().iterator();
+            if (keys.hasNext())
+            {
+                keys.next();
+                keys.remove();
+            }
+        }
+        plans.put(query, plan);
+        return plan.copy();
+    }
+
+    /**
+     * @return number of queries served from cache.
+     */
+    public long getHitCount()
+    {
+        return hits.get();
+    }
+
+    /**
+     * @return number of queries parsed.
+     */
+    public long getMissCount()
+    {
+        return misses.get();
+    }
+
+    /**
+     * @return total time spent parsing queries, in nanoseconds.
+     */
+    public long getParseTime()
+    {
+        return parseTime.get();
+    }
+
+    /**
+     * @return number of cached queries.
+     */
+    public int size()
+    {
+        return plans.size();
+    }
+}
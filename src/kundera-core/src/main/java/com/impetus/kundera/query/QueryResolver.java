@@ -42,6 +42,28 @@ public class QueryResolver
     /** The log. */
     private static Logger log = LoggerFactory.getLogger(QueryResolver.class);
 
+    /** Cache of parsed queries, null if disabled. */
+    private final QueryPlanCache queryPlanCache;
+
+    /**
+     * Instantiates a new query resolver, parsing every query.
+     */
+    public QueryResolver()
+    {
+        this(null);
+    }
+
+    /**
+     * Instantiates a new query resolver.
+     * 
+     * @param queryPlanCache
+     *            cache of parsed queries, may be null.
+     */
+    public QueryResolver(QueryPlanCache queryPlanCache)
+    {
+        this.queryPlanCache = queryPlanCache;
+    }
+
     /**
      * Gets the query implementation.
      * 
@@ -74,12 +96,25 @@ public class QueryResolver
         // In case of named native query
         if (!isNative)
         {
-            KunderaQueryParser parser = new KunderaQueryParser(kunderaQuery, mappedQuery != null ? mappedQuery
-                    : jpaQuery);
+            String queryString = mappedQuery != null ? mappedQuery : jpaQuery;
+            KunderaQuery cachedQuery = queryPlanCache != null ? queryPlanCache.get(queryString) : null;
+            if (cachedQuery != null)
+            {
+                kunderaQuery = cachedQuery;
+            }
+            else
+            {
+                long start = System.nanoTime();
+                KunderaQueryParser parser = new KunderaQueryParser(kunderaQuery, queryString);
 
-            parser.parse();
+                parser.parse();
 
-            kunderaQuery.postParsingInit();
+                kunderaQuery.postParsingInit();
+                if (queryPlanCache != null)
+                {
+                    kunderaQuery = queryPlanCache.put(queryString, kunderaQuery, System.nanoTime() - start);
+                }
+            }
             // pu = kunderaQuery.getPersistenceUnit();
             m = kunderaQuery.getEntityMetadata();
         }
@@ -16,8 +16,8 @@
 package com.impetus.kundera.utils;
 
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -25,6 +25,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.persistence.ElementCollection;
 import javax.persistence.Embedded;
@@ -60,6 +62,9 @@ public class ObjectUtils
     /** The log. */
     private static Logger log = LoggerFactory.getLogger(ObjectUtils.class);
 
+    /** Instance fields of embeddable and other non basic classes. */
+    private static final Map<Class<?>, Field[]> instanceFields = new ConcurrentHashMap<Class<?>, Field[]>();
+
     public static final Object deepCopy(Object source)
     {
         Map<Object, Object> copiedObjectMap = new HashMap<Object, Object>();
@@ -195,16 +200,10 @@ public class ObjectUtils
                                         
                                     }    
                                     
-                                    if (List.class.isAssignableFrom(ecDeclaredClass))
-                                    {
-                                        Method m = actualEcObjectClass.getMethod("add", Object.class);
-                                        m.invoke(targetCollectionObject, targetEcObj);
-                                        
-                                    }
-                                    else if (Set.class.isAssignableFrom(ecDeclaredClass))
+                                    if (List.class.isAssignableFrom(ecDeclaredClass)
+                                            || Set.class.isAssignableFrom(ecDeclaredClass))
                                     {
-                                        Method m = actualEcObjectClass.getMethod("add", Object.class);
-                                        m.invoke(targetCollectionObject, targetEcObj);
+                                        ((Collection) targetCollectionObject).add(targetEcObj);
                                     }
 
                                 }
@@ -238,8 +237,7 @@ public class ObjectUtils
                                         
                                         if (Map.class.isAssignableFrom(ecDeclaredClass))
                                         {
-                                            Method m = actualEcObjectClass.getMethod("put", new Class[]{Object.class, Object.class});
-                                            m.invoke(targetCollectionObject, new Object[]{targetKey, targetValue});
+                                            ((Map) targetCollectionObject).put(targetKey, targetValue);
                                         }
                                     }
                                 }                                                            
@@ -307,20 +305,17 @@ public class ObjectUtils
                     if (Collection.class.isAssignableFrom(relationObjectClass))
                     {
                         targetRelationObject = actualRelationObjectClass.newInstance();
-                        Method m = actualRelationObjectClass.getMethod("add", Object.class);
 
                         for (Object obj : (Collection) sourceRelationObject)
                         {
 
                             Object copyTargetRelObj = searchInCacheThenCopy(copiedObjectMap, obj);
-                            m.invoke(targetRelationObject, copyTargetRelObj);
+                            ((Collection) targetRelationObject).add(copyTargetRelObj);
                         }
                     }
                     else if (Map.class.isAssignableFrom(relationObjectClass))
                     {
                         targetRelationObject = actualRelationObjectClass.newInstance();
-                        Method m = actualRelationObjectClass.getMethod("put", new Class<?>[] { Object.class,
-                                Object.class });
 
                         for (Object keyObj : ((Map) sourceRelationObject).keySet())
                         {
@@ -336,7 +331,7 @@ public class ObjectUtils
                             // mainCache);
                             Object copyTargetValueObj = searchInCacheThenCopy(copiedObjectMap, valObj);
 
-                            m.invoke(targetRelationObject, new Object[] { copyTargetKeyObj, copyTargetValueObj });
+                            ((Map) targetRelationObject).put(copyTargetKeyObj, copyTargetValueObj);
                         }
 
                     }
@@ -402,4 +397,49 @@ public class ObjectUtils
         return chids;
     }
 
+    /**
+     * Returns true, if given value is of a type known to be immutable, i.e.
+     * safe to share instead of copying it.
+     * 
+     * @param value
+     *            the value
+     * @return true, if value is immutable
+     */
+    public static boolean isImmutable(Object value)
+    {
+        return value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof Character || value instanceof Enum || value instanceof UUID
+                || value instanceof Class;
+    }
+
+    /**
+     * Returns non static, non transient fields of given class and its super
+     * classes.
+     * 
+     * @param clazz
+     *            the class
+     * @return instance fields
+     */
+    public static Field[] getInstanceFields(Class<?> clazz)
+    {
+        Field[] fields = instanceFields.get(clazz);
+        if (fields == null)
+        {
+            List<Field> classFields = new ArrayList<Field>();
+            for (Class<?> c = clazz; c != null && !Object.class.equals(c); c = c.getSuperclass())
+            {
+                for (Field field : c.getDeclaredFields())
+                {
+                    int modifiers = field.getModifiers();
+                    if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers))
+                    {
+                        classFields.add(field);
+                    }
+                }
+            }
+            fields = classFields.toArray(new Field[classFields.size()]);
+            instanceFields.put(clazz, fields);
+        }
+        return fields;
+    }
 }
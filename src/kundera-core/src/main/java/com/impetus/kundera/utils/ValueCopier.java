@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.kundera.utils;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.persistence.Entity;
+
+import com.impetus.kundera.property.FieldAccessorFactory;
+import com.impetus.kundera.proxy.ProxyHelper;
+
+/**
+ * Copies attribute values, i.e. basic values, embeddables and arrays,
+ * collections or maps of them. Immutable values are shared, mutable ones are
+ * copied field by field. Entities, proxies, objects met again within the
+ * same value and JDK types of unknown mutability are left to
+ * {@link #copyReference(Object)}.
+ * 
+ * Default implementation creates copies of the original types and gives up
+ * on values which can't be copied. Subclasses may represent copies
+ * differently.
+ */
+public class ValueCopier
+{
+    /** Returned for values which can't be copied. */
+    public static final Object NOT_COPYABLE = new Object();
+
+    /**
+     * Copies given value.
+     * 
+     * @param value
+     *            the value
+     * @return copy of value, or {@link #NOT_COPYABLE}
+     */
+    public Object copy(Object value)
+    {
+        return copy(value, null);
+    }
+
+    private Object copy(Object value, IdentityHashMap<Object, Object> visited)
+    {
+        if (value == null || ObjectUtils.isImmutable(value))
+        {
+            return value;
+        }
+        if (value instanceof Date)
+        {
+            return ((Date) value).clone();
+        }
+        if (value instanceof Calendar)
+        {
+            return ((Calendar) value).clone();
+        }
+
+        Class<?> clazz = value.getClass();
+        boolean isContainer = clazz.isArray() || value instanceof Collection || value instanceof Map;
+        if (clazz.isArray() && clazz.getComponentType().isPrimitive())
+        {
+            int length = Array.getLength(value);
+            Object copy = Array.newInstance(clazz.getComponentType(), length);
+            System.arraycopy(value, 0, copy, 0, length);
+            return copy;
+        }
+        if (ProxyHelper.isProxyOrCollection(value) || clazz.isAnnotationPresent(Entity.class)
+                || (!isContainer && clazz.getName().startsWith("java.")))
+        {
+            return copyReference(value);
+        }
+
+        if (visited == null)
+        {
+            visited = new IdentityHashMap<Object, Object>();
+        }
+        else if (visited.containsKey(value))
+        {
+            return copyReference(value);
+        }
+        visited.put(value, value);
+        try
+        {
+            if (clazz.isArray())
+            {
+                Object[] elements = new Object[Array.getLength(value)];
+                for (int i = 0; i < elements.length; i++)
+                {
+                    elements[i] = copy(Array.get(value, i), visited);
+                    if (elements[i] == NOT_COPYABLE)
+                    {
+                        return NOT_COPYABLE;
+                    }
+                }
+                return newArray(clazz, elements);
+            }
+            if (value instanceof Collection)
+            {
+                Collection<Object> copy = newCollection((Collection) value);
+                for (Object element : (Collection) value)
+                {
+                    Object elementCopy = copy(element, visited);
+                    if (elementCopy == NOT_COPYABLE)
+                    {
+                        return NOT_COPYABLE;
+                    }
+                    copy.add(elementCopy);
+                }
+                return copy;
+            }
+            if (value instanceof Map)
+            {
+                Map<Object, Object> copy = newMap((Map) value);
+                for (Map.Entry entry : (Set<Map.Entry>) ((Map) value).entrySet())
+                {
+                    Object k = copy(entry.getKey(), visited);
+                    Object v = copy(entry.getValue(), visited);
+                    if (k == NOT_COPYABLE || v == NOT_COPYABLE)
+                    {
+                        return NOT_COPYABLE;
+                    }
+                    copy.put(k, v);
+                }
+                return copy;
+            }
+
+            Field[] fields = ObjectUtils.getInstanceFields(clazz);
+            Object[] fieldValues = new Object[fields.length];
+            for (int i = 0; i < fields.length; i++)
+            {
+                fieldValues[i] = copy(FieldAccessorFactory.getFieldAccessor(fields[i]).get(value), visited);
+                if (fieldValues[i] == NOT_COPYABLE)
+                {
+                    return NOT_COPYABLE;
+                }
+            }
+            return newObject(clazz, fields, fieldValues);
+        }
+        finally
+        {
+            visited.remove(value);
+        }
+    }
+
+    /**
+     * Returns copy of an entity, a proxy, an object met again within the
+     * value being copied or a JDK object of unknown mutability.
+     * 
+     * @param value
+     *            the value
+     * @return {@link #NOT_COPYABLE}
+     */
+    protected Object copyReference(Object value)
+    {
+        return NOT_COPYABLE;
+    }
+
+    /**
+     * Creates copy of an object array.
+     * 
+     * @param arrayType
+     *            type of source array
+     * @param elements
+     *            copied elements
+     * @return array copy
+     */
+    protected Object newArray(Class<?> arrayType, Object[] elements)
+    {
+        Object copy = Array.newInstance(arrayType.getComponentType(), elements.length);
+        for (int i = 0; i < elements.length; i++)
+        {
+            Array.set(copy, i, elements[i]);
+        }
+        return copy;
+    }
+
+    /**
+     * Creates empty collection for copied elements of given collection.
+     * 
+     * @param source
+     *            source collection
+     * @return empty collection
+     */
+    protected Collection<Object> newCollection(Collection source)
+    {
+        if (source instanceof SortedSet)
+        {
+            return new TreeSet<Object>(((SortedSet) source).comparator());
+        }
+        return source instanceof Set ? new LinkedHashSet<Object>() : new ArrayList<Object>(source.size());
+    }
+
+    /**
+     * Creates empty map for copied entries of given map.
+     * 
+     * @param source
+     *            source map
+     * @return empty map
+     */
+    protected Map<Object, Object> newMap(Map source)
+    {
+        if (source instanceof SortedMap)
+        {
+            return new TreeMap<Object, Object>(((SortedMap) source).comparator());
+        }
+        return new LinkedHashMap<Object, Object>();
+    }
+
+    /**
+     * Creates copy of an embeddable or other object out of its copied field
+     * values.
+     * 
+     * @param type
+     *            object type
+     * @param fields
+     *            instance fields of type
+     * @param values
+     *            copied field values
+     * @return object copy, or {@link #NOT_COPYABLE}
+     */
+    protected Object newObject(Class<?> type, Field[] fields, Object[] values)
+    {
+        try
+        {
+            Object copy = type.newInstance();
+            for (int i = 0; i < fields.length; i++)
+            {
+                FieldAccessorFactory.getFieldAccessor(fields[i]).set(copy, values[i]);
+            }
+            return copy;
+        }
+        catch (Exception e)
+        {
+            return NOT_COPYABLE;
+        }
+    }
+}
@@ -293,6 +293,7 @@ public class EntityManagerImplTest
         {
             Assert.assertNotNull(niex);
         }
+        Assert.assertSame(em, em.unwrap(EntityManager.class));
         
     }
     /**
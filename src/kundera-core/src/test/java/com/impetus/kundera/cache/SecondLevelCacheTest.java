@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.kundera.cache;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.impetus.kundera.CoreTestUtilities;
+import com.impetus.kundera.PersistenceProperties;
+import com.impetus.kundera.cache.ehcache.EhCacheProvider;
+import com.impetus.kundera.client.Client;
+import com.impetus.kundera.client.CoreTestClient;
+import com.impetus.kundera.graph.BillingCounter;
+import com.impetus.kundera.graph.Node;
+import com.impetus.kundera.metadata.KunderaMetadataManager;
+import com.impetus.kundera.metadata.model.EntityMetadata;
+import com.impetus.kundera.metadata.model.KunderaMetadata;
+import com.impetus.kundera.persistence.PersistenceDelegator;
+import com.impetus.kundera.persistence.api.Batcher;
+
+/**
+ * junit for {@link SecondLevelCache}.
+ */
+public class SecondLevelCacheTest
+{
+    private static final String PU = "kunderatest";
+
+    private EntityManagerFactory emf;
+
+    private EntityManager em;
+
+    private EntityMetadata metadata;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        KunderaMetadata.INSTANCE.setApplicationMetadata(null);
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put(PersistenceProperties.KUNDERA_CACHE_PROVIDER_CLASS, EhCacheProvider.class.getName());
+        props.put(PersistenceProperties.KUNDERA_CACHE_CONFIG_RESOURCE, "/ehcache-test.xml");
+        emf = Persistence.createEntityManagerFactory(PU, props);
+        em = emf.createEntityManager();
+        metadata = KunderaMetadataManager.getEntityMetadata(BillingCounter.class);
+        metadata.setCacheable(true);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        metadata.setCacheable(false);
+        em.close();
+        emf.close();
+    }
+
+    @Test
+    public void testReadThroughAndInvalidation() throws Exception
+    {
+        SecondLevelCache secondLevelCache = CoreTestUtilities.getDelegator(em).getSecondLevelCache();
+        Assert.assertNotNull(secondLevelCache);
+
+        em.persist(new BillingCounter(101, "A"));
+        em.clear();
+
+        // Miss, read from database.
+        BillingCounter counter = em.find(BillingCounter.class, 101);
+        Assert.assertEquals("A", counter.getCounterCode());
+        Assert.assertEquals(0, secondLevelCache.getHitCount());
+        Assert.assertEquals(1, secondLevelCache.getMissCount());
+        em.clear();
+
+        // Hit, changes to found entity are not visible in cache.
+        counter = em.find(BillingCounter.class, 101);
+        Assert.assertEquals("A", counter.getCounterCode());
+        Assert.assertEquals(1, secondLevelCache.getHitCount());
+        counter.setCounterCode("B");
+        em.clear();
+
+        counter = em.find(BillingCounter.class, 101);
+        Assert.assertEquals("A", counter.getCounterCode());
+        Assert.assertEquals(2, secondLevelCache.getHitCount());
+
+        // Flush invalidates cached entity.
+        counter.setCounterCode("B");
+        em.merge(counter);
+        em.clear();
+
+        counter = em.find(BillingCounter.class, 101);
+        Assert.assertEquals("B", counter.getCounterCode());
+        Assert.assertEquals(2, secondLevelCache.getHitCount());
+        Assert.assertEquals(2, secondLevelCache.getMissCount());
+
+        em.remove(counter);
+        em.clear();
+        Assert.assertNull(em.find(BillingCounter.class, 101));
+        Assert.assertEquals(2, secondLevelCache.getHitCount());
+    }
+
+    @Test
+    public void testInvalidationAfterBatch() throws Exception
+    {
+        PersistenceDelegator delegator = CoreTestUtilities.getDelegator(em);
+        SecondLevelCache secondLevelCache = delegator.getSecondLevelCache();
+        BatchTestClient client = new BatchTestClient(2);
+        Field clientMap = PersistenceDelegator.class.getDeclaredField("clientMap");
+        clientMap.setAccessible(true);
+        ((Map<String, Client>) clientMap.get(delegator)).put(PU, client);
+
+        em.persist(new BillingCounter(201, "A"));
+        em.persist(new BillingCounter(202, "A"));
+        Assert.assertEquals(2, client.executed);
+        em.clear();
+
+        BillingCounter counter = em.find(BillingCounter.class, 201);
+        em.find(BillingCounter.class, 202);
+        Assert.assertEquals(2, secondLevelCache.getMissCount());
+
+        // Queued on batch, cached entity is kept until it is written.
+        counter.setCounterCode("B");
+        em.merge(counter);
+        Assert.assertEquals(2, client.executed);
+        Assert.assertNotNull(secondLevelCache.get(metadata, 201));
+
+        em.flush();
+        Assert.assertEquals(3, client.executed);
+        Assert.assertNull(secondLevelCache.get(metadata, 201));
+        Assert.assertNotNull(secondLevelCache.get(metadata, 202));
+        em.clear();
+
+        // Batch is written and evicted as soon as batch size is reached.
+        counter = em.find(BillingCounter.class, 201);
+        Assert.assertEquals("B", counter.getCounterCode());
+        counter.setCounterCode("C");
+        em.merge(counter);
+        Assert.assertNotNull(secondLevelCache.get(metadata, 202));
+        em.remove(em.find(BillingCounter.class, 202));
+        Assert.assertEquals(5, client.executed);
+        Assert.assertNull(secondLevelCache.get(metadata, 201));
+        Assert.assertNull(secondLevelCache.get(metadata, 202));
+        em.clear();
+
+        Assert.assertEquals("C", em.find(BillingCounter.class, 201).getCounterCode());
+        Assert.assertNull(em.find(BillingCounter.class, 202));
+    }
+
+    /**
+     * Test client, writes nodes once batch size is reached or batch is
+     * executed.
+     */
+    private static class BatchTestClient extends CoreTestClient implements Batcher
+    {
+        private final int batchSize;
+
+        private final List<Node> nodes = new ArrayList<Node>();
+
+        private int executed;
+
+        BatchTestClient(int batchSize)
+        {
+            super(null, PU);
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public void addBatch(Node node)
+        {
+            nodes.add(node);
+            if (nodes.size() == batchSize)
+            {
+                executeBatch();
+            }
+        }
+
+        @Override
+        public int executeBatch()
+        {
+            int size = nodes.size();
+            for (Node node : nodes)
+            {
+                node.flush();
+                executed++;
+            }
+            nodes.clear();
+            return size;
+        }
+
+        @Override
+        public int getBatchSize()
+        {
+            return batchSize;
+        }
+
+        @Override
+        public void clear()
+        {
+            nodes.clear();
+        }
+    }
+}
@@ -25,6 +25,8 @@ public class CoreTestClient extends ClientBase implements Client<LuceneQuery>, A
 
     private static int idCount;
 
+    private int findAllCount;
+
     public CoreTestClient(IndexManager indexManager, String persistenceUnit)
     {
         this.indexManager = indexManager;
@@ -93,6 +95,7 @@ public class CoreTestClient extends ClientBase implements Client<LuceneQuery>, A
     @Override
     public <E> List<E> findAll(Class<E> entityClass, String[] columnsToSelect, Object... keys)
     {
+        findAllCount++;
         List results = new ArrayList();
         for (Object key : keys)
         {
@@ -216,6 +219,14 @@ public class CoreTestClient extends ClientBase implements Client<LuceneQuery>, A
         return coreTestProperty;
     }
 
+    /**
+     * @return number of findAll calls
+     */
+    public int getFindAllCount()
+    {
+        return findAllCount;
+    }
+
     /**
      * @param coreTestProperty the coreTestProperty to set
      */
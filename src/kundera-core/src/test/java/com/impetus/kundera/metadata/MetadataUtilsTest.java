@@ -17,12 +17,14 @@
 package com.impetus.kundera.metadata;
 
 import java.lang.reflect.Field;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
 import javax.persistence.Persistence;
+import javax.persistence.metamodel.Attribute;
 import javax.persistence.metamodel.EmbeddableType;
 import javax.persistence.metamodel.EntityType;
 
@@ -241,4 +243,25 @@ public class MetadataUtilsTest
         }
     }  
     
+    @Test
+    public void testAttributesToBeWritten()
+    {
+        EntityMetadata m = KunderaMetadataManager.getEntityMetadata(SingularEntityEmbeddable.class);
+        EntityType<SingularEntityEmbeddable> entityType = ((MetamodelImpl) KunderaMetadata.INSTANCE
+                .getApplicationMetadata().getMetamodel(m.getPersistenceUnit())).entity(SingularEntityEmbeddable.class);
+        Set attributes = entityType.getAttributes();
+
+        Assert.assertSame(attributes, MetadataUtils.getAttributesToBeWritten(m, attributes, null));
+
+        BitSet dirtyAttributes = new BitSet();
+        dirtyAttributes.set(m.getAttributeIndex("name"));
+
+        Set<Attribute> attributesToBeWritten = MetadataUtils.getAttributesToBeWritten(m, attributes, dirtyAttributes);
+        Assert.assertEquals(2, attributesToBeWritten.size());
+        Assert.assertTrue(attributesToBeWritten.contains(entityType.getAttribute("key")));
+        Assert.assertTrue(attributesToBeWritten.contains(entityType.getAttribute("name")));
+        Assert.assertFalse(MetadataUtils.isAttributeToBeWritten(m, entityType.getAttribute("field"), dirtyAttributes));
+        Assert.assertTrue(MetadataUtils.isAttributeToBeWritten(m, entityType.getAttribute("field"), null));
+    }
+
 }
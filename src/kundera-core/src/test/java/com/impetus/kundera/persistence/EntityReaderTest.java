@@ -16,9 +16,13 @@
 
 package com.impetus.kundera.persistence;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
 
 import javax.persistence.EntityManager;
@@ -32,9 +36,12 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.impetus.kundera.CoreTestUtilities;
+import com.impetus.kundera.PersistenceProperties;
+import com.impetus.kundera.client.EnhanceEntity;
 import com.impetus.kundera.metadata.KunderaMetadataManager;
 import com.impetus.kundera.metadata.model.EntityMetadata;
 import com.impetus.kundera.metadata.model.KunderaMetadata;
+import com.impetus.kundera.persistence.context.PartialEntities;
 import com.impetus.kundera.polyglot.entities.AddressB11FK;
 import com.impetus.kundera.polyglot.entities.AddressB1M;
 import com.impetus.kundera.polyglot.entities.AddressBM1;
@@ -122,6 +129,159 @@ public class EntityReaderTest
 
     }
 
+    @Test
+    public void testReadOnly() throws NoSuchFieldException, SecurityException, IllegalArgumentException,
+            IllegalAccessException
+    {
+        AddressU11FK address = new AddressU11FK();
+        address.setAddressId("addr1");
+        address.setStreet("street");
+
+        PersonU11FK p1 = new PersonU11FK();
+        p1.setPersonName("vivek");
+        p1.setPersonId("1");
+        p1.setAddress(address);
+
+        em.persist(p1);
+        em.clear();
+
+        PersistenceDelegator delegator = CoreTestUtilities.getDelegator(em);
+
+        Map<String, Object> relationMap = new HashMap<String, Object>();
+        relationMap.put("ADDRESS_ID", "addr1");
+
+        EntityMetadata metadata = KunderaMetadataManager.getEntityMetadata(PersonU11FK.class);
+
+        p1.setAddress(null);
+
+        CoreTestEntityReader reader = new CoreTestEntityReader();
+
+        // No proxy for lazy relation.
+        reader.recursivelyFindEntities(p1, relationMap, metadata, delegator, false, true);
+
+        Assert.assertNull(p1.getAddress());
+
+        reader.recursivelyFindEntities(p1, relationMap, metadata, delegator, true, true);
+
+        Assert.assertNotNull(p1.getAddress());
+
+        Assert.assertFalse(ProxyHelper.isKunderaProxy(p1.getAddress()));
+
+        Assert.assertNull(delegator.getPersistenceCache().getMainCache().getNodeFromCache(AddressU11FK.class, "addr1"));
+
+        p1.setAddress(null);
+
+        reader.recursivelyFindEntities(p1, relationMap, metadata, delegator, true);
+
+        Assert.assertNotNull(delegator.getPersistenceCache().getMainCache().getNodeFromCache(AddressU11FK.class, "addr1"));
+    }
+
+    @Test
+    public void testProjectedRelations() throws NoSuchFieldException, SecurityException, IllegalArgumentException,
+            IllegalAccessException
+    {
+        AddressU11FK address = new AddressU11FK();
+        address.setAddressId("addr1");
+        address.setStreet("street");
+
+        PersonU11FK p1 = new PersonU11FK();
+        p1.setPersonName("vivek");
+        p1.setPersonId("1");
+        p1.setAddress(address);
+
+        em.persist(p1);
+
+        PersistenceDelegator delegator = CoreTestUtilities.getDelegator(em);
+
+        Map<String, Object> relationMap = new HashMap<String, Object>();
+        relationMap.put("ADDRESS_ID", "addr1");
+
+        EntityMetadata metadata = KunderaMetadataManager.getEntityMetadata(PersonU11FK.class);
+
+        CoreTestEntityReader reader = new CoreTestEntityReader();
+
+        // relation not selected, neither fetched nor proxied.
+        PersonU11FK partial = new PersonU11FK();
+        partial.setPersonId("1");
+        partial.setPersonName("vivek");
+        PartialEntities.mark(partial, metadata, PartialEntities.getAttributeIndexes(metadata, "personName"));
+
+        reader.recursivelyFindEntities(partial, relationMap, metadata, delegator, false);
+        Assert.assertNull(partial.getAddress());
+
+        reader.recursivelyFindEntities(new ArrayList<EnhanceEntity>(Arrays.asList(new EnhanceEntity(partial, "1",
+                relationMap))), metadata, delegator, true, false);
+        Assert.assertNull(partial.getAddress());
+
+        // relation selected.
+        PersonU11FK selected = new PersonU11FK();
+        selected.setPersonId("1");
+        PartialEntities.mark(selected, metadata, PartialEntities.getAttributeIndexes(metadata, "address"));
+
+        reader.recursivelyFindEntities(selected, relationMap, metadata, delegator, true);
+        Assert.assertNotNull(selected.getAddress());
+        Assert.assertEquals("addr1", selected.getAddress().getAddressId());
+
+        // one to many, not read through relation.
+        PersonU1M person = new PersonU1M();
+        person.setPersonId("1");
+        EntityMetadata personMetadata = KunderaMetadataManager.getEntityMetadata(PersonU1M.class);
+        PartialEntities.mark(person, personMetadata, PartialEntities.getAttributeIndexes(personMetadata, "personName"));
+
+        reader.recursivelyFindEntities(person, null, personMetadata, delegator, true);
+        Assert.assertNull(person.getAddresses());
+    }
+
+    @Test
+    public void testBatchedRelations() throws NoSuchFieldException, SecurityException, IllegalArgumentException,
+            IllegalAccessException
+    {
+        Properties props = KunderaMetadataManager.getPersistenceUnitMetadata(PU).getProperties();
+        props.setProperty(PersistenceProperties.KUNDERA_RELATION_BATCH_SIZE, "1");
+        try
+        {
+            List<EnhanceEntity> enhanceEntities = new ArrayList<EnhanceEntity>();
+            for (int i = 1; i <= 3; i++)
+            {
+                AddressU11FK address = new AddressU11FK();
+                address.setAddressId("addr" + i);
+                address.setStreet("street");
+
+                PersonU11FK p = new PersonU11FK();
+                p.setPersonName("vivek");
+                p.setPersonId("" + i);
+                p.setAddress(address);
+                em.persist(p);
+
+                p.setAddress(null);
+                Map<String, Object> relationMap = new HashMap<String, Object>();
+                relationMap.put("ADDRESS_ID", "addr" + i);
+                enhanceEntities.add(new EnhanceEntity(p, p.getPersonId(), relationMap));
+            }
+            em.clear();
+
+            PersistenceDelegator delegator = CoreTestUtilities.getDelegator(em);
+            EntityMetadata metadata = KunderaMetadataManager.getEntityMetadata(PersonU11FK.class);
+
+            List<Object> results = new CoreTestEntityReader().recursivelyFindEntities(enhanceEntities, metadata,
+                    delegator, true, false);
+
+            Assert.assertEquals(3, results.size());
+            for (int i = 0; i < 3; i++)
+            {
+                PersonU11FK p = (PersonU11FK) results.get(i);
+                Assert.assertNotNull(p.getAddress());
+                Assert.assertEquals("addr" + (i + 1), p.getAddress().getAddressId());
+                Assert.assertNotNull(delegator.getPersistenceCache().getMainCache()
+                        .getNodeFromCache(AddressU11FK.class, "addr" + (i + 1)));
+            }
+        }
+        finally
+        {
+            props.remove(PersistenceProperties.KUNDERA_RELATION_BATCH_SIZE);
+        }
+    }
+
     @Test
     public void testBiOneToOne() throws NoSuchFieldException, SecurityException, IllegalArgumentException,
             IllegalAccessException
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.kundera.persistence;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.impetus.kundera.client.Client;
+import com.impetus.kundera.client.CoreTestClient;
+import com.impetus.kundera.graph.BillingCounter;
+import com.impetus.kundera.graph.Node;
+import com.impetus.kundera.graph.NodeLink;
+import com.impetus.kundera.graph.NodeLink.LinkProperty;
+import com.impetus.kundera.graph.Store;
+import com.impetus.kundera.lifecycle.states.ManagedState;
+import com.impetus.kundera.metadata.model.Relation.ForeignKey;
+import com.impetus.kundera.persistence.context.PersistenceCache;
+
+/**
+ * Test case for {@link ParallelFlushHandler}.
+ */
+public class ParallelFlushHandlerTest
+{
+    private ExecutorService executor;
+
+    private ParallelFlushHandler handler;
+
+    private Client storeClient;
+
+    private Client counterClient;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        executor = Executors.newFixedThreadPool(2);
+        handler = new ParallelFlushHandler(executor);
+        storeClient = new CoreTestClient(null, "kunderatest");
+        counterClient = new CoreTestClient(null, "kunderatest");
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testUnlinkedNodesInOneWave()
+    {
+        Node store = getNode(Store.class, 1, storeClient);
+        Node counter = getNode(BillingCounter.class, 1, counterClient);
+
+        List<List<List<Node>>> waves = handler.partition(Arrays.asList(store, counter));
+        Assert.assertEquals(1, waves.size());
+        Assert.assertEquals(2, waves.get(0).size());
+        Assert.assertEquals(Arrays.asList(store), waves.get(0).get(0));
+        Assert.assertEquals(Arrays.asList(counter), waves.get(0).get(1));
+    }
+
+    @Test
+    public void testLinkedNodesInLaterWave()
+    {
+        Node store1 = getNode(Store.class, 1, storeClient);
+        Node counter1 = getNode(BillingCounter.class, 1, counterClient);
+        Node store2 = getNode(Store.class, 2, storeClient);
+        Node counter2 = getNode(BillingCounter.class, 2, counterClient);
+
+        NodeLink link = new NodeLink(store1.getNodeId(), counter1.getNodeId());
+        store1.addChildNode(link, counter1);
+        counter1.addParentNode(link, store1);
+
+        List<List<List<Node>>> waves = handler.partition(Arrays.asList(store1, counter1, store2, counter2));
+        Assert.assertEquals(2, waves.size());
+        Assert.assertEquals(1, waves.get(0).size());
+        Assert.assertEquals(Arrays.asList(store1, store2), waves.get(0).get(0));
+        Assert.assertEquals(1, waves.get(1).size());
+        Assert.assertEquals(Arrays.asList(counter1, counter2), waves.get(1).get(0));
+
+        // Unlinked nodes are not held back behind linked ones.
+        Node store3 = getNode(Store.class, 3, storeClient);
+        waves = handler.partition(Arrays.asList(store1, counter1, store3));
+        Assert.assertEquals(2, waves.size());
+        Assert.assertEquals(Arrays.asList(store1, store3), waves.get(0).get(0));
+        Assert.assertEquals(Arrays.asList(counter1), waves.get(1).get(0));
+    }
+
+    @Test
+    public void testFlush()
+    {
+        Node store = getNode(Store.class, 1, storeClient);
+        Node counter = getNode(BillingCounter.class, 2, counterClient);
+        NodeLink link = new NodeLink(store.getNodeId(), counter.getNodeId());
+        link.setMultiplicity(ForeignKey.ONE_TO_MANY);
+        store.addChildNode(link, counter);
+        counter.addParentNode(link, store);
+
+        // Counter is flushed after store, link holds its id.
+        handler.flush(Arrays.asList(store, counter, getNode(Store.class, 2, storeClient)));
+        Assert.assertEquals(2, link.getLinkProperty(LinkProperty.LINK_VALUE));
+    }
+
+    private Node getNode(Class<?> clazz, int id, Client client)
+    {
+        Node node = new Node(clazz.getName() + "$" + id, clazz, new ManagedState(), new PersistenceCache(), id);
+        node.setClient(client);
+        return node;
+    }
+}
@@ -37,6 +37,7 @@ import com.impetus.kundera.client.Client;
 import com.impetus.kundera.client.CoreTestClient;
 import com.impetus.kundera.configure.CoreEntityAddressUni1To1;
 import com.impetus.kundera.entity.PersonnelDTO;
+import com.impetus.kundera.entity.photo.PhotoBi_M_1_1_M;
 import com.impetus.kundera.metadata.KunderaMetadataManager;
 import com.impetus.kundera.metadata.entities.AssociationEntity;
 import com.impetus.kundera.metadata.entities.OToOOwnerEntity;
@@ -184,6 +185,35 @@ public class PersistenceDelegatorTest
         List<PersonnelDTO> persons = pd.find(PersonnelDTO.class, new String[] { "111", "222", "333" });
         Assert.assertNotNull(persons);
         Assert.assertEquals(3, persons.size());
+
+        // read through client's findAll, missing keys are skipped.
+        em.clear();
+        CoreTestClient client = (CoreTestClient) ((Map<String, Client>) em.getDelegate()).get("kunderatest");
+        int findAllCount = client.getFindAllCount();
+        persons = pd.find(PersonnelDTO.class, new String[] { "333", "444", "111" });
+        Assert.assertEquals(findAllCount + 1, client.getFindAllCount());
+        Assert.assertEquals(2, persons.size());
+        Assert.assertEquals("333", persons.get(0).getPersonId());
+        Assert.assertEquals("111", persons.get(1).getPersonId());
+        Assert.assertNotNull(pd.getPersistenceCache().getMainCache().getNodeFromCache(PersonnelDTO.class, "111"));
+    }
+
+    @Test
+    public void testFindForObjectArrayWithJoinColumns()
+    {
+        em.persist(new PhotoBi_M_1_1_M("p1", "Caption 1", "Description 1"));
+        em.persist(new PhotoBi_M_1_1_M("p2", "Caption 2", "Description 2"));
+        em.clear();
+
+        // findAll of core test client doesn't read relations, keys are read
+        // one at a time.
+        PersistenceDelegator pd = ((EntityManagerImpl) em).getPersistenceDelegator();
+        CoreTestClient client = (CoreTestClient) ((Map<String, Client>) em.getDelegate()).get("kunderatest");
+        int findAllCount = client.getFindAllCount();
+        List<PhotoBi_M_1_1_M> photos = pd.find(PhotoBi_M_1_1_M.class, new String[] { "p1", "p2" });
+        Assert.assertEquals(2, photos.size());
+        Assert.assertEquals(findAllCount, client.getFindAllCount());
+        Assert.assertNotNull(pd.getPersistenceCache().getMainCache().getNodeFromCache(PhotoBi_M_1_1_M.class, "p2"));
     }
 
     @Test
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.kundera.persistence.context;
+
+import java.util.BitSet;
+import java.util.Date;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+import junit.framework.Assert;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.impetus.kundera.graph.BillingCounter;
+import com.impetus.kundera.graph.Node;
+import com.impetus.kundera.graph.NodeLink;
+import com.impetus.kundera.graph.ObjectGraphUtils;
+import com.impetus.kundera.graph.Store;
+import com.impetus.kundera.lifecycle.states.ManagedState;
+import com.impetus.kundera.metadata.KunderaMetadataManager;
+import com.impetus.kundera.metadata.model.EntityMetadata;
+import com.impetus.kundera.metadata.model.KunderaMetadata;
+
+/**
+ * Test case for {@link CacheBase} node lookups.
+ */
+public class CacheBaseTest
+{
+    private static EntityManagerFactory emf;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception
+    {
+        KunderaMetadata.INSTANCE.setApplicationMetadata(null);
+        emf = Persistence.createEntityManagerFactory("kunderatest");
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception
+    {
+        emf.close();
+    }
+
+    @Test
+    public void testNodeLookup()
+    {
+        PersistenceCache pc = new PersistenceCache();
+        CacheBase cache = pc.getMainCache();
+
+        Node storeNode = getNode(pc, Store.class, 1, new Store(1, "Kundera Store"));
+        Node counterNode = getNode(pc, BillingCounter.class, 1, new BillingCounter(1, "A"));
+        cache.processNodeMapping(storeNode);
+        cache.processNodeMapping(counterNode);
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(2, cache.getAllNodes().size());
+
+        Assert.assertSame(storeNode, cache.getNodeFromCache(Store.class, 1));
+        Assert.assertSame(counterNode, cache.getNodeFromCache(BillingCounter.class, 1));
+        Assert.assertNull(cache.getNodeFromCache(Store.class, 2));
+
+        // String form of id and string node id find same node.
+        Assert.assertSame(storeNode, cache.getNodeFromCache(Store.class, "1"));
+        Assert.assertSame(storeNode, cache.getNodeFromCache(ObjectGraphUtils.getNodeId("1", Store.class)));
+
+        // Entity object itself, or another one with same id.
+        Assert.assertSame(storeNode, cache.getNodeFromCache(storeNode.getData()));
+        Assert.assertSame(storeNode, cache.getNodeFromCache(new Store(1, "Other Store")));
+
+        cache.removeNodeFromCache(storeNode);
+        Assert.assertEquals(1, cache.size());
+        Assert.assertNull(cache.getNodeFromCache(Store.class, 1));
+        Assert.assertSame(counterNode, cache.getNodeFromCache(BillingCounter.class, 1));
+
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertNull(cache.getNodeFromCache(BillingCounter.class, 1));
+    }
+
+    @Test
+    public void testReplaceNode()
+    {
+        PersistenceCache pc = new PersistenceCache();
+        CacheBase cache = pc.getMainCache();
+
+        Node storeNode = getNode(pc, Store.class, 1, new Store(1, "Kundera Store"));
+        Node counterNode = getNode(pc, BillingCounter.class, 1, new BillingCounter(1, "A"));
+        NodeLink link = new NodeLink(storeNode.getNodeId(), counterNode.getNodeId());
+        storeNode.addChildNode(link, counterNode);
+        cache.processNodeMapping(storeNode);
+
+        Store store = new Store(1, "Kundera Store");
+        Node newStoreNode = getNode(pc, Store.class, 1, store);
+        cache.processNodeMapping(newStoreNode);
+
+        Assert.assertEquals(1, cache.size());
+        Assert.assertSame(newStoreNode, cache.getNodeFromCache(Store.class, 1));
+        Assert.assertSame(newStoreNode, cache.getNodeFromCache(store));
+        Assert.assertSame(counterNode, newStoreNode.getChildren().get(link));
+    }
+
+    @Test
+    public void testSnapshotCapture()
+    {
+        EntityMetadata m = KunderaMetadataManager.getEntityMetadata(SnapshotEntity.class);
+        m.setSnapshotDirtyCheck(true);
+        try
+        {
+            PersistenceCache pc = new PersistenceCache();
+            CacheBase cache = pc.getMainCache();
+
+            SnapshotEntity entity = new SnapshotEntity("1", new Date(1000), new SnapshotAddress("Aa"));
+            Node node = getNode(pc, SnapshotEntity.class, 1, entity);
+            cache.processNodeMapping(node);
+            EntitySnapshot snapshot = node.getSnapshot();
+            Assert.assertNotNull(snapshot);
+
+            // Merged but not flushed state doesn't replace snapshot.
+            entity.getAddress().setStreet("BB");
+            node.setDirtyAttributes(snapshot.getDirtyAttributes(entity, m));
+            cache.processNodeMapping(node);
+            Assert.assertSame(snapshot, node.getSnapshot());
+
+            entity.getCreated().setTime(2000);
+            BitSet dirtyAttributes = node.getSnapshot().getDirtyAttributes(entity, m);
+            Assert.assertEquals(2, dirtyAttributes.cardinality());
+
+            // Flushed state does.
+            cache.captureSnapshot(node);
+            Assert.assertNotSame(snapshot, node.getSnapshot());
+            Assert.assertNull(node.getDirtyAttributes());
+            Assert.assertTrue(node.getSnapshot().getDirtyAttributes(entity, m).isEmpty());
+        }
+        finally
+        {
+            m.setSnapshotDirtyCheck(false);
+        }
+    }
+
+    private Node getNode(PersistenceCache pc, Class<?> clazz, int id, Object data)
+    {
+        Node node = new Node(ObjectGraphUtils.getNodeId(id, clazz), clazz, new ManagedState(), pc, id);
+        node.setData(data);
+        return node;
+    }
+}
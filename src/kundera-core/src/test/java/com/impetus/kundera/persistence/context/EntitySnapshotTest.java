@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.kundera.persistence.context;
+
+import java.util.BitSet;
+import java.util.Date;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+import junit.framework.Assert;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.impetus.kundera.graph.BillingCounter;
+import com.impetus.kundera.graph.Store;
+import com.impetus.kundera.metadata.KunderaMetadataManager;
+import com.impetus.kundera.metadata.model.EntityMetadata;
+import com.impetus.kundera.metadata.model.KunderaMetadata;
+
+/**
+ * Test case for {@link EntitySnapshot}.
+ */
+public class EntitySnapshotTest
+{
+    private static EntityManagerFactory emf;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception
+    {
+        KunderaMetadata.INSTANCE.setApplicationMetadata(null);
+        emf = Persistence.createEntityManagerFactory("kunderatest");
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception
+    {
+        emf.close();
+    }
+
+    @Test
+    public void testIndexedAttributes()
+    {
+        EntityMetadata m = KunderaMetadataManager.getEntityMetadata(Store.class);
+        Assert.assertEquals(3, m.getIndexedAttributes().length);
+        Assert.assertEquals(0, m.getAttributeIndex("counters"));
+        Assert.assertEquals(1, m.getAttributeIndex("storeId"));
+        Assert.assertEquals(2, m.getAttributeIndex("storeName"));
+        Assert.assertTrue(m.getAttributeIndex("invalid") < 0);
+        Assert.assertFalse(m.isSnapshotDirtyCheck());
+    }
+
+    @Test
+    public void testDirtyAttributes()
+    {
+        EntityMetadata m = KunderaMetadataManager.getEntityMetadata(Store.class);
+
+        Store store = new Store(1, "Kundera Store");
+        store.addCounter(new BillingCounter(1, "A"));
+
+        EntitySnapshot snapshot = EntitySnapshot.capture(store, m);
+        Assert.assertTrue(snapshot.getDirtyAttributes(store, m).isEmpty());
+
+        // Equal content in another instance is not a change.
+        Store copy = new Store(1, "Kundera Store");
+        copy.addCounter(new BillingCounter(1, "B"));
+        Assert.assertTrue(snapshot.getDirtyAttributes(copy, m).isEmpty());
+
+        store.setStoreName("Impetus Store");
+        BitSet dirtyAttributes = snapshot.getDirtyAttributes(store, m);
+        Assert.assertEquals(1, dirtyAttributes.cardinality());
+        Assert.assertTrue(dirtyAttributes.get(m.getAttributeIndex("storeName")));
+
+        store.addCounter(new BillingCounter(2, "B"));
+        dirtyAttributes = snapshot.getDirtyAttributes(store, m);
+        Assert.assertEquals(2, dirtyAttributes.cardinality());
+        Assert.assertTrue(dirtyAttributes.get(m.getAttributeIndex("counters")));
+
+        store.getCounters().clear();
+        Assert.assertTrue(snapshot.getDirtyAttributes(store, m).get(m.getAttributeIndex("counters")));
+    }
+
+    @Test
+    public void testDirtyEmbeddedAttributes()
+    {
+        EntityMetadata m = KunderaMetadataManager.getEntityMetadata(SnapshotEntity.class);
+
+        // "Aa" and "BB" have same hash code.
+        Assert.assertEquals("Aa".hashCode(), "BB".hashCode());
+        SnapshotEntity entity = new SnapshotEntity("1", new Date(1000), new SnapshotAddress("Aa"));
+
+        EntitySnapshot snapshot = EntitySnapshot.capture(entity, m);
+        Assert.assertTrue(snapshot.getDirtyAttributes(entity, m).isEmpty());
+
+        entity.getAddress().setStreet("BB");
+        BitSet dirtyAttributes = snapshot.getDirtyAttributes(entity, m);
+        Assert.assertEquals(1, dirtyAttributes.cardinality());
+        Assert.assertTrue(dirtyAttributes.get(m.getAttributeIndex("address")));
+
+        // changed in place, i.e. snapshot holds a copy.
+        snapshot = EntitySnapshot.capture(entity, m);
+        entity.getCreated().setTime(2000);
+        dirtyAttributes = snapshot.getDirtyAttributes(entity, m);
+        Assert.assertEquals(1, dirtyAttributes.cardinality());
+        Assert.assertTrue(dirtyAttributes.get(m.getAttributeIndex("created")));
+
+        entity.getCreated().setTime(1000);
+        Assert.assertTrue(snapshot.getDirtyAttributes(entity, m).isEmpty());
+    }
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.kundera.persistence.context;
+
+import java.util.BitSet;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+import junit.framework.Assert;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.impetus.kundera.graph.Store;
+import com.impetus.kundera.metadata.KunderaMetadataManager;
+import com.impetus.kundera.metadata.model.EntityMetadata;
+import com.impetus.kundera.metadata.model.KunderaMetadata;
+
+/**
+ * Test case for {@link PartialEntities}.
+ */
+public class PartialEntitiesTest
+{
+    private static EntityManagerFactory emf;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception
+    {
+        KunderaMetadata.INSTANCE.setApplicationMetadata(null);
+        emf = Persistence.createEntityManagerFactory("kunderatest");
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception
+    {
+        emf.close();
+    }
+
+    @Test
+    public void testAttributeIndexes()
+    {
+        EntityMetadata m = KunderaMetadataManager.getEntityMetadata(Store.class);
+
+        BitSet loaded = PartialEntities.getAttributeIndexes(m, "storeName", "invalid", null);
+        Assert.assertEquals(2, loaded.cardinality());
+        Assert.assertTrue(loaded.get(m.getAttributeIndex("storeId")));
+        Assert.assertTrue(loaded.get(m.getAttributeIndex("storeName")));
+    }
+
+    @Test
+    public void testMark()
+    {
+        EntityMetadata m = KunderaMetadataManager.getEntityMetadata(Store.class);
+
+        Store partial = new Store(1, "Kundera Store");
+        PartialEntities.mark(partial, m, PartialEntities.getAttributeIndexes(m, "storeName"));
+        Assert.assertEquals(2, PartialEntities.getLoadedAttributes(partial).cardinality());
+
+        // Equal entities are told apart.
+        Store complete = new Store(1, "Kundera Store");
+        PartialEntities.mark(complete, m, PartialEntities.getAttributeIndexes(m, "storeName", "counters"));
+        Assert.assertNull(PartialEntities.getLoadedAttributes(complete));
+        Assert.assertNull(PartialEntities.getLoadedAttributes(null));
+    }
+}
@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.kundera.persistence.context;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+
+/**
+ * Embeddable of {@link SnapshotEntity}.
+ */
+@Embeddable
+public class SnapshotAddress
+{
+    @Column(name = "STREET")
+    private String street;
+
+    public SnapshotAddress()
+    {
+
+    }
+
+    public SnapshotAddress(String street)
+    {
+        this.street = street;
+    }
+
+    public String getStreet()
+    {
+        return street;
+    }
+
+    public void setStreet(String street)
+    {
+        this.street = street;
+    }
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.kundera.persistence.context;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Embedded;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Entity with embedded and mutable attributes for snapshot dirty checking.
+ */
+@Entity
+@Table(name = "SNAPSHOT", schema = "KunderaTest@kunderatest")
+public class SnapshotEntity
+{
+    @Id
+    @Column(name = "SNAPSHOT_ID")
+    private String snapshotId;
+
+    @Column(name = "CREATED")
+    private Date created;
+
+    @Embedded
+    private SnapshotAddress address;
+
+    public SnapshotEntity()
+    {
+
+    }
+
+    public SnapshotEntity(String snapshotId, Date created, SnapshotAddress address)
+    {
+        this.snapshotId = snapshotId;
+        this.created = created;
+        this.address = address;
+    }
+
+    public String getSnapshotId()
+    {
+        return snapshotId;
+    }
+
+    public Date getCreated()
+    {
+        return created;
+    }
+
+    public SnapshotAddress getAddress()
+    {
+        return address;
+    }
+}
@@ -0,0 +1,268 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+
+package com.impetus.kundera.property;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.databene.contiperf.PerfTest;
+import org.databene.contiperf.junit.ContiPerfRule;
+import org.databene.contiperf.report.CSVSummaryReportModule;
+import org.databene.contiperf.report.HtmlReportModule;
+import org.databene.contiperf.report.ReportModule;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Benchmarks field access as PropertyAccessorHelper did before accessors vs
+ * reflection and generated accessors, on a 30 column entity. Results are
+ * reported under target/contiperf-report.
+ * <p>
+ * Excluded from default build, run with -Pbenchmark.
+ */
+public class FieldAccessorBenchmarkTest
+{
+    private static final int ROWS = 10000;
+
+    private static List<FieldAccessor> reflectionAccessors = new ArrayList<FieldAccessor>();
+
+    private static List<FieldAccessor> generatedAccessors = new ArrayList<FieldAccessor>();
+
+    private static List<FieldAccessor> baselineAccessors = new ArrayList<FieldAccessor>();
+
+    @Rule
+    public ContiPerfRule i = new ContiPerfRule(new ReportModule[] { new CSVSummaryReportModule(),
+            new HtmlReportModule() });
+
+    @BeforeClass
+    public static void setUpBeforeClass()
+    {
+        for (Field f : WideEntity.class.getDeclaredFields())
+        {
+            if (!Modifier.isStatic(f.getModifiers()))
+            {
+                reflectionAccessors.add(FieldAccessorFactory.buildAccessor(f, FieldAccessorFactory.REFLECTION));
+                generatedAccessors.add(FieldAccessorFactory.buildAccessor(f, FieldAccessorFactory.GENERATED));
+                baselineAccessors.add(new BaselineFieldAccessor(f));
+            }
+        }
+        Assert.assertEquals(30, reflectionAccessors.size());
+        for (FieldAccessor accessor : generatedAccessors)
+        {
+            Assert.assertTrue(accessor instanceof GeneratedFieldAccessor);
+        }
+    }
+
+    @Test
+    @PerfTest(invocations = 20)
+    public void testReflectionAccess()
+    {
+        copyRows(reflectionAccessors);
+    }
+
+    @Test
+    @PerfTest(invocations = 20)
+    public void testGeneratedAccess()
+    {
+        copyRows(generatedAccessors);
+    }
+
+    @Test
+    @PerfTest(invocations = 20)
+    public void testBaselineAccess()
+    {
+        copyRows(baselineAccessors);
+    }
+
+    /**
+     * Hydrates {@link #ROWS} entities reading each column from a source entity,
+     * similar to what data handlers do per row.
+     */
+    private void copyRows(List<FieldAccessor> accessors)
+    {
+        WideEntity source = WideEntity.newInstance();
+        WideEntity target = null;
+        for (int row = 0; row < ROWS; row++)
+        {
+            target = new WideEntity();
+            for (FieldAccessor accessor : accessors)
+            {
+                accessor.set(target, accessor.get(source));
+            }
+        }
+        Assert.assertEquals(source.column1, target.column1);
+        Assert.assertEquals(source.column30, target.column30);
+    }
+
+    /**
+     * Checks field is accessible on every call, then uses Field.get/set, as
+     * PropertyAccessorHelper did.
+     */
+    private static class BaselineFieldAccessor implements FieldAccessor
+    {
+        private final Field field;
+
+        private BaselineFieldAccessor(Field field)
+        {
+            this.field = field;
+        }
+
+        @Override
+        public Field getField()
+        {
+            return field;
+        }
+
+        @Override
+        public Object get(Object target)
+        {
+            if (!field.isAccessible())
+            {
+                field.setAccessible(true);
+            }
+            try
+            {
+                return field.get(target);
+            }
+            catch (IllegalAccessException iacc)
+            {
+                throw new PropertyAccessException(iacc);
+            }
+        }
+
+        @Override
+        public void set(Object target, Object value)
+        {
+            if (!field.isAccessible())
+            {
+                field.setAccessible(true);
+            }
+            try
+            {
+                field.set(target, value);
+            }
+            catch (IllegalAccessException iacc)
+            {
+                throw new PropertyAccessException(iacc);
+            }
+        }
+    }
+
+    static class WideEntity
+    {
+        String column1;
+
+        int column2;
+
+        long column3;
+
+        double column4;
+
+        boolean column5;
+
+        Integer column6;
+
+        Long column7;
+
+        java.util.Date column8;
+
+        float column9;
+
+        short column10;
+
+        String column11;
+
+        int column12;
+
+        long column13;
+
+        double column14;
+
+        boolean column15;
+
+        Integer column16;
+
+        Long column17;
+
+        java.util.Date column18;
+
+        float column19;
+
+        short column20;
+
+        String column21;
+
+        int column22;
+
+        long column23;
+
+        double column24;
+
+        boolean column25;
+
+        Integer column26;
+
+        Long column27;
+
+        java.util.Date column28;
+
+        float column29;
+
+        short column30;
+
+        static WideEntity newInstance()
+        {
+            WideEntity entity = new WideEntity();
+            entity.column1 = "value";
+            entity.column2 = 1;
+            entity.column3 = 1L;
+            entity.column4 = 1.0d;
+            entity.column5 = true;
+            entity.column6 = 1;
+            entity.column7 = 1L;
+            entity.column8 = new java.util.Date();
+            entity.column9 = 1.0f;
+            entity.column10 = (short) 1;
+            entity.column11 = "value";
+            entity.column12 = 1;
+            entity.column13 = 1L;
+            entity.column14 = 1.0d;
+            entity.column15 = true;
+            entity.column16 = 1;
+            entity.column17 = 1L;
+            entity.column18 = new java.util.Date();
+            entity.column19 = 1.0f;
+            entity.column20 = (short) 1;
+            entity.column21 = "value";
+            entity.column22 = 1;
+            entity.column23 = 1L;
+            entity.column24 = 1.0d;
+            entity.column25 = true;
+            entity.column26 = 1;
+            entity.column27 = 1L;
+            entity.column28 = new java.util.Date();
+            entity.column29 = 1.0f;
+            entity.column30 = (short) 1;
+            return entity;
+        }
+    }
+}
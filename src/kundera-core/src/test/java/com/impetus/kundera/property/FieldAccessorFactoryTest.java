@@ -0,0 +1,275 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.kundera.property;
+
+import java.lang.reflect.Field;
+import java.util.Date;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.impetus.kundera.entity.PersonnelDTO;
+
+/**
+ * Test case for {@link FieldAccessorFactory}.
+ */
+public class FieldAccessorFactoryTest
+{
+
+    @After
+    public void tearDown()
+    {
+        FieldAccessorFactory.reset();
+    }
+
+    @Test
+    public void testStrategy()
+    {
+        Assert.assertSame(FieldAccessorFactory.REFLECTION, FieldAccessorFactory.getStrategy(null));
+        Assert.assertSame(FieldAccessorFactory.REFLECTION, FieldAccessorFactory.getStrategy("Reflection"));
+        Assert.assertSame(FieldAccessorFactory.GENERATED, FieldAccessorFactory.getStrategy("generated"));
+        Assert.assertTrue(FieldAccessorFactory.getStrategy(FieldAccessorGenerator.class.getName()) instanceof
+                FieldAccessorGenerator);
+        Assert.assertTrue(FieldAccessorFactory.getStrategy(CustomStrategy.class.getName()) instanceof
+                CustomStrategy);
+        Assert.assertSame(FieldAccessorFactory.REFLECTION, FieldAccessorFactory.getStrategy("invalid"));
+    }
+
+    @Test
+    public void testReflectionAccessor() throws Exception
+    {
+        assertOnAccessor(FieldAccessorFactory.REFLECTION);
+    }
+
+    @Test
+    public void testGeneratedAccessor() throws Exception
+    {
+        for (Field field : Sample.class.getDeclaredFields())
+        {
+            if (!field.isSynthetic())
+            {
+                Assert.assertTrue(FieldAccessorFactory.buildAccessor(field, FieldAccessorFactory.GENERATED) instanceof
+                        GeneratedFieldAccessor);
+            }
+        }
+        assertOnAccessor(FieldAccessorFactory.GENERATED);
+    }
+
+    @Test
+    public void testGeneratedBeanAccessor() throws Exception
+    {
+        // private fields, through plain getter and setter.
+        FieldAccessor name = FieldAccessorFactory.buildAccessor(Bean.class.getDeclaredField("name"),
+                FieldAccessorFactory.GENERATED);
+        FieldAccessor active = FieldAccessorFactory.buildAccessor(Bean.class.getDeclaredField("active"),
+                FieldAccessorFactory.GENERATED);
+        Assert.assertTrue(name instanceof GeneratedFieldAccessor);
+        Assert.assertTrue(active instanceof GeneratedFieldAccessor);
+
+        Bean bean = new Bean();
+        name.set(bean, "kundera");
+        active.set(bean, true);
+        Assert.assertEquals("kundera", bean.getName());
+        Assert.assertEquals("kundera", name.get(bean));
+        Assert.assertEquals(Boolean.TRUE, active.get(bean));
+
+        // overridden accessor methods of subclasses are not called.
+        Bean proxy = new BeanProxy();
+        name.set(proxy, "kundera");
+        Assert.assertEquals("kundera", name.get(proxy));
+        Assert.assertEquals("proxy", proxy.getName());
+
+        // getter doing more than reading the field, final field.
+        Assert.assertTrue(FieldAccessorFactory.buildAccessor(Bean.class.getDeclaredField("nickName"),
+                FieldAccessorFactory.GENERATED) instanceof ReflectionFieldAccessor);
+        Assert.assertTrue(FieldAccessorFactory.buildAccessor(Bean.class.getDeclaredField("id"),
+                FieldAccessorFactory.GENERATED) instanceof ReflectionFieldAccessor);
+    }
+
+    @Test
+    public void testRegisteredAccessor() throws Exception
+    {
+        FieldAccessorFactory.reset();
+        Field field = PersonnelDTO.class.getDeclaredField("lastName");
+        FieldAccessor accessor = FieldAccessorFactory.register(field, new CustomStrategy());
+        Assert.assertSame(accessor, FieldAccessorFactory.getFieldAccessor(field));
+
+        PersonnelDTO person = new PersonnelDTO("1", "Amresh", "Singh");
+        Assert.assertEquals("Singh", PropertyAccessorHelper.getObject(person, field));
+        PropertyAccessorHelper.set(person, field, "Mishra");
+        Assert.assertEquals("Mishra", person.getLastName());
+    }
+
+    @Test
+    public void testConflictingStrategy() throws Exception
+    {
+        FieldAccessorFactory.reset();
+        Field field = PersonnelDTO.class.getDeclaredField("lastName");
+        FieldAccessorFactory.register(field, FieldAccessorFactory.REFLECTION);
+        FieldAccessorFactory.register(PersonnelDTO.class.getDeclaredField("firstName"),
+                FieldAccessorFactory.REFLECTION);
+        try
+        {
+            FieldAccessorFactory.register(field, new CustomStrategy());
+            Assert.fail("Should have failed with strategy of another persistence unit");
+        }
+        catch (IllegalStateException isex)
+        {
+            Assert.assertTrue(FieldAccessorFactory.getFieldAccessor(field) instanceof ReflectionFieldAccessor);
+        }
+    }
+
+    private void assertOnAccessor(FieldAccessorFactory.Strategy strategy) throws Exception
+    {
+        Sample sample = new Sample();
+
+        FieldAccessor accessor = FieldAccessorFactory.buildAccessor(Sample.class.getDeclaredField("intField"),
+                strategy);
+        accessor.set(sample, 10);
+        Assert.assertEquals(10, sample.intField);
+        Assert.assertEquals(10, accessor.get(sample));
+
+        accessor = FieldAccessorFactory.buildAccessor(Sample.class.getDeclaredField("longField"), strategy);
+        // widening conversion, as supported by reflection.
+        accessor.set(sample, 10);
+        Assert.assertEquals(10L, sample.longField);
+        accessor.set(sample, 20L);
+        Assert.assertEquals(20L, accessor.get(sample));
+
+        accessor = FieldAccessorFactory.buildAccessor(Sample.class.getDeclaredField("booleanField"), strategy);
+        accessor.set(sample, true);
+        Assert.assertEquals(Boolean.TRUE, accessor.get(sample));
+
+        accessor = FieldAccessorFactory.buildAccessor(Sample.class.getDeclaredField("doubleField"), strategy);
+        accessor.set(sample, 1.5d);
+        Assert.assertEquals(1.5d, accessor.get(sample));
+
+        Date now = new Date();
+        accessor = FieldAccessorFactory.buildAccessor(Sample.class.getDeclaredField("dateField"), strategy);
+        accessor.set(sample, now);
+        Assert.assertSame(now, accessor.get(sample));
+        accessor.set(sample, null);
+        Assert.assertNull(sample.dateField);
+
+        try
+        {
+            accessor.set(sample, "invalid");
+            Assert.fail("Should have failed with invalid type");
+        }
+        catch (PropertyAccessException paex)
+        {
+            Assert.assertNull(sample.dateField);
+        }
+
+        accessor = FieldAccessorFactory.buildAccessor(Sample.class.getDeclaredField("intField"), strategy);
+        try
+        {
+            accessor.set(sample, null);
+            Assert.fail("Should have failed with null value for primitive field");
+        }
+        catch (PropertyAccessException paex)
+        {
+            Assert.assertEquals(10, sample.intField);
+        }
+
+        try
+        {
+            accessor.get(new PersonnelDTO());
+            Assert.fail("Should have failed with invalid target");
+        }
+        catch (PropertyAccessException paex)
+        {
+            Assert.assertNotNull(paex);
+        }
+    }
+
+    /**
+     * Custom strategy, as configured by class name.
+     */
+    public static class CustomStrategy implements FieldAccessorFactory.Strategy
+    {
+        @Override
+        public FieldAccessor buildAccessor(Field field)
+        {
+            return new ReflectionFieldAccessor(field);
+        }
+    }
+
+    static class Sample
+    {
+        int intField;
+
+        long longField;
+
+        boolean booleanField;
+
+        double doubleField;
+
+        Date dateField;
+    }
+
+    static class Bean
+    {
+        private final String id = "1";
+
+        private String name;
+
+        private boolean active;
+
+        private String nickName;
+
+        String getName()
+        {
+            return name;
+        }
+
+        void setName(String name)
+        {
+            this.name = name;
+        }
+
+        boolean isActive()
+        {
+            return active;
+        }
+
+        void setActive(boolean active)
+        {
+            this.active = active;
+        }
+
+        String getNickName()
+        {
+            return nickName != null ? nickName : name;
+        }
+
+        void setNickName(String nickName)
+        {
+            this.nickName = nickName;
+        }
+    }
+
+    static class BeanProxy extends Bean
+    {
+        @Override
+        String getName()
+        {
+            return "proxy";
+        }
+    }
+}
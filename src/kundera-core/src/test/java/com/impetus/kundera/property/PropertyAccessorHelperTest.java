@@ -33,6 +33,7 @@ import com.impetus.kundera.entity.PersonnelDTO;
 import com.impetus.kundera.entity.album.AlbumUni_1_M_1_M;
 import com.impetus.kundera.entity.photographer.PhotographerUni_1_M_1_M;
 import com.impetus.kundera.graph.Node;
+import com.impetus.kundera.graph.ObjectGraph;
 import com.impetus.kundera.persistence.context.CacheBase;
 import com.impetus.kundera.property.accessor.StringAccessor;
 
@@ -333,7 +334,7 @@ public class PropertyAccessorHelperTest
         Assert.assertNull(PropertyAccessorHelper.getGenericClass(null));
         try
         {
-            List<Class<?>> genericClasses = PropertyAccessorHelper.getGenericClasses(CacheBase.class.getDeclaredField("nodeMappings"));
+            List<Class<?>> genericClasses = PropertyAccessorHelper.getGenericClasses(ObjectGraph.class.getDeclaredField("nodeMapping"));
             
             Assert.assertNotNull(genericClasses);
             Assert.assertFalse(genericClasses.isEmpty());
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.kundera.property;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.UUID;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.impetus.kundera.property.accessor.PersonalDetail;
+
+/**
+ * Verifies {@link BinaryEncoder}s write the same bytes as
+ * {@link PropertyAccessor#toBytes(Object)} and read them back from slices of
+ * a shared {@link RowBuffer}.
+ */
+public class RowBufferTest
+{
+    @Test
+    public void testEncodeMatchesToBytes()
+    {
+        PersonalDetail pd = new PersonalDetail();
+        pd.setPersonalDetailId("1");
+        pd.setName("Amresh");
+
+        Object[] values = new Object[] { 12L, 7, (short) 3, 'k', true, false, 4.5d, 1.25f, "ascii",
+                "été € 😀 \ud800", new Date(1357000000000L), UUID.randomUUID(), pd,
+                new byte[] { 1, 2, 3 } };
+
+        RowBuffer row = new RowBuffer(4);
+        int[] offsets = new int[values.length];
+        int[] lengths = new int[values.length];
+        for (int i = 0; i < values.length; i++)
+        {
+            offsets[i] = row.position();
+            lengths[i] = PropertyAccessorHelper.encode(values[i], values[i].getClass(), row);
+        }
+
+        for (int i = 0; i < values.length; i++)
+        {
+            PropertyAccessor accessor = PropertyAccessorFactory.getPropertyAccessor(values[i].getClass());
+            byte[] expected = accessor.toBytes(values[i]);
+            Assert.assertTrue(values[i].toString(),
+                    Arrays.equals(expected, row.toBytes(offsets[i], lengths[i])));
+
+            ByteBuffer slice = row.slice(offsets[i], lengths[i]);
+            Object decoded = PropertyAccessorHelper.getObject(values[i].getClass(), slice);
+            if (values[i] instanceof byte[])
+            {
+                Assert.assertTrue(Arrays.equals((byte[]) values[i], (byte[]) decoded));
+            }
+            else if (values[i] instanceof PersonalDetail)
+            {
+                Assert.assertEquals(pd.getName(), ((PersonalDetail) decoded).getName());
+            }
+            else
+            {
+                Assert.assertEquals(accessor.fromBytes(values[i].getClass(), expected), decoded);
+            }
+            Assert.assertEquals(0, slice.position());
+        }
+    }
+
+    @Test
+    public void testNull()
+    {
+        RowBuffer row = new RowBuffer();
+        Assert.assertEquals(-1, PropertyAccessorHelper.encode(null, String.class, row));
+        Assert.assertEquals(-1, PropertyAccessorHelper.encode(null, Long.class, row));
+        Assert.assertEquals(0, row.position());
+    }
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.kundera.query;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.impetus.kundera.CoreTestUtilities;
+import com.impetus.kundera.metadata.model.KunderaMetadata;
+import com.impetus.kundera.persistence.PersistenceDelegator;
+
+/**
+ * junit for {@link QueryPlanCache}.
+ */
+public class QueryPlanCacheTest
+{
+    private static final String PU = "patest";
+
+    private EntityManagerFactory emf;
+
+    private EntityManager em;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        KunderaMetadata.INSTANCE.setApplicationMetadata(null);
+        emf = Persistence.createEntityManagerFactory(PU);
+        em = emf.createEntityManager();
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        em.close();
+        emf.close();
+    }
+
+    @Test
+    public void testParametersBoundPerExecution() throws Exception
+    {
+        String query = "Select p from Person p where p.personName = :name and p.age= :age";
+        QueryPlanCache cache = new QueryPlanCache(10);
+        PersistenceDelegator delegator = CoreTestUtilities.getDelegator(em);
+
+        QueryImpl q1 = (QueryImpl) new QueryResolver(cache).getQueryImplementation(query, delegator, null, false);
+        QueryImpl q2 = (QueryImpl) new QueryResolver(cache).getQueryImplementation(query, delegator, null, false);
+
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertTrue(cache.getParseTime() > 0);
+        Assert.assertNotSame(q1.getKunderaQuery(), q2.getKunderaQuery());
+
+        q1.setParameter("name", "pname");
+        q1.setParameter("age", 32);
+        q2.setParameter("name", "other");
+        q2.setParameter("age", 33);
+
+        Assert.assertEquals("pname", q1.getKunderaQuery().getClauseValue(":name"));
+        Assert.assertEquals(32, q1.getKunderaQuery().getClauseValue(":age"));
+        Assert.assertEquals("other", q2.getKunderaQuery().getClauseValue(":name"));
+        Assert.assertEquals(33, q2.getKunderaQuery().getClauseValue(":age"));
+        Assert.assertEquals(2, q2.getKunderaQuery().getParameters().size());
+        Assert.assertEquals(3, q2.getKunderaQuery().getFilterClauseQueue().size());
+        Assert.assertEquals(Person.class, q2.getKunderaQuery().getEntityClass());
+
+        // Cached plan stays unbound.
+        KunderaQuery kunderaQuery = cache.get(query);
+        Assert.assertEquals(":name", kunderaQuery.getClauseValue(":name"));
+    }
+
+    @Test
+    public void testBounded()
+    {
+        QueryPlanCache cache = new QueryPlanCache(1);
+        cache.put("q1", new KunderaQuery(), 1);
+        cache.put("q2", new KunderaQuery(), 1);
+        Assert.assertEquals(1, cache.size());
+        Assert.assertNull(cache.get("q1"));
+        Assert.assertNotNull(cache.get("q2"));
+        Assert.assertEquals(2, cache.getParseTime());
+    }
+}
@@ -24,6 +24,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import javax.persistence.PersistenceException;
 import javax.persistence.metamodel.Attribute;
@@ -45,6 +46,7 @@ import com.impetus.client.hbase.admin.DataHandler;
 import com.impetus.client.hbase.admin.HBaseDataHandler;
 import com.impetus.client.hbase.admin.HBaseDataHandler.HBaseDataWrapper;
 import com.impetus.client.hbase.query.HBaseQuery;
+import com.impetus.client.hbase.service.HBaseWriteBuffer;
 import com.impetus.client.hbase.utils.HBaseUtils;
 import com.impetus.kundera.KunderaException;
 import com.impetus.kundera.PersistenceProperties;
@@ -102,17 +104,22 @@ public class HBaseClient extends ClientBase implements Client<HBaseQuery>, Batch
      *            the conf
      * @param hTablePool
      *            the h table pool
+     * @param writeBuffer
+     *            the write buffer, null to write through
+     * @param scanExecutor
+     *            the executor running background scans
      * @param reader
      *            the reader
      * @param persistenceUnit
      *            the persistence unit
      * @param puProperties
      */
-    public HBaseClient(IndexManager indexManager, HBaseConfiguration conf, HTablePool hTablePool, EntityReader reader,
-            String persistenceUnit, Map<String, Object> puProperties, ClientMetadata clientMetadata)
+    public HBaseClient(IndexManager indexManager, HBaseConfiguration conf, HTablePool hTablePool,
+            HBaseWriteBuffer writeBuffer, ExecutorService scanExecutor, EntityReader reader, String persistenceUnit,
+            Map<String, Object> puProperties, ClientMetadata clientMetadata)
     {
         this.indexManager = indexManager;
-        this.handler = new HBaseDataHandler(conf, hTablePool);
+        this.handler = new HBaseDataHandler(conf, hTablePool, writeBuffer, scanExecutor);
         this.reader = reader;
         this.persistenceUnit = persistenceUnit;
         this.puProperties = puProperties;
@@ -249,6 +256,29 @@ public class HBaseClient extends ClientBase implements Client<HBaseQuery>, Batch
      * @return list of entities.
      */
     public <E> List<E> findByQuery(Class<E> entityClass, EntityMetadata metadata, Filter f, String... columns)
+    {
+        return findByQuery(entityClass, metadata, f, null, false, columns);
+    }
+
+    /**
+     * Method to find entities using JPQL(converted into FilterList.), scanning
+     * region groups of table in parallel.
+     * 
+     * @param <E>
+     *            parameterized entity class.
+     * @param entityClass
+     *            entity class.
+     * @param metadata
+     *            entity metadata.
+     * @param parallelism
+     *            maximum region groups scanned in parallel, sequential scan if
+     *            null.
+     * @param ordered
+     *            whether entities are returned in row key order.
+     * @return list of entities.
+     */
+    public <E> List<E> findByQuery(Class<E> entityClass, EntityMetadata metadata, Filter f, Integer parallelism,
+            boolean ordered, String... columns)
     {
         EntityMetadata entityMetadata = KunderaMetadataManager.getEntityMetadata(entityClass);
         List<String> relationNames = entityMetadata.getRelationNames();
@@ -270,8 +300,8 @@ public class HBaseClient extends ClientBase implements Client<HBaseQuery>, Batch
 
         try
         {
-            results = handler.readData(tableName, entityMetadata.getEntityClazz(), entityMetadata, null, relationNames,
-                    filter, columns);
+            results = getHandler(parallelism, ordered).readData(tableName, entityMetadata.getEntityClazz(),
+                    entityMetadata, null, relationNames, filter, columns);
         }
         catch (IOException ioex)
         {
@@ -298,6 +328,34 @@ public class HBaseClient extends ClientBase implements Client<HBaseQuery>, Batch
      */
     public <E> List<E> findByRange(Class<E> entityClass, EntityMetadata metadata, byte[] startRow, byte[] endRow,
             String[] columns, Filter f)
+    {
+        return findByRange(entityClass, metadata, startRow, endRow, columns, f, null, false);
+    }
+
+    /**
+     * Handles find by range query for given start and end row key range values.
+     * Without start and end row, region groups of table are scanned in
+     * parallel.
+     * 
+     * @param <E>
+     *            parameterized entity class.
+     * @param entityClass
+     *            entity class.
+     * @param metadata
+     *            entity metadata
+     * @param startRow
+     *            start row.
+     * @param endRow
+     *            end row.
+     * @param parallelism
+     *            maximum region groups scanned in parallel, sequential scan if
+     *            null.
+     * @param ordered
+     *            whether entities are returned in row key order.
+     * @return collection holding results.
+     */
+    public <E> List<E> findByRange(Class<E> entityClass, EntityMetadata metadata, byte[] startRow, byte[] endRow,
+            String[] columns, Filter f, Integer parallelism, boolean ordered)
     {
         EntityMetadata entityMetadata = KunderaMetadataManager.getEntityMetadata(entityClass);
         // columnFamily has a different meaning for HBase, so it won't be used
@@ -319,7 +377,8 @@ public class HBaseClient extends ClientBase implements Client<HBaseQuery>, Batch
 
         try
         {
-            results = handler.readDataByRange(tableName, entityClass, metadata, startRow, endRow, columns, filter);
+            results = getHandler(parallelism, ordered).readDataByRange(tableName, entityClass, metadata, startRow,
+                    endRow, columns, filter);
 
         }
         catch (IOException ioex)
@@ -366,14 +425,27 @@ public class HBaseClient extends ClientBase implements Client<HBaseQuery>, Batch
     }
 
     /**
-     * Close handlers instance and reinstate pu properties.
+     * Flush buffered writes, close handlers instance and reinstate pu
+     * properties.
      * 
      */
     @Override
     public void close()
     {
-        handler.shutdown();
-        puProperties = null;
+        try
+        {
+            ((HBaseDataHandler) handler).flush();
+        }
+        catch (IOException ioex)
+        {
+            log.error("Error while flushing buffered writes, Caused by: .", ioex);
+            throw new KunderaException(ioex);
+        }
+        finally
+        {
+            handler.shutdown();
+            puProperties = null;
+        }
     }
 
     /**
@@ -428,7 +500,7 @@ public class HBaseClient extends ClientBase implements Client<HBaseQuery>, Batch
         try
         {
             // Write data to HBase
-            handler.writeData(tableName, entityMetadata, entity, id, relations);
+            handler.writeData(tableName, entityMetadata, entity, id, relations, dirtyAttributes);
         }
         catch (IOException e)
         {
@@ -689,8 +761,9 @@ public class HBaseClient extends ClientBase implements Client<HBaseQuery>, Batch
 
                         hTable = ((HBaseDataHandler) handler).gethTable(metadata.getSchema());
                         ((HBaseDataHandler) handler).preparePersistentData(metadata.getSchema(),
-                                metadata.getTableName(), entity, rowKey, metaModel, entityType.getAttributes(),
-                                columnWrapper, embeddableData);
+                                metadata.getTableName(), entity, rowKey, metaModel, MetadataUtils
+                                        .getAttributesToBeWritten(metadata, entityType.getAttributes(),
+                                                getDirtyAttributes(node, metadata)), columnWrapper, embeddableData);
 
                         List<HBaseDataWrapper> dataSet = null;
                         if (data.containsKey(hTable))
@@ -713,6 +786,7 @@ public class HBaseClient extends ClientBase implements Client<HBaseQuery>, Batch
             {
                 ((HBaseDataHandler) handler).batch_insert(data);
             }
+            ((HBaseDataHandler) handler).flush();
             return data.size();
         }
         catch (IOException ioex)
@@ -830,4 +904,27 @@ public class HBaseClient extends ClientBase implements Client<HBaseQuery>, Batch
         return ((HBaseDataHandler) handler).getHandle();
     }
 
+    /**
+     * Returns handler for a scan, a handle of its own if region groups are
+     * scanned in parallel, as shared handler's scan settings are not to be
+     * changed.
+     * 
+     * @param parallelism
+     *            maximum region groups scanned in parallel, sequential scan if
+     *            null.
+     * @param ordered
+     *            whether rows are returned in row key order.
+     * @return data handler.
+     */
+    private DataHandler getHandler(Integer parallelism, boolean ordered)
+    {
+        if (parallelism == null)
+        {
+            return handler;
+        }
+        HBaseDataHandler handle = getHandle();
+        handle.setParallelScan(parallelism, ordered);
+        return handle;
+    }
+
 }
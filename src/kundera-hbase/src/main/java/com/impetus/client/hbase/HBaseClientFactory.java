@@ -16,6 +16,10 @@
 package com.impetus.client.hbase;
 
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.conf.Configuration;
@@ -26,6 +30,7 @@ import org.slf4j.LoggerFactory;
 
 import com.impetus.client.hbase.config.HBasePropertyReader;
 import com.impetus.client.hbase.schemamanager.HBaseSchemaManager;
+import com.impetus.client.hbase.service.HBaseWriteBuffer;
 import com.impetus.kundera.PersistenceProperties;
 import com.impetus.kundera.client.Client;
 import com.impetus.kundera.configure.ClientProperties.DataStore.Connection;
@@ -57,6 +62,30 @@ public class HBaseClientFactory extends GenericClientFactory
     /** The pool size. */
     private int poolSize;
 
+    private static final int DEFAULT_FLUSH_INTERVAL = 1000;
+
+    private static final int DEFAULT_FLUSH_THREADS = 4;
+
+    private static final int DEFAULT_SCAN_THREADS = 8;
+
+    /** The write buffer size, 0 if writes are not buffered. */
+    private long writeBufferSize;
+
+    /** The write buffer flush interval. */
+    private int flushInterval;
+
+    /** The write buffer flush threads. */
+    private int flushThreads;
+
+    /** The write buffer shared by clients. */
+    private HBaseWriteBuffer writeBuffer;
+
+    /** The scan threads. */
+    private int scanThreads;
+
+    /** The executor running background scans of clients. */
+    private ExecutorService scanExecutor;
+
     @Override
     public void initialize(Map<String, Object> externalProperty)
     {
@@ -96,6 +125,16 @@ public class HBaseClientFactory extends GenericClientFactory
             this.poolSize = Integer.parseInt(poolSize);
         }
 
+        String writeBufferSize = getProperty(externalProperty, puMetadata, HBaseConstants.WRITE_BUFFER_SIZE);
+        String flushInterval = getProperty(externalProperty, puMetadata, HBaseConstants.WRITE_BUFFER_FLUSH_INTERVAL);
+        String flushThreads = getProperty(externalProperty, puMetadata, HBaseConstants.WRITE_BUFFER_FLUSH_THREADS);
+        this.writeBufferSize = StringUtils.isEmpty(writeBufferSize) ? 0 : Long.parseLong(writeBufferSize);
+        this.flushInterval = StringUtils.isEmpty(flushInterval) ? DEFAULT_FLUSH_INTERVAL : Integer
+                .parseInt(flushInterval);
+        this.flushThreads = StringUtils.isEmpty(flushThreads) ? DEFAULT_FLUSH_THREADS : Integer.parseInt(flushThreads);
+        String scanThreads = getProperty(externalProperty, puMetadata, HBaseConstants.SCAN_THREADS);
+        this.scanThreads = StringUtils.isEmpty(scanThreads) ? DEFAULT_SCAN_THREADS : Integer.parseInt(scanThreads);
+
         onValidation(node, port);
 
         Configuration hadoopConf = new Configuration();
@@ -126,13 +165,25 @@ public class HBaseClientFactory extends GenericClientFactory
     protected Object createPoolOrConnection()
     {
         hTablePool = new HTablePool(conf, poolSize);
+        if (writeBufferSize > 0)
+        {
+            writeBuffer = new HBaseWriteBuffer(hTablePool, writeBufferSize, flushInterval, flushThreads);
+        }
+        scanExecutor = Executors.newFixedThreadPool(scanThreads, new ScanThreadFactory());
         return hTablePool;
     }
 
     @Override
     protected Client instantiateClient(String persistenceUnit)
     {
-        return new HBaseClient(indexManager, conf, hTablePool, reader, persistenceUnit, externalProperties, clientMetadata);
+        return new HBaseClient(indexManager, conf, hTablePool, writeBuffer, scanExecutor, reader, persistenceUnit,
+                externalProperties, clientMetadata);
+    }
+
+    private String getProperty(Map<String, Object> externalProperty, PersistenceUnitMetadata puMetadata, String name)
+    {
+        Object value = externalProperty != null ? externalProperty.get(name) : null;
+        return value != null ? value.toString() : puMetadata.getProperties().getProperty(name);
     }
 
     @Override
@@ -144,6 +195,17 @@ public class HBaseClientFactory extends GenericClientFactory
     @Override
     public void destroy()
     {
+        if (writeBuffer != null)
+        {
+            writeBuffer.close();
+            writeBuffer = null;
+        }
+        if (scanExecutor != null)
+        {
+            scanExecutor.shutdownNow();
+            scanExecutor = null;
+        }
+
         // TODO destroy pool
         // hTablePool = null;
 
@@ -186,4 +248,20 @@ public class HBaseClientFactory extends GenericClientFactory
         throw new UnsupportedOperationException("Load balancing feature is not supported in "
                 + this.getClass().getSimpleName());
     }
+
+    /**
+     * Creates daemon threads, so that scans do not keep the JVM alive.
+     */
+    private static final class ScanThreadFactory implements ThreadFactory
+    {
+        private static final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r)
+        {
+            Thread thread = new Thread(r, "kundera-hbase-scan-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
@@ -28,4 +28,31 @@ public final class HBaseConstants
     public static final String ZOOKEEPER_PORT = "zookeeper.port";
 
     public static final String ZOOKEEPER_HOST = "zookeeper.host";
+
+    /** Client side write buffer size per table in bytes, 0 writes through. */
+    public static final String WRITE_BUFFER_SIZE = "kundera.hbase.write.buffer.size";
+
+    /** Maximum milliseconds a write stays in the write buffer. */
+    public static final String WRITE_BUFFER_FLUSH_INTERVAL = "kundera.hbase.write.buffer.flush.interval";
+
+    /** Number of tables flushed in parallel. */
+    public static final String WRITE_BUFFER_FLUSH_THREADS = "kundera.hbase.write.buffer.flush.threads";
+
+    /** Number of threads running background scans. */
+    public static final String SCAN_THREADS = "kundera.hbase.scan.threads";
+
+    /** Query hint, rows fetched per scanner RPC, defaults to fetch size. */
+    public static final String SCAN_CACHING = "kundera.hbase.scan.caching";
+
+    /** Query hint, columns fetched per scanner result, for wide rows. */
+    public static final String SCAN_BATCH = "kundera.hbase.scan.batch";
+
+    /** Query hint, whether an iterator prefetches its next chunk of rows. */
+    public static final String SCAN_PREFETCH = "kundera.hbase.scan.prefetch";
+
+    /**
+     * Query hint, maximum region groups a whole table scan runs in parallel,
+     * sequential scan if unset or lower than 2.
+     */
+    public static final String SCAN_PARALLELISM = "kundera.hbase.scan.parallelism";
 }
@@ -59,4 +59,13 @@ public class HBaseEntityReader extends AbstractEntityReader implements EntityRea
         return super.findById(primaryKey, m, client);
     }
 
+    /**
+     * HBase client reads relation values of each row by findAll.
+     */
+    @Override
+    public boolean isFindAllWithRelations()
+    {
+        return true;
+    }
+
 }
\ No newline at end of file
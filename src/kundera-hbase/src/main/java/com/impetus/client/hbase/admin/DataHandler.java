@@ -16,6 +16,7 @@
 package com.impetus.client.hbase.admin;
 
 import java.io.IOException;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 
@@ -113,11 +114,13 @@ public interface DataHandler
      *            the row id
      * @param relations
      *            the relations
+     * @param dirtyAttributes
+     *            changed attributes, null if all attributes are to be written
      * @throws IOException
      *             Signals that an I/O exception has occurred.
      */
-    void writeData(String tableName, EntityMetadata m, Object entity, Object rowId, List<RelationHolder> relations)
-            throws IOException;
+    void writeData(String tableName, EntityMetadata m, Object entity, Object rowId, List<RelationHolder> relations,
+            BitSet dirtyAttributes) throws IOException;
 
     /**
      * Writes data into Join Table.
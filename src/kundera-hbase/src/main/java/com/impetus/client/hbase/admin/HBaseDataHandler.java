@@ -19,12 +19,14 @@ import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import javax.persistence.ElementCollection;
 import javax.persistence.Embedded;
@@ -52,6 +54,7 @@ import com.impetus.client.hbase.HBaseData;
 import com.impetus.client.hbase.Reader;
 import com.impetus.client.hbase.Writer;
 import com.impetus.client.hbase.service.HBaseReader;
+import com.impetus.client.hbase.service.HBaseWriteBuffer;
 import com.impetus.client.hbase.service.HBaseWriter;
 import com.impetus.client.hbase.utils.HBaseUtils;
 import com.impetus.kundera.Constants;
@@ -79,7 +82,7 @@ public class HBaseDataHandler implements DataHandler
     /** the log used by this class. */
     private static Logger log = LoggerFactory.getLogger(HBaseDataHandler.class);
 
-    /** The admin. */
+    /** The admin, created on first use. */
     private HBaseAdmin admin;
 
     /** The conf. */
@@ -88,6 +91,12 @@ public class HBaseDataHandler implements DataHandler
     /** The h table pool. */
     private HTablePool hTablePool;
 
+    /** The write buffer, null if writes are not buffered. */
+    private HBaseWriteBuffer writeBuffer;
+
+    /** The executor running background scans. */
+    private ExecutorService scanExecutor;
+
     /** The hbase reader. */
     private Reader hbaseReader = new HBaseReader();
 
@@ -108,17 +117,43 @@ public class HBaseDataHandler implements DataHandler
      */
     public HBaseDataHandler(HBaseConfiguration conf, HTablePool hTablePool)
     {
-        try
-        {
-            this.conf = conf;
-            this.hTablePool = hTablePool;
-            this.admin = new HBaseAdmin(conf);
-        }
-        catch (Exception e)
+        this(conf, hTablePool, null, null);
+    }
+
+    /**
+     * Instantiates a new h base data handler.
+     * 
+     * @param conf
+     *            the conf
+     * @param hTablePool
+     *            the h table pool
+     * @param writeBuffer
+     *            the write buffer, null to write through
+     * @param scanExecutor
+     *            the executor running background scans
+     */
+    public HBaseDataHandler(HBaseConfiguration conf, HTablePool hTablePool, HBaseWriteBuffer writeBuffer,
+            ExecutorService scanExecutor)
+    {
+        this.conf = conf;
+        this.hTablePool = hTablePool;
+        this.writeBuffer = writeBuffer;
+        this.scanExecutor = scanExecutor;
+    }
+
+    /**
+     * Gets the admin, connecting to master on first call. Handles copied per
+     * query only read, so they never connect.
+     * 
+     * @return the admin
+     */
+    private synchronized HBaseAdmin getAdmin() throws IOException
+    {
+        if (admin == null)
         {
-            // TODO We need a generic ExceptionTranslator
-            throw new PersistenceException(e);
+            admin = new HBaseAdmin(conf);
         }
+        return admin;
     }
 
     /*
@@ -132,6 +167,7 @@ public class HBaseDataHandler implements DataHandler
     public void createTableIfDoesNotExist(final String tableName, final String... colFamily)
             throws MasterNotRunningException, IOException
     {
+        HBaseAdmin admin = getAdmin();
         if (!admin.tableExists(Bytes.toBytes(tableName)))
         {
             HTableDescriptor htDescriptor = new HTableDescriptor(tableName);
@@ -160,6 +196,7 @@ public class HBaseDataHandler implements DataHandler
 
         try
         {
+            HBaseAdmin admin = getAdmin();
             if (admin.tableExists(tableName))
             {
 
@@ -306,20 +343,41 @@ public class HBaseDataHandler implements DataHandler
      * @see
      * com.impetus.client.hbase.admin.DataHandler#writeData(java.lang.String,
      * com.impetus.kundera.metadata.model.EntityMetadata, java.lang.Object,
-     * java.lang.String, java.util.List)
+     * java.lang.String, java.util.List, java.util.BitSet)
      */
     @Override
-    public void writeData(String tableName, EntityMetadata m, Object entity, Object rowId,
-            List<RelationHolder> relations) throws IOException
+    public void writeData(final String tableName, final EntityMetadata m, final Object entity, final Object rowId,
+            final List<RelationHolder> relations, final BitSet dirtyAttributes) throws IOException
     {
-        HTableInterface hTable = gethTable(tableName);
+        if (writeBuffer != null)
+        {
+            writeBuffer.write(tableName, new HBaseWriteBuffer.Write()
+            {
+                @Override
+                public void write(HTableInterface hTable) throws IOException
+                {
+                    writeData(hTable, tableName, m, entity, rowId, relations, dirtyAttributes);
+                }
+            });
+        }
+        else
+        {
+            HTableInterface hTable = gethTable(tableName);
+            writeData(hTable, tableName, m, entity, rowId, relations, dirtyAttributes);
+            puthTable(hTable);
+        }
+    }
 
+    private void writeData(HTableInterface hTable, String tableName, EntityMetadata m, Object entity, Object rowId,
+            List<RelationHolder> relations, BitSet dirtyAttributes) throws IOException
+    {
         MetamodelImpl metaModel = (MetamodelImpl) KunderaMetadata.INSTANCE.getApplicationMetadata().getMetamodel(
                 m.getPersistenceUnit());
 
         EntityType entityType = metaModel.entity(m.getEntityClazz());
 
-        Set<Attribute> attributes = entityType.getAttributes();
+        Set<Attribute> attributes = MetadataUtils.getAttributesToBeWritten(m, entityType.getAttributes(),
+                dirtyAttributes);
 
         HBaseDataWrapper columnWrapper = new HBaseDataWrapper(rowId, new java.util.HashMap<String, Attribute>(),
                 entity, null);
@@ -357,8 +415,6 @@ public class HBaseDataHandler implements DataHandler
             discriminator.add(new RelationHolder(discrColumn, discrValue));
             hbaseWriter.writeRelations(hTable, rowId, containsEmbeddedObjectsOnly, discriminator, m.getTableName());
         }
-
-        puthTable(hTable);
     }
 
     /*
@@ -766,6 +822,11 @@ public class HBaseDataHandler implements DataHandler
      */
     public void deleteRow(Object rowKey, String tableName, String columnFamilyName) throws IOException
     {
+        // buffered puts of the row must not be applied after its delete.
+        if (writeBuffer != null)
+        {
+            writeBuffer.flush(tableName);
+        }
         hbaseWriter.delete(gethTable(tableName), rowKey, columnFamilyName);
     }
 
@@ -1194,7 +1255,42 @@ public class HBaseDataHandler implements DataHandler
      */
     public void batch_insert(Map<HTableInterface, List<HBaseDataWrapper>> data) throws IOException
     {
-        hbaseWriter.persistRows(data);
+        if (writeBuffer != null)
+        {
+            for (final Map.Entry<HTableInterface, List<HBaseDataWrapper>> rows : data.entrySet())
+            {
+                writeBuffer.write(Bytes.toString(rows.getKey().getTableName()), new HBaseWriteBuffer.Write()
+                {
+                    @Override
+                    public void write(HTableInterface hTable) throws IOException
+                    {
+                        hbaseWriter.persistRows(Collections.singletonMap(hTable, rows.getValue()));
+                    }
+                });
+            }
+        }
+        else
+        {
+            hbaseWriter.persistRows(data);
+        }
+
+        for (HTableInterface hTable : data.keySet())
+        {
+            puthTable(hTable);
+        }
+    }
+
+    /**
+     * Flushes buffered writes, if any.
+     * 
+     * @throws IOException
+     */
+    public void flush() throws IOException
+    {
+        if (writeBuffer != null)
+        {
+            writeBuffer.flush();
+        }
     }
 
     public void setFetchSize(final int fetchSize)
@@ -1202,6 +1298,36 @@ public class HBaseDataHandler implements DataHandler
         ((HBaseReader) hbaseReader).setFetchSize(fetchSize);
     }
 
+    /**
+     * Sets scanner caching, batch and prefetch of next scan.
+     * 
+     * @param caching
+     *            rows fetched per scanner RPC, fetch size if null.
+     * @param batch
+     *            columns fetched per result, whole rows if null.
+     * @param prefetch
+     *            whether next chunk is read while current one is processed.
+     */
+    public void setScanCaching(final Integer caching, final Integer batch, final boolean prefetch)
+    {
+        ((HBaseReader) hbaseReader).setScanCaching(caching, batch);
+        ((HBaseReader) hbaseReader).setPrefetch(prefetch ? scanExecutor : null);
+    }
+
+    /**
+     * Sets parallel scan of region groups for next whole table scan.
+     * 
+     * @param parallelism
+     *            maximum region groups scanned in parallel, sequential scan if
+     *            null.
+     * @param ordered
+     *            whether rows are returned in row key order.
+     */
+    public void setParallelScan(final Integer parallelism, final boolean ordered)
+    {
+        ((HBaseReader) hbaseReader).setParallelScan(scanExecutor, parallelism, ordered);
+    }
+
     public Object next(EntityMetadata m)
     {
         Object entity = null;
@@ -1211,8 +1337,9 @@ public class HBaseDataHandler implements DataHandler
         results.add(result);
         try
         {
-            output = onRead(m.getSchema(), m.getEntityClazz(), m, output, gethTable(m.getSchema()), entity,
-                    m.getRelationNames(), results);
+            // scanner is already open, no table to resolve.
+            output = onRead(m.getSchema(), m.getEntityClazz(), m, output, null, entity, m.getRelationNames(),
+                    results);
         }
         catch (IOException e)
         {
@@ -1223,24 +1350,32 @@ public class HBaseDataHandler implements DataHandler
         return output != null && !output.isEmpty() ? output.get(0) : output;
     }
 
-    // public List next(EntityMetadata m, final int chunkSize)
-    // {
-    // Object entity = null;
-    // List<HBaseData> results = ((HBaseReader) hbaseReader).next(chunkSize);
-    // List output = new ArrayList();
-    // try
-    // {
-    // output = onRead(m.getTableName(), m.getEntityClazz(), m, output,
-    // gethTable(m.getTableName()), entity,
-    // m.getRelationNames(), results);
-    // }
-    // catch (IOException e)
-    // {
-    // log.error("Error during finding next record, Caused by: .", e);
-    // throw new KunderaException(e);
-    // }
-    // return output != null ? output : new ArrayList();
-    // }
+    /**
+     * Reads and populates next chunk of scanned entities.
+     * 
+     * @param m
+     *            entity metadata.
+     * @param chunkSize
+     *            number of rows to read.
+     * @return next entities, empty once scan is complete.
+     */
+    public List next(EntityMetadata m, final int chunkSize)
+    {
+        Object entity = null;
+        List output = new ArrayList(chunkSize);
+        try
+        {
+            List<HBaseData> results = ((HBaseReader) hbaseReader).next(chunkSize);
+            output = onRead(m.getSchema(), m.getEntityClazz(), m, output, null, entity, m.getRelationNames(),
+                    results);
+        }
+        catch (IOException e)
+        {
+            log.error("Error during finding next records, Caused by: .", e);
+            throw new KunderaException(e);
+        }
+        return output;
+    }
 
     public boolean hasNext()
     {
@@ -1261,7 +1396,7 @@ public class HBaseDataHandler implements DataHandler
 
     public HBaseDataHandler getHandle()
     {
-        HBaseDataHandler handler = new HBaseDataHandler(this.conf, this.hTablePool);
+        HBaseDataHandler handler = new HBaseDataHandler(this.conf, this.hTablePool, this.writeBuffer, this.scanExecutor);
         handler.filter = this.filter;
         handler.filters = this.filters;
         return handler;
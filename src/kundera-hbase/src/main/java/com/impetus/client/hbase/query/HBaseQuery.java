@@ -37,6 +37,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.impetus.client.hbase.HBaseClient;
+import com.impetus.client.hbase.HBaseConstants;
 import com.impetus.client.hbase.HBaseEntityReader;
 import com.impetus.client.hbase.utils.HBaseUtils;
 import com.impetus.kundera.client.Client;
@@ -194,7 +195,8 @@ public class HBaseQuery extends QueryImpl
                 else
                 {
                     return ((HBaseClient) client).findByRange(m.getEntityClazz(), m, null, null,
-                            columns.toArray(new String[columns.size()]), null);
+                            columns.toArray(new String[columns.size()]), null,
+                            getIntHint(HBaseConstants.SCAN_PARALLELISM), isOrdered());
                 }
             }
             else
@@ -218,6 +220,7 @@ public class HBaseQuery extends QueryImpl
                     // else setFilter to client and invoke new method. find by
                     // query if isFindById is false! else invoke findById
                     return ((HBaseClient) client).findByQuery(m.getEntityClazz(), m, f,
+                            getIntHint(HBaseConstants.SCAN_PARALLELISM), isOrdered(),
                             columns.toArray(new String[columns.size()]));
                 }
             }
@@ -578,7 +581,35 @@ public class HBaseQuery extends QueryImpl
         // start with 1 as first element is alias.
         List<String> columns = getTranslatedColumns(m, getKunderaQuery().getResult(), 1);
 
+        Object prefetch = getHints().get(HBaseConstants.SCAN_PREFETCH);
         return new ResultIterator((HBaseClient) client, m, persistenceDelegeator,
-                getFetchSize() != null ? getFetchSize() : this.maxResult, translator, columns);
+                getFetchSize() != null ? getFetchSize() : this.maxResult, translator, columns, isReadOnlyStream(),
+                getIntHint(HBaseConstants.SCAN_CACHING), getIntHint(HBaseConstants.SCAN_BATCH), prefetch != null
+                        && Boolean.parseBoolean(prefetch.toString()), getIntHint(HBaseConstants.SCAN_PARALLELISM),
+                isOrdered());
+    }
+
+    /**
+     * Returns true, if query has an ORDER BY clause. Rows of a parallel scan
+     * are then returned in row key order, as sequential scan does.
+     * 
+     * @return true, if ordering is requested.
+     */
+    private boolean isOrdered()
+    {
+        return getKunderaQuery().getOrdering() != null && !getKunderaQuery().getOrdering().isEmpty();
+    }
+
+    /**
+     * Returns value of integer hint, null if not set.
+     * 
+     * @param hintName
+     *            hint name.
+     * @return hint value.
+     */
+    private Integer getIntHint(String hintName)
+    {
+        Object hint = getHints().get(hintName);
+        return hint != null ? Integer.valueOf(hint.toString()) : null;
     }
 }
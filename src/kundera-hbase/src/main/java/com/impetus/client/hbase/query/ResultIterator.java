@@ -16,6 +16,8 @@
 package com.impetus.client.hbase.query;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -66,46 +68,68 @@ class ResultIterator<E> implements IResultIterator<E>
 
     private boolean scrollComplete;
 
+    /** Rows hydrated per chunk. */
+    private int chunkSize;
+
+    /** Current chunk of hydrated entities. */
+    private List<E> chunk = Collections.emptyList();
+
+    private int chunkIndex;
+
+    /** Default rows hydrated per chunk is fetch size, up to this. */
+    private static final int MAX_DEFAULT_CHUNK_SIZE = 1000;
+
+    /** Whether relations are populated without persistence context. */
+    private boolean readOnly;
+
     /** the log used by this class. */
     private static Logger log = LoggerFactory.getLogger(ResultIterator.class);
 
     public ResultIterator(HBaseClient client, EntityMetadata m, PersistenceDelegator pd, int fetchSize,
-            QueryTranslator translator, List<String> columns)
+            QueryTranslator translator, List<String> columns, boolean readOnly, Integer caching, Integer batch,
+            boolean prefetch, Integer parallelism, boolean ordered)
     {
         this.entityMetadata = m;
         this.client = client;
         this.persistenceDelegator = pd;
+        this.chunkSize = caching != null && caching > 0 ? caching : Math.min(fetchSize, MAX_DEFAULT_CHUNK_SIZE);
         this.handler = ((HBaseClient) client).getHandle();
         this.handler.setFetchSize(fetchSize);
+        this.handler.setScanCaching(chunkSize > 0 ? chunkSize : null, batch, prefetch);
+        this.handler.setParallelScan(parallelism, ordered);
         this.fetchSize = fetchSize;
         this.translator = translator;
         this.columns = columns;
+        this.readOnly = readOnly;
         onQuery(m, client);
     }
 
     @Override
     public boolean hasNext()
     {
-
-        boolean available = handler.hasNext();
-        if (!available || fetchSize == 0)
+        if (scrollComplete)
+        {
+            return false;
+        }
+        if (count >= fetchSize || !fetchChunk())
         {
             scrollComplete = true;
             handler.reset();
             return false;
         }
-        return available;
+        return true;
     }
 
     @Override
     public E next()
     {
-        if (!checkOnFetchSize() || scrollComplete)
+        if (!hasNext())
         {
             throw new NoSuchElementException("Nothing to scroll further for:" + entityMetadata.getEntityClazz());
         }
 
-        E result = (E) handler.next(entityMetadata);
+        count++;
+        E result = chunk.get(chunkIndex++);
         if (!entityMetadata.isRelationViaJoinTable()
                 && (entityMetadata.getRelationNames() == null || (entityMetadata.getRelationNames().isEmpty())))
         {
@@ -140,7 +164,7 @@ class ResultIterator<E> implements IResultIterator<E>
             EnhanceEntity ee = (EnhanceEntity) enhanceEntity;
 
             result = (E) client.getReader().recursivelyFindEntities(ee.getEntity(), ee.getRelations(), m,
-                    persistenceDelegator, false);
+                    persistenceDelegator, false, readOnly);
         }
 
         return result;
@@ -274,23 +298,27 @@ class ResultIterator<E> implements IResultIterator<E>
     @Override
     public List<E> next(int chunkSize)
     {
-        throw new UnsupportedOperationException("Fetch in chunks is not yet supported over HBase!");
+        List<E> results = new ArrayList<E>(chunkSize);
+        while (results.size() < chunkSize && hasNext())
+        {
+            results.add(next());
+        }
+        return results;
     }
 
     /**
-     * Check on fetch size. returns true, if count on fetched rows is less than
-     * fetch size.
+     * Hydrates next chunk of rows, if current one is consumed.
      * 
-     * @return
+     * @return true, if an entity is available in chunk.
      */
-    private boolean checkOnFetchSize()
+    private boolean fetchChunk()
     {
-        if (count++ < fetchSize)
+        if (chunkIndex < chunk.size())
         {
             return true;
         }
-        count = 0;
-        scrollComplete = true;
-        return false;
+        chunk = handler.next(entityMetadata, Math.min(chunkSize, fetchSize - count));
+        chunkIndex = 0;
+        return !chunk.isEmpty();
     }
 }
@@ -16,9 +16,16 @@
 package com.impetus.client.hbase.service;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.client.Get;
@@ -40,6 +47,16 @@ import com.impetus.client.hbase.utils.HBaseUtils;
  */
 public class HBaseReader implements Reader
 {
+    /** Orders rows by row key, as a sequential scan returns them. */
+    private static final Comparator<HBaseData> ROW_KEY_ORDER = new Comparator<HBaseData>()
+    {
+        @Override
+        public int compare(HBaseData data1, HBaseData data2)
+        {
+            return Bytes.compareTo(data1.getRowKey(), data2.getRowKey());
+        }
+    };
+
     private ResultScanner scanner = null;
 
     private Iterator<Result> resultsIter;
@@ -48,6 +65,31 @@ public class HBaseReader implements Reader
 
     private Integer counter = 0;
 
+    /** Rows fetched per scanner RPC, fetch size if null. */
+    private Integer caching;
+
+    /** Columns fetched per result, whole rows if null. */
+    private Integer batch;
+
+    /** Executor prefetching next chunk, null to read chunks on demand. */
+    private ExecutorService prefetchExecutor;
+
+    private Future<List<HBaseData>> prefetched;
+
+    /** Last row read, held back as a batched scan may return more of it. */
+    private HBaseData pending;
+
+    private boolean exhausted;
+
+    /** Executor scanning region groups of whole table scans. */
+    private ExecutorService scanExecutor;
+
+    /** Maximum region groups scanned in parallel, sequential scan if null. */
+    private Integer parallelism;
+
+    /** Whether parallel scan returns rows in row key order. */
+    private boolean orderedScan;
+
     /*
      * (non-Javadoc)
      * 
@@ -76,7 +118,8 @@ public class HBaseReader implements Reader
                 scan = new Scan();
             }
             setScanCriteria(filter, columnFamily, null, scan, columns);
-            scanner = hTable.getScanner(scan);
+            setScanCaching(scan);
+            scanner = getScanner(hTable, scan);
             resultsIter = scanner.iterator();
         }
         return scanResults(columnFamily, results);
@@ -193,7 +236,8 @@ public class HBaseReader implements Reader
                 s = new Scan();
             }
             setScanCriteria(filter, columnFamily, qualifier, s, columns);
-            scanner = hTable.getScanner(s);
+            setScanCaching(s);
+            scanner = startRow == null && endRow == null ? getScanner(hTable, s) : hTable.getScanner(s);
             resultsIter = scanner.iterator();
         }
         return scanResults(null, results);
@@ -231,6 +275,51 @@ public class HBaseReader implements Reader
         }
     }
 
+    /**
+     * Sets caching and batch of scan, caching defaults to fetch size.
+     * 
+     * @param s
+     *            scan.
+     */
+    private void setScanCaching(Scan s)
+    {
+        if (caching != null)
+        {
+            s.setCaching(caching);
+        }
+        else if (fetchSize != null && fetchSize > 0)
+        {
+            s.setCaching(fetchSize);
+        }
+        if (batch != null)
+        {
+            s.setBatch(batch);
+        }
+    }
+
+    /**
+     * Returns scanner over whole table, scanning region groups in parallel if
+     * set.
+     * 
+     * @param hTable
+     *            table.
+     * @param s
+     *            scan without start and stop row.
+     * @return scanner.
+     * @throws IOException
+     */
+    private ResultScanner getScanner(HTableInterface hTable, Scan s) throws IOException
+    {
+        if (scanExecutor != null && parallelism != null && parallelism > 1)
+        {
+            // drained scans are sorted once read, letting all groups fetch
+            // at a time.
+            return new ParallelResultScanner(hTable.getConfiguration(), hTable.getTableName(), s, parallelism,
+                    scanExecutor, orderedScan && fetchSize != null);
+        }
+        return hTable.getScanner(s);
+    }
+
     /**
      * Scan and populate {@link HBaseData} collection using scanned results.
      * 
@@ -245,33 +334,80 @@ public class HBaseReader implements Reader
      */
     private List<HBaseData> scanResults(final String columnFamily, List<HBaseData> results) throws IOException
     {
-        HBaseData data = null;
-
         if (fetchSize == null)
         {
-            for (Result result : scanner)
+            List<HBaseData> rows = readChunk(columnFamily, Integer.MAX_VALUE);
+            if (!rows.isEmpty())
             {
-                List<KeyValue> values = result.list();
-                for (KeyValue value : values)
+                if (orderedScan && scanner instanceof ParallelResultScanner)
                 {
-                    data = new HBaseData(columnFamily != null ? columnFamily : new String(value.getFamily()),
-                            value.getRow());
-                    break;
+                    Collections.sort(rows, ROW_KEY_ORDER);
                 }
-                data.setColumns(values);
                 if (results == null)
                 {
                     results = new ArrayList<HBaseData>();
                 }
-                results.add(data);
+                results.addAll(rows);
             }
 
+            scanner.close();
             scanner = null;
             resultsIter = null;
+            exhausted = false;
         }
         return results;
     }
 
+    /**
+     * Reads up to chunk size rows from scanner, joining results of a row split
+     * by scan batch.
+     * 
+     * @param columnFamily
+     *            column family, family of first column if null.
+     * @param chunkSize
+     *            maximum number of rows.
+     * @return rows read, empty once scanner is exhausted.
+     * @throws IOException
+     */
+    private List<HBaseData> readChunk(final String columnFamily, final int chunkSize) throws IOException
+    {
+        List<HBaseData> chunk = new ArrayList<HBaseData>();
+        while (!exhausted && chunk.size() < chunkSize)
+        {
+            Result result = scanner.next();
+            if (result == null)
+            {
+                exhausted = true;
+                if (pending != null)
+                {
+                    chunk.add(pending);
+                    pending = null;
+                }
+            }
+            else if (result.list() != null)
+            {
+                List<KeyValue> values = result.list();
+                if (pending != null && Bytes.equals(pending.getRowKey(), result.getRow()))
+                {
+                    List<KeyValue> columns = new ArrayList<KeyValue>(pending.getColumns());
+                    columns.addAll(values);
+                    pending.setColumns(columns);
+                }
+                else
+                {
+                    if (pending != null)
+                    {
+                        chunk.add(pending);
+                    }
+                    pending = new HBaseData(columnFamily != null ? columnFamily : new String(values.get(0)
+                            .getFamily()), result.getRow());
+                    pending.setColumns(values);
+                }
+            }
+        }
+        return chunk;
+    }
+
     @Override
     public Object[] scanRowKeys(final HTableInterface hTable, final Filter filter, final String columnFamilyName,
             final String columnName, final Class rowKeyClazz) throws IOException
@@ -352,6 +488,104 @@ public class HBaseReader implements Reader
         this.fetchSize = fetchSize;
     }
 
+    /**
+     * Sets caching and batch of next scan.
+     * 
+     * @param caching
+     *            rows fetched per scanner RPC, fetch size if null.
+     * @param batch
+     *            columns fetched per result, whole rows if null.
+     */
+    public void setScanCaching(final Integer caching, final Integer batch)
+    {
+        this.caching = caching;
+        this.batch = batch;
+    }
+
+    /**
+     * Sets parallel scan of region groups for next whole table scan.
+     * 
+     * @param scanExecutor
+     *            executor scanning region groups.
+     * @param parallelism
+     *            maximum region groups scanned in parallel, sequential scan if
+     *            null.
+     * @param ordered
+     *            whether rows are returned in row key order.
+     */
+    public void setParallelScan(final ExecutorService scanExecutor, final Integer parallelism, final boolean ordered)
+    {
+        this.scanExecutor = scanExecutor;
+        this.parallelism = parallelism;
+        this.orderedScan = ordered;
+    }
+
+    /**
+     * Sets executor prefetching the next chunk while the current one is
+     * processed.
+     * 
+     * @param prefetchExecutor
+     *            executor, null to read chunks on demand.
+     */
+    public void setPrefetch(final ExecutorService prefetchExecutor)
+    {
+        this.prefetchExecutor = prefetchExecutor;
+    }
+
+    /**
+     * Returns next chunk of scanned rows. If prefetch is on, a full chunk
+     * triggers the read of the next one in background.
+     * 
+     * @param chunkSize
+     *            number of rows to read.
+     * @return next rows, empty once scanner is exhausted.
+     * @throws IOException
+     */
+    public List<HBaseData> next(final int chunkSize) throws IOException
+    {
+        if (scanner == null)
+        {
+            return Collections.emptyList();
+        }
+
+        List<HBaseData> chunk = prefetched != null ? awaitPrefetch() : readChunk(null, chunkSize);
+        // a parallel scanner fetches ahead itself, a prefetch would only hold
+        // a scan thread waiting on the others.
+        if (prefetchExecutor != null && !exhausted && !(scanner instanceof ParallelResultScanner))
+        {
+            prefetched = prefetchExecutor.submit(new Callable<List<HBaseData>>()
+            {
+                @Override
+                public List<HBaseData> call() throws IOException
+                {
+                    return readChunk(null, chunkSize);
+                }
+            });
+        }
+        return chunk;
+    }
+
+    private List<HBaseData> awaitPrefetch() throws IOException
+    {
+        try
+        {
+            return prefetched.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while prefetching rows.");
+        }
+        catch (ExecutionException e)
+        {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+        finally
+        {
+            prefetched = null;
+        }
+    }
+
     /**
      * 
      * @return next element of HbaseData.
@@ -413,9 +647,33 @@ public class HBaseReader implements Reader
 
     public void reset()
     {
+        if (prefetched != null)
+        {
+            // scanner is not to be closed under a running read.
+            try
+            {
+                awaitPrefetch();
+            }
+            catch (IOException e)
+            {
+                // rows are dropped anyway.
+            }
+        }
+        if (scanner != null)
+        {
+            scanner.close();
+        }
         scanner = null;
         fetchSize = null;
         resultsIter = null;
         counter = 0;
+        caching = null;
+        batch = null;
+        prefetchExecutor = null;
+        pending = null;
+        exhausted = false;
+        scanExecutor = null;
+        parallelism = null;
+        orderedScan = false;
     }
 }
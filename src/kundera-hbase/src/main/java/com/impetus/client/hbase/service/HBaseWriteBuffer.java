@@ -0,0 +1,276 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.hbase.service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.HTablePool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Client side write buffer of a persistence unit, shared by its clients.
+ * Writes to a table go through one table instance taken from the pool with
+ * auto flush off, so puts are buffered and sent once the table's write buffer
+ * is full. The buffer is then flushed by the writing thread, which throttles
+ * writers while a table's buffer is full. A background thread flushes all
+ * tables, in parallel, every flush interval; {@link #flush()} does the same
+ * synchronously at durability points, i.e. batch execution and client close.
+ * <p>
+ * Buffered writes are not visible to reads until flushed. Puts of a failed
+ * flush stay buffered and are sent again by the next one.
+ */
+public final class HBaseWriteBuffer
+{
+    /** the log used by this class. */
+    private static Logger log = LoggerFactory.getLogger(HBaseWriteBuffer.class);
+
+    private final HTablePool hTablePool;
+
+    private final long bufferSize;
+
+    private final ConcurrentMap<String, HTableInterface> tables = new ConcurrentHashMap<String, HTableInterface>();
+
+    private final ExecutorService flushExecutor;
+
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean closed;
+
+    /**
+     * @param hTablePool
+     *            pool tables are taken from.
+     * @param bufferSize
+     *            write buffer size of each table, in bytes.
+     * @param flushInterval
+     *            maximum milliseconds a write stays buffered.
+     * @param flushThreads
+     *            number of tables flushed at a time.
+     */
+    public HBaseWriteBuffer(HTablePool hTablePool, long bufferSize, int flushInterval, int flushThreads)
+    {
+        if (bufferSize <= 0 || flushInterval <= 0 || flushThreads <= 0)
+        {
+            throw new IllegalArgumentException("Write buffer size, flush interval and threads must be positive, but are "
+                    + bufferSize + ", " + flushInterval + " and " + flushThreads);
+        }
+        this.hTablePool = hTablePool;
+        this.bufferSize = bufferSize;
+        this.flushExecutor = Executors.newFixedThreadPool(flushThreads, new FlushThreadFactory());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new FlushThreadFactory());
+        this.scheduler.scheduleWithFixedDelay(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    flush();
+                }
+                catch (IOException e)
+                {
+                    log.warn("Error while flushing write buffers, will be retried, Caused by: {}.", e.getMessage());
+                }
+            }
+        }, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs write on the buffered instance of table, no other write or flush
+     * of the table runs meanwhile.
+     * 
+     * @param tableName
+     *            name of table.
+     * @param write
+     *            write putting rows to table.
+     * @throws IOException
+     *             if table's buffer was flushed and failed.
+     */
+    public void write(String tableName, Write write) throws IOException
+    {
+        if (closed)
+        {
+            throw new IllegalStateException("Write buffer is closed.");
+        }
+        HTableInterface hTable = getTable(tableName);
+        synchronized (hTable)
+        {
+            write.write(hTable);
+        }
+    }
+
+    /**
+     * Flushes buffered writes of a table, e.g. before deleting from it.
+     * 
+     * @param tableName
+     *            name of table.
+     * @throws IOException
+     */
+    public void flush(String tableName) throws IOException
+    {
+        HTableInterface hTable = tables.get(tableName);
+        if (hTable != null)
+        {
+            flush(hTable);
+        }
+    }
+
+    /**
+     * Flushes buffered writes of all tables in parallel, returning once all
+     * are written.
+     * 
+     * @throws IOException
+     *             first failure of a table's flush.
+     */
+    public void flush() throws IOException
+    {
+        List<Future<Void>> flushes = new ArrayList<Future<Void>>(tables.size());
+        for (final HTableInterface hTable : tables.values())
+        {
+            flushes.add(flushExecutor.submit(new Callable<Void>()
+            {
+                @Override
+                public Void call() throws IOException
+                {
+                    flush(hTable);
+                    return null;
+                }
+            }));
+        }
+
+        IOException error = null;
+        for (Future<Void> flush : flushes)
+        {
+            try
+            {
+                flush.get();
+            }
+            catch (ExecutionException e)
+            {
+                if (error == null)
+                {
+                    error = e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(
+                            e.getCause());
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while flushing write buffers.");
+            }
+        }
+        if (error != null)
+        {
+            throw error;
+        }
+    }
+
+    /**
+     * Stops background flushes, flushes all tables and returns them to the
+     * pool.
+     */
+    public void close()
+    {
+        closed = true;
+        scheduler.shutdownNow();
+        try
+        {
+            flush();
+        }
+        catch (IOException e)
+        {
+            log.error("Error while flushing write buffers, buffered writes are lost, Caused by: .", e);
+        }
+        flushExecutor.shutdown();
+        for (HTableInterface hTable : tables.values())
+        {
+            hTable.setAutoFlush(true);
+            try
+            {
+                hTablePool.putTable(hTable);
+            }
+            catch (IOException e)
+            {
+                log.warn("Error while returning table to pool, Caused by: {}.", e.getMessage());
+            }
+        }
+        tables.clear();
+    }
+
+    private HTableInterface getTable(String tableName) throws IOException
+    {
+        HTableInterface hTable = tables.get(tableName);
+        if (hTable == null)
+        {
+            synchronized (tables)
+            {
+                hTable = tables.get(tableName);
+                if (hTable == null)
+                {
+                    hTable = hTablePool.getTable(tableName);
+                    hTable.setAutoFlush(false);
+                    hTable.setWriteBufferSize(bufferSize);
+                    tables.put(tableName, hTable);
+                }
+            }
+        }
+        return hTable;
+    }
+
+    private void flush(HTableInterface hTable) throws IOException
+    {
+        synchronized (hTable)
+        {
+            hTable.flushCommits();
+        }
+    }
+
+    /**
+     * Write putting rows to a buffered table.
+     */
+    public interface Write
+    {
+        void write(HTableInterface hTable) throws IOException;
+    }
+
+    private static final class FlushThreadFactory implements ThreadFactory
+    {
+        private static final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r)
+        {
+            Thread thread = new Thread(r, "kundera-hbase-flush-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -26,6 +26,7 @@ import javax.persistence.PersistenceException;
 import javax.persistence.metamodel.Attribute;
 import javax.persistence.metamodel.SingularAttribute;
 
+import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.client.Delete;
 import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.HTableInterface;
@@ -44,6 +45,7 @@ import com.impetus.kundera.metadata.MetadataUtils;
 import com.impetus.kundera.metadata.model.attributes.AbstractAttribute;
 import com.impetus.kundera.property.PropertyAccessException;
 import com.impetus.kundera.property.PropertyAccessorHelper;
+import com.impetus.kundera.property.RowBuffer;
 
 /**
  * The Class HBaseWriter responsible for all sort of get and put commands to be
@@ -105,6 +107,9 @@ public class HBaseWriter implements Writer
             String columnFamilyName) throws IOException
     {
         Put p = new Put(HBaseUtils.getBytes(rowKey));
+        byte[] family = columnFamilyName.getBytes();
+        long timestamp = System.currentTimeMillis();
+        RowBuffer row = new RowBuffer();
 
         boolean present = false;
         for (String columnName : columns.keySet())
@@ -115,12 +120,10 @@ public class HBaseWriter implements Writer
                 String qualifier = columnName;
                 try
                 {
-                    byte[] qualValInBytes = Bytes.toBytes(qualifier);
                     Object value = PropertyAccessorHelper.getObject(entity, (Field) column.getJavaMember());
                     if (value != null)
                     {
-                        p.add(columnFamilyName.getBytes(), qualValInBytes, System.currentTimeMillis(),
-                                HBaseUtils.getBytes(value));
+                        add(p, family, qualifier, timestamp, value, row);
                         present = true;
                     }
                 }
@@ -327,6 +330,12 @@ public class HBaseWriter implements Writer
             throws IOException
     {
         Put p = new Put(HBaseUtils.getBytes(rowKey));
+        if (columnFamily == null)
+        {
+            return p;
+        }
+        byte[] family = Bytes.toBytes(columnFamily);
+        RowBuffer row = new RowBuffer();
         for (String columnName : columns.keySet())
         {
             Attribute column = columns.get(columnName);
@@ -337,10 +346,9 @@ public class HBaseWriter implements Writer
                 {
                     //Object o = PropertyAccessorHelper.getObject(columnFamilyObj, (Field) column.getJavaMember());
                     Object o = values.get(columnName);
-                    byte[] value = HBaseUtils.getBytes(o);
-                    if (value != null && columnFamily != null)
+                    if (o != null)
                     {
-                        p.add(Bytes.toBytes(columnFamily), Bytes.toBytes(qualifier), value);
+                        add(p, family, qualifier, p.getTimeStamp(), o, row);
                     }
                 }
                 catch (PropertyAccessException e1)
@@ -351,4 +359,35 @@ public class HBaseWriter implements Writer
         }
         return p;
     }
+
+    /**
+     * Adds a column to put. Qualifier and value are encoded into the row
+     * buffer and copied from there straight into the key value, instead of
+     * going through a byte[] each.
+     * 
+     * @param p
+     *            the put
+     * @param family
+     *            column family
+     * @param qualifier
+     *            column name
+     * @param timestamp
+     *            the timestamp
+     * @param value
+     *            column value, not null
+     * @param row
+     *            buffer shared by all columns of this put
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    private void add(Put p, byte[] family, String qualifier, long timestamp, Object value, RowBuffer row)
+            throws IOException
+    {
+        row.clear();
+        int qlength = row.putUTF8(qualifier);
+        int vlength = HBaseUtils.encode(value, row);
+        byte[] rowKey = p.getRow();
+        p.add(new KeyValue(rowKey, 0, rowKey.length, family, 0, family.length, row.array(), 0, qlength, timestamp,
+                KeyValue.Type.Put, row.array(), qlength, vlength));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,416 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.hbase.service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scanner over a whole table, scanning groups of contiguous regions in
+ * parallel. Each group has at most one fetch of its next rows running on the
+ * executor, a group's fetch is resubmitted once the previous one is taken, so
+ * fetches never wait on the reader and rows held are bounded by caching per
+ * group. Fetches end on row boundaries, so a row split by scan batch is never
+ * interleaved with rows of another group.
+ * <p>
+ * If ordered, groups are read one after another in region order, i.e. rows
+ * come in row key order, else rows of each group come as they are fetched.
+ */
+public final class ParallelResultScanner implements ResultScanner
+{
+    /** the log used by this class. */
+    private static Logger log = LoggerFactory.getLogger(ParallelResultScanner.class);
+
+    private static final int DEFAULT_CACHING = 100;
+
+    private final HTableInterface hTable;
+
+    private final ExecutorService executor;
+
+    private final boolean ordered;
+
+    private final List<RegionGroup> groups;
+
+    /** Groups whose fetch completed, in completion order, if not ordered. */
+    private final BlockingQueue<RegionGroup> fetched = new LinkedBlockingQueue<RegionGroup>();
+
+    /** Group being read if ordered. */
+    private int current;
+
+    private int exhausted;
+
+    private Result[] rows = new Result[0];
+
+    private int index;
+
+    private boolean closed;
+
+    /**
+     * Splits scan by region boundaries of table and starts fetching all
+     * groups.
+     * 
+     * @param conf
+     *            configuration.
+     * @param tableName
+     *            name of table.
+     * @param scan
+     *            scan without start and stop row.
+     * @param parallelism
+     *            maximum number of region groups.
+     * @param executor
+     *            executor running fetches.
+     * @param ordered
+     *            whether rows are returned in row key order.
+     * @throws IOException
+     */
+    public ParallelResultScanner(Configuration conf, byte[] tableName, Scan scan, int parallelism,
+            ExecutorService executor, boolean ordered) throws IOException
+    {
+        this(new HTable(conf, tableName), scan, parallelism, executor, ordered);
+    }
+
+    private ParallelResultScanner(HTable hTable, Scan scan, int parallelism, ExecutorService executor,
+            boolean ordered) throws IOException
+    {
+        this(hTable, getStartEndKeys(hTable), scan, parallelism, executor, ordered);
+    }
+
+    /**
+     * Splits scan by given region boundaries and starts fetching all groups.
+     * 
+     * @param hTable
+     *            table, closed with scanner.
+     * @param keys
+     *            start and end keys of table's regions.
+     */
+    ParallelResultScanner(HTableInterface hTable, Pair<byte[][], byte[][]> keys, Scan scan, int parallelism,
+            ExecutorService executor, boolean ordered) throws IOException
+    {
+        this.hTable = hTable;
+        this.executor = executor;
+        this.ordered = ordered;
+
+        try
+        {
+            int regions = keys.getFirst().length;
+            int groupCount = Math.max(1, Math.min(parallelism, regions));
+            int caching = scan.getCaching() > 0 ? scan.getCaching() : DEFAULT_CACHING;
+            this.groups = new ArrayList<RegionGroup>(groupCount);
+            for (int i = 0; i < groupCount; i++)
+            {
+                Scan groupScan = new Scan(scan);
+                if (regions > 0)
+                {
+                    groupScan.setStartRow(keys.getFirst()[i * regions / groupCount]);
+                    groupScan.setStopRow(keys.getSecond()[(i + 1) * regions / groupCount - 1]);
+                }
+                groups.add(new RegionGroup(groupScan, caching));
+            }
+        }
+        catch (IOException e)
+        {
+            hTable.close();
+            throw e;
+        }
+
+        if (log.isDebugEnabled())
+        {
+            log.debug("Scanning {} in {} region groups.", Bytes.toString(hTable.getTableName()), groups.size());
+        }
+        for (RegionGroup group : groups)
+        {
+            group.fetch();
+        }
+    }
+
+    @Override
+    public Result next() throws IOException
+    {
+        while (index >= rows.length)
+        {
+            if (closed || exhausted == groups.size())
+            {
+                return null;
+            }
+            RegionGroup group = ordered ? groups.get(current) : take();
+            rows = group.take();
+            index = 0;
+            if (group.isExhausted())
+            {
+                exhausted++;
+                current++;
+            }
+            else
+            {
+                group.fetch();
+            }
+        }
+        return rows[index++];
+    }
+
+    @Override
+    public Result[] next(int nbRows) throws IOException
+    {
+        List<Result> results = new ArrayList<Result>(nbRows);
+        Result result;
+        while (results.size() < nbRows && (result = next()) != null)
+        {
+            results.add(result);
+        }
+        return results.toArray(new Result[results.size()]);
+    }
+
+    /**
+     * Waits for running fetches and closes scanners of all groups, rows not
+     * read yet are dropped.
+     */
+    @Override
+    public void close()
+    {
+        if (closed)
+        {
+            return;
+        }
+        closed = true;
+        rows = new Result[0];
+        index = 0;
+        for (RegionGroup group : groups)
+        {
+            group.close();
+        }
+        try
+        {
+            hTable.close();
+        }
+        catch (IOException e)
+        {
+            log.warn("Error while closing table, Caused by: {}.", e.getMessage());
+        }
+    }
+
+    @Override
+    public Iterator<Result> iterator()
+    {
+        return new Iterator<Result>()
+        {
+            private Result next;
+
+            @Override
+            public boolean hasNext()
+            {
+                if (next == null)
+                {
+                    try
+                    {
+                        next = ParallelResultScanner.this.next();
+                    }
+                    catch (IOException e)
+                    {
+                        throw new RuntimeException(e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Result next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                Result result = next;
+                next = null;
+                return result;
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException("remove() over scanner is not supported");
+            }
+        };
+    }
+
+    private static Pair<byte[][], byte[][]> getStartEndKeys(HTable hTable) throws IOException
+    {
+        try
+        {
+            return hTable.getStartEndKeys();
+        }
+        catch (IOException e)
+        {
+            hTable.close();
+            throw e;
+        }
+    }
+
+    private RegionGroup take() throws IOException
+    {
+        try
+        {
+            return fetched.take();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while scanning regions.");
+        }
+    }
+
+    /**
+     * Scanner of contiguous regions, fetching up to caching rows at a time.
+     */
+    private final class RegionGroup implements Callable<Result[]>
+    {
+        private final Scan scan;
+
+        private final int caching;
+
+        private ResultScanner scanner;
+
+        /** First result of next fetch, read while looking for row end. */
+        private Result carry;
+
+        private volatile boolean scanComplete;
+
+        private Future<Result[]> fetch;
+
+        private RegionGroup(Scan scan, int caching)
+        {
+            this.scan = scan;
+            this.caching = caching;
+        }
+
+        private void fetch()
+        {
+            FutureTask<Result[]> task = new FutureTask<Result[]>(this)
+            {
+                @Override
+                protected void done()
+                {
+                    if (!ordered)
+                    {
+                        fetched.add(RegionGroup.this);
+                    }
+                }
+            };
+            fetch = task;
+            executor.execute(task);
+        }
+
+        @Override
+        public Result[] call() throws IOException
+        {
+            if (scanner == null)
+            {
+                scanner = hTable.getScanner(scan);
+            }
+            List<Result> results = new ArrayList<Result>(caching + 1);
+            if (carry != null)
+            {
+                results.add(carry);
+                carry = null;
+            }
+            while (!scanComplete)
+            {
+                Result result = scanner.next();
+                if (result == null)
+                {
+                    scanComplete = true;
+                }
+                else if (results.size() < caching
+                        || Bytes.equals(result.getRow(), results.get(results.size() - 1).getRow()))
+                {
+                    results.add(result);
+                }
+                else
+                {
+                    carry = result;
+                    break;
+                }
+            }
+            return results.toArray(new Result[results.size()]);
+        }
+
+        private Result[] take() throws IOException
+        {
+            try
+            {
+                return fetch.get();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while scanning regions.");
+            }
+            catch (ExecutionException e)
+            {
+                throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+            }
+            finally
+            {
+                fetch = null;
+            }
+        }
+
+        private boolean isExhausted()
+        {
+            return scanComplete;
+        }
+
+        private void close()
+        {
+            if (fetch != null)
+            {
+                try
+                {
+                    fetch.get();
+                }
+                catch (Exception e)
+                {
+                    // rows are dropped anyway.
+                }
+            }
+            if (scanner != null)
+            {
+                scanner.close();
+            }
+        }
+    }
+}
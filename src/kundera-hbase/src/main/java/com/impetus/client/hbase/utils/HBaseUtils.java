@@ -7,6 +7,8 @@ import org.apache.hadoop.hbase.util.Bytes;
 
 import com.impetus.kundera.metadata.model.EntityMetadata;
 import com.impetus.kundera.property.PropertyAccessorFactory;
+import com.impetus.kundera.property.PropertyAccessorHelper;
+import com.impetus.kundera.property.RowBuffer;
 
 public final class HBaseUtils
 {
@@ -84,6 +86,28 @@ public final class HBaseUtils
         return null;
     }
 
+    /**
+     * Appends the same bytes {@link #getBytes(Object)} returns to given
+     * buffer. Boolean and BigDecimal are written in HBase's own format, which
+     * differs from Kundera's accessors, so those still go through a byte[].
+     * 
+     * @param o
+     *            value, not null.
+     * @param buffer
+     *            target buffer.
+     * @return number of bytes written.
+     */
+    public static int encode(Object o, RowBuffer buffer)
+    {
+        if (o instanceof Boolean || o instanceof BigDecimal)
+        {
+            byte[] b = getBytes(o);
+            buffer.put(b, 0, b.length);
+            return b.length;
+        }
+        return PropertyAccessorHelper.encode(o, o.getClass(), buffer);
+    }
+
     public static Object fromBytes(EntityMetadata m, byte[] b)
     {
         Class idFieldClass = m.getIdAttribute().getJavaType();
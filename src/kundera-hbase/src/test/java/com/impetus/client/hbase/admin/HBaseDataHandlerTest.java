@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.hbase.admin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import javax.persistence.metamodel.Attribute;
+
+import junit.framework.Assert;
+
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.HTablePool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.impetus.client.hbase.HBaseClient;
+import com.impetus.client.hbase.admin.HBaseDataHandler.HBaseDataWrapper;
+import com.impetus.client.hbase.junits.HTableStubFactory;
+import com.impetus.client.hbase.service.HBaseWriteBuffer;
+import com.impetus.kundera.metadata.KunderaMetadataManager;
+import com.impetus.kundera.metadata.model.EntityMetadata;
+import com.impetus.kundera.metadata.model.KunderaMetadata;
+
+/**
+ * Test case for writes of {@link HBaseDataHandler}, on stub tables.
+ */
+public class HBaseDataHandlerTest
+{
+    private static final String PU = "hbaseMetadataTest";
+
+    private static final String TABLE = "KunderaExamples";
+
+    private EntityManagerFactory emf;
+
+    private HTableStubFactory tables;
+
+    private HTablePool hTablePool;
+
+    private HBaseWriteBuffer writeBuffer;
+
+    private HBaseDataHandler handler;
+
+    private EntityMetadata metadata;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        KunderaMetadata.INSTANCE.setApplicationMetadata(null);
+        emf = Persistence.createEntityManagerFactory(PU);
+        metadata = KunderaMetadataManager.getEntityMetadata(HBasePerson.class);
+
+        tables = new HTableStubFactory();
+        hTablePool = new HTablePool(HBaseConfiguration.create(), 10, tables);
+        writeBuffer = new HBaseWriteBuffer(hTablePool, 1024 * 1024, 60000, 1);
+        handler = new HBaseDataHandler(new HBaseConfiguration(), hTablePool, writeBuffer, null);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        writeBuffer.close();
+        hTablePool.close();
+        emf.close();
+    }
+
+    @Test
+    public void testWriteData() throws Exception
+    {
+        handler.writeData(TABLE, metadata, new HBasePerson("1", "vivek"), "1", null, null);
+        handler.writeData(TABLE, metadata, new HBasePerson("2", "amresh"), "2", null, null);
+        Assert.assertTrue(tables.getPuts(TABLE).isEmpty());
+
+        handler.flush();
+        Assert.assertEquals(2, tables.getPuts(TABLE).size());
+        Assert.assertEquals(Arrays.asList("flush " + TABLE), tables.getEvents());
+
+        // without buffer, writes go through.
+        HBaseDataHandler writeThrough = new HBaseDataHandler(new HBaseConfiguration(), hTablePool, null, null);
+        writeThrough.writeData(TABLE, metadata, new HBasePerson("3", "kuldeep"), "3", null, null);
+        Assert.assertEquals(3, tables.getPuts(TABLE).size());
+    }
+
+    @Test
+    public void testDeleteRow() throws Exception
+    {
+        handler.writeData(TABLE, metadata, new HBasePerson("1", "vivek"), "1", null, null);
+        handler.deleteRow("1", TABLE, metadata.getTableName());
+
+        // buffered put is flushed before delete, so delete wins.
+        Assert.assertEquals(Arrays.asList("flush " + TABLE, "delete " + TABLE), tables.getEvents());
+    }
+
+    @Test
+    public void testBatchInsert() throws Exception
+    {
+        Map<HTableInterface, List<HBaseDataWrapper>> data = new HashMap<HTableInterface, List<HBaseDataWrapper>>();
+        List<HBaseDataWrapper> rows = new ArrayList<HBaseDataWrapper>();
+        rows.add(new HBaseDataWrapper("1", new HashMap<String, Attribute>(), new HBasePerson("1", "vivek"), metadata
+                .getTableName()));
+        rows.add(new HBaseDataWrapper("2", new HashMap<String, Attribute>(), new HBasePerson("2", "amresh"),
+                metadata.getTableName()));
+        data.put(handler.gethTable(TABLE), rows);
+
+        handler.batch_insert(data);
+        Assert.assertTrue(tables.getPuts(TABLE).isEmpty());
+        handler.flush();
+        Assert.assertEquals(2, tables.getPuts(TABLE).size());
+
+        // batch table went back to pool next to buffered one.
+        Assert.assertEquals(2, tables.getTableCount(TABLE));
+        handler.gethTable(TABLE);
+        Assert.assertEquals(2, tables.getTableCount(TABLE));
+    }
+
+    @Test
+    public void testFlushOnClose() throws Exception
+    {
+        HBaseClient client = new HBaseClient(null, new HBaseConfiguration(), hTablePool, writeBuffer, null, null, PU,
+                null, null);
+        handler.writeData(TABLE, metadata, new HBasePerson("1", "vivek"), "1", null, null);
+        client.close();
+        Assert.assertEquals(1, tables.getPuts(TABLE).size());
+
+        // close of write buffer, as on destroy of client factory, flushes too.
+        handler.writeData(TABLE, metadata, new HBasePerson("2", "amresh"), "2", null, null);
+        writeBuffer.close();
+        Assert.assertEquals(2, tables.getPuts(TABLE).size());
+    }
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.hbase.admin;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+@Entity
+@Table(name = "PERSON", schema = "KunderaExamples@hbaseMetadataTest")
+public class HBasePerson
+{
+    @Id
+    private String personId;
+
+    @Column(name = "PERSON_NAME")
+    private String personName;
+
+    @Column(name = "AGE")
+    private int age;
+
+    public HBasePerson()
+    {
+    }
+
+    public HBasePerson(String personId, String personName)
+    {
+        this.personId = personId;
+        this.personName = personName;
+    }
+
+    public String getPersonId()
+    {
+        return personId;
+    }
+
+    public String getPersonName()
+    {
+        return personName;
+    }
+
+    public int getAge()
+    {
+        return age;
+    }
+}
@@ -0,0 +1,415 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.hbase.junits;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.HTableInterfaceFactory;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Table factory of an HTablePool, creating in memory stand-ins of tables for
+ * junits running without HBase. Tables buffer puts the way HTable does when
+ * auto flush is off, and record what reaches the server. Scans read rows added
+ * by {@link #addRow(String, KeyValue...)}, split by scan batch as region
+ * servers do.
+ */
+public class HTableStubFactory implements HTableInterfaceFactory
+{
+    /** Flushes and deletes in the order they reach the server. */
+    private final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+
+    private final Map<String, List<Put>> puts = new ConcurrentHashMap<String, List<Put>>();
+
+    private final List<HTableStub> tables = Collections.synchronizedList(new ArrayList<HTableStub>());
+
+    private final Map<String, NavigableMap<byte[], Result>> rows = new ConcurrentHashMap<String, NavigableMap<byte[], Result>>();
+
+    private final List<Scan> scans = Collections.synchronizedList(new ArrayList<Scan>());
+
+    private final AtomicInteger openScanners = new AtomicInteger();
+
+    private volatile int failures;
+
+    private int scanFailures;
+
+    @Override
+    public HTableInterface createHTableInterface(Configuration config, byte[] tableName)
+    {
+        HTableStub table = new HTableStub(config, Bytes.toString(tableName));
+        tables.add(table);
+        return (HTableInterface) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[] { HTableInterface.class }, table);
+    }
+
+    @Override
+    public void releaseHTableInterface(HTableInterface table) throws IOException
+    {
+        table.close();
+    }
+
+    /**
+     * @return flushes and deletes, as "flush TABLE" and "delete TABLE".
+     */
+    public List<String> getEvents()
+    {
+        return events;
+    }
+
+    /**
+     * @param tableName
+     *            name of table.
+     * @return puts of table which reached the server.
+     */
+    public List<Put> getPuts(String tableName)
+    {
+        List<Put> tablePuts = puts.get(tableName);
+        return tablePuts != null ? tablePuts : Collections.<Put> emptyList();
+    }
+
+    /**
+     * @param tableName
+     *            name of table.
+     * @return number of table instances created.
+     */
+    public int getTableCount(String tableName)
+    {
+        int count = 0;
+        synchronized (tables)
+        {
+            for (HTableStub table : tables)
+            {
+                count += table.tableName.equals(tableName) ? 1 : 0;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param tableName
+     *            name of table.
+     * @return true, if all instances of table have auto flush on.
+     */
+    public boolean isAutoFlush(String tableName)
+    {
+        synchronized (tables)
+        {
+            for (HTableStub table : tables)
+            {
+                if (table.tableName.equals(tableName) && !table.autoFlush)
+                {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds a row to be returned by scans of table.
+     * 
+     * @param tableName
+     *            name of table.
+     * @param columns
+     *            columns of row.
+     */
+    public synchronized void addRow(String tableName, KeyValue... columns)
+    {
+        NavigableMap<byte[], Result> tableRows = rows.get(tableName);
+        if (tableRows == null)
+        {
+            tableRows = new TreeMap<byte[], Result>(Bytes.BYTES_COMPARATOR);
+            rows.put(tableName, tableRows);
+        }
+        KeyValue[] sorted = columns.clone();
+        Arrays.sort(sorted, KeyValue.COMPARATOR);
+        tableRows.put(sorted[0].getRow(), new Result(sorted));
+    }
+
+    /**
+     * @return scans opened, in order.
+     */
+    public List<Scan> getScans()
+    {
+        return scans;
+    }
+
+    /**
+     * @return number of scanners opened and not closed yet.
+     */
+    public int getOpenScanners()
+    {
+        return openScanners.get();
+    }
+
+    /**
+     * Fails next flushes of any table, failed puts stay buffered.
+     * 
+     * @param failures
+     *            number of flushes to fail.
+     */
+    public void failFlushes(int failures)
+    {
+        this.failures = failures;
+    }
+
+    /**
+     * Fails next scanners opened on any table.
+     * 
+     * @param scanFailures
+     *            number of scanners to fail.
+     */
+    public synchronized void failScans(int scanFailures)
+    {
+        this.scanFailures = scanFailures;
+    }
+
+    private synchronized void onScan(String tableName) throws IOException
+    {
+        if (scanFailures > 0)
+        {
+            scanFailures--;
+            throw new IOException("Scan of " + tableName + " failed.");
+        }
+    }
+
+    private synchronized void onFlush(String tableName, List<Put> buffer) throws IOException
+    {
+        if (failures > 0)
+        {
+            failures--;
+            throw new IOException("Flush of " + tableName + " failed.");
+        }
+        List<Put> tablePuts = puts.get(tableName);
+        if (tablePuts == null)
+        {
+            tablePuts = Collections.synchronizedList(new ArrayList<Put>());
+            puts.put(tableName, tablePuts);
+        }
+        tablePuts.addAll(buffer);
+        events.add("flush " + tableName);
+    }
+
+    /**
+     * Instance of a table.
+     */
+    private class HTableStub implements InvocationHandler
+    {
+        private final Configuration config;
+
+        private final String tableName;
+
+        private final List<Put> buffer = new ArrayList<Put>();
+
+        private long bufferedSize;
+
+        private long writeBufferSize = 2 * 1024 * 1024;
+
+        private boolean autoFlush = true;
+
+        private HTableStub(Configuration config, String tableName)
+        {
+            this.config = config;
+            this.tableName = tableName;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            String name = method.getName();
+            if (name.equals("put"))
+            {
+                List<Put> added = args[0] instanceof Put ? Collections.singletonList((Put) args[0])
+                        : (List<Put>) args[0];
+                for (Put put : added)
+                {
+                    buffer.add(put);
+                    bufferedSize += put.heapSize();
+                }
+                if (autoFlush || bufferedSize > writeBufferSize)
+                {
+                    flushCommits();
+                }
+                return null;
+            }
+            else if (name.equals("flushCommits"))
+            {
+                flushCommits();
+                return null;
+            }
+            else if (name.equals("getScanner") && args[0] instanceof Scan)
+            {
+                onScan(tableName);
+                return new ScannerStub(tableName, (Scan) args[0]);
+            }
+            else if (name.equals("delete"))
+            {
+                events.add("delete " + tableName);
+                return null;
+            }
+            else if (name.equals("setAutoFlush"))
+            {
+                autoFlush = (Boolean) args[0];
+                return null;
+            }
+            else if (name.equals("isAutoFlush"))
+            {
+                return autoFlush;
+            }
+            else if (name.equals("setWriteBufferSize"))
+            {
+                writeBufferSize = (Long) args[0];
+                return null;
+            }
+            else if (name.equals("getWriteBufferSize"))
+            {
+                return writeBufferSize;
+            }
+            else if (name.equals("getTableName"))
+            {
+                return Bytes.toBytes(tableName);
+            }
+            else if (name.equals("getConfiguration"))
+            {
+                return config;
+            }
+            else if (name.equals("close"))
+            {
+                flushCommits();
+                return null;
+            }
+            else if (name.equals("hashCode"))
+            {
+                return System.identityHashCode(proxy);
+            }
+            else if (name.equals("equals"))
+            {
+                return proxy == args[0];
+            }
+            else if (name.equals("toString"))
+            {
+                return "HTableStub(" + tableName + ")";
+            }
+            throw new UnsupportedOperationException(name + " is not supported by table stub.");
+        }
+
+        private void flushCommits() throws IOException
+        {
+            if (!buffer.isEmpty())
+            {
+                onFlush(tableName, buffer);
+                buffer.clear();
+                bufferedSize = 0;
+            }
+        }
+    }
+
+    /**
+     * Scanner over rows of a table, returning at most scan batch columns per
+     * result.
+     */
+    private class ScannerStub implements ResultScanner
+    {
+        private final List<Result> results = new ArrayList<Result>();
+
+        private int index;
+
+        private boolean closed;
+
+        private ScannerStub(String tableName, Scan scan)
+        {
+            scans.add(scan);
+            openScanners.incrementAndGet();
+            NavigableMap<byte[], Result> tableRows = rows.get(tableName);
+            if (tableRows == null)
+            {
+                return;
+            }
+            synchronized (HTableStubFactory.this)
+            {
+                tableRows = scan.getStartRow().length > 0 ? tableRows.tailMap(scan.getStartRow(), true) : tableRows;
+                tableRows = scan.getStopRow().length > 0 ? tableRows.headMap(scan.getStopRow(), false) : tableRows;
+                for (Result row : tableRows.values())
+                {
+                    List<KeyValue> columns = row.list();
+                    int batch = scan.getBatch() > 0 ? scan.getBatch() : columns.size();
+                    for (int i = 0; i < columns.size(); i += batch)
+                    {
+                        results.add(new Result(columns.subList(i, Math.min(i + batch, columns.size()))));
+                    }
+                }
+            }
+        }
+
+        @Override
+        public Result next() throws IOException
+        {
+            if (closed)
+            {
+                throw new IOException("Scanner is closed.");
+            }
+            return index < results.size() ? results.get(index++) : null;
+        }
+
+        @Override
+        public Result[] next(int nbRows) throws IOException
+        {
+            List<Result> next = new ArrayList<Result>(nbRows);
+            Result result;
+            while (next.size() < nbRows && (result = next()) != null)
+            {
+                next.add(result);
+            }
+            return next.toArray(new Result[next.size()]);
+        }
+
+        @Override
+        public void close()
+        {
+            if (!closed)
+            {
+                closed = true;
+                openScanners.decrementAndGet();
+            }
+        }
+
+        @Override
+        public Iterator<Result> iterator()
+        {
+            return results.subList(index, results.size()).iterator();
+        }
+    }
+}
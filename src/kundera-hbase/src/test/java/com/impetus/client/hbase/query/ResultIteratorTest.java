@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.hbase.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+import junit.framework.Assert;
+
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.HTablePool;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.impetus.client.hbase.HBaseClient;
+import com.impetus.client.hbase.admin.HBasePerson;
+import com.impetus.client.hbase.junits.HTableStubFactory;
+import com.impetus.kundera.metadata.KunderaMetadataManager;
+import com.impetus.kundera.metadata.model.ClientMetadata;
+import com.impetus.kundera.metadata.model.EntityMetadata;
+import com.impetus.kundera.metadata.model.KunderaMetadata;
+
+/**
+ * Test case for chunked reads of {@link ResultIterator}, on stub tables.
+ */
+public class ResultIteratorTest
+{
+    private static final String PU = "hbaseMetadataTest";
+
+    private static final String TABLE = "KunderaExamples";
+
+    private EntityManagerFactory emf;
+
+    private HTableStubFactory tables;
+
+    private HTablePool hTablePool;
+
+    private ExecutorService scanExecutor;
+
+    private HBaseClient client;
+
+    private EntityMetadata metadata;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        KunderaMetadata.INSTANCE.setApplicationMetadata(null);
+        emf = Persistence.createEntityManagerFactory(PU);
+        metadata = KunderaMetadataManager.getEntityMetadata(HBasePerson.class);
+
+        tables = new HTableStubFactory();
+        for (int i = 1; i <= 5; i++)
+        {
+            byte[] row = Bytes.toBytes(String.valueOf(i));
+            byte[] family = Bytes.toBytes(metadata.getTableName());
+            tables.addRow(TABLE, new KeyValue(row, family, Bytes.toBytes("PERSON_NAME"), Bytes.toBytes("person" + i)),
+                    new KeyValue(row, family, Bytes.toBytes("AGE"), Bytes.toBytes(20 + i)));
+        }
+        hTablePool = new HTablePool(HBaseConfiguration.create(), 10, tables);
+        scanExecutor = Executors.newFixedThreadPool(2);
+        client = new HBaseClient(null, new HBaseConfiguration(), hTablePool, null, scanExecutor, null, PU, null,
+                new ClientMetadata());
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        scanExecutor.shutdownNow();
+        hTablePool.close();
+        emf.close();
+    }
+
+    @Test
+    public void testBatchSplitRows()
+    {
+        // each row comes as one result per column, split across chunks.
+        ResultIterator<HBasePerson> iterator = iterate(5, 3, 1, false);
+        Assert.assertEquals(3, tables.getScans().get(0).getCaching());
+        Assert.assertEquals(1, tables.getScans().get(0).getBatch());
+
+        List<HBasePerson> persons = new ArrayList<HBasePerson>();
+        while (iterator.hasNext())
+        {
+            persons.add(iterator.next());
+        }
+        assertPersons(persons, 1, 5);
+    }
+
+    @Test
+    public void testNextAcrossChunks()
+    {
+        ResultIterator<HBasePerson> iterator = iterate(5, 2, null, false);
+        assertPersons(iterator.next(3), 1, 3);
+        assertPersons(iterator.next(3), 4, 5);
+        Assert.assertTrue(iterator.next(3).isEmpty());
+        Assert.assertFalse(iterator.hasNext());
+
+        // scanner is closed once exhausted.
+        Assert.assertEquals(0, tables.getOpenScanners());
+    }
+
+    @Test
+    public void testPrefetch()
+    {
+        ResultIterator<HBasePerson> iterator = iterate(5, 2, 1, true);
+        assertPersons(iterator.next(5), 1, 5);
+        Assert.assertFalse(iterator.hasNext());
+        Assert.assertEquals(0, tables.getOpenScanners());
+    }
+
+    @Test
+    public void testReset()
+    {
+        // fetch size reached before scanner is exhausted.
+        ResultIterator<HBasePerson> iterator = iterate(3, 2, null, false);
+        Assert.assertEquals(1, tables.getOpenScanners());
+        assertPersons(iterator.next(5), 1, 3);
+        Assert.assertFalse(iterator.hasNext());
+        Assert.assertEquals(0, tables.getOpenScanners());
+    }
+
+    private ResultIterator<HBasePerson> iterate(int fetchSize, Integer caching, Integer batch, boolean prefetch)
+    {
+        HBaseQuery.QueryTranslator translator = new HBaseQuery(null, null, null).new QueryTranslator();
+        return new ResultIterator<HBasePerson>(client, metadata, null, fetchSize, translator,
+                new ArrayList<String>(), false, caching, batch, prefetch, null, false);
+    }
+
+    private void assertPersons(List<HBasePerson> persons, int first, int last)
+    {
+        Assert.assertEquals(last - first + 1, persons.size());
+        for (HBasePerson person : persons)
+        {
+            Assert.assertEquals(String.valueOf(first), person.getPersonId());
+            Assert.assertEquals("person" + first, person.getPersonName());
+            Assert.assertEquals(20 + first, person.getAge());
+            first++;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.hbase.service;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import junit.framework.Assert;
+
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.HTablePool;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.impetus.client.hbase.junits.HTableStubFactory;
+
+/**
+ * Test case for {@link HBaseWriteBuffer}.
+ */
+public class HBaseWriteBufferTest
+{
+    private HTableStubFactory tables;
+
+    private HTablePool hTablePool;
+
+    private HBaseWriteBuffer writeBuffer;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        tables = new HTableStubFactory();
+        hTablePool = new HTablePool(HBaseConfiguration.create(), 10, tables);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        if (writeBuffer != null)
+        {
+            writeBuffer.close();
+        }
+        hTablePool.close();
+    }
+
+    @Test
+    public void testBufferedWrites() throws Exception
+    {
+        writeBuffer = new HBaseWriteBuffer(hTablePool, 1024 * 1024, 60000, 2);
+        writeBuffer.write("USERS", put("1"));
+        writeBuffer.write("USERS", put("2"));
+        writeBuffer.write("TWEETS", put("1"));
+
+        // one buffered instance per table.
+        Assert.assertEquals(1, tables.getTableCount("USERS"));
+        Assert.assertEquals(1, tables.getTableCount("TWEETS"));
+        Assert.assertTrue(tables.getPuts("USERS").isEmpty());
+        Assert.assertTrue(tables.getPuts("TWEETS").isEmpty());
+
+        writeBuffer.flush("USERS");
+        Assert.assertEquals(2, tables.getPuts("USERS").size());
+        Assert.assertTrue(tables.getPuts("TWEETS").isEmpty());
+
+        writeBuffer.write("USERS", put("3"));
+        writeBuffer.flush();
+        Assert.assertEquals(3, tables.getPuts("USERS").size());
+        Assert.assertEquals(1, tables.getPuts("TWEETS").size());
+        Assert.assertEquals(Arrays.asList("flush USERS"), tables.getEvents().subList(0, 1));
+    }
+
+    @Test
+    public void testFlushWhenFull() throws Exception
+    {
+        // each put exceeds buffer, so is sent by writing thread.
+        writeBuffer = new HBaseWriteBuffer(hTablePool, 1, 60000, 1);
+        writeBuffer.write("USERS", put("1"));
+        Assert.assertEquals(1, tables.getPuts("USERS").size());
+        writeBuffer.write("USERS", put("2"));
+        Assert.assertEquals(2, tables.getPuts("USERS").size());
+    }
+
+    @Test
+    public void testIntervalFlush() throws Exception
+    {
+        writeBuffer = new HBaseWriteBuffer(hTablePool, 1024 * 1024, 50, 1);
+        writeBuffer.write("USERS", put("1"));
+        for (int i = 0; i < 200 && tables.getPuts("USERS").isEmpty(); i++)
+        {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(1, tables.getPuts("USERS").size());
+    }
+
+    @Test
+    public void testFailedFlush() throws Exception
+    {
+        writeBuffer = new HBaseWriteBuffer(hTablePool, 1024 * 1024, 60000, 1);
+        writeBuffer.write("USERS", put("1"));
+        tables.failFlushes(1);
+        try
+        {
+            writeBuffer.flush();
+            Assert.fail("Failed flush must be reported.");
+        }
+        catch (IOException e)
+        {
+            Assert.assertTrue(tables.getPuts("USERS").isEmpty());
+        }
+
+        // failed puts stay buffered for next flush.
+        writeBuffer.flush();
+        Assert.assertEquals(1, tables.getPuts("USERS").size());
+    }
+
+    @Test
+    public void testClose() throws Exception
+    {
+        writeBuffer = new HBaseWriteBuffer(hTablePool, 1024 * 1024, 60000, 1);
+        writeBuffer.write("USERS", put("1"));
+        writeBuffer.close();
+        Assert.assertEquals(1, tables.getPuts("USERS").size());
+
+        // table is back in pool, writing through again.
+        Assert.assertTrue(tables.isAutoFlush("USERS"));
+        hTablePool.getTable("USERS");
+        Assert.assertEquals(1, tables.getTableCount("USERS"));
+
+        try
+        {
+            writeBuffer.write("USERS", put("2"));
+            Assert.fail("Writes must be refused once closed.");
+        }
+        catch (IllegalStateException e)
+        {
+            Assert.assertEquals(1, tables.getPuts("USERS").size());
+        }
+        writeBuffer = null;
+    }
+
+    private HBaseWriteBuffer.Write put(final String rowKey)
+    {
+        return new HBaseWriteBuffer.Write()
+        {
+            @Override
+            public void write(HTableInterface hTable) throws IOException
+            {
+                Put put = new Put(Bytes.toBytes(rowKey));
+                put.add(Bytes.toBytes("USER"), Bytes.toBytes("NAME"), Bytes.toBytes("name" + rowKey));
+                hTable.put(put);
+            }
+        };
+    }
+}
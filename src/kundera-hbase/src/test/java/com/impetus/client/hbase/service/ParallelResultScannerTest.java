@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * * Copyright 2013 Impetus Infotech.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ ******************************************************************************/
+package com.impetus.client.hbase.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.Assert;
+
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.impetus.client.hbase.junits.HTableStubFactory;
+
+/**
+ * Test case for {@link ParallelResultScanner}.
+ */
+public class ParallelResultScannerTest
+{
+    private static final String TABLE = "USERS";
+
+    private static final int ROWS = 20;
+
+    /** Five regions, split every four rows. */
+    private static final Pair<byte[][], byte[][]> REGIONS = new Pair<byte[][], byte[][]>(keys("", "r04", "r08",
+            "r12", "r16"), keys("r04", "r08", "r12", "r16", ""));
+
+    private HTableStubFactory tables;
+
+    private ExecutorService executor;
+
+    private ParallelResultScanner scanner;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        tables = new HTableStubFactory();
+        for (int i = 0; i < ROWS; i++)
+        {
+            String row = String.format("r%02d", i);
+            tables.addRow(TABLE, column(row, "NAME"), column(row, "AGE"));
+        }
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        if (scanner != null)
+        {
+            scanner.close();
+        }
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testRegionGroups() throws Exception
+    {
+        scanner = scan(new Scan(), 2, true);
+        Assert.assertEquals(ROWS, read().size());
+
+        // contiguous regions are grouped, groups together cover the table.
+        Assert.assertEquals(Arrays.asList(",r08", "r08,"), ranges());
+        scanner.close();
+
+        // a group per region at most.
+        tables.getScans().clear();
+        scanner = scan(new Scan(), 10, true);
+        Assert.assertEquals(ROWS, read().size());
+        Assert.assertEquals(Arrays.asList(",r04", "r04,r08", "r08,r12", "r12,r16", "r16,"), ranges());
+    }
+
+    @Test
+    public void testOrdered() throws Exception
+    {
+        Scan scan = new Scan();
+        scan.setCaching(3);
+        scanner = scan(scan, 5, true);
+
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < ROWS; i++)
+        {
+            expected.add(String.format("r%02d", i));
+        }
+        Assert.assertEquals(expected, read());
+        Assert.assertNull(scanner.next());
+        scanner.close();
+
+        scanner = scan(scan, 5, false);
+        List<String> unordered = read();
+        Assert.assertEquals(ROWS, unordered.size());
+        Assert.assertEquals(new TreeSet<String>(expected), new TreeSet<String>(unordered));
+    }
+
+    @Test
+    public void testBatchedRows() throws Exception
+    {
+        // a result per column, fetches must not split a row between groups.
+        Scan scan = new Scan();
+        scan.setBatch(1);
+        scan.setCaching(3);
+        scanner = scan(scan, 5, false);
+
+        List<String> results = read();
+        Assert.assertEquals(2 * ROWS, results.size());
+        for (int i = 0; i < results.size(); i += 2)
+        {
+            Assert.assertEquals(results.get(i), results.get(i + 1));
+        }
+        Assert.assertEquals(ROWS, new TreeSet<String>(results).size());
+    }
+
+    @Test
+    public void testRegionBoundary() throws Exception
+    {
+        // row equal to the end key of a group is read by the next group only.
+        Scan scan = new Scan();
+        scan.setCaching(1);
+        scanner = scan(scan, 2, false);
+
+        List<String> results = read();
+        Assert.assertEquals(ROWS, results.size());
+        Assert.assertEquals(1, count(results, "r08"));
+        Assert.assertEquals(1, count(results, "r00"));
+        Assert.assertEquals(1, count(results, "r19"));
+    }
+
+    @Test
+    public void testWorkerFailure() throws Exception
+    {
+        tables.failScans(1);
+        scanner = scan(new Scan(), 2, true);
+        try
+        {
+            read();
+            Assert.fail("Failure of a group scan should be thrown to the caller.");
+        }
+        catch (IOException e)
+        {
+            Assert.assertTrue(e.getMessage().contains(TABLE));
+        }
+        scanner.close();
+        Assert.assertEquals(0, tables.getOpenScanners());
+    }
+
+    @Test
+    public void testEarlyClose() throws Exception
+    {
+        Scan scan = new Scan();
+        scan.setCaching(2);
+        scanner = scan(scan, 2, true);
+        Assert.assertEquals("r00", Bytes.toString(scanner.next().getRow()));
+        scanner.close();
+
+        // scanners of both groups were opened, none is left open.
+        Assert.assertEquals(2, tables.getScans().size());
+        Assert.assertEquals(0, tables.getOpenScanners());
+        Assert.assertNull(scanner.next());
+    }
+
+    private ParallelResultScanner scan(Scan scan, int parallelism, boolean ordered) throws IOException
+    {
+        return new ParallelResultScanner(tables.createHTableInterface(HBaseConfiguration.create(),
+                Bytes.toBytes(TABLE)), REGIONS, scan, parallelism, executor, ordered);
+    }
+
+    /**
+     * @return row keys of results, in order read.
+     */
+    private List<String> read() throws IOException
+    {
+        List<String> results = new ArrayList<String>();
+        Result result;
+        while ((result = scanner.next()) != null)
+        {
+            results.add(Bytes.toString(result.getRow()));
+        }
+        return results;
+    }
+
+    /**
+     * @return start and stop rows of scans opened, sorted.
+     */
+    private List<String> ranges()
+    {
+        List<String> ranges = new ArrayList<String>();
+        for (Scan scan : tables.getScans())
+        {
+            ranges.add(Bytes.toString(scan.getStartRow()) + "," + Bytes.toString(scan.getStopRow()));
+        }
+        return new ArrayList<String>(new TreeSet<String>(ranges));
+    }
+
+    private static int count(List<String> results, String row)
+    {
+        int count = 0;
+        for (String result : results)
+        {
+            count += result.equals(row) ? 1 : 0;
+        }
+        return count;
+    }
+
+    private static KeyValue column(String row, String qualifier)
+    {
+        return new KeyValue(Bytes.toBytes(row), Bytes.toBytes("PERSON"), Bytes.toBytes(qualifier),
+                Bytes.toBytes(row + qualifier));
+    }
+
+    private static byte[][] keys(String... keys)
+    {
+        byte[][] bytes = new byte[keys.length][];
+        for (int i = 0; i < keys.length; i++)
+        {
+            bytes[i] = Bytes.toBytes(keys[i]);
+        }
+        return bytes;
+    }
+}
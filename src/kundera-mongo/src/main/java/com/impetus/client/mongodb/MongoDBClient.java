@@ -16,6 +16,7 @@
 package com.impetus.client.mongodb;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -534,7 +535,7 @@ public class MongoDBClient extends ClientBase implements Client<MongoDBQuery>, B
     protected void onPersist(EntityMetadata entityMetadata, Object entity, Object id, List<RelationHolder> rlHolders)
     {
         Map<String, List<DBObject>> collections = new HashMap<String, List<DBObject>>();
-        collections = onPersist(collections, entity, id, entityMetadata, rlHolders, isUpdate);
+        collections = onPersist(collections, entity, id, entityMetadata, rlHolders, isUpdate, dirtyAttributes);
         onFlushCollection(collections);
     }
 
@@ -607,7 +608,7 @@ public class MongoDBClient extends ClientBase implements Client<MongoDBQuery>, B
                     List<RelationHolder> relationHolders = getRelationHolders(node);
                     EntityMetadata metadata = KunderaMetadataManager.getEntityMetadata(node.getDataClass());
                     collections = onPersist(collections, node.getData(), node.getEntityId(), metadata, relationHolders,
-                            node.isUpdate());
+                            node.isUpdate(), getDirtyAttributes(node, metadata));
                     indexNode(node, metadata);
                 }
                 node.handlePostEvent();
@@ -651,16 +652,18 @@ public class MongoDBClient extends ClientBase implements Client<MongoDBQuery>, B
      *            relation holders.
      * @param isUpdate
      *            if it is an update
+     * @param dirtyAttributes
+     *            changed attributes, null if all attributes are to be written
      * @return collection of DB objects.
      */
     private Map<String, List<DBObject>> onPersist(Map<String, List<DBObject>> collections, Object entity, Object id,
-            EntityMetadata metadata, List<RelationHolder> relationHolders, boolean isUpdate)
+            EntityMetadata metadata, List<RelationHolder> relationHolders, boolean isUpdate, BitSet dirtyAttributes)
     {
         persistenceUnit = metadata.getPersistenceUnit();
         String documentName = metadata.getTableName();
         DBObject document = null;
         document = new BasicDBObject();
-        document = handler.getDocumentFromEntity(document, metadata, entity, relationHolders);
+        document = handler.getDocumentFromEntity(document, metadata, entity, relationHolders, dirtyAttributes);
 
         if (isUpdate)
         {
@@ -680,16 +683,26 @@ public class MongoDBClient extends ClientBase implements Client<MongoDBQuery>, B
             DBCollection dbCollection = mongoDb.getCollection(documentName);
             // dbCollection.findAndModify(query, document);
 
-            DBObject obj = dbCollection.findOne(query);
-            if (obj != null)
+            if (dirtyAttributes != null)
             {
-                obj.putAll(document);
-
-                dbCollection.save(obj);
+                // Set changed fields only, inserting document if not present.
+                document.removeField("_id");
+                dbCollection.update(query, new BasicDBObject("$set", document), true, false, getWriteConcern(),
+                        encoder);
             }
             else
             {
-                dbCollection.save(document);
+                DBObject obj = dbCollection.findOne(query);
+                if (obj != null)
+                {
+                    obj.putAll(document);
+
+                    dbCollection.save(obj);
+                }
+                else
+                {
+                    dbCollection.save(document);
+                }
             }
         }
         else
@@ -17,6 +17,7 @@ package com.impetus.client.mongodb;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -37,6 +38,7 @@ import com.impetus.client.mongodb.utils.MongoDBUtils;
 import com.impetus.kundera.client.EnhanceEntity;
 import com.impetus.kundera.db.RelationHolder;
 import com.impetus.kundera.metadata.KunderaMetadataManager;
+import com.impetus.kundera.metadata.MetadataUtils;
 import com.impetus.kundera.metadata.model.EntityMetadata;
 import com.impetus.kundera.metadata.model.KunderaMetadata;
 import com.impetus.kundera.metadata.model.MetamodelImpl;
@@ -199,12 +201,14 @@ public final class MongoDBDataHandler
      *            the entity
      * @param relations
      *            the relations
+     * @param dirtyAttributes
+     *            changed attributes, null if all attributes are to be written
      * @return the document from entity
      * @throws PropertyAccessException
      *             the property access exception
      */
-    DBObject getDocumentFromEntity(DBObject dbObj, EntityMetadata m, Object entity, List<RelationHolder> relations)
-            throws PropertyAccessException
+    DBObject getDocumentFromEntity(DBObject dbObj, EntityMetadata m, Object entity, List<RelationHolder> relations,
+            BitSet dirtyAttributes) throws PropertyAccessException
     {
         // List<Column> columns = m.getColumnsAsList();
 
@@ -228,7 +232,7 @@ public final class MongoDBDataHandler
         Set<Attribute> columns = entityType.getAttributes();
         for (Attribute column : columns)
         {
-            if (!column.equals(m.getIdAttribute()))
+            if (!column.equals(m.getIdAttribute()) && MetadataUtils.isAttributeToBeWritten(m, column, dirtyAttributes))
             {
                 try
                 {
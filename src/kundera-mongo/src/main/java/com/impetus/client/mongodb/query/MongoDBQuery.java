@@ -510,6 +510,6 @@ public class MongoDBQuery extends QueryImpl
         Client client = persistenceDelegeator.getClient(m);
         return new ResultIterator((MongoDBClient) client, m, createMongoQuery(m, getKunderaQuery()
                 .getFilterClauseQueue()), getOrderByClause(), getKeys(m, getKunderaQuery().getResult()),persistenceDelegeator,
-                getFetchSize() != null ? getFetchSize() : this.maxResult);
+                getFetchSize() != null ? getFetchSize() : this.maxResult, isReadOnlyStream());
     }
 }
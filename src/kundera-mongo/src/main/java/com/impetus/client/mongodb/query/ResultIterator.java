@@ -52,13 +52,17 @@ class ResultIterator<E> implements IResultIterator<E>
 
     private PersistenceDelegator persistenceDelegator;
 
+    /** Whether relations are populated without persistence context. */
+    private boolean readOnly;
+
     public ResultIterator(MongoDBClient client, EntityMetadata m, BasicDBObject basicDBObject,
-            BasicDBObject orderByClause, BasicDBObject keys, PersistenceDelegator pd, int fetchSize)
+            BasicDBObject orderByClause, BasicDBObject keys, PersistenceDelegator pd, int fetchSize, boolean readOnly)
     {
         this.m = m;
         this.client = client;
         this.fetchSize = fetchSize;
         this.persistenceDelegator = pd;
+        this.readOnly = readOnly;
         this.handler = new MongoDBDataHandler();
         onQuery(orderByClause, basicDBObject, keys);
     }
@@ -139,7 +143,7 @@ class ResultIterator<E> implements IResultIterator<E>
             EnhanceEntity ee = (EnhanceEntity) enhanceEntity;
 
             result = (E) client.getReader().recursivelyFindEntities(ee.getEntity(), ee.getRelations(), m,
-                    persistenceDelegator, false);
+                    persistenceDelegator, false, readOnly);
         }
         return result;
     }